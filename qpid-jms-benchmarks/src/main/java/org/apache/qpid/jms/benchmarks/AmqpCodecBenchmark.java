@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.JmsQueue;
+import org.apache.qpid.jms.meta.JmsConnectionId;
+import org.apache.qpid.jms.meta.JmsConnectionInfo;
+import org.apache.qpid.jms.meta.JmsConsumerId;
+import org.apache.qpid.jms.meta.JmsConsumerInfo;
+import org.apache.qpid.jms.provider.amqp.AmqpConnection;
+import org.apache.qpid.jms.provider.amqp.AmqpConsumer;
+import org.apache.qpid.jms.provider.amqp.message.AmqpCodec;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsBytesMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMapMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsObjectMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsStreamMessageFacade;
+import org.apache.qpid.jms.provider.amqp.message.AmqpJmsTextMessageFacade;
+import org.apache.qpid.proton.codec.ReadableBuffer;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Measures the cost of encoding outbound and decoding inbound messages of each JMS
+ * message type with the AMQP codec.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmqpCodecBenchmark {
+
+    @Param({ "message", "text", "bytes", "map", "stream", "object" })
+    private String messageType;
+
+    @Param({ "256" })
+    private int payloadSize;
+
+    private AmqpConsumer consumer;
+    private AmqpJmsMessageFacade outbound;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        JmsConnectionId connectionId = new JmsConnectionId("ID:BENCHMARK:1");
+        AmqpConnection connection = Mockito.mock(AmqpConnection.class);
+        Mockito.when(connection.getResourceInfo()).thenReturn(new JmsConnectionInfo(connectionId));
+
+        consumer = Mockito.mock(AmqpConsumer.class);
+        Mockito.when(consumer.getConnection()).thenReturn(connection);
+        Mockito.when(consumer.getDestination()).thenReturn(new JmsQueue("benchmark"));
+        Mockito.when(consumer.getResourceInfo()).thenReturn(new JmsConsumerInfo(new JmsConsumerId(connectionId.toString(), 1, 1), null));
+
+        outbound = createMessage(connection);
+        outbound.setDestination(new JmsQueue("benchmark"));
+        outbound.setMessageId("ID:BENCHMARK:1:1:1-1");
+        outbound.setTimestamp(System.currentTimeMillis());
+        outbound.setApplicationProperty("property", "value");
+
+        ByteBuf buffer = AmqpCodec.encodeMessage(outbound);
+        try {
+            encoded = new byte[buffer.readableBytes()];
+            buffer.readBytes(encoded);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buffer = AmqpCodec.encodeMessage(outbound);
+        try {
+            return buffer.readableBytes();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Benchmark
+    public AmqpJmsMessageFacade decode() throws Exception {
+        return AmqpCodec.decodeMessage(consumer, ReadableBuffer.ByteBufferReader.wrap(encoded));
+    }
+
+    @Benchmark
+    public void decodeAndReadMessage(Blackhole blackhole) throws Exception {
+        AmqpJmsMessageFacade inbound = AmqpCodec.decodeMessage(consumer, ReadableBuffer.ByteBufferReader.wrap(encoded));
+
+        blackhole.consume(inbound.getApplicationProperty("property"));
+        blackhole.consume(inbound.copy());
+    }
+
+    private AmqpJmsMessageFacade createMessage(AmqpConnection connection) throws Exception {
+        final byte[] payload = new byte[payloadSize];
+
+        switch (messageType) {
+            case "text": {
+                AmqpJmsTextMessageFacade message = new AmqpJmsTextMessageFacade();
+                message.initialize(connection);
+                message.setText(new String(new char[payloadSize]).replace('\0', 'a'));
+                return message;
+            }
+            case "bytes": {
+                AmqpJmsBytesMessageFacade message = new AmqpJmsBytesMessageFacade();
+                message.initialize(connection);
+                message.getOutputStream().write(payload);
+                message.reset();
+                return message;
+            }
+            case "map": {
+                AmqpJmsMapMessageFacade message = new AmqpJmsMapMessageFacade();
+                message.initialize(connection);
+                for (int i = 0; i < 16; ++i) {
+                    message.put("key-" + i, i);
+                }
+                message.put("payload", payload);
+                return message;
+            }
+            case "stream": {
+                AmqpJmsStreamMessageFacade message = new AmqpJmsStreamMessageFacade();
+                message.initialize(connection);
+                for (int i = 0; i < 16; ++i) {
+                    message.put(i);
+                }
+                message.put(payload);
+                return message;
+            }
+            case "object": {
+                AmqpJmsObjectMessageFacade message = new AmqpJmsObjectMessageFacade();
+                message.initialize(connection);
+                message.setObject(payload);
+                return message;
+            }
+            default: {
+                AmqpJmsMessageFacade message = new AmqpJmsMessageFacade();
+                message.initialize(connection);
+                return message;
+            }
+        }
+    }
+}
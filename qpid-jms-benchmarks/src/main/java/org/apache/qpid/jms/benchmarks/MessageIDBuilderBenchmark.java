@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.message.JmsMessageIDBuilder;
+import org.apache.qpid.jms.meta.JmsProducerId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of producing a Message ID with each of the built in ID builders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageIDBuilderBenchmark {
+
+    private static final String CONNECTION_ID = "ID:2ea6d7d2-c539-4d47-9e2e-a9d9c2dcd7d4:1";
+
+    @Param({ "DEFAULT", "UUID", "UUID_STRING", "PREFIXED_UUID_STRING" })
+    private String builderType;
+
+    private JmsMessageIDBuilder builder;
+    private JmsProducerId producerId;
+    private String producerIdString;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        builder = JmsMessageIDBuilder.BUILTIN.create(builderType);
+        producerId = new JmsProducerId(CONNECTION_ID, 1, 1);
+        producerIdString = producerId.toString();
+    }
+
+    /**
+     * The path taken by the client when sending, the builder is handed the producer ID itself.
+     */
+    @Benchmark
+    public Object createMessageID() {
+        return builder.createMessageID(producerId, ++sequence);
+    }
+
+    /**
+     * The String based variant, kept for comparison with the producer ID based path.
+     */
+    @Benchmark
+    public Object createMessageIDFromString() {
+        return builder.createMessageID(producerIdString, ++sequence);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+import org.apache.qpid.jms.message.JmsMessage;
+import org.apache.qpid.jms.message.facade.test.JmsTestMessageFacade;
+import org.apache.qpid.jms.util.FifoMessageQueue;
+import org.apache.qpid.jms.util.MessageQueue;
+import org.apache.qpid.jms.util.PriorityMessageQueue;
+import org.apache.qpid.jms.util.SpscMessageQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the consumer message queue implementations, both filling and draining a
+ * prefetch sized batch on one thread and handing messages between a producer thread
+ * and a consumer thread as the connection and session threads do.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageQueueBenchmark {
+
+    @Param({ "fifo", "priority", "spsc" })
+    private String queueType;
+
+    @Param({ "1000" })
+    private int prefetch;
+
+    private MessageQueue queue;
+    private JmsInboundMessageDispatch[] envelopes;
+
+    @Setup
+    public void setUp() {
+        switch (queueType) {
+            case "priority":
+                queue = new PriorityMessageQueue();
+                break;
+            case "spsc":
+                queue = new SpscMessageQueue();
+                break;
+            default:
+                queue = new FifoMessageQueue(prefetch);
+                break;
+        }
+
+        queue.start();
+
+        envelopes = new JmsInboundMessageDispatch[prefetch];
+        for (int i = 0; i < prefetch; ++i) {
+            JmsTestMessageFacade facade = new JmsTestMessageFacade();
+            facade.setPriority((byte) (i % 10));
+
+            envelopes[i] = new JmsInboundMessageDispatch(i);
+            envelopes[i].setMessage(new JmsMessage(facade));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        queue.close();
+    }
+
+    @Benchmark
+    @Group("fillAndDrain")
+    @GroupThreads(1)
+    public int fillAndDrain() {
+        for (JmsInboundMessageDispatch envelope : envelopes) {
+            queue.enqueue(envelope);
+        }
+
+        int drained = 0;
+        while (queue.dequeueNoWait() != null) {
+            drained++;
+        }
+
+        return drained;
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public void enqueue() {
+        // Bound the backlog so the producer cannot run away from the consumer
+        if (queue.size() < prefetch) {
+            queue.enqueue(envelopes[0]);
+        }
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public JmsInboundMessageDispatch dequeue() throws InterruptedException {
+        return queue.dequeue(1);
+    }
+}
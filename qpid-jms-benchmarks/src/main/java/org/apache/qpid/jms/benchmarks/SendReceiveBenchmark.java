@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.test.testpeer.TestAmqpPeer;
+import org.apache.qpid.jms.test.testpeer.describedtypes.sections.AmqpValueDescribedType;
+import org.apache.qpid.jms.test.testpeer.matchers.AcceptedMatcher;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedInteger;
+import org.hamcrest.Matcher;
+import org.hamcrest.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full client round trip over a real socket to an in-process test peer, a
+ * synchronous send that waits for the peer to accept the message and a receive from a
+ * zero prefetch consumer that pulls a message from the peer and acknowledges it.
+ *
+ * The peer is script driven so each operation includes queuing the peer expectation for
+ * it, results are comparable between client versions but not to a real broker.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SendReceiveBenchmark {
+
+    @Param({ "" })
+    private String connectionOptions;
+
+    private TestAmqpPeer testPeer;
+    private Connection connection;
+    private MessageProducer producer;
+    private MessageConsumer consumer;
+    private Message message;
+    private AmqpValueDescribedType content;
+    private int nextIncomingId;
+
+    @Setup
+    public void setUp() throws Exception {
+        testPeer = new TestAmqpPeer();
+        testPeer.expectSaslPlain("guest", "guest");
+        testPeer.expectOpen();
+        testPeer.expectBegin();
+
+        // The test peer does not send empty frames to keep the connection alive
+        String options = "?jms.prefetchPolicy.all=0&amqp.idleTimeout=0";
+        if (!connectionOptions.isEmpty()) {
+            options += "&" + connectionOptions;
+        }
+
+        JmsConnectionFactory factory = new JmsConnectionFactory("amqp://localhost:" + testPeer.getServerPort() + options);
+        connection = factory.createConnection("guest", "guest");
+        connection.setClientID("benchmark");
+
+        testPeer.expectBegin();
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        Queue queue = session.createQueue("benchmark");
+
+        // Grant enough credit up front that the producer never blocks waiting for more
+        testPeer.expectSenderAttach(Matchers.notNullValue(), Matchers.notNullValue(), false, false, false, 0, Integer.MAX_VALUE, null, null);
+        producer = session.createProducer(queue);
+
+        testPeer.expectReceiverAttach();
+        consumer = session.createConsumer(queue);
+
+        connection.start();
+        testPeer.waitForAllHandlersToComplete(5000);
+
+        message = session.createTextMessage("content");
+        content = new AmqpValueDescribedType("content");
+        nextIncomingId = 1;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        testPeer.expectClose();
+        connection.close();
+        testPeer.close();
+    }
+
+    @Benchmark
+    public Message send() throws Exception {
+        testPeer.expectTransfer((Matcher<Binary>) null);
+        producer.send(message);
+        return message;
+    }
+
+    @Benchmark
+    public Message receive() throws Exception {
+        testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, content, 1, false, false,
+            Matchers.greaterThanOrEqualTo(UnsignedInteger.ONE), nextIncomingId++, false);
+        testPeer.expectDisposition(true, new AcceptedMatcher());
+
+        return consumer.receive();
+    }
+}
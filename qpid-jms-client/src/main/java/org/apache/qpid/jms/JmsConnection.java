@@ -19,10 +19,15 @@ package org.apache.qpid.jms;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -77,15 +82,19 @@ import org.apache.qpid.jms.policy.JmsPresettlePolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
 import org.apache.qpid.jms.provider.AsyncResult;
 import org.apache.qpid.jms.provider.Provider;
+import org.apache.qpid.jms.provider.ProviderCompletableFuture;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
 import org.apache.qpid.jms.provider.ProviderException;
 import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.provider.ProviderListener;
 import org.apache.qpid.jms.provider.ProviderSynchronization;
 import org.apache.qpid.jms.util.FifoMessageQueue;
+import org.apache.qpid.jms.util.IOExceptionSupport;
 import org.apache.qpid.jms.util.MessageQueue;
 import org.apache.qpid.jms.util.PriorityMessageQueue;
 import org.apache.qpid.jms.util.QpidJMSThreadFactory;
+import org.apache.qpid.jms.util.SharedThreadPool;
+import org.apache.qpid.jms.util.SpscMessageQueue;
 import org.apache.qpid.jms.util.ThreadPoolUtils;
 import org.apache.qpid.jms.util.URISupport;
 import org.slf4j.Logger;
@@ -106,7 +115,9 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
     private final AtomicBoolean started = new AtomicBoolean();
     private final AtomicReference<IOException> failureCause = new AtomicReference<>();
     private final JmsConnectionInfo connectionInfo;
-    private final ThreadPoolExecutor executor;
+    private final ExecutorService executor;
+    private final SharedThreadPool sharedThreadPool;
+    private final AtomicBoolean sharedThreadPoolReleased = new AtomicBoolean();
 
     private ExceptionListener exceptionListener;
     private JmsMessageFactory messageFactory;
@@ -127,18 +138,29 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         // will also serve as a means of preventing JVM shutdown should a client application
         // not have it's own mechanism for doing so if the configuration specifies that the
         // Connection create this thread as a non-daemon thread.
-        executor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
-            new QpidJMSThreadFactory("QpidJMS Connection Executor: " + connectionInfo.getId(), connectionInfo.isUseDaemonThread()));
+        if (connectionInfo.getSharedExecutorThreads() > 0) {
+            // The connection and its sessions share threads with other connections, which
+            // are always daemon threads.
+            sharedThreadPool = SharedThreadPool.acquire(connectionInfo.getSharedExecutorThreads());
+            executor = sharedThreadPool.newSerialExecutor("QpidJMS Connection Executor: " + connectionInfo.getId(), null);
+        } else {
+            sharedThreadPool = null;
 
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+            ThreadPoolExecutor connectionExecutor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new QpidJMSThreadFactory("QpidJMS Connection Executor: " + connectionInfo.getId(), connectionInfo.isUseDaemonThread()));
 
-        // We need to start the core thread in order for it to prevent JVM shutdown as our
-        // single non-daemon thread.
-        executor.execute(new Runnable() {
-            @Override
-            public void run() {
-            }
-        });
+            connectionExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy());
+
+            // We need to start the core thread in order for it to prevent JVM shutdown as our
+            // single non-daemon thread.
+            connectionExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+
+            executor = connectionExecutor;
+        }
 
         this.provider = provider;
         this.provider.setProviderListener(this);
@@ -146,6 +168,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
             this.provider.start();
         } catch (Exception e) {
             executor.shutdown();
+            releaseSharedThreadPool();
             throw JmsExceptionSupport.create(e);
         }
 
@@ -173,6 +196,8 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
                 executor.shutdown();
             } catch (Throwable ignored) {}
 
+            releaseSharedThreadPool();
+
             throw JmsExceptionSupport.create(ex);
         }
 
@@ -254,6 +279,8 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
                 LOG.warn("Error shutting down thread pool: " + executor + ". This exception will be ignored.", e);
             }
 
+            releaseSharedThreadPool();
+
             if (provider != null) {
                 provider.close();
                 provider = null;
@@ -467,6 +494,8 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
 
         if (isLocalMessagePriority()) {
             messageQueue = new PriorityMessageQueue();
+        } else if (isLockFreeMessageQueue()) {
+            messageQueue = new SpscMessageQueue();
         } else {
             messageQueue = new FifoMessageQueue(configuredPrefetch);
         }
@@ -482,6 +511,8 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         consumerInfo.setNoLocal(false);
         consumerInfo.setBrowser(false);
         consumerInfo.setPrefetchSize(configuredPrefetch);
+        consumerInfo.setAdaptivePrefetch(getPrefetchPolicy().isAdaptivePrefetch((JmsSession) null, jmsDestination, durable, false));
+        consumerInfo.setPrefetchBytes(getPrefetchPolicy().getConfiguredPrefetchBytes((JmsSession) null, jmsDestination, durable, false));
         consumerInfo.setRedeliveryPolicy(getRedeliveryPolicy().copy());
         consumerInfo.setLocalMessageExpiry(isLocalMessageExpiry());
         consumerInfo.setPresettle(false);
@@ -649,7 +680,13 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
-    protected boolean isTemporaryDestinationDeleted(JmsDestination destination) {
+    /**
+     * @param destination
+     *      the temporary destination to check.
+     *
+     * @return true if the temporary destination is not one currently open on this connection.
+     */
+    public boolean isTemporaryDestinationDeleted(JmsDestination destination) {
         return !tempDestinations.containsKey(destination);
     }
 
@@ -778,6 +815,23 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
+    void send(List<JmsOutboundMessageDispatch> envelopes, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        try {
+            ProviderFuture request = provider.newProviderFuture(synchronization);
+            requests.put(request, request);
+            try {
+                provider.send(envelopes, request);
+                request.sync();
+            } finally {
+                requests.remove(request);
+            }
+        } catch (Exception ioe) {
+            throw JmsExceptionSupport.create(ioe);
+        }
+    }
+
     void acknowledge(JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
         acknowledge(envelope, ackType, null);
     }
@@ -915,6 +969,17 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
+    void grantCredit(JmsConsumerId consumerId, int credit, AsyncResult request) throws JMSException {
+        checkClosedOrFailed();
+
+        try {
+            // Not waited on, the outcome of the grant is reported to the given request.
+            provider.grantCredit(consumerId, credit, request);
+        } catch (Exception ioe) {
+            throw JmsExceptionSupport.create(ioe);
+        }
+    }
+
     //----- Property setters and getters -------------------------------------//
 
     @Override
@@ -1048,6 +1113,14 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         this.connectionInfo.setLocalMessagePriority(localMessagePriority);
     }
 
+    public boolean isLockFreeMessageQueue() {
+        return connectionInfo.isLockFreeMessageQueue();
+    }
+
+    public void setLockFreeMessageQueue(boolean lockFreeMessageQueue) {
+        this.connectionInfo.setLockFreeMessageQueue(lockFreeMessageQueue);
+    }
+
     public long getCloseTimeout() {
         return connectionInfo.getCloseTimeout();
     }
@@ -1167,6 +1240,24 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         return connectionInfo.isUseDaemonThread();
     }
 
+    public int getSharedExecutorThreads() {
+        return connectionInfo.getSharedExecutorThreads();
+    }
+
+    /**
+     * @return the pool shared with other connections that sessions run their executors on,
+     *         or null if the connection does not use one.
+     */
+    SharedThreadPool getSharedThreadPool() {
+        return sharedThreadPool;
+    }
+
+    private void releaseSharedThreadPool() {
+        if (sharedThreadPool != null && sharedThreadPoolReleased.compareAndSet(false, true)) {
+            sharedThreadPool.release();
+        }
+    }
+
     public boolean isCloseLinksThatFailOnReconnect() {
         return connectionInfo.isCloseLinksThatFailOnReconnect();
     }
@@ -1262,24 +1353,48 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         provider.create(connectionInfo, request);
         request.sync();
 
+        // Each stage below sends all of its creates before waiting on any of the responses
+        // so that recovery takes a few round trips rather than one per resource.
+        List<ProviderFuture> pending = new ArrayList<>(tempDestinations.size());
+
         for (JmsTemporaryDestination tempDestination : tempDestinations.values()) {
             request = provider.newProviderFuture();
             provider.create(tempDestination, request);
-            request.sync();
+            pending.add(request);
+        }
+
+        // A temporary destination only takes its new address once the remote has answered,
+        // consumers on it must wait for that before they can be created.
+        for (ProviderFuture created : pending) {
+            created.sync();
         }
 
+        pending = new ArrayList<>(connectionConsumers.size());
+
         for (JmsConnectionConsumer connectionConsumer : connectionConsumers.values()) {
             JmsConsumerInfo consumerInfo = connectionConsumer.getConsumerInfo();
             if (!consumerInfo.isClosed()) {
                 request = provider.newProviderFuture();
                 provider.create(consumerInfo, request);
-                request.sync();
+                pending.add(request);
             }
         }
 
+        for (ProviderFuture created : pending) {
+            created.sync();
+        }
+
         for (JmsSession session : sessions.values()) {
             session.onConnectionRecovery(provider);
         }
+
+        for (JmsSession session : sessions.values()) {
+            session.onSessionRecovery(provider);
+        }
+
+        for (JmsSession session : sessions.values()) {
+            session.awaitConnectionRecovery();
+        }
     }
 
     @Override
@@ -1346,6 +1461,85 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
+    //----- Asynchronous provider interface methods --------------------------//
+
+    /*
+     * The returned futures are completed on the provider thread, callers must move any
+     * further work onto another thread before it can block or call into the provider.
+     */
+
+    CompletableFuture<Void> createResourceAsync(JmsResource resource, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        ProviderCompletableFuture request = new ProviderCompletableFuture(synchronization);
+        requests.put(request, request);
+        try {
+            provider.create(resource, request);
+        } catch (Exception ex) {
+            requests.remove(request);
+            throw JmsExceptionSupport.create(ex);
+        }
+
+        return trackAsyncRequest(request);
+    }
+
+    CompletableFuture<Void> startResourceAsync(JmsResource resource, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        ProviderCompletableFuture request = new ProviderCompletableFuture(synchronization);
+        requests.put(request, request);
+        try {
+            provider.start(resource, request);
+        } catch (Exception ex) {
+            requests.remove(request);
+            throw JmsExceptionSupport.create(ex);
+        }
+
+        return trackAsyncRequest(request);
+    }
+
+    CompletableFuture<Void> destroyResourceAsync(JmsResource resource, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        ProviderCompletableFuture request = new ProviderCompletableFuture(synchronization);
+        requests.put(request, request);
+        try {
+            provider.destroy(resource, request);
+        } catch (Exception ex) {
+            requests.remove(request);
+            throw JmsExceptionSupport.create(ex);
+        }
+
+        return trackAsyncRequest(request);
+    }
+
+    CompletableFuture<Void> commitAsync(JmsTransactionInfo transactionInfo, JmsTransactionInfo nextTransactionId, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        ProviderCompletableFuture request = new ProviderCompletableFuture(synchronization);
+        requests.put(request, request);
+        try {
+            provider.commit(transactionInfo, nextTransactionId, request);
+        } catch (Exception ex) {
+            requests.remove(request);
+            throw JmsExceptionSupport.create(ex);
+        }
+
+        return trackAsyncRequest(request);
+    }
+
+    private CompletableFuture<Void> trackAsyncRequest(ProviderCompletableFuture request) {
+        return request.handle((result, error) -> {
+            requests.remove(request);
+            if (error != null) {
+                // Report the same exception types a blocking request would have thrown.
+                throw new CompletionException(JmsExceptionSupport.create(IOExceptionSupport.create(error)));
+            }
+
+            return result;
+        });
+    }
+
     @Override
     public void onConnectionFailure(final IOException ex) {
         providerFailed(ex);
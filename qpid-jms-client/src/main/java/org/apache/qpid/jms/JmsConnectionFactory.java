@@ -84,6 +84,7 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
     private boolean forceSyncSend;
     private boolean forceAsyncAcks;
     private boolean localMessagePriority;
+    private boolean lockFreeMessageQueue;
     private boolean localMessageExpiry = true;
     private boolean receiveLocalOnly;
     private boolean receiveNoWaitLocalOnly;
@@ -94,6 +95,7 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
     private boolean validatePropertyNames = true;
     private boolean awaitClientID = true;
     private boolean useDaemonThread = false;
+    private int sharedExecutorThreads;
     private long sendTimeout = JmsConnectionInfo.DEFAULT_SEND_TIMEOUT;
     private long requestTimeout = JmsConnectionInfo.DEFAULT_REQUEST_TIMEOUT;
     private long closeTimeout = JmsConnectionInfo.DEFAULT_CLOSE_TIMEOUT;
@@ -492,6 +494,26 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
         this.localMessagePriority = localMessagePriority;
     }
 
+    /**
+     * @return the lockFreeMessageQueue configuration option.
+     */
+    public boolean isLockFreeMessageQueue() {
+        return this.lockFreeMessageQueue;
+    }
+
+    /**
+     * Enables the use of a lock free queue to hold the prefetched messages of MessageConsumer
+     * instances, which avoids a lock hand off between the connection thread that delivers a
+     * message and the thread that receives it.  A consumer blocked in receive spins briefly
+     * before parking so this trades some CPU for lower receive latency.  This option has no
+     * effect when local message priority is enabled.
+     *
+     * @param lockFreeMessageQueue true if consumers should use a lock free message queue.
+     */
+    public void setLockFreeMessageQueue(boolean lockFreeMessageQueue) {
+        this.lockFreeMessageQueue = lockFreeMessageQueue;
+    }
+
     /**
      * Returns the prefix applied to Queues that are created by the client.
      *
@@ -916,6 +938,28 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
         this.useDaemonThread = useDaemonThread;
     }
 
+    public int getSharedExecutorThreads() {
+        return sharedExecutorThreads;
+    }
+
+    /**
+     * Sets the number of threads in a pool shared by all connections in the JVM that use
+     * the same value, on which the Connection and its Sessions run their executors for
+     * message delivery in place of creating a thread for each.  The tasks of any one executor
+     * still run in order, one at a time.  The shared threads are daemon threads so the
+     * Connection no longer maintains a non-daemon thread.  Send completions and asynchronous
+     * commits are not run on the pool, as code running on a shared thread may wait for them,
+     * and are instead delivered on a thread of the Session that exits once it is idle.
+     *
+     * The default of zero creates dedicated threads for each Connection and Session.
+     *
+     * @param sharedExecutorThreads
+     * 		the number of threads in the shared pool, or zero to not use one.
+     */
+    public void setSharedExecutorThreads(int sharedExecutorThreads) {
+        this.sharedExecutorThreads = sharedExecutorThreads;
+    }
+
 
     /**
      * @return whether links that fail to be created during failover reconnect are closed or not.
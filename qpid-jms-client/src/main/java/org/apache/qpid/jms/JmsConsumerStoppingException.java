@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+import javax.jms.IllegalStateException;
+
+/**
+ * Thrown when credit is granted to a consumer whose link is being drained in order
+ * to stop it, the credit was not granted and can be granted again once it restarts.
+ */
+public class JmsConsumerStoppingException extends IllegalStateException {
+
+    private static final long serialVersionUID = 2671585436721094316L;
+
+    public JmsConsumerStoppingException(String reason) {
+        super(reason);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+/**
+ * Interfaces for demand driven streams of messages, with the same methods and contract
+ * as the Reactive Streams interfaces and those of java.util.concurrent.Flow so that they
+ * can be adapted to either with a method reference per method.
+ */
+public final class JmsFlow {
+
+    private JmsFlow() {
+    }
+
+    /**
+     * A source of elements that are sent to a Subscriber as it requests them.
+     *
+     * @param <T> the type of element published.
+     */
+    @FunctionalInterface
+    public static interface Publisher<T> {
+
+        /**
+         * Adds the given Subscriber, which is then signalled with onSubscribe before any
+         * other signal, or with onError if it cannot be subscribed.
+         *
+         * @param subscriber
+         *      the Subscriber that is to receive the elements of this Publisher.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of the elements of a Publisher.  The methods of a Subscriber are never
+     * called concurrently.
+     *
+     * @param <T> the type of element received.
+     */
+    public static interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * The link between a Publisher and a Subscriber through which the Subscriber signals
+     * its demand for elements.
+     */
+    public static interface Subscription {
+
+        /**
+         * Adds the given number of elements to the demand of the Subscriber.  A value of
+         * zero or less cancels the Subscription and signals an IllegalArgumentException
+         * to the Subscriber.
+         *
+         * @param n
+         *      the number of additional elements the Subscriber is ready to receive.
+         */
+        void request(long n);
+
+        /**
+         * Stops the Publisher sending to the Subscriber and releases any resources held
+         * for it.  The Subscriber receives no further signals once this returns.
+         */
+        void cancel();
+    }
+}
@@ -17,7 +17,12 @@
 package org.apache.qpid.jms;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.jms.JMSException;
@@ -50,6 +55,10 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
+    // Commit started by commitAsync, both as sent to the provider and including its completion work
+    private volatile CompletableFuture<Void> pendingRequest;
+    private volatile CompletableFuture<Void> pendingCompletion;
+
     public JmsLocalTransactionContext(JmsSession session) {
         this.session = session;
         this.connection = session.getConnection();
@@ -57,6 +66,8 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
 
     @Override
     public void send(JmsConnection connection, final JmsOutboundMessageDispatch envelope, ProviderSynchronization outcome) throws JMSException {
+        awaitPendingCompletion();
+
         lock.readLock().lock();
         try {
             if (isInDoubt()) {
@@ -97,10 +108,52 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         }
     }
 
+    @Override
+    public void send(JmsConnection connection, final List<JmsOutboundMessageDispatch> envelopes, ProviderSynchronization outcome) throws JMSException {
+        awaitPendingCompletion();
+
+        lock.readLock().lock();
+        try {
+            if (isInDoubt()) {
+                // Need to signal that the request is going to pass before completing
+                if (outcome != null) {
+                    outcome.onPendingSuccess();
+                }
+                return;
+            }
+
+            // Use the completion callback to remove the need for a sync point.
+            connection.send(envelopes, new ProviderSynchronization() {
+
+                @Override
+                public void onPendingSuccess() {
+                    LOG.trace("TX:{} has performed a batch send.", getTransactionId());
+                    addSendParticipants(envelopes);
+                    if (outcome != null) {
+                        outcome.onPendingSuccess();
+                    }
+                }
+
+                @Override
+                public void onPendingFailure(Throwable cause) {
+                    LOG.trace("TX:{} has a failed batch send.", getTransactionId());
+                    addSendParticipants(envelopes);
+                    if (outcome != null) {
+                        outcome.onPendingFailure(cause);
+                    }
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void acknowledge(JmsConnection connection, final JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
         // Consumed or delivered messages fall into a transaction otherwise just pass it in.
         if (ackType == ACK_TYPE.ACCEPTED || ackType == ACK_TYPE.DELIVERED) {
+            awaitPendingCompletion();
+
             lock.readLock().lock();
             try {
                 connection.acknowledge(envelope, ackType, new ProviderSynchronization() {
@@ -132,6 +185,11 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
 
     @Override
     public void begin() throws JMSException {
+        awaitPendingCompletion();
+        doBegin();
+    }
+
+    private void doBegin() throws JMSException {
         lock.writeLock().lock();
         try {
             reset();
@@ -166,6 +224,8 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
 
     @Override
     public void commit() throws JMSException {
+        awaitPendingCompletion();
+
         lock.writeLock().lock();
         try {
             if (isInDoubt()) {
@@ -227,7 +287,7 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
                         // a current provider transaction id present, so we attempt to create
                         // one to recover our state.
                         if (nextTx.getId().getProviderTxId() == null) {
-                            begin();
+                            doBegin();
                         }
                     } catch (Exception e) {
                         // TODO
@@ -242,12 +302,103 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         }
     }
 
+    @Override
+    public CompletableFuture<Void> commitAsync(Executor executor) throws JMSException {
+        awaitPendingCompletion();
+
+        lock.writeLock().lock();
+        try {
+            if (isInDoubt()) {
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                try {
+                    doRollback(true);
+                } catch (Exception e) {
+                    LOG.trace("Error during rollback of failed TX: {}", e);
+                }
+                result.completeExceptionally(new TransactionRolledBackException("Transaction failed and has been rolled back."));
+                return result;
+            }
+
+            LOG.debug("Commit: {}", transactionInfo.getId());
+
+            final JmsTransactionId oldTransactionId = transactionInfo.getId();
+            final JmsTransactionInfo nextTx = getNextTransactionInfo();
+
+            CompletableFuture<Void> request = connection.commitAsync(transactionInfo, nextTx, new ProviderSynchronization() {
+
+                @Override
+                public void onPendingSuccess() {
+                    reset();
+                    JmsLocalTransactionContext.this.transactionInfo = nextTx;
+                }
+
+                @Override
+                public void onPendingFailure(Throwable cause) {
+                    reset();
+                    JmsLocalTransactionContext.this.transactionInfo = nextTx;
+                }
+            });
+
+            // The listener and any new transaction are handled away from the provider thread
+            // as starting a transaction waits on the provider.
+            CompletableFuture<Void> completion = request.handleAsync((result, error) -> {
+                if (error == null) {
+                    if (listener != null) {
+                        try {
+                            listener.onTransactionCommitted();
+                        } catch (Throwable listenerError) {
+                            LOG.trace("Local TX listener error ignored: {}", listenerError);
+                        }
+
+                        try {
+                            listener.onTransactionStarted();
+                        } catch (Throwable listenerError) {
+                            LOG.trace("Local TX listener error ignored: {}", listenerError);
+                        }
+                    }
+                } else {
+                    LOG.info("Commit failed for transaction: {}", oldTransactionId);
+                    if (listener != null) {
+                        try {
+                            listener.onTransactionRolledBack();
+                        } catch (Throwable listenerError) {
+                            LOG.trace("Local TX listener error ignored: {}", listenerError);
+                        }
+                    }
+                }
+
+                try {
+                    if (nextTx.getId().getProviderTxId() == null) {
+                        doBegin();
+                    }
+                } catch (Exception e) {
+                    LOG.info("Failed to start new Transaction after failed commit of: {}", oldTransactionId);
+                }
+
+                if (error != null) {
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                }
+
+                return result;
+            }, executor);
+
+            pendingRequest = request;
+            pendingCompletion = completion;
+
+            return completion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void rollback() throws JMSException {
         doRollback(true);
     }
 
     private void doRollback(boolean startNewTx) throws JMSException {
+        awaitPendingCompletion();
+
         lock.writeLock().lock();
         try {
             LOG.debug("Rollback: {}", transactionInfo.getId());
@@ -307,7 +458,7 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
                     // a current provider transaction id present, so we attempt to create
                     // one to recover our state.
                     if (startNewTx && nextTx.getId().getProviderTxId() == null) {
-                        begin();
+                        doBegin();
                     }
                 } catch (Exception e) {
                     // TODO
@@ -343,7 +494,8 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         // If we get the lock then no TX commit / rollback / begin is in progress
         // otherwise one is and we can only assume that it should fail given the
         // connection was dropped.
-        if (lock.writeLock().tryLock()) {
+        CompletableFuture<Void> pending = pendingRequest;
+        if ((pending == null || pending.isDone()) && lock.writeLock().tryLock()) {
             try {
                 // If we got the lock then there is no pending commit / rollback / begin so
                 // we can safely create a new transaction, if there is work pending on the
@@ -426,6 +578,29 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         participants.clear();
     }
 
+    private void addSendParticipants(List<JmsOutboundMessageDispatch> envelopes) {
+        for (JmsOutboundMessageDispatch envelope : envelopes) {
+            participants.put(envelope.getProducerId(), envelope.getProducerId());
+        }
+    }
+
+    /*
+     * Work done after commitAsync must wait for the commit to complete so that it is
+     * performed in the next transaction.  The completion thread cannot wait as it is
+     * the thread that completes the commit.
+     */
+    private void awaitPendingCompletion() throws JMSException {
+        CompletableFuture<Void> pending = pendingCompletion;
+        if (pending != null && !pending.isDone()) {
+            session.checkIsCompletionThread();
+            try {
+                pending.join();
+            } catch (CompletionException | CancellationException e) {
+                // The outcome is reported to the caller of commitAsync
+            }
+        }
+    }
+
     private JmsTransactionInfo getNextTransactionInfo() {
         JmsTransactionId transactionId = connection.getNextTransactionId();
         return new JmsTransactionInfo(session.getSessionId(), transactionId);
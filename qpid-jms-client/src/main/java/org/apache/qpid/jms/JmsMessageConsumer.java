@@ -19,6 +19,8 @@ package org.apache.qpid.jms;
 import static org.apache.qpid.jms.message.JmsMessageSupport.lookupAckTypeForDisposition;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -42,6 +44,7 @@ import org.apache.qpid.jms.meta.JmsResource.ResourceState;
 import org.apache.qpid.jms.policy.JmsDeserializationPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
+import org.apache.qpid.jms.provider.AsyncResult;
 import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
 import org.apache.qpid.jms.provider.ProviderFuture;
@@ -49,6 +52,7 @@ import org.apache.qpid.jms.provider.ProviderSynchronization;
 import org.apache.qpid.jms.util.FifoMessageQueue;
 import org.apache.qpid.jms.util.MessageQueue;
 import org.apache.qpid.jms.util.PriorityMessageQueue;
+import org.apache.qpid.jms.util.SpscMessageQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,6 +76,9 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
     protected final AtomicBoolean suspendedConnection = new AtomicBoolean();
     protected final AtomicReference<Throwable> failureCause = new AtomicReference<>();
     protected final MessageDeliverTask deliveryTask = new MessageDeliverTask();
+    protected volatile MessageSubscription subscription;
+    protected int subscriptionCreditLimit;
+    private ProviderFuture recoveryRequest;
 
     protected JmsMessageConsumer(JmsConsumerId consumerId, JmsSession session, JmsDestination destination,
                                  String selector, boolean noLocal) throws JMSException {
@@ -80,6 +87,15 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
 
     protected JmsMessageConsumer(JmsConsumerId consumerId, JmsSession session, JmsDestination destination,
                                  String name, String selector, boolean noLocal) throws JMSException {
+        this(consumerId, session, destination, name, selector, noLocal, false);
+    }
+
+    /*
+     * When creation is deferred the consumer is not created on the remote peer until
+     * initAsync is called, which then takes the place of the call to init.
+     */
+    JmsMessageConsumer(JmsConsumerId consumerId, JmsSession session, JmsDestination destination,
+                       String name, String selector, boolean noLocal, boolean deferCreate) throws JMSException {
         this.session = session;
         this.connection = session.getConnection();
         this.acknowledgementMode = isBrowser() ? Session.AUTO_ACKNOWLEDGE : session.acknowledgementMode();
@@ -96,6 +112,8 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
 
         if (connection.isLocalMessagePriority()) {
             this.messageQueue = new PriorityMessageQueue();
+        } else if (connection.isLockFreeMessageQueue()) {
+            this.messageQueue = new SpscMessageQueue();
         } else {
             this.messageQueue = new FifoMessageQueue(configuredPrefetch);
         }
@@ -111,31 +129,113 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         consumerInfo.setNoLocal(noLocal);
         consumerInfo.setBrowser(isBrowser());
         consumerInfo.setPrefetchSize(configuredPrefetch);
+        consumerInfo.setAdaptivePrefetch(prefetchPolicy.isAdaptivePrefetch(session, destination, isDurableSubscription(), isBrowser()));
+        consumerInfo.setPrefetchBytes(prefetchPolicy.getConfiguredPrefetchBytes(session, destination, isDurableSubscription(), isBrowser()));
         consumerInfo.setRedeliveryPolicy(redeliveryPolicy);
         consumerInfo.setLocalMessageExpiry(connection.isLocalMessageExpiry());
         consumerInfo.setPresettle(session.getPresettlePolicy().isConsumerPresttled(session, destination));
         consumerInfo.setDeserializationPolicy(deserializationPolicy);
 
-        session.getConnection().createResource(consumerInfo, new ProviderSynchronization() {
+        if (!deferCreate) {
+            session.getConnection().createResource(consumerInfo, new ConsumerCreateSynchronization());
+
+            if (session.isStarted()) {
+                start();
+            }
+        }
+    }
+
+    public void init() throws JMSException {
+        if (!isPullConsumer()){
+            startConsumerResource();
+        }
+    }
+
+    /**
+     * Creates the consumer on the remote peer and starts it without waiting for either to
+     * complete, for use with a consumer whose creation was deferred.  The returned future is
+     * completed on the provider thread.
+     */
+    CompletableFuture<Void> initAsync() throws JMSException {
+        return session.getConnection().createResourceAsync(consumerInfo, new ConsumerCreateSynchronization()).thenCompose(created -> {
+            if (session.isStarted()) {
+                start();
+            }
 
-            @Override
-            public void onPendingSuccess() {
-                session.add(JmsMessageConsumer.this);
+            if (isPullConsumer()) {
+                return CompletableFuture.completedFuture(null);
             }
 
-            @Override
-            public void onPendingFailure(Throwable cause) {
+            CompletableFuture<Void> started;
+            try {
+                started = session.getConnection().startResourceAsync(consumerInfo, null);
+            } catch (JMSException ex) {
+                started = new CompletableFuture<>();
+                started.completeExceptionally(ex);
             }
+
+            return started.handle((result, error) -> error).thenCompose(error -> {
+                if (error == null) {
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+
+                // The link was created on the remote, close it there as well as dropping it locally.
+                return closeAsync().<Void>handle((ignored, closeError) -> {
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                });
+            });
         });
+    }
+
+    /**
+     * Creates the consumer on the remote peer with no prefetch, for use with a consumer
+     * whose creation was deferred and that is to be read only by a Subscriber, so that
+     * the only credit the remote is given is that granted to meet the Subscriber demand.
+     */
+    void initWithoutPrefetch() throws JMSException {
+        // The configured prefetch instead bounds the credit outstanding at any one time.
+        subscriptionCreditLimit = Math.max(1, consumerInfo.getPrefetchSize());
+
+        consumerInfo.setPrefetchSize(0);
+        consumerInfo.setAdaptivePrefetch(false);
+        consumerInfo.setPrefetchBytes(0);
+
+        session.getConnection().createResource(consumerInfo, new ConsumerCreateSynchronization());
 
         if (session.isStarted()) {
             start();
         }
     }
 
-    public void init() throws JMSException {
-        if (!isPullConsumer()){
-            startConsumerResource();
+    /**
+     * Subscribes the given Subscriber to the messages of a consumer created by
+     * initWithoutPrefetch.  A consumer accepts only one Subscriber, later ones are
+     * signalled with an error.
+     */
+    void subscribe(JmsFlow.Subscriber<? super Message> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+
+        IllegalStateException error = null;
+
+        dispatchLock.lock();
+        try {
+            if (closed.get()) {
+                error = new IllegalStateException("The MessageConsumer is closed");
+            } else if (subscription != null) {
+                error = new IllegalStateException("The consumer already has a Subscriber");
+            } else {
+                subscription = new MessageSubscription(subscriber);
+                subscriber.onSubscribe(subscription);
+            }
+        } finally {
+            dispatchLock.unlock();
+        }
+
+        if (error != null) {
+            subscriber.onSubscribe(new RejectedSubscription());
+            subscriber.onError(error);
         }
     }
 
@@ -169,6 +269,27 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         }
     }
 
+    /**
+     * Closes the consumer without waiting for the remote peer to remove it, used where the
+     * caller must not be blocked.
+     *
+     * @return a future that completes once the remote peer has removed the consumer.
+     */
+    protected CompletableFuture<Void> closeAsync() {
+        if (closed.get()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        try {
+            shutdown();
+            return this.connection.destroyResourceAsync(consumerInfo, null);
+        } catch (JMSException ex) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+            return result;
+        }
+    }
+
     /**
      * Called to release all producer resources without requiring a destroy request
      * to be sent to the remote peer.  This is most commonly needed when the parent
@@ -186,6 +307,11 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
             setFailureCause(cause);
             session.remove(this);
             stop(true);
+
+            MessageSubscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.terminate(getFailureCause());
+            }
         }
     }
 
@@ -475,6 +601,11 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
 
         lock.lock();
         try {
+            final MessageSubscription subscription = this.subscription;
+            if (subscription != null && !envelope.isEnqueueFirst()) {
+                subscription.onCreditUsed();
+            }
+
             if (acknowledgementMode == Session.CLIENT_ACKNOWLEDGE) {
                 envelope.getMessage().setAcknowledgeCallback(new JmsAcknowledgeCallback(session));
             } else if (session.isIndividualAcknowledge()) {
@@ -490,6 +621,8 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
             if (session.isStarted() && messageQueue.isRunning()) {
                 if (messageListener != null) {
                     session.getDispatcherExecutor().execute(deliveryTask);
+                } else if (subscription != null) {
+                    session.getDispatcherExecutor().execute(subscription);
                 } else if (availableListener != null) {
                     session.getDispatcherExecutor().execute(new Runnable() {
                         @Override
@@ -552,6 +685,13 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
     void resumeAfterRollback() throws JMSException {
         start();
         startConsumerResource();
+
+        MessageSubscription subscription = this.subscription;
+        if (subscription != null) {
+            // Stopping the consumer drained the link of any credit it had.
+            subscription.onCreditDrained();
+            subscription.grantCreditIfNeeded();
+        }
     }
 
     /**
@@ -658,11 +798,31 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         messageQueue.clear();
     }
 
-    protected void onConnectionRecovery(Provider provider) throws Exception {
+    /**
+     * Sends the create for this consumer to the recovering provider without waiting on the
+     * remote response, {@link #awaitConnectionRecovery()} completes the recovery.
+     *
+     * @param provider
+     *        the provider that is being recovered.
+     */
+    protected void onConnectionRecovery(Provider provider) {
+        recoveryRequest = null;
         if (!consumerInfo.isClosed()) {
             ProviderFuture request = provider.newProviderFuture();
             try {
                 provider.create(consumerInfo, request);
+            } catch (Exception ex) {
+                request.onFailure(ex);
+            }
+            recoveryRequest = request;
+        }
+    }
+
+    protected void awaitConnectionRecovery() throws Exception {
+        ProviderFuture request = recoveryRequest;
+        recoveryRequest = null;
+        if (request != null) {
+            try {
                 request.sync();
             } catch (IOException ioe) {
                 if (connection.isCloseLinksThatFailOnReconnect()) {
@@ -679,6 +839,18 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
             ProviderFuture request = provider.newProviderFuture();
             provider.start(consumerInfo, request);
             request.sync();
+
+            MessageSubscription subscription = this.subscription;
+            if (subscription != null) {
+                // The recovered link has no credit, grant whatever demand remains unmet.
+                subscription.onCreditDrained();
+                int credit = subscription.creditNeeded();
+                if (credit > 0) {
+                    request = provider.newProviderFuture();
+                    provider.grantCredit(getConsumerId(), credit, request);
+                    request.sync();
+                }
+            }
         }
     }
 
@@ -714,6 +886,8 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
     private void drainMessageQueueToListener() {
         if (messageListener != null && session.isStarted() && messageQueue.isRunning()) {
             session.getDispatcherExecutor().execute(new BoundedMessageDeliverTask(messageQueue.size()));
+        } else if (subscription != null && session.isStarted() && messageQueue.isRunning()) {
+            session.getDispatcherExecutor().execute(subscription);
         }
     }
 
@@ -726,39 +900,7 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
                     return false;
                 }
 
-                JmsMessage copy = null;
-
-                if (consumeExpiredMessage(envelope)) {
-                    LOG.trace("{} filtered expired message: {}", getConsumerId(), envelope);
-                    doAckExpired(envelope);
-                } else if (session.redeliveryExceeded(envelope)) {
-                    LOG.trace("{} filtered message with excessive redelivery count: {}", getConsumerId(), envelope);
-                    applyRedeliveryPolicyOutcome(envelope);
-                } else {
-                    boolean deliveryFailed = false;
-                    boolean autoAckOrDupsOk = acknowledgementMode == Session.AUTO_ACKNOWLEDGE ||
-                                              acknowledgementMode == Session.DUPS_OK_ACKNOWLEDGE;
-                    if (autoAckOrDupsOk) {
-                        copy = copy(doAckDelivered(envelope));
-                    } else {
-                        copy = copy(ackFromReceive(envelope));
-                    }
-                    session.clearSessionRecovered();
-
-                    try {
-                        messageListener.onMessage(copy);
-                    } catch (RuntimeException rte) {
-                        deliveryFailed = true;
-                    }
-
-                    if (autoAckOrDupsOk && !session.isSessionRecovered()) {
-                        if (!deliveryFailed) {
-                            doAckConsumed(envelope);
-                        } else {
-                            doAckReleased(envelope);
-                        }
-                    }
-                }
+                deliver(envelope, messageListener);
             } catch (Exception e) {
                 // TODO - There are two cases where we can get an error here, one being
                 //        and error returned from the attempted ACK that was sent and the
@@ -781,6 +923,52 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         return !messageQueue.isEmpty();
     }
 
+    /*
+     * Delivers the message to the given listener and acknowledges it as the session requires,
+     * or filters it out if it has expired or been redelivered too many times.
+     *
+     * Returns true if the message was delivered, false if it was filtered out.
+     */
+    private boolean deliver(JmsInboundMessageDispatch envelope, MessageListener listener) throws JMSException {
+        JmsMessage copy = null;
+
+        if (consumeExpiredMessage(envelope)) {
+            LOG.trace("{} filtered expired message: {}", getConsumerId(), envelope);
+            doAckExpired(envelope);
+        } else if (session.redeliveryExceeded(envelope)) {
+            LOG.trace("{} filtered message with excessive redelivery count: {}", getConsumerId(), envelope);
+            applyRedeliveryPolicyOutcome(envelope);
+        } else {
+            boolean deliveryFailed = false;
+            boolean autoAckOrDupsOk = acknowledgementMode == Session.AUTO_ACKNOWLEDGE ||
+                                      acknowledgementMode == Session.DUPS_OK_ACKNOWLEDGE;
+            if (autoAckOrDupsOk) {
+                copy = copy(doAckDelivered(envelope));
+            } else {
+                copy = copy(ackFromReceive(envelope));
+            }
+            session.clearSessionRecovered();
+
+            try {
+                listener.onMessage(copy);
+            } catch (RuntimeException rte) {
+                deliveryFailed = true;
+            }
+
+            if (autoAckOrDupsOk && !session.isSessionRecovered()) {
+                if (!deliveryFailed) {
+                    doAckConsumed(envelope);
+                } else {
+                    doAckReleased(envelope);
+                }
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
     private final class BoundedMessageDeliverTask implements Runnable {
 
         private final int deliveryCount;
@@ -808,4 +996,253 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
             deliverNextPending();
         }
     }
+
+    /*
+     * Delivers messages to a Subscriber as it requests them.  The link is only ever granted
+     * credit for demand not already covered by credit outstanding or messages queued locally,
+     * up to the configured prefetch, so the remote never sends more than was requested.
+     */
+    protected final class MessageSubscription implements JmsFlow.Subscription, Runnable {
+
+        private final JmsFlow.Subscriber<? super Message> subscriber;
+
+        // Guarded by the consumer lock
+        private long demand;
+        private int credit;
+        private int creditDrains;
+
+        // Guarded by the consumer dispatch lock
+        private boolean terminated;
+
+        private volatile boolean cancelled;
+
+        public MessageSubscription(JmsFlow.Subscriber<? super Message> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Subscriber requested a non-positive number of messages: " + n));
+                return;
+            }
+
+            lock.lock();
+            try {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            } finally {
+                lock.unlock();
+            }
+
+            grantCreditIfNeeded();
+
+            if (session.isStarted() && messageQueue.isRunning()) {
+                session.getDispatcherExecutor().execute(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                closeAsync().whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        LOG.debug("Caught exception closing consumer {} on cancel: {}", getConsumerId(), error.getMessage());
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void run() {
+            while (session.isStarted() && messageQueue.isRunning()) {
+                dispatchLock.lock();
+                try {
+                    if (cancelled || terminated) {
+                        return;
+                    }
+
+                    JmsInboundMessageDispatch envelope = null;
+
+                    // The demand is taken before delivery so that the Subscriber can request
+                    // more from onNext without that being met by credit for this message.
+                    lock.lock();
+                    try {
+                        if (demand > 0) {
+                            envelope = messageQueue.dequeueNoWait();
+                            if (envelope != null) {
+                                demand--;
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    if (envelope == null) {
+                        return;
+                    }
+
+                    if (!deliver(envelope, subscriber::onNext)) {
+                        lock.lock();
+                        try {
+                            demand++;
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                } catch (Exception e) {
+                    session.getConnection().onException(e);
+                } finally {
+                    dispatchLock.unlock();
+                }
+
+                grantCreditIfNeeded();
+            }
+        }
+
+        void grantCreditIfNeeded() {
+            final int needed;
+            final int drains;
+
+            lock.lock();
+            try {
+                needed = creditNeeded();
+                drains = creditDrains;
+            } finally {
+                lock.unlock();
+            }
+
+            if (needed > 0) {
+                // The grant is not waited on so that request(n) never blocks the Subscriber,
+                // a failure to grant the credit is reported to it through onError instead.
+                AsyncResult grant = new AsyncResult() {
+
+                    private volatile boolean complete;
+
+                    @Override
+                    public void onFailure(Throwable result) {
+                        complete = true;
+                        onCreditGrantFailed(needed, drains, result);
+                    }
+
+                    @Override
+                    public void onSuccess() {
+                        complete = true;
+                    }
+
+                    @Override
+                    public boolean isComplete() {
+                        return complete;
+                    }
+                };
+
+                try {
+                    connection.grantCredit(getConsumerId(), needed, grant);
+                } catch (JMSException ex) {
+                    onCreditGrantFailed(needed, drains, ex);
+                }
+            }
+        }
+
+        private void onCreditGrantFailed(int needed, int drains, Throwable cause) {
+            LOG.debug("Caught exception granting credit to consumer {}: {}", getConsumerId(), cause.getMessage());
+
+            lock.lock();
+            try {
+                // Take back the credit that was never granted, unless a drain has since reset the count.
+                if (drains == creditDrains) {
+                    credit = Math.max(credit - needed, 0);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (cause instanceof JmsConsumerStoppingException) {
+                // Not an error, the unmet demand is granted again on restart or the next request.
+                return;
+            }
+
+            if (!cancelled) {
+                // Failures may be reported on the provider thread, signal the Subscriber from the delivery thread.
+                final JMSException error = JmsExceptionSupport.create(cause);
+                session.getDispatcherExecutor().execute(() -> terminate(error));
+            }
+        }
+
+        int creditNeeded() {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return 0;
+                }
+
+                long needed = Math.min(demand, subscriptionCreditLimit) - credit - messageQueue.size();
+                if (needed > 0) {
+                    credit += needed;
+                }
+
+                return (int) Math.max(needed, 0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onCreditUsed() {
+            credit = Math.max(credit - 1, 0);
+        }
+
+        void onCreditDrained() {
+            lock.lock();
+            try {
+                credit = 0;
+                creditDrains++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void terminate(Throwable cause) {
+            dispatchLock.lock();
+            try {
+                if (!cancelled && !terminated) {
+                    terminated = true;
+                    if (cause == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(cause);
+                    }
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    private static final class RejectedSubscription implements JmsFlow.Subscription {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    private final class ConsumerCreateSynchronization implements ProviderSynchronization {
+
+        @Override
+        public void onPendingSuccess() {
+            session.add(JmsMessageConsumer.this);
+        }
+
+        @Override
+        public void onPendingFailure(Throwable cause) {
+        }
+    }
 }
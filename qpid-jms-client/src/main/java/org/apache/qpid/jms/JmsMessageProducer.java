@@ -17,6 +17,8 @@
 package org.apache.qpid.jms;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -57,6 +59,7 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
     protected boolean disableTimestamp;
     protected final AtomicLong messageSequence = new AtomicLong();
     protected final AtomicReference<Throwable> failureCause = new AtomicReference<>();
+    private ProviderFuture recoveryRequest;
 
     protected JmsMessageProducer(JmsProducerId producerId, JmsSession session, JmsDestination destination) throws JMSException {
         this.session = session;
@@ -242,6 +245,92 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
         sendMessage(destination, message, deliveryMode, priority, timeToLive, listener);
     }
 
+    /**
+     * Sends the given messages to the producer's destination as a single batch using the
+     * producer's default delivery mode, priority and time to live.  The messages are handed
+     * to the connection together and the call returns once all of them have been sent in
+     * the same way as the equivalent number of calls to {@link #send(Message)} would.
+     *
+     * @param messages
+     *      the messages to send, in the order they should be sent.
+     *
+     * @throws JMSException if an error occurs while sending any of the messages.
+     */
+    public void send(List<? extends Message> messages) throws JMSException {
+        checkClosed();
+
+        if (anonymousProducer) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created without an explicit Destination");
+        }
+
+        session.send(this, producerInfo.getDestination(), messages, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay);
+    }
+
+    /**
+     * Sends the given messages to the given destination as a single batch using the
+     * producer's default delivery mode, priority and time to live.
+     *
+     * @param destination
+     *      the destination to send the messages to.
+     * @param messages
+     *      the messages to send, in the order they should be sent.
+     *
+     * @throws JMSException if an error occurs while sending any of the messages.
+     *
+     * @see #send(List)
+     */
+    public void send(Destination destination, List<? extends Message> messages) throws JMSException {
+        checkClosed();
+
+        checkDestinationNotInvalid(destination);
+
+        if (!anonymousProducer) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created with an explicit Destination.");
+        }
+
+        session.send(this, destination, messages, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay);
+    }
+
+    /**
+     * Sends the given message to the producer's destination without blocking the calling
+     * thread until the remote peer has accepted it.  The returned future is completed in the
+     * same way, and on the same thread, as a CompletionListener passed to
+     * {@link #send(Message, CompletionListener)} would be notified.
+     *
+     * @param message
+     *      the message to send.
+     *
+     * @return a future that completes with the sent message once the send has completed.
+     *
+     * @throws JMSException if an error occurs before the message could be sent.
+     */
+    public CompletableFuture<Message> sendAsync(Message message) throws JMSException {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        send(message, new CompletableFutureCompletionListener(result));
+        return result;
+    }
+
+    /**
+     * Sends the given message to the given destination without blocking the calling thread
+     * until the remote peer has accepted it.
+     *
+     * @param destination
+     *      the destination to send the message to.
+     * @param message
+     *      the message to send.
+     *
+     * @return a future that completes with the sent message once the send has completed.
+     *
+     * @throws JMSException if an error occurs before the message could be sent.
+     *
+     * @see #sendAsync(Message)
+     */
+    public CompletableFuture<Message> sendAsync(Destination destination, Message message) throws JMSException {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        send(destination, message, new CompletableFutureCompletionListener(result));
+        return result;
+    }
+
     private void checkDestinationNotInvalid(Destination destination) throws InvalidDestinationException {
         if (destination == null) {
             throw new InvalidDestinationException("Destination must not be null");
@@ -353,6 +442,25 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
         return failureCause.get();
     }
 
+    private static final class CompletableFutureCompletionListener implements CompletionListener {
+
+        private final CompletableFuture<Message> result;
+
+        public CompletableFutureCompletionListener(CompletableFuture<Message> result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onCompletion(Message message) {
+            result.complete(message);
+        }
+
+        @Override
+        public void onException(Message message, Exception exception) {
+            result.completeExceptionally(exception);
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////
     // Connection interruption handlers.
     ////////////////////////////////////////////////////////////////////////////
@@ -360,11 +468,31 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
     protected void onConnectionInterrupted() {
     }
 
-    protected void onConnectionRecovery(Provider provider) throws Exception {
+    /**
+     * Sends the create for this producer to the recovering provider without waiting on the
+     * remote response, {@link #awaitConnectionRecovery()} completes the recovery.
+     *
+     * @param provider
+     *        the provider that is being recovered.
+     */
+    protected void onConnectionRecovery(Provider provider) {
+        recoveryRequest = null;
         if (!producerInfo.isClosed()) {
             ProviderFuture request = provider.newProviderFuture();
             try {
                 provider.create(producerInfo, request);
+            } catch (Exception ex) {
+                request.onFailure(ex);
+            }
+            recoveryRequest = request;
+        }
+    }
+
+    protected void awaitConnectionRecovery() throws Exception {
+        ProviderFuture request = recoveryRequest;
+        recoveryRequest = null;
+        if (request != null) {
+            try {
                 request.sync();
             } catch (IOException ioe) {
                 if (connection.isCloseLinksThatFailOnReconnect()) {
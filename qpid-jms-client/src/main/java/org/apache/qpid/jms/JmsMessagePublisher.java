@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+/**
+ * Publishes the messages of a consumer to a single Subscriber, granting the remote peer
+ * credit for each message the Subscriber requests so that messages are only sent to the
+ * client as fast as the Subscriber asks for them.
+ *
+ * The Subscriber receives onComplete when the publisher or its session is closed, and
+ * onError if the consumer is closed because of a failure.
+ */
+public class JmsMessagePublisher implements JmsFlow.Publisher<Message>, AutoCloseable {
+
+    private final JmsMessageConsumer consumer;
+
+    JmsMessagePublisher(JmsMessageConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void subscribe(JmsFlow.Subscriber<? super Message> subscriber) {
+        consumer.subscribe(subscriber);
+    }
+
+    /**
+     * @return the Destination the messages are consumed from.
+     */
+    public JmsDestination getDestination() {
+        return consumer.getDestination();
+    }
+
+    /**
+     * @return the selector used to filter the messages, or null if there is none.
+     *
+     * @throws JMSException if the publisher has been closed.
+     */
+    public String getMessageSelector() throws JMSException {
+        return consumer.getMessageSelector();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        consumer.close();
+    }
+
+    @Override
+    public String toString() {
+        return "JmsMessagePublisher { " + consumer.getConsumerId() + " }";
+    }
+}
@@ -16,6 +16,10 @@
  */
 package org.apache.qpid.jms;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import javax.jms.JMSException;
 
 import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
@@ -37,6 +41,11 @@ public class JmsNoTxTransactionContext implements JmsTransactionContext {
         connection.send(envelope, outcome);
     }
 
+    @Override
+    public void send(JmsConnection connection, List<JmsOutboundMessageDispatch> envelopes, ProviderSynchronization outcome) throws JMSException {
+        connection.send(envelopes, outcome);
+    }
+
     @Override
     public void acknowledge(JmsConnection connection, JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
         connection.acknowledge(envelope, ackType);
@@ -63,6 +72,11 @@ public class JmsNoTxTransactionContext implements JmsTransactionContext {
     public void commit() throws JMSException {
     }
 
+    @Override
+    public CompletableFuture<Void> commitAsync(Executor executor) throws JMSException {
+        return CompletableFuture.completedFuture(null);
+    }
+
     @Override
     public JmsTransactionId getTransactionId() {
         return null;
@@ -28,6 +28,7 @@ public class JmsSendTimedOutException extends JmsOperationTimedOutException {
     private static final long serialVersionUID = -5404637534865352615L;
 
     private final JmsMessage unsentMessage;
+    private final Object unsentMessageId;
 
     public JmsSendTimedOutException(String reason) {
         this(reason, null, null);
@@ -42,11 +43,27 @@ public class JmsSendTimedOutException extends JmsOperationTimedOutException {
     }
 
     public JmsSendTimedOutException(String reason, String errorCode, JmsMessage unsentMessage) {
+        this(reason, errorCode, unsentMessage, unsentMessage != null ? unsentMessage.getFacade().getProviderMessageIdObject() : null);
+    }
+
+    public JmsSendTimedOutException(String reason, String errorCode, JmsMessage unsentMessage, Object unsentMessageId) {
         super(reason, errorCode);
         this.unsentMessage = unsentMessage;
+        this.unsentMessageId = unsentMessageId;
     }
 
+    /**
+     * @return the Message that was not sent, or null if the send was asynchronous and the
+     *         Message was released to the application before the send timed out.
+     */
     public Message getUnsentMessage() {
         return unsentMessage;
     }
+
+    /**
+     * @return the provider message ID of the Message that was not sent, if known.
+     */
+    public Object getUnsentMessageId() {
+        return unsentMessageId;
+    }
 }
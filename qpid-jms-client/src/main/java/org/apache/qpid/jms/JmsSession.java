@@ -23,7 +23,10 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
@@ -31,6 +34,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -97,9 +101,12 @@ import org.apache.qpid.jms.selector.SelectorParser;
 import org.apache.qpid.jms.selector.filter.FilterException;
 import org.apache.qpid.jms.util.NoOpExecutor;
 import org.apache.qpid.jms.util.QpidJMSThreadFactory;
+import org.apache.qpid.jms.util.SharedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.util.ReferenceCountUtil;
+
 /**
  * JMS Session implementation
  */
@@ -123,8 +130,8 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
     private final AtomicBoolean started = new AtomicBoolean();
     private final JmsSessionInfo sessionInfo;
     private final ReentrantLock sendLock = new ReentrantLock();
-    private volatile ThreadPoolExecutor deliveryExecutor;
-    private volatile ThreadPoolExecutor completionExcecutor;
+    private volatile ExecutorService deliveryExecutor;
+    private volatile ExecutorService completionExcecutor;
     private AtomicReference<Thread> deliveryThread = new AtomicReference<Thread>();
     private AtomicReference<Thread> completionThread = new AtomicReference<Thread>();
 
@@ -132,6 +139,7 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
     private final AtomicLong producerIdGenerator = new AtomicLong();
     private JmsTransactionContext transactionContext;
     private boolean sessionRecovered;
+    private ProviderFuture recoveryRequest;
     private final AtomicReference<Throwable> failureCause = new AtomicReference<>();
     private final Deque<SendCompletion> asyncSendQueue = new ConcurrentLinkedDeque<SendCompletion>();
 
@@ -257,6 +265,29 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         transactionContext.commit();
     }
 
+    /**
+     * Commits all work done in the current transaction without blocking the calling thread
+     * until the remote peer has discharged it.  Other work done in the session after this call
+     * waits for the commit to complete so that it is performed in the next transaction.
+     *
+     * The returned future is completed on the thread used to notify CompletionListener
+     * instances, which like them cannot commit, roll back or close the session.
+     *
+     * @return a future that completes once the commit has completed.
+     *
+     * @throws JMSException if the session is not transacted or the commit could not be started.
+     */
+    public CompletableFuture<Void> commitAsync() throws JMSException {
+        checkClosed();
+        checkIsCompletionThread();
+
+        if (!getTransacted()) {
+            throw new javax.jms.IllegalStateException("Not a transacted session");
+        }
+
+        return transactionContext.commitAsync(getCompletionExecutor());
+    }
+
     @Override
     public void rollback() throws JMSException {
         checkClosed();
@@ -444,6 +475,87 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         return result;
     }
 
+    /**
+     * Creates a consumer for the given destination without blocking the calling thread until
+     * the remote peer has created it.
+     *
+     * @param destination
+     *      the destination to consume from.
+     *
+     * @return a future that completes with the consumer once it has been created.
+     *
+     * @throws JMSException if the consumer could not be requested.
+     *
+     * @see #createConsumerAsync(Destination, String)
+     */
+    public CompletableFuture<MessageConsumer> createConsumerAsync(Destination destination) throws JMSException {
+        return createConsumerAsync(destination, null);
+    }
+
+    /**
+     * Creates a consumer for the given destination and selector without blocking the calling
+     * thread until the remote peer has created it.  The returned future is completed on the
+     * thread used to notify CompletionListener instances.
+     *
+     * @param destination
+     *      the destination to consume from.
+     * @param messageSelector
+     *      the selector used to filter messages, or null for none.
+     *
+     * @return a future that completes with the consumer once it has been created.
+     *
+     * @throws JMSException if the consumer could not be requested.
+     */
+    public CompletableFuture<MessageConsumer> createConsumerAsync(Destination destination, String messageSelector) throws JMSException {
+        checkClosed();
+        checkDestination(destination);
+        messageSelector = checkSelector(messageSelector);
+        JmsDestination dest = JmsMessageTransformation.transformDestination(connection, destination);
+        JmsMessageConsumer result = new JmsMessageConsumer(getNextConsumerId(), this, dest, null, messageSelector, false, true);
+        return completeOnCompletionThread(result.initAsync(), result);
+    }
+
+    /**
+     * Creates a Publisher of the messages sent to the given destination.
+     *
+     * @param destination
+     *      the destination to consume from.
+     *
+     * @return a new message publisher for the given destination.
+     *
+     * @throws JMSException if the consumer for the publisher could not be created.
+     *
+     * @see #createMessagePublisher(Destination, String)
+     */
+    public JmsMessagePublisher createMessagePublisher(Destination destination) throws JMSException {
+        return createMessagePublisher(destination, null);
+    }
+
+    /**
+     * Creates a Publisher of the messages sent to the given destination that match the
+     * given selector.  The consumer of the publisher is granted credit by the remote peer
+     * only as its Subscriber requests messages, instead of prefetching, and messages are
+     * delivered to the Subscriber on the session delivery thread.
+     *
+     * @param destination
+     *      the destination to consume from.
+     * @param messageSelector
+     *      the selector used to filter messages, or null for none.
+     *
+     * @return a new message publisher for the given destination.
+     *
+     * @throws JMSException if the consumer for the publisher could not be created.
+     */
+    public JmsMessagePublisher createMessagePublisher(Destination destination, String messageSelector) throws JMSException {
+        checkClosed();
+        checkDestination(destination);
+        messageSelector = checkSelector(messageSelector);
+        JmsDestination dest = JmsMessageTransformation.transformDestination(connection, destination);
+        JmsMessageConsumer consumer = new JmsMessageConsumer(getNextConsumerId(), this, dest, null, messageSelector, false, true);
+        consumer.initWithoutPrefetch();
+        return new JmsMessagePublisher(consumer);
+    }
+
     /**
      * @see javax.jms.QueueSession#createReceiver(javax.jms.Queue)
      */
@@ -814,124 +926,200 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
     private void send(JmsMessageProducer producer, JmsDestination destination, Message original, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay, CompletionListener listener) throws JMSException {
         sendLock.lock();
         try {
-            original.setJMSDeliveryMode(deliveryMode);
-            original.setJMSPriority(priority);
-            original.setJMSRedelivered(false);
-            original.setJMSDestination(destination);
-
-            long timeStamp = System.currentTimeMillis();
-            boolean hasTTL = timeToLive > Message.DEFAULT_TIME_TO_LIVE;
-            boolean hasDelay = deliveryDelay > Message.DEFAULT_DELIVERY_DELAY;
+            final JmsOutboundMessageDispatch envelope = createOutboundDispatch(producer, destination, original, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay, listener);
 
-            boolean isJmsMessage = original instanceof JmsMessage;
+            try {
+                if (envelope.isCompletionRequired()) {
+                    transactionContext.send(connection, envelope, new ProviderSynchronization() {
+
+                        @Override
+                        public void onPendingSuccess() {
+                            // Provider accepted the send request so new we place the marker in
+                            // the queue so that it can be completed asynchronously.
+                            asyncSendQueue.addLast(new SendCompletion(envelope, listener));
+                        }
 
-            if (!disableTimestamp) {
-                original.setJMSTimestamp(timeStamp);
-            } else {
-                original.setJMSTimestamp(0);
+                        @Override
+                        public void onPendingFailure(Throwable cause) {
+                            // Provider has rejected the send request so we will throw the
+                            // exception that is to follow so no completion will be needed.
+                        }
+                    });
+                } else {
+                    transactionContext.send(connection, envelope, null);
+                }
+            } finally {
+                // The provider retains the encoded payload for as long as it needs it, once
+                // the send request has completed this reference is no longer needed.
+                ReferenceCountUtil.release(envelope.getPayload());
+                if (isDetachedOnSend(envelope)) {
+                    envelope.detachMessage();
+                }
             }
+        } finally {
+            sendLock.unlock();
+        }
+    }
 
-            if (hasTTL) {
-                original.setJMSExpiration(timeStamp + timeToLive);
-            } else {
-                original.setJMSExpiration(0);
-            }
+    protected void send(JmsMessageProducer producer, Destination dest, List<? extends Message> messages, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay) throws JMSException {
+        if (dest == null) {
+            throw new InvalidDestinationException("Destination must not be null");
+        }
 
-            long messageSequence = producer.getNextMessageSequence();
-            Object messageId = null;
-            if (!disableMsgId) {
-                messageId = producer.getMessageIDBuilder().createMessageID(producer.getProducerId().toString(), messageSequence);
-            }
+        if (messages == null) {
+            throw new MessageFormatException("Messages must not be null");
+        }
 
-            JmsMessage outbound = null;
-            if (isJmsMessage) {
-                outbound = (JmsMessage) original;
-            } else {
-                // Transform and assign the Destination as one of our own destination objects.
-                outbound = JmsMessageTransformation.transformMessage(connection, original);
-                outbound.setJMSDestination(destination);
+        for (Message message : messages) {
+            if (message == null) {
+                throw new MessageFormatException("Message must not be null");
             }
+        }
 
-            // Set the delivery time. Purposefully avoided doing this earlier so
-            // that we use the 'outbound' JmsMessage object reference when
-            // updating our own message instances, avoids using the interface
-            // in case the JMS 1.1 Message API is actually being used due to
-            // being on the classpath too.
-            long deliveryTime = timeStamp;
-            if (hasDelay) {
-                deliveryTime = timeStamp + deliveryDelay;
-            }
+        if (messages.isEmpty()) {
+            return;
+        }
 
-            outbound.getFacade().setDeliveryTime(deliveryTime, hasDelay);
-            if(!isJmsMessage) {
-                // If the original was a foreign message, we still need to update it too.
-                setForeignMessageDeliveryTime(original, deliveryTime);
-            }
+        JmsDestination destination = JmsMessageTransformation.transformDestination(connection, dest);
 
-            // Set the message ID
-            outbound.getFacade().setProviderMessageIdObject(messageId);
-            if (!isJmsMessage) {
-                // If the original was a foreign message, we still need to update it
-                // with the properly encoded Message ID String, get it from the one
-                // we transformed from now that it is set.
-                original.setJMSMessageID(outbound.getJMSMessageID());
-            }
+        if (destination.isTemporary() && ((JmsTemporaryDestination) destination).isDeleted()) {
+            throw new IllegalStateException("Temporary destination has been deleted");
+        }
 
-            // If configured set the User ID using the value we have encoded and cached,
-            // otherwise clear to prevent caller from spoofing the user ID value.
-            if (connection.isPopulateJMSXUserID()) {
-                outbound.getFacade().setUserIdBytes(connection.getEncodedUsername());
-            } else {
-                outbound.getFacade().setUserId(null);
+        sendLock.lock();
+        try {
+            List<JmsOutboundMessageDispatch> envelopes = new ArrayList<>(messages.size());
+            try {
+                for (Message message : messages) {
+                    envelopes.add(createOutboundDispatch(producer, destination, message, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay, null));
+                }
+
+                transactionContext.send(connection, envelopes, null);
+            } catch (JMSException | RuntimeException e) {
+                // Messages that were never sent must be returned to the application as writable.
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    JmsMessage message = envelope.getMessage();
+                    if (!envelope.isSendComplete() && message != null) {
+                        message.onSendComplete();
+                    }
+                }
+                throw e;
+            } finally {
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    ReferenceCountUtil.release(envelope.getPayload());
+                    if (isDetachedOnSend(envelope)) {
+                        envelope.detachMessage();
+                    }
+                }
             }
+        } finally {
+            sendLock.unlock();
+        }
+    }
 
-            boolean sync = connection.isForceSyncSend() ||
-                           (!connection.isForceAsyncSend() && deliveryMode == DeliveryMode.PERSISTENT && !getTransacted());
+    private JmsOutboundMessageDispatch createOutboundDispatch(JmsMessageProducer producer, JmsDestination destination, Message original, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay, CompletionListener listener) throws JMSException {
+        original.setJMSDeliveryMode(deliveryMode);
+        original.setJMSPriority(priority);
+        original.setJMSRedelivered(false);
+        original.setJMSDestination(destination);
 
-            outbound.onSend(timeToLive);
+        long timeStamp = System.currentTimeMillis();
+        boolean hasTTL = timeToLive > Message.DEFAULT_TIME_TO_LIVE;
+        boolean hasDelay = deliveryDelay > Message.DEFAULT_DELIVERY_DELAY;
 
-            JmsOutboundMessageDispatch envelope = new JmsOutboundMessageDispatch();
-            envelope.setMessage(outbound);
-            envelope.setPayload(outbound.getFacade().encodeMessage());
-            envelope.setProducerId(producer.getProducerId());
-            envelope.setDestination(destination);
-            envelope.setSendAsync(listener == null ? !sync : true);
-            envelope.setDispatchId(messageSequence);
-            envelope.setCompletionRequired(listener != null);
+        boolean isJmsMessage = original instanceof JmsMessage;
 
-            if (producer.isAnonymous()) {
-                envelope.setPresettle(getPresettlePolicy().isProducerPresttled(this, destination));
-            } else {
-                envelope.setPresettle(producer.isPresettled());
-            }
+        if (!disableTimestamp) {
+            original.setJMSTimestamp(timeStamp);
+        } else {
+            original.setJMSTimestamp(0);
+        }
 
-            if (envelope.isSendAsync() && !envelope.isCompletionRequired() && !envelope.isPresettle()) {
-                envelope.setMessage(outbound.copy());
-                outbound.onSendComplete();
-            }
+        if (hasTTL) {
+            original.setJMSExpiration(timeStamp + timeToLive);
+        } else {
+            original.setJMSExpiration(0);
+        }
 
-            if (envelope.isCompletionRequired()) {
-                transactionContext.send(connection, envelope, new ProviderSynchronization() {
+        long messageSequence = producer.getNextMessageSequence();
+        Object messageId = null;
+        if (!disableMsgId) {
+            messageId = producer.getMessageIDBuilder().createMessageID(producer.getProducerId(), messageSequence);
+        }
 
-                    @Override
-                    public void onPendingSuccess() {
-                        // Provider accepted the send request so new we place the marker in
-                        // the queue so that it can be completed asynchronously.
-                        asyncSendQueue.addLast(new SendCompletion(envelope, listener));
-                    }
+        JmsMessage outbound = null;
+        if (isJmsMessage) {
+            outbound = (JmsMessage) original;
+        } else {
+            // Transform and assign the Destination as one of our own destination objects.
+            outbound = JmsMessageTransformation.transformMessage(connection, original);
+            outbound.setJMSDestination(destination);
+        }
 
-                    @Override
-                    public void onPendingFailure(Throwable cause) {
-                        // Provider has rejected the send request so we will throw the
-                        // exception that is to follow so no completion will be needed.
-                    }
-                });
-            } else {
-                transactionContext.send(connection, envelope, null);
-            }
-        } finally {
-            sendLock.unlock();
+        // Set the delivery time. Purposefully avoided doing this earlier so
+        // that we use the 'outbound' JmsMessage object reference when
+        // updating our own message instances, avoids using the interface
+        // in case the JMS 1.1 Message API is actually being used due to
+        // being on the classpath too.
+        long deliveryTime = timeStamp;
+        if (hasDelay) {
+            deliveryTime = timeStamp + deliveryDelay;
+        }
+
+        outbound.getFacade().setDeliveryTime(deliveryTime, hasDelay);
+        if(!isJmsMessage) {
+            // If the original was a foreign message, we still need to update it too.
+            setForeignMessageDeliveryTime(original, deliveryTime);
+        }
+
+        // Set the message ID
+        outbound.getFacade().setProviderMessageIdObject(messageId);
+        if (!isJmsMessage) {
+            // If the original was a foreign message, we still need to update it
+            // with the properly encoded Message ID String, get it from the one
+            // we transformed from now that it is set.
+            original.setJMSMessageID(outbound.getJMSMessageID());
         }
+
+        // If configured set the User ID using the value we have encoded and cached,
+        // otherwise clear to prevent caller from spoofing the user ID value.
+        if (connection.isPopulateJMSXUserID()) {
+            outbound.getFacade().setUserIdBytes(connection.getEncodedUsername());
+        } else {
+            outbound.getFacade().setUserId(null);
+        }
+
+        boolean sync = connection.isForceSyncSend() ||
+                       (!connection.isForceAsyncSend() && deliveryMode == DeliveryMode.PERSISTENT && !getTransacted());
+
+        outbound.onSend(timeToLive);
+
+        JmsOutboundMessageDispatch envelope = new JmsOutboundMessageDispatch();
+        envelope.setMessage(outbound);
+        envelope.setPayload(outbound.getFacade().encodeMessage());
+        envelope.setProducerId(producer.getProducerId());
+        envelope.setDestination(destination);
+        envelope.setSendAsync(listener == null ? !sync : true);
+        envelope.setDispatchId(messageSequence);
+        envelope.setCompletionRequired(listener != null);
+
+        if (producer.isAnonymous()) {
+            envelope.setPresettle(getPresettlePolicy().isProducerPresttled(this, destination));
+        } else {
+            envelope.setPresettle(producer.isPresettled());
+        }
+
+        if (isDetachedOnSend(envelope)) {
+            // The message is detached from the envelope once written so the application
+            // can use it again while the provider awaits the disposition.
+            outbound.onSendComplete();
+        }
+
+        return envelope;
+    }
+
+    private static boolean isDetachedOnSend(JmsOutboundMessageDispatch envelope) {
+        return envelope.isSendAsync() && !envelope.isCompletionRequired() && !envelope.isPresettle();
     }
 
     private void setForeignMessageDeliveryTime(Message foreignMessage, long deliveryTime) throws JMSException {
@@ -1121,7 +1309,7 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
     }
 
     Executor getDispatcherExecutor() {
-        ThreadPoolExecutor exec = deliveryExecutor;
+        ExecutorService exec = deliveryExecutor;
         if (exec == null) {
             synchronized (sessionInfo) {
                 if (deliveryExecutor == null) {
@@ -1139,13 +1327,40 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         return exec;
     }
 
+    /*
+     * Provider requests complete on the provider thread, the result is handed to the
+     * completion thread so that code waiting on it cannot block the provider.
+     */
+    private <T> CompletableFuture<T> completeOnCompletionThread(CompletableFuture<?> request, T value) {
+        final ExecutorService executor = getCompletionExecutor();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        request.whenComplete((ignored, error) -> {
+            try {
+                executor.execute(() -> {
+                    if (error == null) {
+                        result.complete(value);
+                    } else {
+                        result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                    }
+                });
+            } catch (RejectedExecutionException rje) {
+                result.completeExceptionally(new IllegalStateException("The Session is closed"));
+            }
+        });
+
+        return result;
+    }
+
     private ExecutorService getCompletionExecutor() {
-        ThreadPoolExecutor exec = completionExcecutor;
+        ExecutorService exec = completionExcecutor;
         if (exec == null) {
             synchronized (sessionInfo) {
                 exec = completionExcecutor;
                 if (exec == null) {
-                    exec = createExecutor("completion dispatcher", completionThread);
+                    // Completions never run on the shared pool, a MessageListener running on a
+                    // pool thread may wait on them and would otherwise starve the pool.
+                    exec = createDedicatedExecutor("completion dispatcher", completionThread);
 
                     // Ensure work thread is fully up before allowing other threads
                     // to attempt to execute on this instance.
@@ -1164,10 +1379,26 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         return exec;
     }
 
-    private ThreadPoolExecutor createExecutor(final String threadNameSuffix, AtomicReference<Thread> threadTracker) {
+    private ExecutorService createExecutor(final String threadNameSuffix, AtomicReference<Thread> threadTracker) {
+        SharedThreadPool sharedThreadPool = connection.getSharedThreadPool();
+        if (sharedThreadPool != null) {
+            // Like the discarding rejection policy below, a shut down serial executor drops new tasks.
+            return sharedThreadPool.newSerialExecutor("JmsSession ["+ sessionInfo.getId() + "] " + threadNameSuffix, threadTracker);
+        }
+
+        return createDedicatedExecutor(threadNameSuffix, threadTracker);
+    }
+
+    private ExecutorService createDedicatedExecutor(final String threadNameSuffix, AtomicReference<Thread> threadTracker) {
         ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
             new QpidJMSThreadFactory("JmsSession ["+ sessionInfo.getId() + "] " + threadNameSuffix, true, threadTracker));
 
+        if (connection.getSharedThreadPool() != null) {
+            // Only hold a thread while there is work, keeping the thread count of a
+            // connection using the shared pool down when its sessions are idle.
+            executor.allowCoreThreadTimeOut(true);
+        }
+
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardOldestPolicy() {
 
             @Override
@@ -1355,10 +1586,31 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         }
     }
 
+    /**
+     * Starts recovery of this session by sending its create to the recovering provider.
+     * Recovery is split into stages so the connection can pipeline the work of all its
+     * sessions: this sends the session begin, {@link #onSessionRecovery(Provider)} waits
+     * for it and sends every link attach, and {@link #awaitConnectionRecovery()} waits on
+     * the link responses.
+     *
+     * @param provider
+     *        the provider that is being recovered.
+     *
+     * @throws Exception if the session create could not be sent.
+     */
     protected void onConnectionRecovery(Provider provider) throws Exception {
+        recoveryRequest = null;
         if (!sessionInfo.isClosed()) {
             ProviderFuture request = provider.newProviderFuture();
             provider.create(sessionInfo, request);
+            recoveryRequest = request;
+        }
+    }
+
+    protected void onSessionRecovery(Provider provider) throws Exception {
+        ProviderFuture request = recoveryRequest;
+        recoveryRequest = null;
+        if (request != null) {
             request.sync();
 
             transactionContext.onConnectionRecovery(provider);
@@ -1373,6 +1625,16 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         }
     }
 
+    protected void awaitConnectionRecovery() throws Exception {
+        for (JmsMessageProducer producer : producers.values()) {
+            producer.awaitConnectionRecovery();
+        }
+
+        for (JmsMessageConsumer consumer : consumers.values()) {
+            consumer.awaitConnectionRecovery();
+        }
+    }
+
     protected void onConnectionRecovered(Provider provider) throws Exception {
         for (JmsMessageProducer producer : producers.values()) {
             producer.onConnectionRecovered(provider);
@@ -16,6 +16,10 @@
  */
 package org.apache.qpid.jms;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import javax.jms.JMSException;
 
 import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
@@ -63,6 +67,22 @@ public interface JmsTransactionContext {
      */
     void send(JmsConnection connection, JmsOutboundMessageDispatch envelope, ProviderSynchronization outcome) throws JMSException;
 
+    /**
+     * Allows the context to intercept and perform any additional logic
+     * prior to a batch of messages being sent on to the connection and
+     * subsequently the remote peer.
+     *
+     * @param connection
+     *        the connection that will be do the send of the messages
+     * @param envelopes
+     *        the envelopes that contain the messages to be sent.
+     * @param outcome
+     * 	      Synchronization used to set state prior to completion of the send call.
+     *
+     * @throws JMSException if an error occurs during the send.
+     */
+    void send(JmsConnection connection, List<JmsOutboundMessageDispatch> envelopes, ProviderSynchronization outcome) throws JMSException;
+
     /**
      * @return if the currently transaction has been marked as being in an unknown state.
      */
@@ -96,6 +116,21 @@ public interface JmsTransactionContext {
      */
     void commit() throws JMSException;
 
+    /**
+     * Starts a commit of all work done in this transaction without waiting for the outcome.
+     * Other work done in this transaction context waits for the commit to complete before
+     * it is performed.
+     *
+     * @param executor
+     *        the executor used to complete the returned future once the commit completes.
+     *
+     * @return a future that completes once the commit has completed and a new transaction started.
+     *
+     * @throws JMSException
+     *         if the commit could not be started.
+     */
+    CompletableFuture<Void> commitAsync(Executor executor) throws JMSException;
+
     /**
      * Rolls back any work done in this transaction and releases any locks
      * currently held.  This method will not start a new transaction and no new
@@ -31,6 +31,7 @@ public class JmsInboundMessageDispatch extends JmsAbstractResourceId {
     private JmsMessage message;
     private boolean enqueueFirst;
     private boolean delivered;
+    private int messageSize;
 
     private transient JmsConsumerInfo consumerInfo;
     private transient String stringView;
@@ -75,6 +76,17 @@ public class JmsInboundMessageDispatch extends JmsAbstractResourceId {
         this.delivered = delivered;
     }
 
+    /**
+     * @return the size in bytes of the message as it was received, or zero if not known.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    public void setMessageSize(int messageSize) {
+        this.messageSize = messageSize;
+    }
+
     public int getRedeliveryCount() {
         int redeliveryCount = 0;
 
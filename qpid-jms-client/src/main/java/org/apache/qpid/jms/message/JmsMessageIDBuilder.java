@@ -18,6 +18,7 @@ package org.apache.qpid.jms.message;
 
 import java.util.Locale;
 
+import org.apache.qpid.jms.meta.JmsProducerId;
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageIdHelper;
 
 /**
@@ -41,6 +42,11 @@ public interface JmsMessageIDBuilder {
                         return messageId;
                     }
 
+                    @Override
+                    public Object createMessageID(JmsProducerId producerId, long messageSequence) {
+                        return appendSequence(producerId.getMessageIDPrefix(), messageSequence);
+                    }
+
                     @Override
                     public String toString() {
                         return DEFAULT.name();
@@ -102,6 +108,34 @@ public interface JmsMessageIDBuilder {
 
         public abstract JmsMessageIDBuilder createBuilder();
 
+        /*
+         * Writes the prefix and the decimal digits of the sequence into a single array that
+         * becomes the ID String, avoiding the intermediate Strings of a concatenation.
+         */
+        private static String appendSequence(String prefix, long messageSequence) {
+            if (messageSequence < 0) {
+                return prefix + messageSequence;
+            }
+
+            int digits = 1;
+            for (long remaining = messageSequence / 10; remaining != 0; remaining /= 10) {
+                digits++;
+            }
+
+            final int prefixLength = prefix.length();
+            final char[] chars = new char[prefixLength + digits];
+
+            prefix.getChars(0, prefixLength, chars, 0);
+
+            long remaining = messageSequence;
+            for (int i = chars.length - 1; i >= prefixLength; --i) {
+                chars[i] = (char) ('0' + (remaining % 10));
+                remaining /= 10;
+            }
+
+            return new String(chars);
+        }
+
         /**
          * Creates a new JmsMessageIDBuilder from the named type (case insensitive).
          *
@@ -130,4 +164,20 @@ public interface JmsMessageIDBuilder {
      */
     Object createMessageID(String producerId, long messageSequence);
 
+    /**
+     * Create and return a new Message ID value for a message sent by the given producer.
+     * Builders that can prepare work once per producer and reuse it for each message can
+     * override this, by default the String form of the producer ID is used.
+     *
+     * @param producerId
+     *      The ID of the producer that is sending the message.
+     * @param messageSequence
+     *      The producer assigned sequence number for the outgoing message.
+     *
+     * @return and Object value that will be assigned as the Message ID.
+     */
+    default Object createMessageID(JmsProducerId producerId, long messageSequence) {
+        return createMessageID(producerId.toString(), messageSequence);
+    }
+
 }
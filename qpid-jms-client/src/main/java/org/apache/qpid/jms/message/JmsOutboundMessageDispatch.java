@@ -25,11 +25,14 @@ import org.apache.qpid.jms.meta.JmsProducerId;
 public class JmsOutboundMessageDispatch {
 
     private JmsProducerId producerId;
-    private JmsMessage message;
+    private volatile JmsMessage message;
+    private Object messageId;
     private JmsDestination destination;
     private boolean sendAsync;
     private boolean presettle;
     private boolean completionRequired;
+    private boolean settlementTracked;
+    private volatile boolean sendComplete;
     private long dispatchId;
     private Object payload;
 
@@ -44,7 +47,16 @@ public class JmsOutboundMessageDispatch {
     }
 
     public Object getMessageId() {
-        return message.getFacade().getProviderMessageIdObject();
+        JmsMessage current = message;
+        if (current != null) {
+            return current.getFacade().getProviderMessageIdObject();
+        } else {
+            return messageId;
+        }
+    }
+
+    public void setMessageId(Object messageId) {
+        this.messageId = messageId;
     }
 
     public JmsMessage getMessage() {
@@ -55,6 +67,21 @@ public class JmsOutboundMessageDispatch {
         this.message = message;
     }
 
+    /**
+     * Drops the reference to the Message once the provider has written the encoded
+     * payload, keeping only the message ID needed to track the send until it is settled.
+     * The application is then free to reuse the Message without a copy being made.
+     */
+    public void detachMessage() {
+        JmsMessage current = message;
+        if (current != null) {
+            // Capture the string view first as it reads the ID from the message.
+            toString();
+            messageId = current.getFacade().getProviderMessageIdObject();
+            message = null;
+        }
+    }
+
     public Object getPayload() {
         return payload;
     }
@@ -103,6 +130,28 @@ public class JmsOutboundMessageDispatch {
         this.completionRequired = completionRequired;
     }
 
+    /**
+     * @return true if the provider listener should be told once the remote settles this send.
+     */
+    public boolean isSettlementTracked() {
+        return settlementTracked;
+    }
+
+    public void setSettlementTracked(boolean settlementTracked) {
+        this.settlementTracked = settlementTracked;
+    }
+
+    /**
+     * @return true if the provider has completed the send of this envelope as part of a batch.
+     */
+    public boolean isSendComplete() {
+        return sendComplete;
+    }
+
+    public void setSendComplete(boolean sendComplete) {
+        this.sendComplete = sendComplete;
+    }
+
     @Override
     public String toString() {
         if (stringView == null) {
@@ -114,7 +163,8 @@ public class JmsOutboundMessageDispatch {
             value.append(getDispatchId());
             value.append(", MessageID = ");
             try {
-                value.append(message.getJMSMessageID());
+                JmsMessage current = message;
+                value.append(current != null ? current.getJMSMessageID() : messageId);
             } catch (Throwable e) {
                 value.append("<unknown>");
             }
@@ -455,6 +455,9 @@ public interface JmsMessageFacade {
     /**
      * Encodes the protocol level Message instance for transmission.
      *
+     * If the returned value is reference counted the caller is responsible for releasing
+     * it once the send that it was created for has completed.
+     *
      * @return an Object that represents the encoded form of the message for the target provider.
      */
     Object encodeMessage();
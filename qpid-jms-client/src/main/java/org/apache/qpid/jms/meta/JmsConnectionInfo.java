@@ -65,9 +65,11 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
     private boolean receiveLocalOnly;
     private boolean receiveNoWaitLocalOnly;
     private boolean localMessagePriority;
+    private boolean lockFreeMessageQueue;
     private boolean localMessageExpiry;
     private boolean populateJMSXUserID;
     private boolean useDaemonThread;
+    private int sharedExecutorThreads;
     private boolean awaitClientID = true;
     private boolean closeLinksThatFailOnReconnect;
     private long sendTimeout = DEFAULT_SEND_TIMEOUT;
@@ -115,6 +117,7 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
         copy.connectTimeout = connectTimeout;
         copy.validatePropertyNames = validatePropertyNames;
         copy.useDaemonThread = useDaemonThread;
+        copy.sharedExecutorThreads = sharedExecutorThreads;
         copy.closeLinksThatFailOnReconnect = closeLinksThatFailOnReconnect;
         copy.messageIDPolicy = getMessageIDPolicy().copy();
         copy.prefetchPolicy = getPrefetchPolicy().copy();
@@ -253,6 +256,14 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
         this.localMessagePriority = localMessagePriority;
     }
 
+    public boolean isLockFreeMessageQueue() {
+        return lockFreeMessageQueue;
+    }
+
+    public void setLockFreeMessageQueue(boolean lockFreeMessageQueue) {
+        this.lockFreeMessageQueue = lockFreeMessageQueue;
+    }
+
     public boolean isForceAsyncAcks() {
         return forceAsyncAcks;
     }
@@ -364,6 +375,14 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
         this.useDaemonThread = useDaemonThread;
     }
 
+    public int getSharedExecutorThreads() {
+        return sharedExecutorThreads;
+    }
+
+    public void setSharedExecutorThreads(int sharedExecutorThreads) {
+        this.sharedExecutorThreads = sharedExecutorThreads;
+    }
+
     public boolean isAwaitClientID() {
         return awaitClientID;
     }
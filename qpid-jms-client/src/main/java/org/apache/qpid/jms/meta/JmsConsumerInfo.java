@@ -28,6 +28,8 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
     private final JmsConsumerId consumerId;
     private JmsDestination destination;
     private int prefetchSize;
+    private boolean adaptivePrefetch;
+    private long prefetchBytes;
     private boolean browser;
     private String selector;
     private boolean explicitClientID;
@@ -67,6 +69,8 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
     private void copy(JmsConsumerInfo info) {
         info.destination = destination;
         info.prefetchSize = prefetchSize;
+        info.adaptivePrefetch = adaptivePrefetch;
+        info.prefetchBytes = prefetchBytes;
         info.browser = browser;
         info.selector = selector;
         info.explicitClientID = explicitClientID;
@@ -120,6 +124,22 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
         this.prefetchSize = prefetchSize;
     }
 
+    public boolean isAdaptivePrefetch() {
+        return adaptivePrefetch;
+    }
+
+    public void setAdaptivePrefetch(boolean adaptivePrefetch) {
+        this.adaptivePrefetch = adaptivePrefetch;
+    }
+
+    public long getPrefetchBytes() {
+        return prefetchBytes;
+    }
+
+    public void setPrefetchBytes(long prefetchBytes) {
+        this.prefetchBytes = prefetchBytes;
+    }
+
     public String getSelector() {
         return selector;
     }
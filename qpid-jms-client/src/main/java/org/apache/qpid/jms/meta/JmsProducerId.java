@@ -23,6 +23,7 @@ public final class JmsProducerId extends JmsAbstractResourceId implements Compar
     private long value;
 
     private transient String key;
+    private transient String messageIDPrefix;
     private transient JmsSessionId parentId;
 
     public JmsProducerId(JmsSessionId sessionId, long producerId) {
@@ -112,6 +113,22 @@ public final class JmsProducerId extends JmsAbstractResourceId implements Compar
         return key;
     }
 
+    /**
+     * @return the String form of this producer ID with the JMS "ID:" prefix added if
+     *         not already present and a trailing "-" to which a message sequence is added.
+     */
+    public String getMessageIDPrefix() {
+        if (messageIDPrefix == null) {
+            String producerKey = toString();
+            if (producerKey.startsWith("ID:")) {
+                messageIDPrefix = producerKey + "-";
+            } else {
+                messageIDPrefix = "ID:" + producerKey + "-";
+            }
+        }
+        return messageIDPrefix;
+    }
+
     @Override
     public int hashCode() {
         if (hashCode == 0) {
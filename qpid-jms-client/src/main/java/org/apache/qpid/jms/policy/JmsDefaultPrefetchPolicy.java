@@ -39,6 +39,9 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
     private int topicPrefetch;
     private int durableTopicPrefetch;
     private int maxPrefetchSize = MAX_PREFETCH_SIZE;
+    private boolean adaptive;
+    private long consumerPrefetchBytes;
+    private long connectionPrefetchBytes;
 
     /**
      * Initialize default prefetch policies
@@ -62,6 +65,9 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         this.topicPrefetch = source.getTopicPrefetch();
         this.durableTopicPrefetch = source.getDurableTopicPrefetch();
         this.maxPrefetchSize = source.getMaxPrefetchSize();
+        this.adaptive = source.isAdaptive();
+        this.consumerPrefetchBytes = source.getConsumerPrefetchBytes();
+        this.connectionPrefetchBytes = source.getConnectionPrefetchBytes();
     }
 
     @Override
@@ -89,6 +95,16 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         return prefetch;
     }
 
+    @Override
+    public boolean isAdaptivePrefetch(JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+        return isAdaptive();
+    }
+
+    @Override
+    public long getConfiguredPrefetchBytes(JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+        return getConsumerPrefetchBytes();
+    }
+
     /**
      * @return Returns the durableTopicPrefetch.
      */
@@ -170,6 +186,65 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         this.maxPrefetchSize = maxPrefetchSize;
     }
 
+    /**
+     * @return true if consumers adapt their credit window to their consume rate.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Sets whether consumers size their credit window from their measured consume rate
+     * and the round trip time to the remote peer.  When enabled the configured prefetch
+     * values become the largest window a consumer can grow to, so fast consumers open a
+     * deep window while slow consumers keep only the few messages they can keep up with.
+     *
+     * @param adaptive
+     *        true if consumer credit should adapt to the consume rate.
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return the number of bytes each consumer can hold in its prefetch buffer, zero for no limit.
+     */
+    public long getConsumerPrefetchBytes() {
+        return consumerPrefetchBytes;
+    }
+
+    /**
+     * Sets the number of bytes of message data each consumer can hold in its prefetch buffer
+     * in addition to the limit on the number of messages.  Once the limit is reached the
+     * consumer grants no more credit until its buffer drains to half of the limit.
+     *
+     * @param consumerPrefetchBytes
+     *        The consumer prefetch byte limit to set, zero for no limit.
+     */
+    public void setConsumerPrefetchBytes(long consumerPrefetchBytes) {
+        this.consumerPrefetchBytes = consumerPrefetchBytes;
+    }
+
+    /**
+     * @return the number of bytes all consumers of a connection can hold in their prefetch buffers, zero for no limit.
+     */
+    @Override
+    public long getConnectionPrefetchBytes() {
+        return connectionPrefetchBytes;
+    }
+
+    /**
+     * Sets the number of bytes of message data all the consumers of a connection can hold in
+     * their prefetch buffers combined.  Once the limit is reached no consumer on the connection
+     * grants more credit until the total drains to half of the limit.
+     *
+     * @param connectionPrefetchBytes
+     *        The connection prefetch byte limit to set, zero for no limit.
+     */
+    public void setConnectionPrefetchBytes(long connectionPrefetchBytes) {
+        this.connectionPrefetchBytes = connectionPrefetchBytes;
+    }
+
     /**
      * Sets the prefetch values for all options in this policy to the set limit.  If the value
      * given is larger than the max prefetch value of this policy the new limit will be capped
@@ -189,6 +264,9 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        result = prime * result + (adaptive ? 1231 : 1237);
+        result = prime * result + (int) (consumerPrefetchBytes ^ (consumerPrefetchBytes >>> 32));
+        result = prime * result + (int) (connectionPrefetchBytes ^ (connectionPrefetchBytes >>> 32));
         result = prime * result + durableTopicPrefetch;
         result = prime * result + maxPrefetchSize;
         result = prime * result + queueBrowserPrefetch;
@@ -214,7 +292,10 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         return this.queuePrefetch == other.queuePrefetch &&
                this.queueBrowserPrefetch == other.queueBrowserPrefetch &&
                this.topicPrefetch == other.topicPrefetch &&
-               this.durableTopicPrefetch == other.durableTopicPrefetch;
+               this.durableTopicPrefetch == other.durableTopicPrefetch &&
+               this.adaptive == other.adaptive &&
+               this.consumerPrefetchBytes == other.consumerPrefetchBytes &&
+               this.connectionPrefetchBytes == other.connectionPrefetchBytes;
     }
 
     private int getMaxPrefetchLimit(int value) {
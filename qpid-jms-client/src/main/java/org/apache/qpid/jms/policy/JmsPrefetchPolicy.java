@@ -48,4 +48,54 @@ public interface JmsPrefetchPolicy {
      */
     int getConfiguredPrefetch(JmsSession session, JmsDestination destination, boolean durable, boolean browser);
 
+    /**
+     * Returns whether a MessageConsumer being created should adapt the credit it grants to
+     * the rate at which it consumes messages, treating the configured prefetch value as the
+     * upper bound of its credit window instead of a fixed window size.
+     *
+     * @param session
+     *      the Session that own the MessageConsumer being created. (null for a ConnectionConsumer).
+     * @param destination
+     *      the Destination that the consumer will be subscribed to.
+     * @param durable
+     *      indicates if the subscription being created is a durable subscription (Topics only).
+     * @param browser
+     *      indicates if the subscription being created is a message browser (Queues only).
+     *
+     * @return true if the MessageConsumer being created should adapt its prefetch.
+     */
+    default boolean isAdaptivePrefetch(JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+        return false;
+    }
+
+    /**
+     * Returns the number of bytes of message data that a MessageConsumer being created can
+     * hold in its prefetch buffer before it stops granting the remote more credit.
+     *
+     * @param session
+     *      the Session that own the MessageConsumer being created. (null for a ConnectionConsumer).
+     * @param destination
+     *      the Destination that the consumer will be subscribed to.
+     * @param durable
+     *      indicates if the subscription being created is a durable subscription (Topics only).
+     * @param browser
+     *      indicates if the subscription being created is a message browser (Queues only).
+     *
+     * @return the prefetch byte limit of the MessageConsumer being created, or zero for no limit.
+     */
+    default long getConfiguredPrefetchBytes(JmsSession session, JmsDestination destination, boolean durable, boolean browser) {
+        return 0;
+    }
+
+    /**
+     * Returns the number of bytes of message data that all the MessageConsumer instances of
+     * a Connection can hold in their prefetch buffers before they stop granting the remote
+     * more credit.
+     *
+     * @return the prefetch byte limit of the Connection, or zero for no limit.
+     */
+    default long getConnectionPrefetchBytes() {
+        return 0;
+    }
+
 }
\ No newline at end of file
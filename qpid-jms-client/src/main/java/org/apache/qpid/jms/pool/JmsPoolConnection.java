@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionConsumer;
+import javax.jms.ConnectionMetaData;
+import javax.jms.Destination;
+import javax.jms.ExceptionListener;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSException;
+import javax.jms.Queue;
+import javax.jms.QueueConnection;
+import javax.jms.QueueSession;
+import javax.jms.ServerSessionPool;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import javax.jms.TemporaryTopic;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
+import javax.jms.TopicSession;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsDestination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Connection handed out by the JmsPoolConnectionFactory.  Closing it closes the sessions
+ * and connection consumers created from it and deletes the temporary destinations created
+ * through it, and leaves the pooled connection open for use by other handles.
+ */
+public class JmsPoolConnection implements Connection, QueueConnection, TopicConnection, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmsPoolConnection.class);
+
+    private final JmsPooledConnection pooled;
+    private final Set<JmsPoolSession> sessions = new CopyOnWriteArraySet<>();
+    private final List<ConnectionConsumer> connectionConsumers = new ArrayList<>();
+    private final List<JmsDestination> tempDestinations = new ArrayList<>();
+
+    private volatile ExceptionListener exceptionListener;
+    private volatile boolean closed;
+
+    JmsPoolConnection(JmsPooledConnection pooled) {
+        this.pooled = pooled;
+    }
+
+    //----- Session creation -------------------------------------------------//
+
+    @Override
+    public Session createSession() throws JMSException {
+        return createSession(false, Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @Override
+    public Session createSession(int sessionMode) throws JMSException {
+        return createSession(sessionMode == Session.SESSION_TRANSACTED, sessionMode);
+    }
+
+    @Override
+    public Session createSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        checkClosed();
+
+        JmsPoolSession session = new JmsPoolSession(this, pooled.borrowSession(transacted, acknowledgeMode));
+        sessions.add(session);
+
+        return session;
+    }
+
+    @Override
+    public QueueSession createQueueSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        return (QueueSession) createSession(transacted, acknowledgeMode);
+    }
+
+    @Override
+    public TopicSession createTopicSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        return (TopicSession) createSession(transacted, acknowledgeMode);
+    }
+
+    //----- Connection consumer creation -------------------------------------//
+
+    @Override
+    public ConnectionConsumer createConnectionConsumer(Destination destination, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        checkClosed();
+        return trackConnectionConsumer(getConnection().createConnectionConsumer(destination, messageSelector, sessionPool, maxMessages));
+    }
+
+    @Override
+    public ConnectionConsumer createConnectionConsumer(Queue queue, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        return createConnectionConsumer((Destination) queue, messageSelector, sessionPool, maxMessages);
+    }
+
+    @Override
+    public ConnectionConsumer createConnectionConsumer(Topic topic, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        return createConnectionConsumer((Destination) topic, messageSelector, sessionPool, maxMessages);
+    }
+
+    @Override
+    public ConnectionConsumer createDurableConnectionConsumer(Topic topic, String subscriptionName, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        checkClosed();
+        return trackConnectionConsumer(getConnection().createDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages));
+    }
+
+    @Override
+    public ConnectionConsumer createSharedConnectionConsumer(Topic topic, String subscriptionName, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        checkClosed();
+        return trackConnectionConsumer(getConnection().createSharedConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages));
+    }
+
+    @Override
+    public ConnectionConsumer createSharedDurableConnectionConsumer(Topic topic, String subscriptionName, String messageSelector, ServerSessionPool sessionPool, int maxMessages) throws JMSException {
+        checkClosed();
+        return trackConnectionConsumer(getConnection().createSharedDurableConnectionConsumer(topic, subscriptionName, messageSelector, sessionPool, maxMessages));
+    }
+
+    //----- Connection state -------------------------------------------------//
+
+    @Override
+    public String getClientID() throws JMSException {
+        checkClosed();
+        return getConnection().getClientID();
+    }
+
+    @Override
+    public void setClientID(String clientID) throws JMSException {
+        checkClosed();
+        throw new IllegalStateException("The client ID of a pooled connection cannot be set, configure it on the connection factory instead");
+    }
+
+    @Override
+    public ConnectionMetaData getMetaData() throws JMSException {
+        checkClosed();
+        return getConnection().getMetaData();
+    }
+
+    @Override
+    public ExceptionListener getExceptionListener() throws JMSException {
+        checkClosed();
+        return exceptionListener;
+    }
+
+    @Override
+    public void setExceptionListener(ExceptionListener listener) throws JMSException {
+        checkClosed();
+        this.exceptionListener = listener;
+    }
+
+    /**
+     * Starts delivery of messages on the shared connection, which remains started for
+     * all other handles that are using it.
+     */
+    @Override
+    public void start() throws JMSException {
+        checkClosed();
+        getConnection().start();
+    }
+
+    /**
+     * Has no effect as stopping the connection would stop delivery for all other handles
+     * that are using it.
+     */
+    @Override
+    public void stop() throws JMSException {
+        checkClosed();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        for (JmsPoolSession session : sessions) {
+            try {
+                session.close();
+            } catch (JMSException e) {
+                LOG.debug("Caught exception while closing pooled session: {}", e.getMessage());
+            }
+        }
+
+        synchronized (connectionConsumers) {
+            for (ConnectionConsumer consumer : connectionConsumers) {
+                try {
+                    consumer.close();
+                } catch (JMSException e) {
+                    LOG.debug("Caught exception while closing connection consumer: {}", e.getMessage());
+                }
+            }
+            connectionConsumers.clear();
+        }
+
+        // Temporary destinations live as long as the connection, which outlives this handle.
+        synchronized (tempDestinations) {
+            for (JmsDestination destination : tempDestinations) {
+                try {
+                    deleteTemporaryDestination(destination);
+                } catch (JMSException e) {
+                    LOG.debug("Caught exception while deleting temporary destination: {}", e.getMessage());
+                }
+            }
+            tempDestinations.clear();
+        }
+
+        pooled.releaseHandle(this);
+    }
+
+    /**
+     * @return the JmsConnection this handle shares with other handles.
+     *
+     * @throws JMSException if the handle has been closed.
+     */
+    public JmsConnection getConnection() throws JMSException {
+        checkClosed();
+        return pooled.getConnection();
+    }
+
+    @Override
+    public String toString() {
+        return "JmsPoolConnection { " + pooled + " }";
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    void onException(JMSException exception) {
+        ExceptionListener listener = exceptionListener;
+        if (listener != null && !closed) {
+            listener.onException(exception);
+        }
+    }
+
+    void sessionClosed(JmsPoolSession session) {
+        sessions.remove(session);
+    }
+
+    void trackTemporaryDestination(JmsDestination destination) {
+        synchronized (tempDestinations) {
+            tempDestinations.add(destination);
+        }
+    }
+
+    JmsPooledConnection getPooledConnection() {
+        return pooled;
+    }
+
+    private ConnectionConsumer trackConnectionConsumer(ConnectionConsumer consumer) {
+        synchronized (connectionConsumers) {
+            connectionConsumers.add(consumer);
+        }
+
+        return consumer;
+    }
+
+    private void deleteTemporaryDestination(JmsDestination destination) throws JMSException {
+        if (pooled.getConnection().isTemporaryDestinationDeleted(destination)) {
+            return;
+        }
+
+        if (destination instanceof TemporaryQueue) {
+            ((TemporaryQueue) destination).delete();
+        } else {
+            ((TemporaryTopic) destination).delete();
+        }
+    }
+
+    private void checkClosed() throws IllegalStateException {
+        if (closed) {
+            throw new IllegalStateException("The Connection is closed");
+        }
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSContext;
+import javax.jms.JMSException;
+import javax.jms.QueueConnection;
+import javax.jms.QueueConnectionFactory;
+import javax.jms.TopicConnection;
+import javax.jms.TopicConnectionFactory;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.JmsOperationTimedOutException;
+import org.apache.qpid.jms.util.QpidJMSThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A ConnectionFactory that keeps the connections created by a JmsConnectionFactory open
+ * once the application closes them, so that later requests for a connection with the
+ * same credentials are served without opening a new connection to the remote peer.
+ *
+ * Each connection handed out is a lightweight handle onto a pooled connection that may
+ * be shared by several handles at once.  Closing a session returns it, along with the
+ * producer used to send on its behalf, to the pooled connection for reuse by the next
+ * handle that asks for a session of the same acknowledgement mode.  Pooled connections
+ * that have had no open handles for the idle timeout are closed.
+ *
+ * Since pooled connections are shared, a client ID must be configured on the wrapped
+ * factory if one is needed, and only with a single connection per set of credentials.
+ * Calling stop on a handle has no effect on the shared connection.  JMSContext instances
+ * are not pooled and are created directly from the wrapped factory.
+ */
+public class JmsPoolConnectionFactory implements ConnectionFactory, QueueConnectionFactory, TopicConnectionFactory, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmsPoolConnectionFactory.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 1;
+    public static final int DEFAULT_MAX_SESSIONS_PER_CONNECTION = 500;
+    public static final long DEFAULT_CONNECTION_IDLE_TIMEOUT = 30000;
+    public static final long DEFAULT_BORROW_TIMEOUT = 30000;
+
+    private final Map<PoolKey, List<JmsPooledConnection>> pool = new HashMap<>();
+    private final Map<PoolKey, Integer> pendingConnections = new HashMap<>();
+
+    private JmsConnectionFactory connectionFactory;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxSessionsPerConnection = DEFAULT_MAX_SESSIONS_PER_CONNECTION;
+    private long connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    private long borrowTimeout = DEFAULT_BORROW_TIMEOUT;
+
+    private ScheduledExecutorService evictor;
+    private boolean closed;
+
+    public JmsPoolConnectionFactory() {
+    }
+
+    public JmsPoolConnectionFactory(JmsConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    //----- Connection creation ----------------------------------------------//
+
+    @Override
+    public Connection createConnection() throws JMSException {
+        return createConnection(getConnectionFactory().getUsername(), getConnectionFactory().getPassword());
+    }
+
+    @Override
+    public Connection createConnection(String username, String password) throws JMSException {
+        return borrowConnection(username, password);
+    }
+
+    @Override
+    public QueueConnection createQueueConnection() throws JMSException {
+        return (QueueConnection) createConnection();
+    }
+
+    @Override
+    public QueueConnection createQueueConnection(String username, String password) throws JMSException {
+        return (QueueConnection) createConnection(username, password);
+    }
+
+    @Override
+    public TopicConnection createTopicConnection() throws JMSException {
+        return (TopicConnection) createConnection();
+    }
+
+    @Override
+    public TopicConnection createTopicConnection(String username, String password) throws JMSException {
+        return (TopicConnection) createConnection(username, password);
+    }
+
+    @Override
+    public JMSContext createContext() {
+        return getConnectionFactory().createContext();
+    }
+
+    @Override
+    public JMSContext createContext(int sessionMode) {
+        return getConnectionFactory().createContext(sessionMode);
+    }
+
+    @Override
+    public JMSContext createContext(String username, String password) {
+        return getConnectionFactory().createContext(username, password);
+    }
+
+    @Override
+    public JMSContext createContext(String username, String password, int sessionMode) {
+        return getConnectionFactory().createContext(username, password, sessionMode);
+    }
+
+    /**
+     * Closes all of the pooled connections, including those still in use, and stops the
+     * pool from handing out any more.
+     */
+    @Override
+    public void close() {
+        List<JmsPooledConnection> connections = new ArrayList<>();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            notifyAll();
+
+            for (List<JmsPooledConnection> keyed : pool.values()) {
+                connections.addAll(keyed);
+            }
+            pool.clear();
+
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+
+        for (JmsPooledConnection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * @return the number of connections currently held in the pool for all credentials.
+     */
+    public synchronized int getConnectionCount() {
+        int count = 0;
+        for (List<JmsPooledConnection> keyed : pool.values()) {
+            count += keyed.size();
+        }
+
+        return count;
+    }
+
+    //----- Configuration ----------------------------------------------------//
+
+    public JmsConnectionFactory getConnectionFactory() {
+        if (connectionFactory == null) {
+            throw new java.lang.IllegalStateException("No JmsConnectionFactory has been configured");
+        }
+
+        return connectionFactory;
+    }
+
+    /**
+     * Sets the factory used to create the connections held in the pool.
+     *
+     * @param connectionFactory
+     *      the JmsConnectionFactory that creates the pooled connections.
+     */
+    public void setConnectionFactory(JmsConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Sets the maximum number of connections the pool holds for each set of credentials.
+     * Handles share the least used connection once the maximum has been reached.
+     *
+     * @param maxConnections
+     *      the maximum number of connections to hold for each set of credentials.
+     */
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Maximum connections must be at least one");
+        }
+
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxSessionsPerConnection() {
+        return maxSessionsPerConnection;
+    }
+
+    /**
+     * Sets the maximum number of sessions that may be in use on each pooled connection
+     * across all of the handles that share it.  Creating a session beyond the maximum
+     * fails with an IllegalStateException.
+     *
+     * @param maxSessionsPerConnection
+     *      the maximum number of sessions in use on each pooled connection.
+     */
+    public void setMaxSessionsPerConnection(int maxSessionsPerConnection) {
+        if (maxSessionsPerConnection < 1) {
+            throw new IllegalArgumentException("Maximum sessions per connection must be at least one");
+        }
+
+        this.maxSessionsPerConnection = maxSessionsPerConnection;
+    }
+
+    public long getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds a pooled connection with no open handles is kept before
+     * it is closed.  A value of zero keeps idle connections until the factory is closed.
+     *
+     * @param connectionIdleTimeout
+     *      the time in milliseconds before an unused pooled connection is closed.
+     */
+    public void setConnectionIdleTimeout(long connectionIdleTimeout) {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+    }
+
+    public long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds a caller waits for a connection being opened by another
+     * caller when every connection slot is taken.  A value of zero waits without limit.
+     *
+     * @param borrowTimeout
+     *      the time in milliseconds to wait for a pooled connection to become available.
+     */
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    //----- Pool management --------------------------------------------------//
+
+    private JmsPoolConnection borrowConnection(String username, String password) throws JMSException {
+        final PoolKey key = new PoolKey(username, password);
+
+        synchronized (this) {
+            final long deadline = borrowTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeout) : 0;
+
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("The pooled connection factory has been closed");
+                }
+
+                int pending = pendingConnections.getOrDefault(key, 0);
+                JmsPooledConnection pooled = selectConnection(pool.get(key), pending);
+                if (pooled != null) {
+                    return pooled.createHandle();
+                }
+
+                if (pending < maxConnections) {
+                    // Reserve a slot so concurrent borrowers count this connection against the limit.
+                    pendingConnections.put(key, pending + 1);
+                    break;
+                }
+
+                // Every slot is taken by a connection still being opened, share one once it is.
+                try {
+                    if (deadline == 0) {
+                        wait();
+                    } else {
+                        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                        if (remaining <= 0) {
+                            throw new JmsOperationTimedOutException("Timed out waiting for a pooled connection to be opened");
+                        }
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JMSException("Interrupted while waiting for a pooled connection");
+                }
+            }
+        }
+
+        JmsConnection connection;
+        try {
+            closeUnusedConnections(0);
+
+            // Open the new connection outside the lock as it waits on the remote peer.
+            connection = (JmsConnection) getConnectionFactory().createConnection(username, password);
+        } catch (JMSException | RuntimeException e) {
+            synchronized (this) {
+                releasePendingConnection(key);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            // The reserved slot is handed over to the connection under the same lock that
+            // adds it to the pool so other borrowers never see a gap below the limit.
+            releasePendingConnection(key);
+
+            if (closed) {
+                connection.close();
+                throw new IllegalStateException("The pooled connection factory has been closed");
+            }
+
+            JmsPooledConnection pooled = new JmsPooledConnection(this, key, connection);
+            pool.computeIfAbsent(key, k -> new ArrayList<>()).add(pooled);
+            LOG.debug("Created pooled connection {}", pooled);
+
+            if (connectionIdleTimeout > 0 && evictor == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                    1, new QpidJMSThreadFactory("JmsPoolConnectionFactory idle connection evictor", true));
+                executor.setRemoveOnCancelPolicy(true);
+
+                long period = Math.max(1, connectionIdleTimeout / 2);
+                executor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+
+                evictor = executor;
+            }
+
+            return pooled.createHandle();
+        }
+    }
+
+    /*
+     * Releases the slot reserved for a connection being opened and wakes any borrowers
+     * waiting for it.  Must be called while holding the lock.
+     */
+    private void releasePendingConnection(PoolKey key) {
+        int pending = pendingConnections.getOrDefault(key, 0) - 1;
+        if (pending > 0) {
+            pendingConnections.put(key, pending);
+        } else {
+            pendingConnections.remove(key);
+        }
+
+        notifyAll();
+    }
+
+    /*
+     * Prefers a connection no handle is using, then creating a new one while below the
+     * limit, then sharing the connection with the fewest handles.  Connections that are
+     * reconnecting are only chosen when there is no other option.  Connections still
+     * being opened count against the limit.
+     */
+    private JmsPooledConnection selectConnection(List<JmsPooledConnection> connections, int pending) {
+        if (connections == null || connections.isEmpty()) {
+            return null;
+        }
+
+        JmsPooledConnection leastUsed = null;
+        JmsPooledConnection interrupted = null;
+
+        int usable = 0;
+        for (JmsPooledConnection connection : connections) {
+            if (!connection.isUsable()) {
+                continue;
+            }
+
+            usable++;
+
+            if (connection.isInterrupted()) {
+                interrupted = interrupted == null ? connection : interrupted;
+                continue;
+            }
+
+            if (connection.getHandleCount() == 0) {
+                return connection;
+            }
+
+            if (leastUsed == null || connection.getHandleCount() < leastUsed.getHandleCount()) {
+                leastUsed = connection;
+            }
+        }
+
+        if (usable + pending < maxConnections) {
+            return null;
+        }
+
+        return leastUsed != null ? leastUsed : interrupted;
+    }
+
+    void connectionClosed(JmsPooledConnection connection) {
+        synchronized (this) {
+            List<JmsPooledConnection> connections = pool.get(connection.getKey());
+            if (connections != null) {
+                connections.remove(connection);
+                if (connections.isEmpty()) {
+                    pool.remove(connection.getKey());
+                }
+            }
+        }
+    }
+
+    void evictIdleConnections() {
+        closeUnusedConnections(connectionIdleTimeout);
+    }
+
+    /*
+     * Closes the connections no handle is using that have failed, or when a timeout is given
+     * have been idle for that long.
+     */
+    private void closeUnusedConnections(long idleTimeout) {
+        final List<JmsPooledConnection> unused = new ArrayList<>();
+
+        synchronized (this) {
+            for (List<JmsPooledConnection> connections : pool.values()) {
+                for (JmsPooledConnection connection : connections) {
+                    if (connection.getHandleCount() == 0) {
+                        unused.add(connection);
+                    }
+                }
+            }
+        }
+
+        for (JmsPooledConnection connection : unused) {
+            // A handle may have been created since it was found to be unused.
+            if (connection.closeIfUnused(idleTimeout)) {
+                LOG.debug("Closed unused pooled connection {}", connection);
+            }
+        }
+    }
+
+    //----- Pool key ---------------------------------------------------------//
+
+    private static final class PoolKey {
+
+        private final String username;
+        private final String password;
+
+        PoolKey(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, password);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+
+            PoolKey that = (PoolKey) other;
+            return Objects.equals(username, that.username) && Objects.equals(password, that.password);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import javax.jms.CompletionListener;
+import javax.jms.DeliveryMode;
+import javax.jms.Destination;
+import javax.jms.IllegalStateException;
+import javax.jms.InvalidDestinationException;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.QueueSender;
+import javax.jms.Topic;
+import javax.jms.TopicPublisher;
+
+/**
+ * A MessageProducer handed out by a JmsPoolSession.  It holds its own destination and
+ * message defaults and sends through the anonymous producer of the pooled session, so
+ * creating and closing it involves no work on the connection.
+ */
+public class JmsPoolMessageProducer implements MessageProducer, QueueSender, TopicPublisher, AutoCloseable {
+
+    private final JmsPoolSession session;
+    private final MessageProducer producer;
+    private final Destination destination;
+
+    private int deliveryMode = DeliveryMode.PERSISTENT;
+    private int priority = Message.DEFAULT_PRIORITY;
+    private long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+    private long deliveryDelay = Message.DEFAULT_DELIVERY_DELAY;
+    private boolean disableMessageId;
+    private boolean disableTimestamp;
+
+    private volatile boolean closed;
+
+    JmsPoolMessageProducer(JmsPoolSession session, MessageProducer producer, Destination destination) {
+        this.session = session;
+        this.producer = producer;
+        this.destination = destination;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (!closed) {
+            closed = true;
+            session.producerClosed(this);
+        }
+    }
+
+    //----- Send methods -----------------------------------------------------//
+
+    @Override
+    public void send(Message message) throws JMSException {
+        send(message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        checkClosed();
+        checkHasDestination();
+        configureProducer().send(destination, message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Destination destination, Message message) throws JMSException {
+        send(destination, message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        checkClosed();
+        checkAnonymous(destination);
+        configureProducer().send(destination, message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void send(Message message, CompletionListener listener) throws JMSException {
+        send(message, deliveryMode, priority, timeToLive, listener);
+    }
+
+    @Override
+    public void send(Message message, int deliveryMode, int priority, long timeToLive, CompletionListener listener) throws JMSException {
+        checkClosed();
+        checkHasDestination();
+        configureProducer().send(destination, message, deliveryMode, priority, timeToLive, listener);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, CompletionListener listener) throws JMSException {
+        send(destination, message, deliveryMode, priority, timeToLive, listener);
+    }
+
+    @Override
+    public void send(Destination destination, Message message, int deliveryMode, int priority, long timeToLive, CompletionListener listener) throws JMSException {
+        checkClosed();
+        checkAnonymous(destination);
+        configureProducer().send(destination, message, deliveryMode, priority, timeToLive, listener);
+    }
+
+    @Override
+    public void send(Queue queue, Message message) throws JMSException {
+        send((Destination) queue, message);
+    }
+
+    @Override
+    public void send(Queue queue, Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        send((Destination) queue, message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void publish(Message message) throws JMSException {
+        send(message);
+    }
+
+    @Override
+    public void publish(Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        send(message, deliveryMode, priority, timeToLive);
+    }
+
+    @Override
+    public void publish(Topic topic, Message message) throws JMSException {
+        send(topic, message);
+    }
+
+    @Override
+    public void publish(Topic topic, Message message, int deliveryMode, int priority, long timeToLive) throws JMSException {
+        send(topic, message, deliveryMode, priority, timeToLive);
+    }
+
+    //----- Producer configuration -------------------------------------------//
+
+    @Override
+    public Destination getDestination() throws JMSException {
+        checkClosed();
+        return destination;
+    }
+
+    @Override
+    public Queue getQueue() throws JMSException {
+        return (Queue) getDestination();
+    }
+
+    @Override
+    public Topic getTopic() throws JMSException {
+        return (Topic) getDestination();
+    }
+
+    @Override
+    public int getDeliveryMode() throws JMSException {
+        checkClosed();
+        return deliveryMode;
+    }
+
+    @Override
+    public void setDeliveryMode(int deliveryMode) throws JMSException {
+        checkClosed();
+        switch (deliveryMode) {
+            case DeliveryMode.PERSISTENT:
+            case DeliveryMode.NON_PERSISTENT:
+                this.deliveryMode = deliveryMode;
+                break;
+            default:
+                throw new JMSException(String.format("Invalid DeliveryMode specified: %d", deliveryMode));
+        }
+    }
+
+    @Override
+    public int getPriority() throws JMSException {
+        checkClosed();
+        return priority;
+    }
+
+    @Override
+    public void setPriority(int priority) throws JMSException {
+        checkClosed();
+        if (priority < 0 || priority > 9) {
+            throw new JMSException(String.format("Priority value given {%d} is out of range (0..9)", priority));
+        }
+
+        this.priority = priority;
+    }
+
+    @Override
+    public long getTimeToLive() throws JMSException {
+        checkClosed();
+        return timeToLive;
+    }
+
+    @Override
+    public void setTimeToLive(long timeToLive) throws JMSException {
+        checkClosed();
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public long getDeliveryDelay() throws JMSException {
+        checkClosed();
+        return deliveryDelay;
+    }
+
+    @Override
+    public void setDeliveryDelay(long deliveryDelay) throws JMSException {
+        checkClosed();
+        this.deliveryDelay = deliveryDelay;
+    }
+
+    @Override
+    public boolean getDisableMessageID() throws JMSException {
+        checkClosed();
+        return disableMessageId;
+    }
+
+    @Override
+    public void setDisableMessageID(boolean value) throws JMSException {
+        checkClosed();
+        this.disableMessageId = value;
+    }
+
+    @Override
+    public boolean getDisableMessageTimestamp() throws JMSException {
+        checkClosed();
+        return disableTimestamp;
+    }
+
+    @Override
+    public void setDisableMessageTimestamp(boolean value) throws JMSException {
+        checkClosed();
+        this.disableTimestamp = value;
+    }
+
+    @Override
+    public String toString() {
+        return "JmsPoolMessageProducer { " + destination + " }";
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    void sessionClosed() {
+        closed = true;
+    }
+
+    /*
+     * The anonymous producer is shared by all producers of the session, which like the
+     * session itself must only be used from one thread at a time.
+     */
+    private MessageProducer configureProducer() throws JMSException {
+        producer.setDeliveryDelay(deliveryDelay);
+        producer.setDisableMessageID(disableMessageId);
+        producer.setDisableMessageTimestamp(disableTimestamp);
+
+        return producer;
+    }
+
+    private void checkHasDestination() {
+        if (destination == null) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created without an explicit Destination");
+        }
+    }
+
+    private void checkAnonymous(Destination destination) throws InvalidDestinationException {
+        if (destination == null) {
+            throw new InvalidDestinationException("Destination must not be null");
+        }
+
+        if (this.destination != null) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created with an explicit Destination.");
+        }
+    }
+
+    private void checkClosed() throws IllegalStateException {
+        if (closed) {
+            throw new IllegalStateException("The MessageProducer is closed");
+        }
+
+        session.checkClosed();
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
+import javax.jms.Queue;
+import javax.jms.QueueBrowser;
+import javax.jms.QueueReceiver;
+import javax.jms.QueueSender;
+import javax.jms.QueueSession;
+import javax.jms.Session;
+import javax.jms.StreamMessage;
+import javax.jms.TemporaryQueue;
+import javax.jms.TemporaryTopic;
+import javax.jms.TextMessage;
+import javax.jms.Topic;
+import javax.jms.TopicPublisher;
+import javax.jms.TopicSession;
+import javax.jms.TopicSubscriber;
+
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.JmsTemporaryQueue;
+import org.apache.qpid.jms.JmsTemporaryTopic;
+import org.apache.qpid.jms.pool.JmsPooledConnection.PooledSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Session handed out by a JmsPoolConnection.  Closing it closes the consumers and
+ * browsers created from it and returns the underlying session to the pooled connection.
+ *
+ * Producers created from the session all send using a single anonymous producer that
+ * stays with the underlying session while it is pooled, so that no link needs to be
+ * attached to create a producer on a session taken from the pool.
+ *
+ * Transacted sessions are rolled back before being returned to the pool.  Client and
+ * individual acknowledge sessions, and sessions that had a message listener set, are
+ * closed rather than pooled so that any unacknowledged messages are redelivered.
+ */
+public class JmsPoolSession implements Session, QueueSession, TopicSession, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmsPoolSession.class);
+
+    private final JmsPoolConnection connection;
+    private final PooledSession pooled;
+    private final JmsSession session;
+    private final List<MessageConsumer> consumers = new ArrayList<>();
+    private final List<QueueBrowser> browsers = new ArrayList<>();
+    private final List<JmsPoolMessageProducer> producers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    JmsPoolSession(JmsPoolConnection connection, PooledSession pooled) {
+        this.connection = connection;
+        this.pooled = pooled;
+        this.session = pooled.getSession();
+    }
+
+    //----- Message creation -------------------------------------------------//
+
+    @Override
+    public BytesMessage createBytesMessage() throws JMSException {
+        return getSession().createBytesMessage();
+    }
+
+    @Override
+    public MapMessage createMapMessage() throws JMSException {
+        return getSession().createMapMessage();
+    }
+
+    @Override
+    public Message createMessage() throws JMSException {
+        return getSession().createMessage();
+    }
+
+    @Override
+    public ObjectMessage createObjectMessage() throws JMSException {
+        return getSession().createObjectMessage();
+    }
+
+    @Override
+    public ObjectMessage createObjectMessage(Serializable object) throws JMSException {
+        return getSession().createObjectMessage(object);
+    }
+
+    @Override
+    public StreamMessage createStreamMessage() throws JMSException {
+        return getSession().createStreamMessage();
+    }
+
+    @Override
+    public TextMessage createTextMessage() throws JMSException {
+        return getSession().createTextMessage();
+    }
+
+    @Override
+    public TextMessage createTextMessage(String text) throws JMSException {
+        return getSession().createTextMessage(text);
+    }
+
+    //----- Destination creation ---------------------------------------------//
+
+    @Override
+    public Queue createQueue(String queueName) throws JMSException {
+        return getSession().createQueue(queueName);
+    }
+
+    @Override
+    public Topic createTopic(String topicName) throws JMSException {
+        return getSession().createTopic(topicName);
+    }
+
+    @Override
+    public TemporaryQueue createTemporaryQueue() throws JMSException {
+        TemporaryQueue queue = getSession().createTemporaryQueue();
+        connection.trackTemporaryDestination((JmsTemporaryQueue) queue);
+        return queue;
+    }
+
+    @Override
+    public TemporaryTopic createTemporaryTopic() throws JMSException {
+        TemporaryTopic topic = getSession().createTemporaryTopic();
+        connection.trackTemporaryDestination((JmsTemporaryTopic) topic);
+        return topic;
+    }
+
+    //----- Producer creation ------------------------------------------------//
+
+    @Override
+    public MessageProducer createProducer(Destination destination) throws JMSException {
+        return trackProducer(new JmsPoolMessageProducer(this, getProducer(), destination));
+    }
+
+    @Override
+    public QueueSender createSender(Queue queue) throws JMSException {
+        return trackProducer(new JmsPoolMessageProducer(this, getProducer(), queue));
+    }
+
+    @Override
+    public TopicPublisher createPublisher(Topic topic) throws JMSException {
+        return trackProducer(new JmsPoolMessageProducer(this, getProducer(), topic));
+    }
+
+    //----- Consumer creation ------------------------------------------------//
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination) throws JMSException {
+        return trackConsumer(getSession().createConsumer(destination));
+    }
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination, String messageSelector) throws JMSException {
+        return trackConsumer(getSession().createConsumer(destination, messageSelector));
+    }
+
+    @Override
+    public MessageConsumer createConsumer(Destination destination, String messageSelector, boolean noLocal) throws JMSException {
+        return trackConsumer(getSession().createConsumer(destination, messageSelector, noLocal));
+    }
+
+    @Override
+    public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName) throws JMSException {
+        return trackConsumer(getSession().createSharedConsumer(topic, sharedSubscriptionName));
+    }
+
+    @Override
+    public MessageConsumer createSharedConsumer(Topic topic, String sharedSubscriptionName, String messageSelector) throws JMSException {
+        return trackConsumer(getSession().createSharedConsumer(topic, sharedSubscriptionName, messageSelector));
+    }
+
+    @Override
+    public MessageConsumer createDurableConsumer(Topic topic, String name) throws JMSException {
+        return trackConsumer(getSession().createDurableConsumer(topic, name));
+    }
+
+    @Override
+    public MessageConsumer createDurableConsumer(Topic topic, String name, String messageSelector, boolean noLocal) throws JMSException {
+        return trackConsumer(getSession().createDurableConsumer(topic, name, messageSelector, noLocal));
+    }
+
+    @Override
+    public MessageConsumer createSharedDurableConsumer(Topic topic, String name) throws JMSException {
+        return trackConsumer(getSession().createSharedDurableConsumer(topic, name));
+    }
+
+    @Override
+    public MessageConsumer createSharedDurableConsumer(Topic topic, String name, String messageSelector) throws JMSException {
+        return trackConsumer(getSession().createSharedDurableConsumer(topic, name, messageSelector));
+    }
+
+    @Override
+    public TopicSubscriber createDurableSubscriber(Topic topic, String name) throws JMSException {
+        return trackConsumer(getSession().createDurableSubscriber(topic, name));
+    }
+
+    @Override
+    public TopicSubscriber createDurableSubscriber(Topic topic, String name, String messageSelector, boolean noLocal) throws JMSException {
+        return trackConsumer(getSession().createDurableSubscriber(topic, name, messageSelector, noLocal));
+    }
+
+    @Override
+    public QueueReceiver createReceiver(Queue queue) throws JMSException {
+        return trackConsumer(getSession().createReceiver(queue));
+    }
+
+    @Override
+    public QueueReceiver createReceiver(Queue queue, String messageSelector) throws JMSException {
+        return trackConsumer(getSession().createReceiver(queue, messageSelector));
+    }
+
+    @Override
+    public TopicSubscriber createSubscriber(Topic topic) throws JMSException {
+        return trackConsumer(getSession().createSubscriber(topic));
+    }
+
+    @Override
+    public TopicSubscriber createSubscriber(Topic topic, String messageSelector, boolean noLocal) throws JMSException {
+        return trackConsumer(getSession().createSubscriber(topic, messageSelector, noLocal));
+    }
+
+    @Override
+    public QueueBrowser createBrowser(Queue queue) throws JMSException {
+        return trackBrowser(getSession().createBrowser(queue));
+    }
+
+    @Override
+    public QueueBrowser createBrowser(Queue queue, String messageSelector) throws JMSException {
+        return trackBrowser(getSession().createBrowser(queue, messageSelector));
+    }
+
+    @Override
+    public void unsubscribe(String name) throws JMSException {
+        getSession().unsubscribe(name);
+    }
+
+    //----- Session state ----------------------------------------------------//
+
+    @Override
+    public boolean getTransacted() throws JMSException {
+        return getSession().getTransacted();
+    }
+
+    @Override
+    public int getAcknowledgeMode() throws JMSException {
+        return getSession().getAcknowledgeMode();
+    }
+
+    @Override
+    public void commit() throws JMSException {
+        getSession().commit();
+    }
+
+    @Override
+    public void rollback() throws JMSException {
+        getSession().rollback();
+    }
+
+    @Override
+    public void recover() throws JMSException {
+        getSession().recover();
+    }
+
+    @Override
+    public MessageListener getMessageListener() throws JMSException {
+        return getSession().getMessageListener();
+    }
+
+    @Override
+    public void setMessageListener(MessageListener listener) throws JMSException {
+        getSession().setMessageListener(listener);
+    }
+
+    @Override
+    public void run() {
+        session.run();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        connection.sessionClosed(this);
+
+        boolean reusable = !session.isClosed();
+
+        synchronized (this) {
+            for (JmsPoolMessageProducer producer : producers) {
+                producer.sessionClosed();
+            }
+            producers.clear();
+
+            for (MessageConsumer consumer : consumers) {
+                try {
+                    consumer.close();
+                } catch (JMSException e) {
+                    LOG.debug("Caught exception while closing consumer: {}", e.getMessage());
+                    reusable = false;
+                }
+            }
+            consumers.clear();
+
+            for (QueueBrowser browser : browsers) {
+                try {
+                    browser.close();
+                } catch (JMSException e) {
+                    LOG.debug("Caught exception while closing browser: {}", e.getMessage());
+                    reusable = false;
+                }
+            }
+            browsers.clear();
+        }
+
+        try {
+            if (reusable && (session.isClientAcknowledge() || session.isIndividualAcknowledge() || session.getMessageListener() != null)) {
+                reusable = false;
+            }
+
+            if (reusable && session.isTransacted()) {
+                session.rollback();
+            }
+        } catch (JMSException e) {
+            LOG.debug("Caught exception while resetting pooled session: {}", e.getMessage());
+            reusable = false;
+        }
+
+        connection.getPooledConnection().returnSession(pooled, reusable);
+    }
+
+    /**
+     * @return the JmsSession this handle is currently using.
+     *
+     * @throws JMSException if the handle has been closed.
+     */
+    public JmsSession getSession() throws JMSException {
+        checkClosed();
+        return session;
+    }
+
+    @Override
+    public String toString() {
+        return "JmsPoolSession { " + session + " }";
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    void producerClosed(JmsPoolMessageProducer producer) {
+        synchronized (this) {
+            producers.remove(producer);
+        }
+    }
+
+    void checkClosed() throws IllegalStateException {
+        if (closed) {
+            throw new IllegalStateException("The Session is closed");
+        }
+    }
+
+    private MessageProducer getProducer() throws JMSException {
+        checkClosed();
+        return pooled.getProducer();
+    }
+
+    private synchronized <T extends MessageConsumer> T trackConsumer(T consumer) {
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    private synchronized QueueBrowser trackBrowser(QueueBrowser browser) {
+        browsers.add(browser);
+        return browser;
+    }
+
+    private synchronized JmsPoolMessageProducer trackProducer(JmsPoolMessageProducer producer) {
+        producers.add(producer);
+        return producer;
+    }
+}
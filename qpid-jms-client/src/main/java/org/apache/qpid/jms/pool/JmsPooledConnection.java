@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.jms.ExceptionListener;
+import javax.jms.IllegalStateException;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionListener;
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A JmsConnection held by the pool along with the sessions that have been returned
+ * to it, each with the anonymous producer used to send on behalf of any producers
+ * created from the session while it was in use.
+ *
+ * The connection remains in the pool while the remote peer is unavailable and a
+ * failover connection is trying to reconnect, and is only dropped from it once the
+ * connection has failed for good.
+ */
+final class JmsPooledConnection implements JmsConnectionListener, ExceptionListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmsPooledConnection.class);
+
+    private final JmsPoolConnectionFactory factory;
+    private final Object key;
+    private final JmsConnection connection;
+    private final Map<Integer, Deque<PooledSession>> idleSessions = new HashMap<>();
+    private final Set<JmsPoolConnection> handles = new CopyOnWriteArraySet<>();
+
+    private int activeSessions;
+    private long lastUsed = System.currentTimeMillis();
+    private volatile boolean interrupted;
+    private volatile boolean failed;
+    private boolean closed;
+
+    JmsPooledConnection(JmsPoolConnectionFactory factory, Object key, JmsConnection connection) throws JMSException {
+        this.factory = factory;
+        this.key = key;
+        this.connection = connection;
+
+        connection.addConnectionListener(this);
+        connection.setExceptionListener(this);
+    }
+
+    JmsConnection getConnection() {
+        return connection;
+    }
+
+    Object getKey() {
+        return key;
+    }
+
+    synchronized int getHandleCount() {
+        return handles.size();
+    }
+
+    synchronized long getLastUsed() {
+        return lastUsed;
+    }
+
+    synchronized int getActiveSessionCount() {
+        return activeSessions;
+    }
+
+    synchronized int getIdleSessionCount() {
+        int count = 0;
+        for (Deque<PooledSession> sessions : idleSessions.values()) {
+            count += sessions.size();
+        }
+
+        return count;
+    }
+
+    boolean isInterrupted() {
+        return interrupted;
+    }
+
+    boolean isUsable() {
+        return !failed && !connection.isClosed() && !connection.isFailed();
+    }
+
+    synchronized JmsPoolConnection createHandle() throws JMSException {
+        if (closed) {
+            throw new IllegalStateException("The pooled connection has been closed");
+        }
+
+        JmsPoolConnection handle = new JmsPoolConnection(this);
+        handles.add(handle);
+        lastUsed = System.currentTimeMillis();
+
+        return handle;
+    }
+
+    void releaseHandle(JmsPoolConnection handle) {
+        final boolean unusable;
+
+        synchronized (this) {
+            if (handles.remove(handle)) {
+                lastUsed = System.currentTimeMillis();
+            }
+
+            unusable = handles.isEmpty() && !isUsable();
+        }
+
+        if (unusable) {
+            close();
+        }
+    }
+
+    /**
+     * Takes an idle session of the requested mode from the pool, or creates one if there is
+     * none, counting it against the limit of sessions the connection may have in use.
+     */
+    PooledSession borrowSession(boolean transacted, int acknowledgeMode) throws JMSException {
+        final int mode = transacted ? Session.SESSION_TRANSACTED : acknowledgeMode;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The pooled connection has been closed");
+            }
+
+            Deque<PooledSession> sessions = idleSessions.get(mode);
+            while (sessions != null && !sessions.isEmpty()) {
+                PooledSession pooled = sessions.pollFirst();
+                if (!pooled.session.isClosed()) {
+                    activeSessions++;
+                    return pooled;
+                }
+            }
+
+            if (activeSessions >= factory.getMaxSessionsPerConnection()) {
+                throw new IllegalStateException(
+                    "The pooled connection already has the maximum of " + activeSessions + " sessions in use");
+            }
+
+            activeSessions++;
+        }
+
+        try {
+            return new PooledSession((JmsSession) connection.createSession(transacted, acknowledgeMode), mode);
+        } catch (JMSException jmse) {
+            synchronized (this) {
+                activeSessions--;
+            }
+            throw jmse;
+        }
+    }
+
+    /**
+     * Returns a session to the pool, or closes it if it can no longer be reused.
+     */
+    void returnSession(PooledSession pooled, boolean reusable) {
+        synchronized (this) {
+            activeSessions--;
+            if (reusable && !closed && !pooled.session.isClosed()) {
+                idleSessions.computeIfAbsent(pooled.mode, mode -> new ArrayDeque<>()).addFirst(pooled);
+                return;
+            }
+        }
+
+        try {
+            pooled.session.close();
+        } catch (JMSException e) {
+            LOG.debug("Caught exception while closing pooled session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the connection and all of its sessions, and removes it from the pool.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            idleSessions.clear();
+        }
+
+        doClose();
+    }
+
+    /**
+     * Closes the connection if no handle is using it and it has either failed or not been
+     * used for the given time.
+     *
+     * @return true if the connection was closed.
+     */
+    boolean closeIfUnused(long idleTimeout) {
+        synchronized (this) {
+            if (closed || !handles.isEmpty()) {
+                return false;
+            }
+
+            if (isUsable() && (idleTimeout <= 0 || System.currentTimeMillis() - lastUsed < idleTimeout)) {
+                return false;
+            }
+
+            closed = true;
+            idleSessions.clear();
+        }
+
+        doClose();
+        return true;
+    }
+
+    private void doClose() {
+        factory.connectionClosed(this);
+
+        try {
+            connection.close();
+        } catch (JMSException e) {
+            LOG.debug("Caught exception while closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    //----- Connection event handling ----------------------------------------//
+
+    @Override
+    public void onException(JMSException exception) {
+        for (JmsPoolConnection handle : handles) {
+            handle.onException(exception);
+        }
+    }
+
+    @Override
+    public void onConnectionEstablished(URI remoteURI) {
+    }
+
+    @Override
+    public void onConnectionFailure(Throwable error) {
+        // Closed once the last handle using it is, no new handles will be given out for it.
+        LOG.debug("Pooled connection {} failed and will be removed from the pool", connection.getId());
+        failed = true;
+    }
+
+    @Override
+    public void onConnectionInterrupted(URI remoteURI) {
+        interrupted = true;
+    }
+
+    @Override
+    public void onConnectionRestored(URI remoteURI) {
+        interrupted = false;
+    }
+
+    @Override
+    public void onInboundMessage(JmsInboundMessageDispatch envelope) {
+    }
+
+    @Override
+    public void onSessionClosed(Session session, Throwable cause) {
+    }
+
+    @Override
+    public void onConsumerClosed(MessageConsumer consumer, Throwable cause) {
+    }
+
+    @Override
+    public void onProducerClosed(MessageProducer producer, Throwable cause) {
+    }
+
+    @Override
+    public String toString() {
+        return "JmsPooledConnection { " + connection.getId() + " }";
+    }
+
+    //----- Pooled session state ---------------------------------------------//
+
+    static final class PooledSession {
+
+        private final JmsSession session;
+        private final int mode;
+        private MessageProducer producer;
+
+        PooledSession(JmsSession session, int mode) {
+            this.session = session;
+            this.mode = mode;
+        }
+
+        JmsSession getSession() {
+            return session;
+        }
+
+        /**
+         * @return the anonymous producer that sends for all producers created from the session.
+         */
+        MessageProducer getProducer() throws JMSException {
+            if (producer == null) {
+                producer = session.createProducer(null);
+            }
+
+            return producer;
+        }
+    }
+}
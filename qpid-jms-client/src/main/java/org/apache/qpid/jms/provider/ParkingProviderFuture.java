@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.qpid.jms.util.IOExceptionSupport;
+
+/**
+ * An implementation of a ProviderFuture whose waiting threads park until they are
+ * unparked on completion, never holding a monitor or spinning while they wait.  Threads
+ * that can be unmounted from their carrier while parked, such as the virtual threads of
+ * newer JVMs, then free their carrier for other work for the duration of the wait.
+ */
+public class ParkingProviderFuture extends ProviderFuture {
+
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean signalled;
+
+    public ParkingProviderFuture() {
+        this(null);
+    }
+
+    public ParkingProviderFuture(ProviderSynchronization synchronization) {
+        super(synchronization);
+    }
+
+    @Override
+    public boolean sync(long amount, TimeUnit unit) throws IOException {
+        try {
+            if (isComplete() || amount == 0) {
+                failOnError();
+                return true;
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            final Thread current = Thread.currentThread();
+            final long deadline = System.nanoTime() + unit.toNanos(amount);
+
+            waiters.add(current);
+            try {
+                while (!isSignalled()) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    LockSupport.parkNanos(this, remaining);
+
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                waiters.remove(current);
+            }
+
+            failOnError();
+            return isComplete();
+        } catch (InterruptedException e) {
+            throw IOExceptionSupport.create(e);
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        try {
+            if (isComplete()) {
+                failOnError();
+                return;
+            }
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            final Thread current = Thread.currentThread();
+
+            waiters.add(current);
+            try {
+                while (!isSignalled()) {
+                    LockSupport.park(this);
+
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                waiters.remove(current);
+            }
+
+            failOnError();
+        } catch (InterruptedException e) {
+            throw IOExceptionSupport.create(e);
+        }
+    }
+
+    @Override
+    protected void signalWaiters() {
+        // Written before the waiters are read so that a thread adding itself to them
+        // concurrently either sees the signal or is seen and unparked here.
+        signalled = true;
+
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private boolean isSignalled() {
+        return signalled && isComplete();
+    }
+}
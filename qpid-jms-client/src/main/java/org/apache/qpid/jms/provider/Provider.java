@@ -19,6 +19,8 @@ package org.apache.qpid.jms.provider;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.JMSException;
 
@@ -87,6 +89,17 @@ public interface Provider {
      */
     List<URI> getAlternateURIs();
 
+    /**
+     * Returns the relative load the remote peer advertised when the connection was opened,
+     * from zero for an idle peer up to one for a fully loaded peer.  Providers that do not
+     * know the load of their remote peer return a negative value.
+     *
+     * @return the load hint of the remote peer or a negative value if none is known.
+     */
+    default double getRemoteLoadHint() {
+        return -1;
+    }
+
     /**
      * Create the Provider version of the given JmsResource.
      *
@@ -198,6 +211,67 @@ public interface Provider {
      */
     void send(JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException;
 
+    /**
+     * Sends the JmsMessage instances contained in the given outbound dispatch envelopes as
+     * a single batch, the given request is completed once every message in the batch has
+     * completed its send, or failed as soon as any of the messages fails to be sent.
+     *
+     * The default implementation sends each envelope in turn using the single message
+     * {@link #send(JmsOutboundMessageDispatch, AsyncResult)}, providers that can write the
+     * whole batch more efficiently should override it.
+     *
+     * @param envelopes
+     *        the message envelopes containing the JmsMessage instances to send, in order.
+     * @param request
+     *        The request object that should be signaled when this operation completes.
+     *
+     * @throws IOException if an error occurs or the Provider is already closed.
+     * @throws JMSException if an error that maps to JMS occurs such as not authorized.
+     */
+    default void send(List<JmsOutboundMessageDispatch> envelopes, final AsyncResult request) throws IOException, JMSException {
+        final AtomicInteger remaining = new AtomicInteger(envelopes.size());
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        if (envelopes.isEmpty()) {
+            request.onSuccess();
+            return;
+        }
+
+        for (final JmsOutboundMessageDispatch envelope : envelopes) {
+            if (completed.get()) {
+                // An earlier send failed, which fails the whole batch.
+                break;
+            }
+
+            send(envelope, new AsyncResult() {
+
+                private volatile boolean complete;
+
+                @Override
+                public void onFailure(Throwable result) {
+                    complete = true;
+                    if (completed.compareAndSet(false, true)) {
+                        request.onFailure(result);
+                    }
+                }
+
+                @Override
+                public void onSuccess() {
+                    complete = true;
+                    envelope.setSendComplete(true);
+                    if (remaining.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+                        request.onSuccess();
+                    }
+                }
+
+                @Override
+                public boolean isComplete() {
+                    return complete;
+                }
+            });
+        }
+    }
+
     /**
      * Called to acknowledge all messages that have been delivered in a given session.
      *
@@ -330,6 +404,61 @@ public interface Provider {
      */
     void pull(JmsConsumerId consumerId, long timeout, AsyncResult request) throws IOException;
 
+    /**
+     * Grants the remote peer credit to send the given number of additional messages to
+     * a consumer that was created with no prefetch, allowing the client to control the
+     * flow of messages to the consumer directly.  Credit granted is in addition to any
+     * that remains outstanding and is not restored after the connection is recovered.
+     *
+     * The default implementation asks for the messages one at a time using
+     * {@link #pull(JmsConsumerId, long, AsyncResult)} with no timeout, each pull waiting
+     * for its message to arrive before the next is made.  The request then
+     * completes once every message has arrived, or fails with the first pull that fails, in
+     * which case any credit not yet used is not granted.  Providers that can grant the credit
+     * to the remote peer directly should override it.
+     *
+     * @param consumerId
+     *        the ID of the Consumer instance that is to be granted credit.
+     * @param credit
+     *        the number of additional messages the remote peer may send to the consumer.
+     * @param request
+     *        The request object that should be signaled when this operation completes.
+     *
+     * @throws IOException if an error occurs or the Provider is already closed.
+     */
+    default void grantCredit(final JmsConsumerId consumerId, final int credit, final AsyncResult request) throws IOException {
+        if (credit <= 0) {
+            request.onSuccess();
+            return;
+        }
+
+        pull(consumerId, -1, new AsyncResult() {
+
+            private volatile boolean complete;
+
+            @Override
+            public void onFailure(Throwable result) {
+                complete = true;
+                request.onFailure(result);
+            }
+
+            @Override
+            public void onSuccess() {
+                complete = true;
+                try {
+                    grantCredit(consumerId, credit - 1, request);
+                } catch (IOException error) {
+                    request.onFailure(error);
+                }
+            }
+
+            @Override
+            public boolean isComplete() {
+                return complete;
+            }
+        });
+    }
+
     /**
      * Gets the Provider specific Message factory for use in the JMS layer when a Session
      * is asked to create a Message type.  The Provider should implement it's own internal
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Provider request that completes a CompletableFuture instead of waking a waiting thread.
+ *
+ * The future is completed on the thread that completes the request, which for most
+ * providers is the provider's own event thread, so callers should hand the result off to
+ * another thread before running any code that might block or call back into the provider.
+ */
+public class ProviderCompletableFuture extends CompletableFuture<Void> implements AsyncResult {
+
+    private final ProviderSynchronization synchronization;
+    private final AtomicBoolean completing = new AtomicBoolean();
+
+    public ProviderCompletableFuture() {
+        this(null);
+    }
+
+    public ProviderCompletableFuture(ProviderSynchronization synchronization) {
+        this.synchronization = synchronization;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return isDone();
+    }
+
+    @Override
+    public void onFailure(Throwable result) {
+        if (completing.compareAndSet(false, true)) {
+            if (synchronization != null) {
+                synchronization.onPendingFailure(result);
+            }
+
+            completeExceptionally(result);
+        }
+    }
+
+    @Override
+    public void onSuccess() {
+        if (completing.compareAndSet(false, true)) {
+            if (synchronization != null) {
+                synchronization.onPendingSuccess();
+            }
+
+            complete(null);
+        }
+    }
+}
@@ -65,11 +65,7 @@ public abstract class ProviderFuture implements AsyncResult {
 
             STATE_FIELD_UPDATER.lazySet(this, FAILURE);
 
-            synchronized(this) {
-                if (waiting > 0) {
-                    notifyAll();
-                }
-            }
+            signalWaiters();
         }
     }
 
@@ -82,10 +78,17 @@ public abstract class ProviderFuture implements AsyncResult {
 
             STATE_FIELD_UPDATER.lazySet(this, SUCCESS);
 
-            synchronized(this) {
-                if (waiting > 0) {
-                    notifyAll();
-                }
+            signalWaiters();
+        }
+    }
+
+    /**
+     * Called once the future has completed to wake any threads waiting in sync.
+     */
+    protected void signalWaiters() {
+        synchronized(this) {
+            if (waiting > 0) {
+                notifyAll();
             }
         }
     }
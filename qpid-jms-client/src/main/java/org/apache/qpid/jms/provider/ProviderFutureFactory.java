@@ -33,6 +33,7 @@ public abstract class ProviderFutureFactory {
     private static final String CONSERVATIVE = "conservative";
     private static final String BALANCED = "balanced";
     private static final String PROGRESSIVE = "progressive";
+    private static final String PARKING = "parking";
 
     /**
      * Create a new Provider
@@ -62,6 +63,8 @@ public abstract class ProviderFutureFactory {
                 return new BalancedProviderFutureFactory();
             case PROGRESSIVE:
                 return new ProgressiveProviderFutureFactory();
+            case PARKING:
+                return new ParkingProviderFutureFactory();
             default:
                 throw new IllegalArgumentException(
                     "No ProviderFuture implementation with name " + futureTypeKey + " found");
@@ -173,4 +176,28 @@ public abstract class ProviderFutureFactory {
             };
         }
     }
+
+    private static class ParkingProviderFutureFactory extends ProviderFutureFactory {
+
+        @Override
+        public ProviderFuture createFuture() {
+            return new ParkingProviderFuture();
+        }
+
+        @Override
+        public ProviderFuture createFuture(ProviderSynchronization synchronization) {
+            return new ParkingProviderFuture(synchronization);
+        }
+
+        @Override
+        public ProviderFuture createUnfailableFuture() {
+            return new ParkingProviderFuture() {
+
+                @Override
+                public void onFailure(Throwable t) {
+                    this.onSuccess();
+                }
+            };
+        }
+    }
 }
@@ -57,6 +57,18 @@ public interface ProviderListener {
      */
     void onFailedMessageSend(JmsOutboundMessageDispatch envelope, Throwable cause);
 
+    /**
+     * Called when the remote has settled an outbound message dispatch that was marked
+     * as settlement tracked, regardless of the outcome the remote assigned to it, or when
+     * the send failed locally before the remote settled it, for instance by timing out.
+     * Sends that fail because the connection or link was lost are not reported.
+     *
+     * @param envelope
+     *      the original outbound message dispatch that is now settled.
+     */
+    default void onMessageSendSettled(JmsOutboundMessageDispatch envelope) {
+    }
+
     /**
      * Called from a fault tolerant Provider instance to signal that the underlying
      * connection to the Broker has been lost.  The Provider will attempt to reconnect
@@ -80,6 +80,11 @@ public class ProviderWrapper<E extends Provider> implements Provider, ProviderLi
         return next.getAlternateURIs();
     }
 
+    @Override
+    public double getRemoteLoadHint() {
+        return next.getRemoteLoadHint();
+    }
+
     @Override
     public void create(JmsResource resource, AsyncResult request) throws IOException, JMSException, UnsupportedOperationException {
         next.create(resource, request);
@@ -105,6 +110,11 @@ public class ProviderWrapper<E extends Provider> implements Provider, ProviderLi
         next.send(envelope, request);
     }
 
+    @Override
+    public void send(List<JmsOutboundMessageDispatch> envelopes, AsyncResult request) throws IOException, JMSException {
+        next.send(envelopes, request);
+    }
+
     @Override
     public void acknowledge(JmsSessionId sessionId, ACK_TYPE ackType, AsyncResult request) throws IOException, JMSException {
         next.acknowledge(sessionId, ackType, request);
@@ -140,6 +150,11 @@ public class ProviderWrapper<E extends Provider> implements Provider, ProviderLi
         next.pull(consumerId, timeout, request);
     }
 
+    @Override
+    public void grantCredit(JmsConsumerId consumerId, int credit, AsyncResult request) throws IOException {
+        next.grantCredit(consumerId, credit, request);
+    }
+
     @Override
     public JmsMessageFactory getMessageFactory() {
         return next.getMessageFactory();
@@ -180,6 +195,11 @@ public class ProviderWrapper<E extends Provider> implements Provider, ProviderLi
         listener.onFailedMessageSend(envelope, cause);
     }
 
+    @Override
+    public void onMessageSendSettled(JmsOutboundMessageDispatch envelope) {
+        listener.onMessageSendSettled(envelope);
+    }
+
     @Override
     public void onConnectionInterrupted(URI remoteURI) {
         listener.onConnectionInterrupted(remoteURI);
@@ -20,8 +20,10 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -62,6 +64,11 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
     private boolean anonymousProducerCache = false;
     private int anonymousProducerCacheSize = 10;
 
+    private final long prefetchBytesLimit;
+    private final Set<AmqpConsumer> prefetchBytesWaiters = new LinkedHashSet<>();
+    private long prefetchedBytes;
+    private boolean prefetchBytesExceeded;
+
     public AmqpConnection(AmqpProvider provider, JmsConnectionInfo info, Connection protonConnection) {
         super(info, protonConnection, provider);
 
@@ -71,6 +78,7 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
 
         // Create connection properties initialized with defaults from the JmsConnectionInfo
         this.properties = new AmqpConnectionProperties(info, provider);
+        this.prefetchBytesLimit = info.getPrefetchPolicy().getConnectionPrefetchBytes();
     }
 
     public void createSession(JmsSessionInfo sessionInfo, AsyncResult request) {
@@ -276,6 +284,62 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
         return subTracker;
     }
 
+    /**
+     * @return the number of bytes all consumers can hold in their prefetch buffers, zero for no limit.
+     */
+    public long getPrefetchBytesLimit() {
+        return prefetchBytesLimit;
+    }
+
+    /**
+     * @return the number of bytes currently held in the prefetch buffers of all consumers.
+     */
+    public long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    /**
+     * Returns whether consumers may grant more credit given the connection prefetch byte limit,
+     * once the limit has been reached this remains false until the consumers have drained their
+     * combined prefetch down to half of the limit.
+     *
+     * @return true if the consumers of this connection may grant more credit.
+     */
+    public boolean isPrefetchBytesAvailable() {
+        return prefetchBytesLimit <= 0 || !prefetchBytesExceeded;
+    }
+
+    void addPrefetchedBytes(long bytes) {
+        prefetchedBytes += bytes;
+        if (prefetchBytesLimit > 0 && prefetchedBytes >= prefetchBytesLimit) {
+            prefetchBytesExceeded = true;
+        }
+    }
+
+    void removePrefetchedBytes(long bytes) {
+        prefetchedBytes -= bytes;
+        if (prefetchBytesExceeded && prefetchedBytes <= prefetchBytesLimit / 2) {
+            prefetchBytesExceeded = false;
+
+            if (!prefetchBytesWaiters.isEmpty()) {
+                List<AmqpConsumer> waiters = new ArrayList<>(prefetchBytesWaiters);
+                prefetchBytesWaiters.clear();
+
+                for (AmqpConsumer consumer : waiters) {
+                    consumer.onPrefetchBytesAvailable();
+                }
+            }
+        }
+    }
+
+    void awaitPrefetchBytes(AmqpConsumer consumer) {
+        prefetchBytesWaiters.add(consumer);
+    }
+
+    void cancelAwaitPrefetchBytes(AmqpConsumer consumer) {
+        prefetchBytesWaiters.remove(consumer);
+    }
+
     /**
      * Allows a connection resource to schedule a task for future execution.
      *
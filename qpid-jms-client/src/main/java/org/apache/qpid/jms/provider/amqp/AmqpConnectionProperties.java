@@ -20,6 +20,7 @@ import static org.apache.qpid.jms.provider.amqp.AmqpSupport.ANONYMOUS_RELAY;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.CONNECTION_OPEN_FAILED;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.DELAYED_DELIVERY;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.FAILOVER_SERVER_LIST;
+import static org.apache.qpid.jms.provider.amqp.AmqpSupport.LOAD_HINT;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.QUEUE_PREFIX;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.SHARED_SUBS;
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.TOPIC_PREFIX;
@@ -50,6 +51,7 @@ public class AmqpConnectionProperties {
     private boolean anonymousRelaySupported = false;
     private boolean sharedSubsSupported = false;
     private boolean connectionOpenFailed = false;
+    private double loadHint = -1;
     private final List<AmqpRedirect> failoverServerList = new ArrayList<>();
 
     /**
@@ -117,6 +119,14 @@ public class AmqpConnectionProperties {
             }
         }
 
+        if (properties.containsKey(LOAD_HINT)) {
+            Object o = properties.get(LOAD_HINT);
+            if (o instanceof Number) {
+                LOG.trace("Remote sent load hint value of: {}", o);
+                loadHint = Math.min(1.0, Math.max(0.0, ((Number) o).doubleValue()));
+            }
+        }
+
         if (properties.containsKey(CONNECTION_OPEN_FAILED)) {
             LOG.trace("Remote sent Connection Establishment Failed marker.");
             connectionOpenFailed = true;
@@ -148,6 +158,13 @@ public class AmqpConnectionProperties {
         return failoverServerList;
     }
 
+    /**
+     * @return the load hint advertised by the remote in the range [0, 1], or -1 if none was given.
+     */
+    public double getLoadHint() {
+        return loadHint;
+    }
+
     /**
      * @return true if the connection supports shared subscriptions features.
      */
@@ -23,8 +23,11 @@ import static org.apache.qpid.jms.provider.amqp.AmqpSupport.REJECTED;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.ListIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 
+import org.apache.qpid.jms.JmsConsumerStoppingException;
 import org.apache.qpid.jms.JmsDestination;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
 import org.apache.qpid.jms.exceptions.JmsExceptionSupport;
@@ -42,6 +45,7 @@ import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.apache.qpid.proton.amqp.messaging.Released;
 import org.apache.qpid.proton.amqp.transport.DeliveryState;
+import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.engine.Delivery;
 import org.apache.qpid.proton.engine.Receiver;
 import org.slf4j.Logger;
@@ -55,17 +59,28 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     private static final Logger LOG = LoggerFactory.getLogger(AmqpConsumer.class);
 
     protected final AmqpSession session;
+    protected final AmqpCreditWindow creditWindow;
     protected AsyncResult stopRequest;
     protected AsyncResult pullRequest;
     protected long incomingSequence;
     protected int deliveredCount;
     protected int dispatchedCount;
+    protected long prefetchedBytes;
+    protected int averageMessageSize;
+    protected boolean prefetchBytesExceeded;
     protected boolean deferredClose;
+    protected int pendingStops;
 
     public AmqpConsumer(AmqpSession session, JmsConsumerInfo info, Receiver receiver) {
         super(info, receiver, session);
 
         this.session = session;
+
+        if (info.isAdaptivePrefetch() && info.getPrefetchSize() > 0) {
+            this.creditWindow = new AmqpCreditWindow(info.getPrefetchSize());
+        } else {
+            this.creditWindow = null;
+        }
     }
 
     @Override
@@ -107,7 +122,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (receiver.getRemoteCredit() <= 0) {
             if (receiver.getQueued() == 0) {
                 // We have no remote credit and all the deliveries have been processed.
-                request.onSuccess();
+                completeAfterDispatch(request, true);
             } else {
                 // There are still deliveries to process, wait for them to be.
                 stopRequest = request;
@@ -164,7 +179,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (stopRequest != null) {
             Receiver receiver = getEndpoint();
             if (receiver.getRemoteCredit() <= 0 && receiver.getQueued() == 0) {
-                stopRequest.onSuccess();
+                completeAfterDispatch(stopRequest, true);
                 stopRequest = null;
             }
         }
@@ -172,7 +187,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (pullRequest != null) {
             Receiver receiver = getEndpoint();
             if (receiver.getRemoteCredit() <= 0 && receiver.getQueued() == 0) {
-                pullRequest.onSuccess();
+                completeAfterDispatch(pullRequest, false);
                 pullRequest = null;
             }
         }
@@ -284,9 +299,13 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
     private void handleDelivered(JmsInboundMessageDispatch envelope, Delivery delivery) {
         LOG.debug("Delivered Ack of message: {}", envelope);
+        if (creditWindow != null) {
+            creditWindow.onMessageConsumed(System.nanoTime());
+        }
         deliveredCount++;
         envelope.setDelivered(true);
         delivery.setDefaultDeliveryState(MODIFIED_FAILED);
+        removePrefetchedBytes(envelope);
     }
 
     private void handleAccepted(JmsInboundMessageDispatch envelope, Delivery delivery) {
@@ -315,6 +334,11 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
         if (envelope.isDelivered()) {
             deliveredCount--;
+        } else {
+            if (creditWindow != null) {
+                creditWindow.onMessageConsumed(System.nanoTime());
+            }
+            removePrefetchedBytes(envelope);
         }
         dispatchedCount--;
     }
@@ -324,13 +348,17 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         delivery.settle();
         if (envelope.isDelivered()) {
             deliveredCount--;
+        } else {
+            removePrefetchedBytes(envelope);
         }
         dispatchedCount--;
     }
 
     /**
      * We only send more credits as the credit window dwindles to a certain point and
-     * then we open the window back up to full prefetch size.  If this is a pull consumer
+     * then we open the window back up to full prefetch size, or to the current size of
+     * the adaptive credit window when enabled.  When prefetch byte limits apply the
+     * credit is further reduced to what the limits can hold.  If this is a pull consumer
      * or we are stopping then we never send credit here.
      */
     private void sendFlowIfNeeded() {
@@ -343,6 +371,10 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             return;
         }
 
+        if (creditWindow != null) {
+            prefetchSize = creditWindow.getWindow();
+        }
+
         int currentCredit = getEndpoint().getCredit();
         if (currentCredit <= prefetchSize * 0.5) {
             int potentialPrefetch = currentCredit + (dispatchedCount - deliveredCount);
@@ -350,12 +382,90 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             if (potentialPrefetch <= prefetchSize * 0.7) {
                 int additionalCredit = prefetchSize - potentialPrefetch;
 
+                if (isPrefetchBytesLimited()) {
+                    additionalCredit = limitCreditToPrefetchBytes(currentCredit, additionalCredit);
+                    if (additionalCredit <= 0) {
+                        LOG.trace("Consumer {} withholding credit, prefetch byte limit reached", getConsumerId());
+                        return;
+                    }
+                }
+
                 LOG.trace("Consumer {} granting additional credit: {}", getConsumerId(), additionalCredit);
+                if (creditWindow != null) {
+                    creditWindow.onCreditGranted(currentCredit, System.nanoTime());
+                }
                 getEndpoint().flow(additionalCredit);
             }
         }
     }
 
+    private boolean isPrefetchBytesLimited() {
+        return getResourceInfo().getPrefetchBytes() > 0 || session.getConnection().getPrefetchBytesLimit() > 0;
+    }
+
+    private int limitCreditToPrefetchBytes(int currentCredit, int credit) {
+        final AmqpConnection connection = session.getConnection();
+
+        // Once a limit is reached no credit is granted until the buffered bytes drain below half of it.
+        if (prefetchBytesExceeded) {
+            return 0;
+        }
+
+        if (!connection.isPrefetchBytesAvailable()) {
+            connection.awaitPrefetchBytes(this);
+            return 0;
+        }
+
+        if (averageMessageSize == 0) {
+            // Ask for a single message to learn the size of messages from, unless one is on its way.
+            return currentCredit > 0 ? 0 : 1;
+        }
+
+        long available = Long.MAX_VALUE;
+        if (getResourceInfo().getPrefetchBytes() > 0) {
+            available = getResourceInfo().getPrefetchBytes() - prefetchedBytes;
+        }
+        if (connection.getPrefetchBytesLimit() > 0) {
+            available = Math.min(available, connection.getPrefetchBytesLimit() - connection.getPrefetchedBytes());
+        }
+
+        // Messages already owed to us against outstanding credit will use up some of what is available.
+        long affordable = (available - (long) currentCredit * averageMessageSize) / averageMessageSize;
+        if (affordable <= 0) {
+            // A message larger than the limit must still be able to get through to an idle consumer.
+            return prefetchedBytes == 0 && currentCredit == 0 ? 1 : 0;
+        }
+
+        return (int) Math.min(credit, affordable);
+    }
+
+    private void addPrefetchedBytes(JmsInboundMessageDispatch envelope) {
+        prefetchedBytes += envelope.getMessageSize();
+        if (getResourceInfo().getPrefetchBytes() > 0 && prefetchedBytes >= getResourceInfo().getPrefetchBytes()) {
+            prefetchBytesExceeded = true;
+        }
+
+        session.getConnection().addPrefetchedBytes(envelope.getMessageSize());
+    }
+
+    private void removePrefetchedBytes(JmsInboundMessageDispatch envelope) {
+        prefetchedBytes -= envelope.getMessageSize();
+        if (prefetchBytesExceeded && prefetchedBytes <= getResourceInfo().getPrefetchBytes() / 2) {
+            prefetchBytesExceeded = false;
+        }
+
+        session.getConnection().removePrefetchedBytes(envelope.getMessageSize());
+    }
+
+    /**
+     * Called by the connection when the consumers have drained their combined prefetch below
+     * the low water mark of the connection prefetch byte limit after this consumer withheld
+     * credit because of it.
+     */
+    void onPrefetchBytesAvailable() {
+        sendFlowIfNeeded();
+    }
+
     private void sendFlowForNoPrefetchListener() {
         int currentCredit = getEndpoint().getCredit();
         if (currentCredit < 1) {
@@ -461,6 +571,25 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         }
     }
 
+    /**
+     * Grants the remote additional credit on a consumer with no prefetch, whose credit
+     * is otherwise only ever granted by a pull.
+     *
+     * @param credit
+     *        the number of additional messages the remote may send.
+     *
+     * @throws JmsConsumerStoppingException if the consumer is being drained in order to stop it.
+     */
+    public void grantCredit(int credit) throws JmsConsumerStoppingException {
+        if (isStopping()) {
+            // Credit granted now would only be drained, fail the grant so the caller can take it back.
+            throw new JmsConsumerStoppingException("Consumer " + getConsumerId() + " is stopping, credit not granted");
+        }
+
+        LOG.trace("Consumer {} granting additional credit: {}", getConsumerId(), credit);
+        getEndpoint().flow(credit);
+    }
+
     @Override
     public void processDeliveryUpdates(AmqpProvider provider, Delivery delivery) throws IOException {
         if (delivery.isReadable() && !delivery.isPartial()) {
@@ -470,7 +599,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
                     // We processed a message, signal completion
                     // of a message pull request if there is one.
                     if (pullRequest != null) {
-                        pullRequest.onSuccess();
+                        completeAfterDispatch(pullRequest, false);
                         pullRequest = null;
                     }
                 }
@@ -484,7 +613,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             // Check if we tried to stop and have now run out of credit.
             if (getEndpoint().getRemoteCredit() <= 0) {
                 if (stopRequest != null) {
-                    stopRequest.onSuccess();
+                    completeAfterDispatch(stopRequest, true);
                     stopRequest = null;
                 }
             }
@@ -496,9 +625,44 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     private boolean processDelivery(Delivery incoming) throws Exception {
         incoming.setDefaultDeliveryState(Released.getInstance());
 
+        if (creditWindow != null) {
+            creditWindow.onMessageArrived(System.nanoTime());
+        }
+
+        final ReadableBuffer payload = getEndpoint().recv();
+        final int messageSize = payload.remaining();
+        final boolean firstMessageSize = averageMessageSize == 0;
+
+        if (firstMessageSize) {
+            averageMessageSize = Math.max(1, messageSize);
+        } else {
+            averageMessageSize = (int) ((averageMessageSize * 7L + messageSize) / 8);
+        }
+
+        if (session.getDispatcher() != null) {
+            // Decoding is left to the session dispatcher, only the engine work happens here.
+            try {
+                JmsInboundMessageDispatch envelope = createEnvelope(incoming, messageSize);
+
+                // Store reference to envelope in delivery context for recovery
+                incoming.setContext(envelope);
+
+                deliver(envelope, payload);
+
+                if (firstMessageSize && isPrefetchBytesLimited()) {
+                    // Credit was held back until the size of messages could be estimated.
+                    sendFlowIfNeeded();
+                }
+
+                return true;
+            } finally {
+                getEndpoint().advance();
+            }
+        }
+
         JmsMessage message = null;
         try {
-            message = AmqpCodec.decodeMessage(this, getEndpoint().recv()).asJmsMessage();
+            message = AmqpCodec.decodeMessage(this, payload).asJmsMessage();
         } catch (Exception e) {
             LOG.warn("Error on transform: {}", e.getMessage());
             // TODO - We could signal provider error but not sure we want to fail
@@ -520,12 +684,8 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             // the JmsMessageConsumer dispatch method if we needed to.
             message.onDispatch();
 
-            JmsInboundMessageDispatch envelope = new JmsInboundMessageDispatch(getNextIncomingSequenceNumber());
+            JmsInboundMessageDispatch envelope = createEnvelope(incoming, messageSize);
             envelope.setMessage(message);
-            envelope.setConsumerId(getResourceInfo().getId());
-            envelope.setConsumerInfo(getResourceInfo());
-            // Store link to delivery in the hint for use in acknowledge requests.
-            envelope.setProviderHint(incoming);
             envelope.setMessageId(message.getFacade().getProviderMessageIdObject());
 
             // Store reference to envelope in delivery context for recovery
@@ -533,12 +693,28 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
             deliver(envelope);
 
+            if (firstMessageSize && isPrefetchBytesLimited()) {
+                // Credit was held back until the size of messages could be estimated.
+                sendFlowIfNeeded();
+            }
+
             return true;
         } finally {
             getEndpoint().advance();
         }
     }
 
+    private JmsInboundMessageDispatch createEnvelope(Delivery incoming, int messageSize) {
+        JmsInboundMessageDispatch envelope = new JmsInboundMessageDispatch(getNextIncomingSequenceNumber());
+        envelope.setConsumerId(getResourceInfo().getId());
+        envelope.setConsumerInfo(getResourceInfo());
+        // Store link to delivery in the hint for use in acknowledge requests.
+        envelope.setProviderHint(incoming);
+        envelope.setMessageSize(messageSize);
+
+        return envelope;
+    }
+
     protected long getNextIncomingSequenceNumber() {
         return ++incomingSequence;
     }
@@ -569,7 +745,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     }
 
     public boolean isStopping() {
-        return stopRequest != null;
+        return stopRequest != null || pendingStops > 0;
     }
 
     public int getDrainTimeout() {
@@ -582,18 +758,93 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     }
 
     protected void deliver(JmsInboundMessageDispatch envelope) throws Exception {
+        deliver(envelope, null);
+    }
+
+    private void deliver(JmsInboundMessageDispatch envelope, ReadableBuffer payload) throws Exception {
         if (!deferredClose) {
             ProviderListener listener = session.getProvider().getProviderListener();
             if (listener != null) {
-                LOG.debug("Dispatching received message: {}", envelope);
                 dispatchedCount++;
-                listener.onInboundMessage(envelope);
+                addPrefetchedBytes(envelope);
+
+                ExecutorService dispatcher = session.getDispatcher();
+                if (dispatcher != null) {
+                    dispatcher.execute(() -> decodeAndDispatch(listener, envelope, payload));
+                } else {
+                    LOG.debug("Dispatching received message: {}", envelope);
+                    listener.onInboundMessage(envelope);
+                }
             } else {
                 LOG.error("Provider listener is not set, message will be dropped: {}", envelope);
             }
         }
     }
 
+    /*
+     * Runs on the session dispatcher.  A payload is only given for newly arrived messages,
+     * those being redelivered after a recover were decoded when they first arrived.
+     */
+    private void decodeAndDispatch(ProviderListener listener, JmsInboundMessageDispatch envelope, ReadableBuffer payload) {
+        if (payload != null) {
+            try {
+                JmsMessage message = AmqpCodec.decodeMessage(this, payload).asJmsMessage();
+
+                // Let the message do any final processing before sending it onto a consumer.
+                message.onDispatch();
+
+                envelope.setMessage(message);
+                envelope.setMessageId(message.getFacade().getProviderMessageIdObject());
+            } catch (Exception e) {
+                LOG.warn("Error on transform: {}", e.getMessage());
+                try {
+                    session.getProvider().getScheduler().execute(() -> rejectUndecodable(envelope));
+                } catch (RejectedExecutionException ree) {
+                    LOG.trace("Connection closed before undecodable message could be rejected: {}", envelope);
+                }
+                return;
+            }
+        }
+
+        LOG.debug("Dispatching received message: {}", envelope);
+        listener.onInboundMessage(envelope);
+    }
+
+    private void rejectUndecodable(JmsInboundMessageDispatch envelope) {
+        Delivery delivery = (Delivery) envelope.getProviderHint();
+        if (!delivery.isSettled() && !isClosed()) {
+            // The message was counted as dispatched when handed to the session dispatcher.
+            handleDisposition(envelope, delivery, MODIFIED_FAILED_UNDELIVERABLE);
+            // A drain issued to stop the link must not be undone by replacing the credit.
+            if (!isStopping()) {
+                sendFlowIfNeeded();
+            }
+            tryCompleteDeferredClose();
+            session.getProvider().pumpToProtonTransport();
+        }
+    }
+
+    /*
+     * A stop or pull request must not complete before the messages that arrived ahead of it
+     * have been dispatched, otherwise the caller would not find them once it completes.
+     */
+    private void completeAfterDispatch(AsyncResult request, boolean stopping) {
+        if (stopping && session.getDispatcher() != null) {
+            // Hold off granting credit until the stop has completed.
+            pendingStops++;
+            request = new WrappedAsyncResult(request) {
+
+                @Override
+                public void onSuccess() {
+                    pendingStops--;
+                    super.onSuccess();
+                }
+            };
+        }
+
+        session.completeAfterDispatch(request);
+    }
+
     public void preCommit() {
     }
 
@@ -617,6 +868,13 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
         subTracker.consumerRemoved(consumerInfo);
 
+        // Return anything still counted against the connection prefetch byte limit
+        connection.cancelAwaitPrefetchBytes(this);
+        if (prefetchedBytes != 0) {
+            connection.removePrefetchedBytes(prefetchedBytes);
+            prefetchedBytes = 0;
+        }
+
         // When closed we need to release any pending tasks to avoid blocking
 
         if (stopRequest != null) {
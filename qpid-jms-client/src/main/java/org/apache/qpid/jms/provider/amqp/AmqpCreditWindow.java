@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.amqp;
+
+/**
+ * Tracks the consume rate of a receiver link and the round trip time to the remote
+ * peer in order to size the credit window the link should offer.
+ *
+ * The window is sized to hold the messages the consumer gets through in two round
+ * trips, enough that credit granted once half the window is used arrives before the
+ * remainder runs out.  The round trip time is measured between granting credit and
+ * the arrival of the first message sent against it, and is smoothed across samples
+ * so that it follows the remote peer as it becomes slower or faster.  A sample is only
+ * taken when the remote had used up the previous grant, a sign that it has messages
+ * waiting to be sent, since on an idle link the first message sent against the credit
+ * only arrives once a producer next sends one.  As a link can go idle just as its
+ * credit runs out each sample is also capped at a multiple of the current estimate,
+ * so a single stall cannot inflate the window.  Each re-evaluation
+ * can at most double or halve the window, so a consumer working through a backlog
+ * of prefetched messages does not inflate it, and the window never exceeds the
+ * configured prefetch of the consumer.
+ *
+ * All methods must be called from the connection thread.
+ */
+public final class AmqpCreditWindow {
+
+    public static final int DEFAULT_INITIAL_WINDOW = 10;
+
+    // Each new sample moves the round trip time an eighth of the way towards it.
+    private static final int ROUND_TRIP_SMOOTHING = 8;
+
+    // No single sample may count for more than this multiple of the current round trip time.
+    private static final int ROUND_TRIP_SAMPLE_LIMIT = 4;
+
+    private final int maximum;
+    private int window;
+
+    private long arrivals;
+    private boolean creditGranted;
+    private long roundTrip = -1;
+    private long roundTripSampleTarget = -1;
+    private long roundTripSampleStart;
+
+    private int consumed;
+    private long consumeSampleStart = -1;
+
+    public AmqpCreditWindow(int maximum) {
+        this(maximum, DEFAULT_INITIAL_WINDOW);
+    }
+
+    public AmqpCreditWindow(int maximum, int initial) {
+        if (maximum < 1) {
+            throw new IllegalArgumentException("Maximum credit window must be at least one");
+        }
+
+        this.maximum = maximum;
+        this.window = Math.max(1, Math.min(initial, maximum));
+    }
+
+    /**
+     * @return the current size of the credit window.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the largest size the credit window can grow to.
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * @return the smoothed round trip time in nanoseconds, or -1 if none measured yet.
+     */
+    public long getRoundTrip() {
+        return roundTrip;
+    }
+
+    /**
+     * Called before additional credit is granted to the remote peer.
+     *
+     * @param outstandingCredit
+     *      the credit the remote peer still holds from earlier grants.
+     * @param now
+     *      the current time in nanoseconds.
+     */
+    public void onCreditGranted(int outstandingCredit, long now) {
+        // Nothing is known of what the remote has to send until it has used up a grant.
+        boolean previousGrantUsed = creditGranted && outstandingCredit <= 0;
+        creditGranted = true;
+
+        if (roundTripSampleTarget < 0 && previousGrantUsed) {
+            roundTripSampleTarget = arrivals + 1;
+            roundTripSampleStart = now;
+        }
+    }
+
+    /**
+     * Called when a message arrives from the remote peer.
+     *
+     * @param now
+     *      the current time in nanoseconds.
+     */
+    public void onMessageArrived(long now) {
+        if (++arrivals == roundTripSampleTarget) {
+            long sample = now - roundTripSampleStart;
+            if (roundTrip < 0) {
+                roundTrip = sample;
+            } else {
+                sample = Math.min(sample, ROUND_TRIP_SAMPLE_LIMIT * Math.max(1, roundTrip));
+                roundTrip += (sample - roundTrip) / ROUND_TRIP_SMOOTHING;
+            }
+
+            roundTripSampleTarget = -1;
+        }
+    }
+
+    /**
+     * Called when the application consumes a message, re-evaluating the window each
+     * time half of the current window has been consumed.
+     *
+     * @param now
+     *      the current time in nanoseconds.
+     */
+    public void onMessageConsumed(long now) {
+        if (consumeSampleStart < 0) {
+            consumeSampleStart = now;
+            return;
+        }
+
+        if (++consumed < Math.max(1, window / 2)) {
+            return;
+        }
+
+        long elapsed = now - consumeSampleStart;
+        if (roundTrip >= 0) {
+            int target;
+            if (elapsed <= 0) {
+                target = maximum;
+            } else {
+                double consumedPerRoundTrip = (double) consumed * roundTrip / elapsed;
+                target = (int) Math.min(maximum, Math.ceil(2 * consumedPerRoundTrip));
+            }
+
+            target = Math.max(target, window / 2);
+            target = (int) Math.min(target, 2L * window);
+
+            window = Math.max(1, Math.min(target, maximum));
+        }
+
+        consumed = 0;
+        consumeSampleStart = now;
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.qpid.jms.provider.amqp;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -28,6 +29,7 @@ import javax.jms.IllegalStateException;
 import javax.jms.JMSException;
 
 import org.apache.qpid.jms.JmsSendTimedOutException;
+import org.apache.qpid.jms.message.JmsMessage;
 import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsConnectionInfo;
 import org.apache.qpid.jms.meta.JmsProducerInfo;
@@ -60,6 +62,7 @@ public class AmqpFixedProducer extends AmqpProducer {
     private final AmqpTransferTagGenerator tagGenerator = new AmqpTransferTagGenerator(true);
     private final Map<Object, InFlightSend> sent = new LinkedHashMap<Object, InFlightSend>();
     private final Map<Object, InFlightSend> blocked = new LinkedHashMap<Object, InFlightSend>();
+    private final ArrayDeque<InFlightSend> awaitingRelease = new ArrayDeque<InFlightSend>();
 
     private AsyncResult sendCompletionWatcher;
 
@@ -89,7 +92,8 @@ public class AmqpFixedProducer extends AmqpProducer {
             request.onFailure(new IllegalStateException("The MessageProducer is closed"));
         }
 
-        if (!delayedDeliverySupported && envelope.getMessage().getFacade().isDeliveryTimeTransmitted()) {
+        JmsMessage message = envelope.getMessage();
+        if (!delayedDeliverySupported && message != null && message.getFacade().isDeliveryTimeTransmitted()) {
             // Don't allow sends with delay if the remote has not said it can handle them
             request.onFailure(new JMSException("Remote does not support delayed message delivery"));
         } else if (getEndpoint().getCredit() <= 0) {
@@ -168,7 +172,7 @@ public class AmqpFixedProducer extends AmqpProducer {
                 send.getOriginalRequest().onSuccess();
             }
 
-            provider.getTransport().flush();
+            provider.flush();
         }
     }
 
@@ -295,7 +299,7 @@ public class AmqpFixedProducer extends AmqpProducer {
         Collection<InFlightSend> inflightSends = new ArrayList<InFlightSend>(sent.values());
         for (InFlightSend send : inflightSends) {
             try {
-                send.onFailure(error);
+                send.onLinkClosed(error);
             } catch (Exception e) {
                 LOG.debug("Caught exception when failing pending send during remote producer closure: {}", send, e);
             }
@@ -304,11 +308,33 @@ public class AmqpFixedProducer extends AmqpProducer {
         Collection<InFlightSend> blockedSends = new ArrayList<InFlightSend>(blocked.values());
         for (InFlightSend send : blockedSends) {
             try {
-                send.onFailure(error);
+                send.onLinkClosed(error);
             } catch (Exception e) {
                 LOG.debug("Caught exception when failing blocked send during remote producer closure: {}", send, e);
             }
         }
+
+        // The link is closed so proton will not write out any remaining delivery bytes.
+        releaseWrittenPayloads(true);
+    }
+
+    /**
+     * Releases the encoded payloads of completed sends once proton has written them out.
+     *
+     * @param all
+     *        release every held payload regardless of whether it has been written.
+     *
+     * @return true if payloads remain held awaiting their delivery being written.
+     */
+    boolean releaseWrittenPayloads(boolean all) {
+        // Deliveries on a link are written in order so stop at the first one still pending.
+        while (!awaitingRelease.isEmpty() && (all || awaitingRelease.peek().isPayloadWritten())) {
+            InFlightSend send = awaitingRelease.poll();
+            send.payload.release();
+            send.payload = null;
+        }
+
+        return !awaitingRelease.isEmpty();
     }
 
     //----- Class used to manage held sends ----------------------------------//
@@ -320,10 +346,20 @@ public class AmqpFixedProducer extends AmqpProducer {
 
         private Delivery delivery;
         private ScheduledFuture<?> requestTimeout;
+        private ByteBuf payload;
+        private boolean releaseDeferred;
+        private boolean linkClosed;
 
         public InFlightSend(JmsOutboundMessageDispatch envelope, AsyncResult request) {
             this.envelope = envelope;
             this.request = request;
+
+            // Hold our own reference to the encoded message as the sender may still be
+            // holding it after the original send request has been completed.
+            this.payload = (ByteBuf) envelope.getPayload();
+            if (payload != null) {
+                payload.retain();
+            }
         }
 
         @Override
@@ -343,6 +379,15 @@ public class AmqpFixedProducer extends AmqpProducer {
             }
         }
 
+        /**
+         * Fails the send because the link closed before the remote settled it, leaving the
+         * outcome unknown so that a tracked send may be sent again once recovered.
+         */
+        public void onLinkClosed(Throwable cause) {
+            linkClosed = true;
+            onFailure(cause);
+        }
+
         @Override
         public void onSuccess() {
             handleSendCompletion(true);
@@ -396,8 +441,20 @@ public class AmqpFixedProducer extends AmqpProducer {
                 blocked.remove(envelope.getMessageId());
             }
 
-            // Put the message back to usable state following send complete
-            envelope.getMessage().onSendComplete();
+            releasePayload();
+
+            // A send that failed locally, such as one that timed out, is settled as well since
+            // its failure has been reported, only sends cut off by the link closing are not.
+            if (envelope.isSettlementTracked() && !linkClosed) {
+                getParent().getProvider().getProviderListener().onMessageSendSettled(envelope);
+            }
+
+            // Put the message back to usable state following send complete, asynchronous
+            // sends will have already detached the message from the envelope.
+            JmsMessage message = envelope.getMessage();
+            if (message != null) {
+                message.onSendComplete();
+            }
 
             // Signal the watcher that all pending sends have completed if one is registered
             // and both the in-flight sends and blocked sends have completed.
@@ -413,12 +470,35 @@ public class AmqpFixedProducer extends AmqpProducer {
             }
         }
 
+        private void releasePayload() {
+            if (payload != null) {
+                // If proton has not yet written out all of the delivery the sender still
+                // references the encoded bytes, hold the buffer until they have been written.
+                if (isPayloadWritten()) {
+                    payload.release();
+                    payload = null;
+                } else if (!releaseDeferred) {
+                    releaseDeferred = true;
+                    awaitingRelease.add(this);
+                    getParent().getProvider().releaseWhenWritten(AmqpFixedProducer.this);
+                }
+            }
+        }
+
+        private boolean isPayloadWritten() {
+            return delivery == null || delivery.pending() == 0;
+        }
+
         @Override
         public Exception createException() {
+            // Asynchronous sends have detached the message from the envelope by now, only
+            // its ID remains to identify the send that timed out.
             if (delivery == null) {
-                return new JmsSendTimedOutException("Timed out waiting for credit to send Message", envelope.getMessage());
+                return new JmsSendTimedOutException("Timed out waiting for credit to send Message",
+                    null, envelope.getMessage(), envelope.getMessageId());
             } else {
-                return new JmsSendTimedOutException("Timed out waiting for disposition of sent Message", envelope.getMessage());
+                return new JmsSendTimedOutException("Timed out waiting for disposition of sent Message",
+                    null, envelope.getMessage(), envelope.getMessageId());
             }
         }
     }
@@ -23,9 +23,14 @@ import java.security.ProviderException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
@@ -37,6 +42,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.JMSException;
 import javax.jms.JMSSecurityRuntimeException;
+import javax.jms.Session;
 import javax.net.ssl.SSLContext;
 
 import org.apache.qpid.jms.JmsConnectionExtensions;
@@ -65,6 +71,7 @@ import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.provider.ProviderFutureFactory;
 import org.apache.qpid.jms.provider.ProviderListener;
 import org.apache.qpid.jms.provider.ProviderSynchronization;
+import org.apache.qpid.jms.provider.WrappedAsyncResult;
 import org.apache.qpid.jms.provider.amqp.builders.AmqpClosedConnectionBuilder;
 import org.apache.qpid.jms.provider.amqp.builders.AmqpConnectionBuilder;
 import org.apache.qpid.jms.sasl.Mechanism;
@@ -90,6 +97,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 
 /**
  * An AMQP v1.0 Provider.
@@ -117,6 +125,22 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     private static final NoOpAsyncResult NOOP_REQUEST = new NoOpAsyncResult();
 
     private static final int DEFAULT_MAX_WRITE_BYTES_BEFORE_FLUSH = 128 * 1024;
+    private static final long DEFAULT_FLUSH_DELAY = 100;
+    private static final long DEFAULT_ACK_BATCH_DELAY = 100;
+
+    /**
+     * Controls when the provider requests a flush of written data on the {@link Transport}
+     *
+     * IMMEDIATE - flush at the end of every unit of work that writes data.
+     * BATCH     - flush once the serializer has worked through the tasks queued ahead of the flush.
+     * TIMED     - flush when the unflushed byte count reaches the max write bytes before flush value
+     *             or the configured flush delay has elapsed, whichever happens first.
+     */
+    private static enum FlushMode {
+        IMMEDIATE,
+        BATCH,
+        TIMED
+    }
 
     private volatile ProviderListener listener;
     private volatile AmqpConnection connection;
@@ -135,6 +159,12 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     private long sessionOutoingWindow = -1; // Use proton default
     private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
     private int maxWriteBytesBeforeFlush = DEFAULT_MAX_WRITE_BYTES_BEFORE_FLUSH;
+    private FlushMode flushMode = FlushMode.IMMEDIATE;
+    private long flushDelay = DEFAULT_FLUSH_DELAY;
+    private boolean zeroCopyOutput;
+    private int ackBatchSize;
+    private long ackBatchDelay = DEFAULT_ACK_BATCH_DELAY;
+    private int dispatchThreads;
 
     private boolean allowNonSecureRedirects;
 
@@ -142,6 +172,8 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     private final AtomicBoolean closed = new AtomicBoolean();
     private volatile Throwable failureCause;
     private ScheduledExecutorService serializer;
+    private ExecutorService[] dispatchers;
+    private int nextDispatcher;
     private final org.apache.qpid.proton.engine.Transport protonTransport =
         org.apache.qpid.proton.engine.Transport.Factory.create();
     private final Collector protonCollector = new CollectorImpl();
@@ -150,6 +182,15 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     private final ProviderFutureFactory futureFactory;
     private AsyncResult connectionRequest;
     private ScheduledFuture<?> nextIdleTimeoutCheck;
+    private ScheduledFuture<?> nextScheduledFlush;
+    private ScheduledFuture<?> nextScheduledAckWrite;
+    private int batchedAcks;
+    private boolean flushPending;
+    private int unflushedBytes;
+    private boolean pumping;
+    private boolean batchingSends;
+    private int outputBytesInFlight;
+    private final Set<AmqpFixedProducer> producersAwaitingRelease = new LinkedHashSet<>();
 
     /**
      * Create a new instance of an AmqpProvider bonded to the given remote URI.
@@ -181,14 +222,23 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         // cannot be updated.  All further interaction should take place on the serializer for
         // thread safety.
 
-        ThreadFactory transportThreadFactory = new QpidJMSThreadFactory(
-                "AmqpProvider :(" + PROVIDER_SEQUENCE.incrementAndGet() + "):[" +
-                remoteURI.getScheme() + "://" + remoteURI.getHost() + ":" + remoteURI.getPort() + "]", true);
+        final String threadName = "AmqpProvider :(" + PROVIDER_SEQUENCE.incrementAndGet() + "):[" +
+                remoteURI.getScheme() + "://" + remoteURI.getHost() + ":" + remoteURI.getPort() + "]";
+
+        ThreadFactory transportThreadFactory = new QpidJMSThreadFactory(threadName, true);
 
         transport.setThreadFactory(transportThreadFactory);
         transport.setTransportListener(AmqpProvider.this);
         transport.setMaxFrameSize(maxFrameSize);
 
+        if (dispatchThreads > 0) {
+            dispatchers = new ExecutorService[dispatchThreads];
+            for (int i = 0; i < dispatchThreads; ++i) {
+                dispatchers[i] = Executors.newSingleThreadExecutor(
+                    new QpidJMSThreadFactory(threadName + " dispatcher " + (i + 1), true));
+            }
+        }
+
         final SSLContext sslContextOverride;
         if (connectionInfo.getExtensionMap().containsKey(JmsConnectionExtensions.SSL_CONTEXT)) {
             sslContextOverride =
@@ -352,11 +402,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                         } catch (Exception e) {
                             LOG.debug("Caught exception while closing proton connection: {}", e.getMessage());
                         } finally {
-                            if (nextIdleTimeoutCheck != null) {
-                                LOG.trace("Cancelling scheduled IdleTimeoutCheck");
-                                nextIdleTimeoutCheck.cancel(false);
-                                nextIdleTimeoutCheck = null;
-                            }
+                            cancelScheduledTasks();
                         }
                     });
                 } catch (RejectedExecutionException rje) {
@@ -385,6 +431,24 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                         LOG.debug("Caught exception while closing down Transport: {}", e.getMessage());
                     }
                 }
+
+                // A shared event loop outlives this provider, anything the close scheduled
+                // on it must not be left to fire against the closed connection.
+                if (serializer != null && !serializer.isShutdown()) {
+                    try {
+                        serializer.execute(() -> cancelScheduledTasks());
+                    } catch (RejectedExecutionException rje) {
+                        LOG.trace("Event loop shut down before scheduled tasks were cancelled");
+                    }
+                }
+
+                releaseAllAwaitingPayloads();
+
+                if (dispatchers != null) {
+                    for (ExecutorService dispatcher : dispatchers) {
+                        dispatcher.shutdown();
+                    }
+                }
             }
         }
     }
@@ -643,6 +707,43 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         });
     }
 
+    @Override
+    public void send(final List<JmsOutboundMessageDispatch> envelopes, final AsyncResult request) throws IOException {
+        checkClosedOrFailed();
+        checkConnected();
+
+        serializer.execute(() -> {
+
+            final BatchSendRequest batch = new BatchSendRequest(request, envelopes.size() + 1);
+            final AsyncResult batchPump = batch.newPart(null);
+
+            // Each send only writes into proton, the output for the whole batch is then
+            // written and flushed by a single pump once all the sends have been processed.
+            batchingSends = true;
+            try {
+                checkClosedOrFailed();
+
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    JmsProducerId producerId = envelope.getProducerId();
+                    AmqpProducer producer = (AmqpProducer) producerId.getProviderHint();
+                    producer.send(envelope, batch.newPart(envelope));
+
+                    if (batch.isComplete()) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                batch.onFailure(t);
+            } finally {
+                batchingSends = false;
+            }
+
+            if (pumpToProtonTransport(batchPump)) {
+                batchPump.onSuccess();
+            }
+        });
+    }
+
     @Override
     public void acknowledge(final JmsSessionId sessionId, final ACK_TYPE ackType, final AsyncResult request) throws IOException {
         checkClosedOrFailed();
@@ -675,15 +776,20 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                 JmsConsumerId consumerId = envelope.getConsumerId();
                 AmqpConsumer consumer = (AmqpConsumer) consumerId.getProviderHint();
 
+                final int creditBeforeAck = consumer.getEndpoint().getCredit();
+
                 consumer.acknowledge(envelope, ackType);
 
-                if (consumer.getSession().isAsyncAck()) {
+                if (isBatchableAck(consumer, ackType) && consumer.getEndpoint().getCredit() <= creditBeforeAck) {
+                    request.onSuccess();
+                    batchAcknowledgement();
+                } else if (consumer.getSession().isAsyncAck()) {
                     request.onSuccess();
                     pumpToProtonTransport(request);
                 } else {
                     pumpToProtonTransport(request, false);
                     request.onSuccess();
-                    transport.flush();
+                    flush();
                 }
             } catch (Throwable t) {
                 request.onFailure(t);
@@ -691,6 +797,34 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         });
     }
 
+    /*
+     * Accepted outcomes for auto and dups-ok acknowledged consumers don't need to reach the
+     * remote before the acknowledge completes, these are left in proton to be written out
+     * along with whatever the next pump finds there.
+     */
+    private boolean isBatchableAck(AmqpConsumer consumer, ACK_TYPE ackType) {
+        if (ackBatchSize <= 1 || ackType != ACK_TYPE.ACCEPTED || consumer.getSession().isTransacted()) {
+            return false;
+        }
+
+        final int ackMode = consumer.getResourceInfo().getAcknowledgementMode();
+
+        return ackMode == Session.AUTO_ACKNOWLEDGE || ackMode == Session.DUPS_OK_ACKNOWLEDGE;
+    }
+
+    private void batchAcknowledgement() {
+        if (++batchedAcks >= ackBatchSize) {
+            pumpToProtonTransport();
+        } else if (nextScheduledAckWrite == null) {
+            nextScheduledAckWrite = serializer.schedule(() -> {
+                nextScheduledAckWrite = null;
+                if (batchedAcks > 0 && failureCause == null && transport.isConnected()) {
+                    pumpToProtonTransport();
+                }
+            }, ackBatchDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     @Override
     public void commit(final JmsTransactionInfo transactionInfo, JmsTransactionInfo nextTransactionId, final AsyncResult request) throws IOException {
         checkClosedOrFailed();
@@ -739,7 +873,8 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                 AmqpSession session = connection.getSession(sessionId);
                 session.recover();
                 pumpToProtonTransport(request);
-                request.onSuccess();
+                // Redelivered messages must reach their consumers before the session restarts
+                session.completeAfterDispatch(request);
             } catch (Throwable t) {
                 request.onFailure(t);
             }
@@ -781,6 +916,25 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         });
     }
 
+    @Override
+    public void grantCredit(final JmsConsumerId consumerId, final int credit, final AsyncResult request) throws IOException {
+        checkClosedOrFailed();
+        checkConnected();
+
+        serializer.execute(() -> {
+
+            try {
+                checkClosedOrFailed();
+                AmqpConsumer consumer = (AmqpConsumer) consumerId.getProviderHint();
+                consumer.grantCredit(credit);
+                pumpToProtonTransport(request);
+                request.onSuccess();
+            } catch (Throwable t) {
+                request.onFailure(t);
+            }
+        });
+    }
+
     //---------- Event handlers and Utility methods  -------------------------//
 
     private void updateTracer() {
@@ -844,6 +998,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                 if (!closed.get()) {
                     // We can't send any more output, so close the transport
                     protonTransport.close_head();
+                    releaseAllAwaitingPayloads();
                     fireProviderException(error);
                 }
             });
@@ -864,6 +1019,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                 if (!closed.get()) {
                     // We can't send any more output, so close the transport
                     protonTransport.close_head();
+                    releaseAllAwaitingPayloads();
                     fireProviderException(new IOException("Transport connection remotely closed."));
                 }
             });
@@ -986,45 +1142,207 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     }
 
     protected boolean pumpToProtonTransport(AsyncResult request, boolean flush) {
-        try {
-            boolean done = false;
-            int bytesWritten = 0;
+        if (batchingSends) {
+            // The batch send performs the pump once all of its messages are in proton.
+            return true;
+        }
+
+        if (batchedAcks > 0) {
+            // Any batched acknowledgements go out with the output of this pump
+            batchedAcks = 0;
+            if (nextScheduledAckWrite != null) {
+                nextScheduledAckWrite.cancel(false);
+                nextScheduledAckWrite = null;
+            }
+        }
 
-            while (!done) {
-                ByteBuffer toWrite = protonTransport.getOutputBuffer();
-                if (toWrite != null && toWrite.hasRemaining()) {
-                    ByteBuf outbound = transport.allocateSendBuffer(toWrite.remaining());
-                    outbound.writeBytes(toWrite);
+        pumping = true;
+        try {
+            // A zero-copy write can complete during the flush, the output proton produced while
+            // it was in flight is then only written if the pump goes around again.
+            do {
+                boolean done = false;
+                int bytesWritten = 0;
 
-                    if (isTraceBytes()) {
-                        TRACE_BYTES.info("Sending: {}", ByteBufUtil.hexDump(outbound));
+                while (!done) {
+                    if (zeroCopyOutput && outputBytesInFlight > 0) {
+                        // Output produced while a write is in flight goes out in one write once
+                        // it completes and its bytes have been popped from the proton buffer.
+                        break;
                     }
 
-                    bytesWritten += outbound.readableBytes();
-                    if (flush && bytesWritten >= getMaxWriteBytesBeforeFlush()) {
-                        transport.flush();
-                        bytesWritten = 0;
+                    ByteBuffer toWrite = protonTransport.getOutputBuffer();
+                    if (toWrite != null && toWrite.hasRemaining()) {
+                        final ByteBuf outbound;
+                        if (zeroCopyOutput) {
+                            outbound = Unpooled.wrappedBuffer(toWrite.duplicate());
+                        } else {
+                            outbound = transport.allocateSendBuffer(toWrite.remaining());
+                            outbound.writeBytes(toWrite);
+                        }
+
+                        if (isTraceBytes()) {
+                            TRACE_BYTES.info("Sending: {}", ByteBufUtil.hexDump(outbound));
+                        }
+
+                        int outboundSize = outbound.readableBytes();
+
+                        if (zeroCopyOutput) {
+                            writeProtonOutputNoCopy(outbound, outboundSize);
+                        } else {
+                            transport.write(outbound);
+                            protonTransport.outputConsumed();
+                        }
+
+                        bytesWritten += outboundSize;
+                        unflushedBytes += outboundSize;
+                        if (flush && bytesWritten >= getMaxWriteBytesBeforeFlush()) {
+                            flushNow();
+                            bytesWritten = 0;
+                        }
+                    } else {
+                        done = true;
                     }
+                }
 
-                    transport.write(outbound);
-                    protonTransport.outputConsumed();
-                } else {
-                    done = true;
+                if (flush && bytesWritten > 0) {
+                    flush();
                 }
-            }
+            } while (zeroCopyOutput && outputBytesInFlight == 0 && hasProtonOutput());
 
-            if (flush && bytesWritten > 0) {
-                transport.flush();
-            }
+            releaseWrittenPayloads();
         } catch (IOException e) {
             fireProviderException(e);
             request.onFailure(e);
             return false;
+        } finally {
+            pumping = false;
         }
 
         return true;
     }
 
+    /*
+     * The outbound buffer wraps the proton output buffer.  Popping output compacts that buffer
+     * which would shift the bytes under any other wrapped write, so only one write is kept in
+     * flight and its bytes are popped as soon as it completes.  The proton buffer then never
+     * holds more than the write in flight plus the output produced while it is written.
+     */
+    private void writeProtonOutputNoCopy(ByteBuf outbound, int outboundSize) throws IOException {
+        outputBytesInFlight = outboundSize;
+
+        try {
+            transport.write(outbound, () -> onProtonOutputWritten());
+        } catch (IOException e) {
+            outputBytesInFlight = 0;
+            throw e;
+        }
+    }
+
+    /**
+     * Registers a producer holding encoded payloads of completed sends that proton has not yet
+     * written out, the payloads are released as the output pumps carry them onto the wire.
+     *
+     * @param producer
+     *        The producer whose payloads are awaiting release.
+     */
+    void releaseWhenWritten(AmqpFixedProducer producer) {
+        producersAwaitingRelease.add(producer);
+    }
+
+    private void releaseWrittenPayloads() {
+        if (!producersAwaitingRelease.isEmpty()) {
+            Iterator<AmqpFixedProducer> producers = producersAwaitingRelease.iterator();
+            while (producers.hasNext()) {
+                if (!producers.next().releaseWrittenPayloads(false)) {
+                    producers.remove();
+                }
+            }
+        }
+    }
+
+    private void releaseAllAwaitingPayloads() {
+        // Nothing more is read from proton once output stops so every payload can go back.
+        for (AmqpFixedProducer producer : producersAwaitingRelease) {
+            producer.releaseWrittenPayloads(true);
+        }
+
+        producersAwaitingRelease.clear();
+    }
+
+    private boolean hasProtonOutput() {
+        ByteBuffer output = protonTransport.getOutputBuffer();
+        return output != null && output.hasRemaining();
+    }
+
+    private void onProtonOutputWritten() {
+        final int written = outputBytesInFlight;
+        outputBytesInFlight = 0;
+        protonTransport.pop(written);
+
+        // Output produced while the write was in progress has been waiting for this,
+        // write it now unless a pump is already underway.
+        if (!pumping && failureCause == null && transport.isConnected()) {
+            pumpToProtonTransport();
+        }
+    }
+
+    /**
+     * Requests a flush of any data written to the {@link Transport} but not yet flushed, the
+     * flush will be performed now or deferred based on the configured flush mode.
+     *
+     * @throws IOException if an error occurs while performing an immediate flush.
+     */
+    protected void flush() throws IOException {
+        if (batchingSends) {
+            return;
+        }
+
+        switch (flushMode) {
+            case BATCH:
+                if (!flushPending) {
+                    flushPending = true;
+                    serializer.execute(() -> deferredFlush());
+                }
+                break;
+            case TIMED:
+                if (unflushedBytes >= getMaxWriteBytesBeforeFlush()) {
+                    flushNow();
+                } else if (nextScheduledFlush == null && unflushedBytes > 0) {
+                    nextScheduledFlush = serializer.schedule(() -> deferredFlush(), flushDelay, TimeUnit.MICROSECONDS);
+                }
+                break;
+            default:
+                flushNow();
+                break;
+        }
+    }
+
+    private void flushNow() throws IOException {
+        flushPending = false;
+        unflushedBytes = 0;
+
+        if (nextScheduledFlush != null) {
+            nextScheduledFlush.cancel(false);
+            nextScheduledFlush = null;
+        }
+
+        transport.flush();
+    }
+
+    private void deferredFlush() {
+        flushPending = false;
+        nextScheduledFlush = null;
+
+        if (unflushedBytes > 0 && failureCause == null && transport.isConnected()) {
+            try {
+                flushNow();
+            } catch (IOException e) {
+                fireProviderException(e);
+            }
+        }
+    }
+
     void fireConnectionEstablished() {
         // The request onSuccess calls this method
         connectionRequest = null;
@@ -1244,6 +1562,106 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         this.maxWriteBytesBeforeFlush = maxWriteBytesBeforeFlush;
     }
 
+    public String getFlushMode() {
+        return flushMode.toString();
+    }
+
+    /**
+     * Sets the mode used to decide when written data is flushed to the {@link Transport}, one
+     * of IMMEDIATE, BATCH or TIMED.  The default mode IMMEDIATE flushes after every unit of work,
+     * the BATCH mode coalesces the flush of work that was queued together and the TIMED mode waits
+     * for either the max write bytes before flush value to be reached or the flush delay to elapse.
+     *
+     * @param flushMode
+     * 		the name of the flush mode to use for this provider.
+     */
+    public void setFlushMode(String flushMode) {
+        this.flushMode = FlushMode.valueOf(flushMode.toUpperCase(Locale.ENGLISH));
+    }
+
+    public long getFlushDelay() {
+        return flushDelay;
+    }
+
+    /**
+     * Sets the maximum time (in microseconds) that written data will be held before a flush
+     * is performed when the TIMED flush mode is in use.
+     *
+     * @param flushDelay
+     * 		the time in microseconds to wait before flushing pending writes.
+     */
+    public void setFlushDelay(long flushDelay) {
+        this.flushDelay = flushDelay;
+    }
+
+    public boolean isZeroCopyOutput() {
+        return zeroCopyOutput;
+    }
+
+    /**
+     * Sets whether the output of the proton transport is handed to the {@link Transport}
+     * directly instead of being copied into a newly allocated send buffer.  When enabled the
+     * proton output buffer is held until the transport reports the write complete, any
+     * further output is appended behind the data in flight and written as space allows.
+     *
+     * @param zeroCopyOutput
+     * 		true if output should be written without first copying it.
+     */
+    public void setZeroCopyOutput(boolean zeroCopyOutput) {
+        this.zeroCopyOutput = zeroCopyOutput;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    /**
+     * Sets the number of accepted acknowledgements from AUTO_ACKNOWLEDGE and DUPS_OK_ACKNOWLEDGE
+     * sessions that are allowed to accumulate before they are written.  Acknowledgements held in
+     * the batch complete immediately and are written together once the batch fills, the ack batch
+     * delay elapses or some other work writes to the connection.  A value of zero or one disables
+     * batching so that each acknowledgement is written as it happens.
+     *
+     * @param ackBatchSize
+     * 		the number of acknowledgements that can be held before they are written.
+     */
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public long getAckBatchDelay() {
+        return ackBatchDelay;
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) that batched acknowledgements are held before
+     * being written when the ack batch size has not been reached.
+     *
+     * @param ackBatchDelay
+     * 		the time in milliseconds to hold a partial batch of acknowledgements.
+     */
+    public void setAckBatchDelay(long ackBatchDelay) {
+        this.ackBatchDelay = ackBatchDelay;
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    /**
+     * Sets the number of threads used to decode and dispatch inbound messages.  Each session
+     * is assigned one of the threads in turn, so that messages for a session are still decoded
+     * and dispatched in the order they arrived while those for different sessions are handled
+     * in parallel.  All interaction with the proton engine remains on the connection thread.  A
+     * value of zero, the default, decodes and dispatches on the connection thread.
+     *
+     * @param dispatchThreads
+     * 		the number of threads to decode and dispatch inbound messages on.
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
     /**
      * Sets the max frame size (in bytes).
      *
@@ -1353,6 +1771,16 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         return alternates;
     }
 
+    @Override
+    public double getRemoteLoadHint() {
+        AmqpConnection connection = this.connection;
+        if (connection != null) {
+            return connection.getProperties().getLoadHint();
+        }
+
+        return -1;
+    }
+
     public org.apache.qpid.proton.engine.Transport getProtonTransport() {
         return protonTransport;
     }
@@ -1365,6 +1793,20 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         return this.serializer;
     }
 
+    /**
+     * @return the executor the next session created should decode and dispatch its inbound
+     *         messages on, or null if that is done on the connection thread.
+     */
+    ExecutorService nextDispatcher() {
+        if (dispatchers == null) {
+            return null;
+        }
+
+        ExecutorService dispatcher = dispatchers[nextDispatcher];
+        nextDispatcher = (nextDispatcher + 1) % dispatchers.length;
+        return dispatcher;
+    }
+
     @Override
     public AmqpProvider getProvider() {
         return this;
@@ -1387,6 +1829,10 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     public ScheduledFuture<?> scheduleRequestTimeout(final AsyncResult request, long timeout, final Exception error) {
         if (timeout != JmsConnectionInfo.INFINITE) {
             return serializer.schedule(() -> {
+                if (isDisposed()) {
+                    return;
+                }
+
                 request.onFailure(error);
                 pumpToProtonTransport();
             }, timeout, TimeUnit.MILLISECONDS);
@@ -1412,6 +1858,10 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     public ScheduledFuture<?> scheduleRequestTimeout(final AsyncResult request, long timeout, final AmqpExceptionBuilder builder) {
         if (timeout != JmsConnectionInfo.INFINITE) {
             return serializer.schedule(() -> {
+                if (isDisposed()) {
+                    return;
+                }
+
                 request.onFailure(builder.createException());
                 pumpToProtonTransport();
             }, timeout, TimeUnit.MILLISECONDS);
@@ -1422,6 +1872,32 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
     //----- Internal implementation ------------------------------------------//
 
+    /*
+     * The serializer can be an event loop shared with other connections, which keeps running
+     * the tasks this provider scheduled on it after the provider has been closed.
+     */
+    private boolean isDisposed() {
+        return closed.get() && (transport == null || !transport.isConnected());
+    }
+
+    private void cancelScheduledTasks() {
+        if (nextIdleTimeoutCheck != null) {
+            LOG.trace("Cancelling scheduled IdleTimeoutCheck");
+            nextIdleTimeoutCheck.cancel(false);
+            nextIdleTimeoutCheck = null;
+        }
+
+        if (nextScheduledFlush != null) {
+            nextScheduledFlush.cancel(false);
+            nextScheduledFlush = null;
+        }
+
+        if (nextScheduledAckWrite != null) {
+            nextScheduledAckWrite.cancel(false);
+            nextScheduledAckWrite = null;
+        }
+    }
+
     private void checkClosedOrFailed() throws ProviderClosedException, ProviderFailedException {
         if (closed.get()) {
             throw new ProviderClosedException("This Provider is already closed");
@@ -1475,12 +1951,72 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         return mechanism;
     }
 
+    /*
+     * Tracks the sends that make up a batch and completes the original request once all
+     * of them have succeeded, or fails it as soon as any one of them fails.  All calls are
+     * made from the provider serializer thread.
+     */
+    private static final class BatchSendRequest extends WrappedAsyncResult {
+
+        private int remaining;
+
+        public BatchSendRequest(AsyncResult request, int parts) {
+            super(request);
+            this.remaining = parts;
+        }
+
+        public AsyncResult newPart(final JmsOutboundMessageDispatch envelope) {
+            return new AsyncResult() {
+
+                private boolean complete;
+
+                @Override
+                public void onFailure(Throwable result) {
+                    if (!complete) {
+                        complete = true;
+                        BatchSendRequest.this.onFailure(result);
+                    }
+                }
+
+                @Override
+                public void onSuccess() {
+                    if (!complete) {
+                        complete = true;
+                        if (envelope != null) {
+                            envelope.setSendComplete(true);
+                        }
+                        BatchSendRequest.this.onSuccess();
+                    }
+                }
+
+                @Override
+                public boolean isComplete() {
+                    return complete;
+                }
+            };
+        }
+
+        @Override
+        public void onFailure(Throwable result) {
+            if (!isComplete()) {
+                super.onFailure(result);
+            }
+        }
+
+        @Override
+        public void onSuccess() {
+            if (--remaining == 0 && !isComplete()) {
+                super.onSuccess();
+            }
+        }
+    }
+
     private final class IdleTimeoutCheck implements Runnable {
         @Override
         public void run() {
             boolean checkScheduled = false;
 
-            if (connection.getLocalState() == EndpointState.ACTIVE) {
+            if (!isDisposed() && connection.getLocalState() == EndpointState.ACTIVE) {
                 // Using nano time since it is not related to the wall clock, which may change
                 long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
                 long deadline = protonTransport.tick(now);
@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -34,6 +36,7 @@ import org.apache.qpid.jms.meta.JmsSessionInfo;
 import org.apache.qpid.jms.meta.JmsTransactionId;
 import org.apache.qpid.jms.meta.JmsTransactionInfo;
 import org.apache.qpid.jms.provider.AsyncResult;
+import org.apache.qpid.jms.provider.ProviderClosedException;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
 import org.apache.qpid.jms.provider.amqp.builders.AmqpConsumerBuilder;
 import org.apache.qpid.jms.provider.amqp.builders.AmqpProducerBuilder;
@@ -47,6 +50,7 @@ public class AmqpSession extends AmqpAbstractResource<JmsSessionInfo, Session> i
 
     private final AmqpConnection connection;
     private final AmqpTransactionContext txContext;
+    private final ExecutorService dispatcher;
 
     private final Map<JmsConsumerId, AmqpConsumer> consumers = new HashMap<JmsConsumerId, AmqpConsumer>();
     private final Map<JmsProducerId, AmqpProducer> producers = new HashMap<JmsProducerId, AmqpProducer>();
@@ -55,6 +59,7 @@ public class AmqpSession extends AmqpAbstractResource<JmsSessionInfo, Session> i
         super(info, session, connection);
 
         this.connection = connection;
+        this.dispatcher = connection.getProvider().nextDispatcher();
 
         if (info.isTransacted()) {
             txContext = new AmqpTransactionContext(this, info);
@@ -125,6 +130,47 @@ public class AmqpSession extends AmqpAbstractResource<JmsSessionInfo, Session> i
         return txContext;
     }
 
+    /**
+     * @return the executor that inbound messages for consumers of this session are decoded
+     *         and dispatched on, or null if that is done on the connection thread.
+     */
+    ExecutorService getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Completes the given request once the inbound messages already handed to the session
+     * dispatcher have been dispatched, so that work which depends on those messages having
+     * reached their consumers is not signalled early.  The request is completed from the
+     * connection thread, or immediately when there is no session dispatcher.
+     *
+     * @param request
+     *      The request to complete once prior inbound messages have been dispatched.
+     */
+    void completeAfterDispatch(AsyncResult request) {
+        if (dispatcher == null) {
+            request.onSuccess();
+            return;
+        }
+
+        final AmqpProvider provider = getProvider();
+
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    provider.getScheduler().execute(() -> {
+                        request.onSuccess();
+                        provider.pumpToProtonTransport(request);
+                    });
+                } catch (RejectedExecutionException ree) {
+                    request.onFailure(new ProviderClosedException("The connection is closed"));
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            request.onFailure(new ProviderClosedException("The connection is closed"));
+        }
+    }
+
     /**
      * Begins a new Transaction using the given Transaction Id as the identifier.  The AMQP
      * binary Transaction Id will be stored in the provider hint value of the given transaction.
@@ -65,6 +65,7 @@ public class AmqpSupport {
     // Symbols used for connection properties
     public static final Symbol QUEUE_PREFIX = Symbol.valueOf("queue-prefix");
     public static final Symbol TOPIC_PREFIX = Symbol.valueOf("topic-prefix");
+    public static final Symbol LOAD_HINT = Symbol.valueOf("load-hint");
 
     public static final Symbol PRODUCT = Symbol.valueOf("product");
     public static final Symbol VERSION = Symbol.valueOf("version");
@@ -55,9 +55,13 @@ import org.apache.qpid.proton.codec.AMQPDefinedTypes;
 import org.apache.qpid.proton.codec.DecoderImpl;
 import org.apache.qpid.proton.codec.EncoderImpl;
 import org.apache.qpid.proton.codec.ReadableBuffer;
+import org.apache.qpid.proton.codec.TypeConstructor;
 import org.apache.qpid.proton.codec.WritableBuffer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 
 /**
  * AMQP Codec class used to hide the details of encode / decode
@@ -73,6 +77,9 @@ public final class AmqpCodec {
 
         // Store local duplicates from the global cache for thread safety.
         Map<Integer, ReadableBuffer> messageAnnotationsCache = new HashMap<>();
+
+        // Size of the last message encoded on this thread, used to size the next encode buffer.
+        int lastEncodedSize = AmqpWritableBuffer.INITIAL_CAPACITY;
     }
 
     private static final ThreadLocal<EncoderDecoderContext> TLS_CODEC = new ThreadLocal<EncoderDecoderContext>() {
@@ -149,9 +156,39 @@ public final class AmqpCodec {
         return result;
     }
 
+    /**
+     * Decodes the single AMQP Section that starts at the given offset of the encoded message,
+     * the position of the given buffer is not modified.
+     *
+     * @param encodedMessage
+     *      the buffer holding the encoded message.
+     * @param offset
+     *      the position within the buffer where the encoded section begins.
+     *
+     * @return the Section object read from the given offset.
+     */
+    static Section decodeSection(ReadableBuffer encodedMessage, int offset) {
+        DecoderImpl decoder = getDecoder();
+        decoder.setBuffer(encodedMessage.duplicate().position(offset));
+        Section result = (Section) decoder.readObject();
+        decoder.setByteBuffer(null);
+
+        return result;
+    }
+
     /**
      * Given a Message instance, encode the Message to the wire level representation
      * of that Message.
+     * <p>
+     * The returned buffer is allocated from the pooled allocator and is sized using the
+     * size of the last encoding of the given message, or of the last message encoded on
+     * the calling thread.  The caller owns the returned buffer and must release it once
+     * it is no longer needed.
+     * <p>
+     * When an unmodified message is encoded again, for instance when it is sent on to many
+     * destinations, the encoding of its application properties and body is kept on the
+     * message and reused, and only the remaining sections are encoded for each send.  The
+     * returned buffer is then a composite of the newly encoded and the reused bytes.
      *
      * @param message
      *      the Message that is to be encoded into the wire level representation.
@@ -161,10 +198,12 @@ public final class AmqpCodec {
     public static ByteBuf encodeMessage(AmqpJmsMessageFacade message) {
         EncoderDecoderContext context = TLS_CODEC.get();
 
-        AmqpWritableBuffer buffer = new AmqpWritableBuffer();
+        int estimatedSize = message.getEncodedSizeEstimate();
+        if (estimatedSize <= 0) {
+            estimatedSize = context.lastEncodedSize;
+        }
 
         EncoderImpl encoder = context.encoder;
-        encoder.setByteBuffer(buffer);
 
         Header header = message.getHeader();
         DeliveryAnnotations deliveryAnnotations = message.getDeliveryAnnotations();
@@ -174,6 +213,20 @@ public final class AmqpCodec {
         Section body = message.getBody();
         Footer footer = message.getFooter();
 
+        ByteBuf sections = message.getSectionsEncodingCache();
+        if (sections == null && message.isSectionsEncoded()) {
+            sections = encodeSections(encoder, estimatedSize, applicationProperties, body);
+            message.setSectionsEncodingCache(sections);
+        }
+
+        if (sections != null) {
+            estimatedSize = Math.max(estimatedSize - sections.readableBytes(), AmqpWritableBuffer.INITIAL_CAPACITY);
+        }
+
+        AmqpWritableBuffer buffer = new AmqpWritableBuffer(PooledByteBufAllocator.DEFAULT.heapBuffer(estimatedSize));
+
+        encoder.setByteBuffer(buffer);
+
         if (header != null) {
             encoder.writeObject(header);
         }
@@ -192,16 +245,58 @@ public final class AmqpCodec {
         if (properties != null) {
             encoder.writeObject(properties);
         }
+
+        final ByteBuf result;
+
+        if (sections == null) {
+            if (applicationProperties != null) {
+                encoder.writeObject(applicationProperties);
+            }
+            if (body != null) {
+                encoder.writeObject(body);
+            }
+            if (footer != null) {
+                encoder.writeObject(footer);
+            }
+
+            result = buffer.getBuffer();
+        } else {
+            CompositeByteBuf composite = PooledByteBufAllocator.DEFAULT.compositeHeapBuffer(3);
+            composite.addComponent(true, buffer.getBuffer());
+            composite.addComponent(true, sections.retainedDuplicate());
+
+            if (footer != null) {
+                AmqpWritableBuffer footerBuffer = new AmqpWritableBuffer(PooledByteBufAllocator.DEFAULT.heapBuffer());
+                encoder.setByteBuffer(footerBuffer);
+                encoder.writeObject(footer);
+                composite.addComponent(true, footerBuffer.getBuffer());
+            }
+
+            result = composite;
+        }
+
+        encoder.setByteBuffer((WritableBuffer) null);
+
+        message.onSectionsEncoded();
+
+        final int encodedSize = result.readableBytes();
+        message.setEncodedSizeEstimate(encodedSize);
+        context.lastEncodedSize = Math.max(encodedSize, AmqpWritableBuffer.INITIAL_CAPACITY);
+
+        return result;
+    }
+
+    private static ByteBuf encodeSections(EncoderImpl encoder, int estimatedSize, ApplicationProperties applicationProperties, Section body) {
+        // Not pooled as the message holds on to it for as long as the application does.
+        AmqpWritableBuffer buffer = new AmqpWritableBuffer(Unpooled.buffer(estimatedSize));
+
+        encoder.setByteBuffer(buffer);
         if (applicationProperties != null) {
             encoder.writeObject(applicationProperties);
         }
         if (body != null) {
             encoder.writeObject(body);
         }
-        if (footer != null) {
-            encoder.writeObject(footer);
-        }
-
         encoder.setByteBuffer((WritableBuffer) null);
 
         return buffer.getBuffer();
@@ -287,43 +382,41 @@ public final class AmqpCodec {
         decoder.setBuffer(messageBytes);
 
         Header header = null;
-        DeliveryAnnotations deliveryAnnotations = null;
         MessageAnnotations messageAnnotations = null;
         Properties properties = null;
-        ApplicationProperties applicationProperties = null;
         Section body = null;
-        Footer footer = null;
-        Section section = null;
+
+        // Sections not needed to create the message are skipped here and decoded on first use.
+        int deliveryAnnotationsOffset = -1;
+        int applicationPropertiesOffset = -1;
+        int bodyOffset = -1;
+        int footerOffset = -1;
 
         while (messageBytes.hasRemaining()) {
-            section = (Section) decoder.readObject();
-
-            switch (section.getType()) {
-                case Header:
-                    header = (Header) section;
-                    break;
-                case DeliveryAnnotations:
-                    deliveryAnnotations = (DeliveryAnnotations) section;
-                    break;
-                case MessageAnnotations:
-                    messageAnnotations = (MessageAnnotations) section;
-                    break;
-                case Properties:
-                    properties = (Properties) section;
-                    break;
-                case ApplicationProperties:
-                    applicationProperties = (ApplicationProperties) section;
-                    break;
-                case Data:
-                case AmqpSequence:
-                case AmqpValue:
-                    body = section;
-                    break;
-                case Footer:
-                    footer = (Footer) section;
-                    break;
-                default:
-                    throw new IOException("Unknown Message Section forced decode abort.");
+            final int sectionOffset = messageBytes.position();
+            final TypeConstructor<?> constructor = decoder.readConstructor();
+            final Class<?> sectionType = constructor.getTypeClass();
+
+            if (sectionType == Header.class) {
+                header = (Header) constructor.readValue();
+            } else if (sectionType == DeliveryAnnotations.class) {
+                deliveryAnnotationsOffset = sectionOffset;
+                constructor.skipValue();
+            } else if (sectionType == MessageAnnotations.class) {
+                messageAnnotations = (MessageAnnotations) constructor.readValue();
+            } else if (sectionType == Properties.class) {
+                properties = (Properties) constructor.readValue();
+            } else if (sectionType == ApplicationProperties.class) {
+                applicationPropertiesOffset = sectionOffset;
+                constructor.skipValue();
+            } else if (sectionType == Data.class || sectionType == AmqpSequence.class || sectionType == AmqpValue.class) {
+                bodyOffset = sectionOffset;
+                constructor.skipValue();
+            } else if (sectionType == Footer.class) {
+                footerOffset = sectionOffset;
+                constructor.skipValue();
+            } else {
+                throw new IOException("Unknown Message Section forced decode abort.");
             }
         }
 
@@ -332,18 +425,21 @@ public final class AmqpCodec {
         // First we try the easy way, if the annotation is there we don't have to work hard.
         AmqpJmsMessageFacade result = createFromMsgAnnotation(messageAnnotations);
         if (result == null) {
-            // Next, match specific section structures and content types
+            // Next, match specific section structures and content types which needs the body.
+            if (bodyOffset >= 0) {
+                body = decodeSection(messageBytes, bodyOffset);
+                bodyOffset = -1;
+            }
+
             result = createWithoutAnnotation(body, properties);
         }
 
         if (result != null) {
             result.setHeader(header);
-            result.setDeliveryAnnotations(deliveryAnnotations);
             result.setMessageAnnotations(messageAnnotations);
             result.setProperties(properties);
-            result.setApplicationProperties(applicationProperties);
             result.setBody(body);
-            result.setFooter(footer);
+            result.setEncodedSections(messageBytes, deliveryAnnotationsOffset, applicationPropertiesOffset, bodyOffset, footerOffset);
             result.initialize(consumer);
 
             return result;
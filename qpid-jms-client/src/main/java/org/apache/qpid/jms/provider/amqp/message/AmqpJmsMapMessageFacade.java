@@ -51,23 +51,23 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
         AmqpJmsMapMessageFacade copy = new AmqpJmsMapMessageFacade();
         copyInto(copy);
         copy.initializeEmptyBody();
-        copy.messageBodyMap.putAll(messageBodyMap);
+        copy.messageBodyMap.putAll(getMessageBodyMap());
         return copy;
     }
 
     @Override
     public Enumeration<String> getMapNames() {
-        return Collections.enumeration(messageBodyMap.keySet());
+        return Collections.enumeration(getMessageBodyMap().keySet());
     }
 
     @Override
     public boolean itemExists(String key) {
-        return messageBodyMap.containsKey(key);
+        return getMessageBodyMap().containsKey(key);
     }
 
     @Override
     public Object get(String key) {
-        Object value = messageBodyMap.get(key);
+        Object value = getMessageBodyMap().get(key);
         if (value instanceof Binary) {
             // Copy to a byte[], ensure we copy only the required portion.
             Binary bin = ((Binary) value);
@@ -84,22 +84,25 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
             entry = new Binary((byte[]) value);
         }
 
-        messageBodyMap.put(key, entry);
+        onSectionsModified();
+        getMessageBodyMap().put(key, entry);
     }
 
     @Override
     public Object remove(String key) {
-        return messageBodyMap.remove(key);
+        onSectionsModified();
+        return getMessageBodyMap().remove(key);
     }
 
     @Override
     public void clearBody() {
-        messageBodyMap.clear();
+        onSectionsModified();
+        getMessageBodyMap().clear();
     }
 
     @Override
     public boolean hasBody() {
-        return !messageBodyMap.isEmpty();
+        return !getMessageBodyMap().isEmpty();
     }
 
     @Override
@@ -127,6 +130,11 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
         }
     }
 
+    private Map<String, Object> getMessageBodyMap() {
+        decodeBody();
+        return messageBodyMap;
+    }
+
     @Override
     protected void initializeEmptyBody() {
         // Using LinkedHashMap because AMQP map equality considers order,
@@ -47,6 +47,7 @@ import org.apache.qpid.proton.amqp.messaging.Header;
 import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.amqp.messaging.Properties;
 import org.apache.qpid.proton.amqp.messaging.Section;
+import org.apache.qpid.proton.codec.ReadableBuffer;
 
 import io.netty.buffer.ByteBuf;
 
@@ -77,6 +78,24 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
      */
     private Long userSpecifiedTTL = null;
 
+    private int encodedSizeEstimate;
+
+    private Object messageIdSource;
+    private String messageIdString;
+
+    // Encoded form of a received message along with the offsets of the sections that
+    // have not yet been decoded, each is decoded on first access and the offset cleared.
+    private ReadableBuffer encodedMessage;
+    private int deliveryAnnotationsOffset = -1;
+    private int applicationPropertiesOffset = -1;
+    private int bodyOffset = -1;
+    private int footerOffset = -1;
+
+    // Encoding of the application properties and body sections kept when an unmodified
+    // message is sent again so that later sends only need to encode the other sections.
+    private ByteBuf sectionsEncodingCache;
+    private boolean sectionsEncoded;
+
     /**
      * Initialize the state of this message for send.
      *
@@ -161,6 +180,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public boolean applicationPropertyExists(String key) throws JMSException {
+        decodeApplicationProperties();
         if (applicationPropertiesMap != null) {
             return applicationPropertiesMap.containsKey(key);
         }
@@ -181,6 +201,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public Set<String> getApplicationPropertyNames(Set<String> propertyNames) {
+        decodeApplicationProperties();
         if (applicationPropertiesMap != null) {
             propertyNames.addAll(applicationPropertiesMap.keySet());
         }
@@ -194,6 +215,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public Object getApplicationProperty(String key) throws JMSException {
+        decodeApplicationProperties();
         if (applicationPropertiesMap != null) {
             return applicationPropertiesMap.get(key);
         }
@@ -212,6 +234,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     public void setApplicationProperty(String key, Object value) throws JMSException {
         lazyCreateApplicationProperties();
+        onSectionsModified();
         applicationPropertiesMap.put(key, value);
     }
 
@@ -271,7 +294,11 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
             target.setProperties(new Properties(properties));
         }
 
-        target.setBody(body);
+        target.setBody(getBody());
+
+        decodeDeliveryAnnotations();
+        decodeApplicationProperties();
+        decodeFooter();
 
         if (deliveryAnnotationsMap != null && !deliveryAnnotationsMap.isEmpty()) {
             target.lazyCreateDeliveryAnnotations();
@@ -302,7 +329,14 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
             underlying = properties.getMessageId();
         }
 
-        return AmqpMessageIdHelper.toMessageIdString(underlying);
+        // The JMS form of the ID is only created when asked for and kept until the
+        // underlying AMQP message ID value is replaced.
+        if (underlying != messageIdSource || messageIdString == null) {
+            messageIdString = AmqpMessageIdHelper.toMessageIdString(underlying);
+            messageIdSource = underlying;
+        }
+
+        return messageIdString;
     }
 
     @Override
@@ -757,7 +791,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @Override
     public boolean hasBody() {
-        return body != null;
+        return body != null || bodyOffset >= 0;
     }
 
     /**
@@ -845,6 +879,8 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
      * Removes all application level properties from the Message.
      */
     void clearAllApplicationProperties() {
+        onSectionsModified();
+        applicationPropertiesOffset = -1;
         applicationPropertiesMap = null;
     }
 
@@ -890,6 +926,47 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
         return this.consumerDestination;
     }
 
+    int getEncodedSizeEstimate() {
+        return encodedSizeEstimate;
+    }
+
+    void setEncodedSizeEstimate(int encodedSizeEstimate) {
+        this.encodedSizeEstimate = encodedSizeEstimate;
+    }
+
+    /**
+     * @return the encoding of the application properties and body sections kept from an
+     *         earlier send of this message, or null if there is none.
+     */
+    ByteBuf getSectionsEncodingCache() {
+        return sectionsEncodingCache;
+    }
+
+    void setSectionsEncodingCache(ByteBuf sectionsEncodingCache) {
+        this.sectionsEncodingCache = sectionsEncodingCache;
+    }
+
+    /**
+     * @return true if the message was encoded before and neither its application properties
+     *         nor its body have been modified since.
+     */
+    boolean isSectionsEncoded() {
+        return sectionsEncoded;
+    }
+
+    void onSectionsEncoded() {
+        sectionsEncoded = true;
+    }
+
+    /**
+     * Must be called whenever the application properties or body may have been modified,
+     * discarding any encoding of those sections kept from an earlier send.
+     */
+    void onSectionsModified() {
+        sectionsEncoded = false;
+        sectionsEncodingCache = null;
+    }
+
     public JmsMessage asJmsMessage() {
         return new JmsMessage(this);
     }
@@ -926,10 +1003,13 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     Section getBody() {
+        decodeBody();
         return body;
     }
 
     void setBody(Section body) {
+        onSectionsModified();
+        this.bodyOffset = -1;
         this.body = body;
     }
 
@@ -949,6 +1029,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     DeliveryAnnotations getDeliveryAnnotations() {
+        decodeDeliveryAnnotations();
         DeliveryAnnotations result = null;
         if (deliveryAnnotationsMap != null && !deliveryAnnotationsMap.isEmpty()) {
             result = new DeliveryAnnotations(deliveryAnnotationsMap);
@@ -958,12 +1039,14 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     void setDeliveryAnnotations(DeliveryAnnotations deliveryAnnotations) {
+        deliveryAnnotationsOffset = -1;
         if (deliveryAnnotations != null) {
             this.deliveryAnnotationsMap = deliveryAnnotations.getValue();
         }
     }
 
     ApplicationProperties getApplicationProperties() {
+        decodeApplicationProperties();
         ApplicationProperties result = null;
         if (applicationPropertiesMap != null && !applicationPropertiesMap.isEmpty()) {
             result = new ApplicationProperties(applicationPropertiesMap);
@@ -972,12 +1055,15 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     void setApplicationProperties(ApplicationProperties applicationProperties) {
+        onSectionsModified();
+        applicationPropertiesOffset = -1;
         if (applicationProperties != null) {
             this.applicationPropertiesMap = applicationProperties.getValue();
         }
     }
 
     Footer getFooter() {
+        decodeFooter();
         Footer result = null;
         if (footerMap != null && !footerMap.isEmpty()) {
             result = new Footer(footerMap);
@@ -987,13 +1073,88 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @SuppressWarnings("unchecked")
     void setFooter(Footer footer) {
+        footerOffset = -1;
         if (footer != null) {
             this.footerMap = footer.getValue();
         }
     }
 
+    /**
+     * Stores the encoded form of a received message so that the sections located at the
+     * given offsets can be decoded when first accessed instead of when the message arrives.
+     * An offset of -1 indicates that the section is not present or was already decoded.
+     *
+     * @param encodedMessage
+     *        the buffer holding the encoded message, which must not be modified afterwards.
+     * @param deliveryAnnotationsOffset
+     *        the offset of the delivery annotations section.
+     * @param applicationPropertiesOffset
+     *        the offset of the application properties section.
+     * @param bodyOffset
+     *        the offset of the body section.
+     * @param footerOffset
+     *        the offset of the footer section.
+     */
+    void setEncodedSections(ReadableBuffer encodedMessage, int deliveryAnnotationsOffset, int applicationPropertiesOffset, int bodyOffset, int footerOffset) {
+        this.encodedMessage = encodedMessage;
+        this.deliveryAnnotationsOffset = deliveryAnnotationsOffset;
+        this.applicationPropertiesOffset = applicationPropertiesOffset;
+        this.bodyOffset = bodyOffset;
+        this.footerOffset = footerOffset;
+    }
+
     //----- Internal Message Utility Methods ---------------------------------//
 
+    private void decodeDeliveryAnnotations() {
+        if (deliveryAnnotationsOffset >= 0) {
+            DeliveryAnnotations deliveryAnnotations = (DeliveryAnnotations) decodeEncodedSection(deliveryAnnotationsOffset);
+            deliveryAnnotationsOffset = -1;
+            deliveryAnnotationsMap = deliveryAnnotations.getValue();
+            releaseEncodedMessageIfDecoded();
+        }
+    }
+
+    private void decodeApplicationProperties() {
+        if (applicationPropertiesOffset >= 0) {
+            ApplicationProperties applicationProperties = (ApplicationProperties) decodeEncodedSection(applicationPropertiesOffset);
+            applicationPropertiesOffset = -1;
+            applicationPropertiesMap = applicationProperties.getValue();
+            releaseEncodedMessageIfDecoded();
+        }
+    }
+
+    /**
+     * Decodes the body of a received message if that has not yet been done, subclasses that
+     * keep their own view of the body must call this before accessing it.
+     */
+    void decodeBody() {
+        if (bodyOffset >= 0) {
+            Section section = decodeEncodedSection(bodyOffset);
+            setBody(section);
+            releaseEncodedMessageIfDecoded();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decodeFooter() {
+        if (footerOffset >= 0) {
+            Footer footer = (Footer) decodeEncodedSection(footerOffset);
+            footerOffset = -1;
+            footerMap = footer.getValue();
+            releaseEncodedMessageIfDecoded();
+        }
+    }
+
+    private Section decodeEncodedSection(int offset) {
+        return AmqpCodec.decodeSection(encodedMessage, offset);
+    }
+
+    private void releaseEncodedMessageIfDecoded() {
+        if (deliveryAnnotationsOffset < 0 && applicationPropertiesOffset < 0 && bodyOffset < 0 && footerOffset < 0) {
+            encodedMessage = null;
+        }
+    }
+
     private Long getAbsoluteExpiryTime() {
         Long result = null;
         if (properties != null) {
@@ -1039,18 +1200,21 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     private void lazyCreateDeliveryAnnotations() {
+        decodeDeliveryAnnotations();
         if (deliveryAnnotationsMap == null) {
             deliveryAnnotationsMap = new HashMap<Symbol, Object>();
         }
     }
 
     private void lazyCreateApplicationProperties() {
+        decodeApplicationProperties();
         if (applicationPropertiesMap == null) {
             applicationPropertiesMap = new HashMap<String, Object>();
         }
     }
 
     private void lazyCreateFooter() {
+        decodeFooter();
         if (footerMap == null) {
             footerMap = new HashMap<Symbol, Object>();
         }
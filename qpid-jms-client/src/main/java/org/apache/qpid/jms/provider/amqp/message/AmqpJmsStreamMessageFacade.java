@@ -45,7 +45,7 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
         AmqpJmsStreamMessageFacade copy = new AmqpJmsStreamMessageFacade();
         copyInto(copy);
         copy.initializeEmptyBodyList(getBody() instanceof AmqpSequence);
-        copy.list.addAll(list);
+        copy.list.addAll(getList());
         return copy;
     }
 
@@ -59,16 +59,18 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public boolean hasNext() {
-        return !list.isEmpty() && position < list.size();
+        List<Object> values = getList();
+        return !values.isEmpty() && position < values.size();
     }
 
     @Override
     public Object peek() throws MessageEOFException {
-        if (list.isEmpty() || position >= list.size()) {
+        List<Object> values = getList();
+        if (values.isEmpty() || position >= values.size()) {
             throw new MessageEOFException("Attempt to read past end of stream");
         }
 
-        Object object = list.get(position);
+        Object object = values.get(position);
         if (object instanceof Binary) {
             // Copy to a byte[], ensure we copy only the required portion.
             Binary bin = ((Binary) object);
@@ -80,7 +82,8 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public void pop() throws MessageEOFException {
-        if (list.isEmpty() || position >= list.size()) {
+        List<Object> values = getList();
+        if (values.isEmpty() || position >= values.size()) {
             throw new MessageEOFException("Attempt to read past end of stream");
         }
 
@@ -94,7 +97,8 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
             entry = new Binary((byte[]) value);
         }
 
-        list.add(entry);
+        onSectionsModified();
+        getList().add(entry);
     }
 
     @Override
@@ -104,13 +108,14 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public void clearBody() {
-        list.clear();
+        onSectionsModified();
+        getList().clear();
         position = 0;
     }
 
     @Override
     public boolean hasBody() {
-        return !list.isEmpty();
+        return !getList().isEmpty();
     }
 
     @Override
@@ -153,6 +158,11 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
         }
     }
 
+    private List<Object> getList() {
+        decodeBody();
+        return list;
+    }
+
     private List<Object> initializeEmptyBodyList(boolean useSequenceBody) {
         List<Object> emptyList = new ArrayList<Object>();
 
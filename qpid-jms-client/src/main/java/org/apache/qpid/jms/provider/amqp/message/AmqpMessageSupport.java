@@ -155,7 +155,7 @@ public final class AmqpMessageSupport {
     public static Message decodeMessage(ByteBuf encodedBytes) {
         // For now we must fully decode the message to get at the annotations.
         Message protonMessage = Message.Factory.create();
-        protonMessage.decode(encodedBytes.array(), 0, encodedBytes.readableBytes());
+        protonMessage.decode(encodedBytes.array(), encodedBytes.arrayOffset() + encodedBytes.readerIndex(), encodedBytes.readableBytes());
         return protonMessage;
     }
 
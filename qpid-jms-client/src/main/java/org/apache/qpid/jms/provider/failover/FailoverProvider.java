@@ -16,6 +16,7 @@
  */
 package org.apache.qpid.jms.provider.failover;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
@@ -26,10 +27,17 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -38,6 +46,7 @@ import javax.jms.JMSException;
 import javax.jms.JMSSecurityException;
 import javax.jms.TransactionRolledBackException;
 
+import org.apache.qpid.jms.JmsDestination;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
 import org.apache.qpid.jms.JmsSendTimedOutException;
 import org.apache.qpid.jms.exceptions.JMSSecuritySaslException;
@@ -46,8 +55,11 @@ import org.apache.qpid.jms.message.JmsMessageFactory;
 import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsConnectionInfo;
 import org.apache.qpid.jms.meta.JmsConsumerId;
+import org.apache.qpid.jms.meta.JmsProducerId;
+import org.apache.qpid.jms.meta.JmsProducerInfo;
 import org.apache.qpid.jms.meta.JmsResource;
 import org.apache.qpid.jms.meta.JmsSessionId;
+import org.apache.qpid.jms.meta.JmsSessionInfo;
 import org.apache.qpid.jms.meta.JmsTransactionInfo;
 import org.apache.qpid.jms.provider.AsyncResult;
 import org.apache.qpid.jms.provider.DefaultProviderListener;
@@ -60,12 +72,16 @@ import org.apache.qpid.jms.provider.ProviderListener;
 import org.apache.qpid.jms.provider.ProviderRedirectedException;
 import org.apache.qpid.jms.provider.ProviderSynchronization;
 import org.apache.qpid.jms.provider.WrappedAsyncResult;
+import org.apache.qpid.jms.provider.failover.FailoverSendJournal.JournaledSend;
 import org.apache.qpid.jms.util.IOExceptionSupport;
 import org.apache.qpid.jms.util.QpidJMSThreadFactory;
 import org.apache.qpid.jms.util.ThreadPoolUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 /**
  * A Provider Facade that provides services for detection dropped Provider connections
  * and attempting to reconnect to a different remote peer.  Upon establishment of a new
@@ -94,6 +110,12 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     public static final boolean DEFAULT_USE_RECONNECT_BACKOFF = true;
     public static final double DEFAULT_RECONNECT_BACKOFF_MULTIPLIER = 2.0d;
     public static final int DEFAULT_WARN_AFTER_RECONNECT_ATTEMPTS = 10;
+    public static final boolean DEFAULT_HOT_STANDBY = false;
+    public static final int DEFAULT_RACING_CONNECT_ATTEMPTS = 1;
+    public static final int DEFAULT_SEND_JOURNAL_SIZE = 64 * 1024 * 1024;
+
+    // Session ID reserved for the internal session used to replay journaled sends.
+    private static final long JOURNAL_REPLAY_SESSION_ID = -2;
 
     private ProviderListener listener;
     private Provider provider;
@@ -117,6 +139,18 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     private volatile URI connectedURI;
     private volatile JmsConnectionInfo connectionInfo;
 
+    // Hot standby state, provider and pending flag only accessed from the serializer thread.
+    private Provider standbyProvider;
+    private boolean standbyConnectPending;
+    private volatile ScheduledThreadPoolExecutor standbyConnector;
+
+    // Executor used to run racing connect attempts, created on first use.
+    private volatile ExecutorService racingConnector;
+
+    // Journal of unsettled asynchronous sends and the executor that replays them.
+    private volatile FailoverSendJournal sendJournal;
+    private final Set<JmsSessionId> transactedSessions = ConcurrentHashMap.newKeySet();
+
     // Timeout values configured via JmsConnectionInfo
     private long closeTimeout = JmsConnectionInfo.DEFAULT_CLOSE_TIMEOUT;
     private long sendTimeout = JmsConnectionInfo.DEFAULT_SEND_TIMEOUT;
@@ -131,6 +165,10 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     private int maxReconnectAttempts = DEFAULT_MAX_RECONNECT_ATTEMPTS;
     private int startupMaxReconnectAttempts = DEFAULT_STARTUP_MAX_RECONNECT_ATTEMPTS;
     private int warnAfterReconnectAttempts = DEFAULT_WARN_AFTER_RECONNECT_ATTEMPTS;
+    private boolean hotStandby = DEFAULT_HOT_STANDBY;
+    private int racingConnectAttempts = DEFAULT_RACING_CONNECT_ATTEMPTS;
+    private String sendJournalFile;
+    private int sendJournalSize = DEFAULT_SEND_JOURNAL_SIZE;
 
     private FailoverServerListAction amqpOpenServerListAction = FailoverServerListAction.REPLACE;
 
@@ -149,6 +187,11 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     public void connect(JmsConnectionInfo connectionInfo) throws IOException {
         checkClosed();
         this.connectionInfo = connectionInfo;
+
+        if (sendJournalFile != null && !sendJournalFile.isEmpty()) {
+            sendJournal = new FailoverSendJournal(new File(sendJournalFile), sendJournalSize);
+        }
+
         LOG.debug("Initiating initial connection attempt task");
         triggerReconnectionAttempt();
     }
@@ -188,6 +231,8 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                         requestTimeoutTask.cancel(false);
                     }
 
+                    discardStandbyProvider();
+
                     if (provider != null) {
                         provider.close();
                     }
@@ -209,6 +254,21 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                 LOG.warn("Error caught while closing Provider: {}", e.getMessage() != null ? e.getMessage() : "<Unknown Error>");
             } finally {
                 ThreadPoolUtils.shutdownGraceful(serializer);
+
+                ScheduledThreadPoolExecutor standbyConnector = this.standbyConnector;
+                if (standbyConnector != null) {
+                    ThreadPoolUtils.shutdownNow(standbyConnector);
+                }
+
+                ExecutorService racingConnector = this.racingConnector;
+                if (racingConnector != null) {
+                    ThreadPoolUtils.shutdownNow(racingConnector);
+                }
+
+                FailoverSendJournal sendJournal = this.sendJournal;
+                if (sendJournal != null) {
+                    sendJournal.close();
+                }
             }
         }
     }
@@ -237,6 +297,10 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                 }
             };
         } else {
+            if (resource instanceof JmsSessionInfo && ((JmsSessionInfo) resource).isTransacted()) {
+                transactedSessions.add(((JmsSessionInfo) resource).getId());
+            }
+
             pending = new FailoverRequest(request, requestTimeout) {
                 @Override
                 public void doTask(Provider provider) throws Exception {
@@ -305,6 +369,11 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     @Override
     public void destroy(final JmsResource resourceId, AsyncResult request) throws IOException, JMSException, UnsupportedOperationException {
         checkClosed();
+
+        if (resourceId instanceof JmsSessionInfo) {
+            transactedSessions.remove(((JmsSessionInfo) resourceId).getId());
+        }
+
         final FailoverRequest pending = new FailoverRequest(request, requestTimeout) {
             @Override
             public void doTask(Provider provider) throws IOException, JMSException, UnsupportedOperationException {
@@ -332,10 +401,50 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     @Override
     public void send(final JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException {
         checkClosed();
+        final FailoverSendJournal journal = isJournaled(envelope) ? sendJournal : null;
+        final String journalId = journal != null ? getJournalId(envelope) : null;
         final FailoverRequest pending = new FailoverRequest(request, sendTimeout) {
+
+            private boolean journaled;
+
             @Override
             public void doTask(Provider provider) throws Exception {
-                provider.send(envelope, this);
+                // Journal once, a send replayed from the pending requests on reconnect
+                // is still tracked by its original entry.
+                if (journal != null && !journaled) {
+                    try {
+                        journal.append(journalId, envelope.getDestination(), (ByteBuf) envelope.getPayload());
+                        envelope.setSettlementTracked(true);
+                        journaled = true;
+                    } catch (IOException e) {
+                        LOG.warn("Message send will not be journaled: {}", e.getMessage());
+                    }
+                }
+
+                try {
+                    provider.send(envelope, this);
+                } catch (JMSException | UnsupportedOperationException e) {
+                    if (journaled) {
+                        journal.settle(journalId);
+                    }
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                super.onSuccess();
+                if (journaled) {
+                    journal.markWritten(journalId);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                super.onFailure(error);
+                if (journaled && isComplete()) {
+                    journal.settle(journalId);
+                }
             }
 
             @Override
@@ -345,7 +454,44 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
 
             @Override
             public JMSException createTimedOutException() {
-                return new JmsSendTimedOutException("Timed out waiting on " + this, envelope.getMessage());
+                return new JmsSendTimedOutException("Timed out waiting on " + this,
+                    null, envelope.getMessage(), envelope.getMessageId());
+            }
+        };
+
+        pending.run();
+    }
+
+    @Override
+    public void send(final List<JmsOutboundMessageDispatch> envelopes, AsyncResult request) throws IOException, JMSException {
+        checkClosed();
+        final FailoverRequest pending = new FailoverRequest(request, sendTimeout) {
+            @Override
+            public void doTask(Provider provider) throws Exception {
+                // On replay only the envelopes that were not completed before the
+                // connection dropped are sent again, the others are already settled.
+                List<JmsOutboundMessageDispatch> unsent = new ArrayList<>(envelopes.size());
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    if (!envelope.isSendComplete()) {
+                        unsent.add(envelope);
+                    }
+                }
+
+                if (unsent.isEmpty()) {
+                    onSuccess();
+                } else {
+                    provider.send(unsent, this);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "send batch -> " + envelopes;
+            }
+
+            @Override
+            public JMSException createTimedOutException() {
+                return new JmsSendTimedOutException("Timed out waiting on " + this);
             }
         };
 
@@ -512,6 +658,30 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         pending.run();
     }
 
+    @Override
+    public void grantCredit(final JmsConsumerId consumerId, final int credit, final AsyncResult request) throws IOException {
+        checkClosed();
+        final FailoverRequest pending = new FailoverRequest(request, requestTimeout) {
+            @Override
+            public void doTask(Provider provider) throws Exception {
+                provider.grantCredit(consumerId, credit, this);
+            }
+
+            @Override
+            public boolean succeedsWhenOffline() {
+                // Allow this to succeed, the consumer grants its outstanding demand again once recovered.
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                return "grant credit -> " + consumerId + " credit: " + credit;
+            }
+        };
+
+        pending.run();
+    }
+
     @Override
     public JmsMessageFactory getMessageFactory() {
         return messageFactory.get();
@@ -567,6 +737,9 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                             } catch (Exception error) {
                                 LOG.warn("Could not construct redirection URI from remote provided information");
                             }
+
+                            // The remote told us where to go, a standby elsewhere is not wanted.
+                            discardStandbyProvider();
                         }
 
                         ProviderListener listener = this.listener;
@@ -589,8 +762,15 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                             }
                         }
 
-                        triggerReconnectionAttempt();
+                        Provider standby = takeStandbyProvider();
+                        if (standby != null) {
+                            LOG.debug("Promoting hot standby connection to: {}", standby.getRemoteURI());
+                            initializeNewConnection(standby);
+                        } else {
+                            triggerReconnectionAttempt();
+                        }
                     } else {
+                        discardStandbyProvider();
                         failed.set(true);
                         failureCause = cause;
                         ProviderListener listener = this.listener;
@@ -658,6 +838,7 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
 
                     // Stage 3: Connection state recovered, get newly configured message factory.
                     FailoverProvider.this.messageFactory.set(provider.getMessageFactory());
+                    uris.recordLoadHint(provider.getRemoteURI(), provider.getRemoteLoadHint());
 
                     // Stage 4: Restart consumers, send pull commands, etc.
                     listener.onConnectionRecovered(provider);
@@ -665,6 +846,10 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     // Stage 5: Let the client know that connection has restored.
                     listener.onConnectionRestored(provider.getRemoteURI());
 
+                    // Resend journaled sends that were written but never settled, before any
+                    // pending send so that they still precede later sends from their producer.
+                    replaySendJournal(provider);
+
                     // Last step: Send pending actions.
                     final List<FailoverRequest> pending = new ArrayList<FailoverRequest>(requests.values());
                     for (FailoverRequest request : pending) {
@@ -686,6 +871,9 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     }
                 }
 
+                // Pre-connect to another remote so the next failure doesn't need a cold connect.
+                triggerStandbyConnectAttempt(0);
+
                 // Cancel timeout processing since we are connected again.  We waited until
                 // now for the case where we are continually getting bounced from otherwise
                 // live servers, we want the timeout to remain scheduled in that case so that
@@ -725,13 +913,39 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     return;
                 }
 
+                // A standby may have finished connecting while we were waiting to retry.
+                Provider standby = takeStandbyProvider();
+                if (standby != null) {
+                    LOG.debug("Promoting hot standby connection to: {}", standby.getRemoteURI());
+                    initializeNewConnection(standby);
+                    return;
+                }
+
                 Throwable failure = null;
                 Provider provider = null;
 
                 long reconnectAttempts = reconnectControl.recordNextAttempt();
 
                 try {
-                    if (!uris.isEmpty()) {
+                    if (racingConnectAttempts > 1 && uris.size() > 1) {
+                        List<URI> targets = new ArrayList<URI>();
+                        for (int i = 0; i < Math.min(racingConnectAttempts, uris.size()); ++i) {
+                            URI target = uris.getNext();
+                            if (target != null) {
+                                targets.add(target);
+                            }
+                        }
+
+                        try {
+                            LOG.debug("Connection attempt:[{}] racing to: {} in-progress", reconnectAttempts, targets);
+                            provider = raceConnectAttempts(targets);
+                            initializeNewConnection(provider);
+                            return;
+                        } catch (Throwable e) {
+                            LOG.info("Connection attempt:[{}] racing to: {} failed", reconnectAttempts, targets);
+                            failure = e;
+                        }
+                    } else if (!uris.isEmpty()) {
                         for (int i = 0; i < uris.size(); ++i) {
                             URI target = uris.getNext();
                             if (target == null) {
@@ -743,13 +957,16 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                             try {
                                 LOG.debug("Connection attempt:[{}] to: {} in-progress", reconnectAttempts,
                                     target.getScheme() + "://" + target.getHost() + ":" + target.getPort());
+                                long connectStart = System.nanoTime();
                                 provider = ProviderFactory.create(target, futureFactory);
                                 provider.connect(connectionInfo);
+                                uris.recordConnectSuccess(target, System.nanoTime() - connectStart);
                                 initializeNewConnection(provider);
                                 return;
                             } catch (Throwable e) {
                                 LOG.info("Connection attempt:[{}] to: {} failed", reconnectAttempts,
                                     target.getScheme() + "://" + target.getHost() + ":" + target.getPort());
+                                uris.recordConnectFailure(target);
                                 failure = e;
                                 try {
                                     if (provider != null) {
@@ -788,6 +1005,83 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         });
     }
 
+    /**
+     * Called from the serialization executor to connect to each of the given remotes at the
+     * same time, the first provider to complete its connect is returned and the others are
+     * closed as they complete.  The caller is blocked until a winner is found or all of the
+     * attempts have failed, much like a single connect attempt would block it.
+     *
+     * @param targets
+     *        the remote URIs to race connection attempts against.
+     *
+     * @return the first provider to be connected.
+     *
+     * @throws IOException if none of the connection attempts succeed.
+     */
+    private Provider raceConnectAttempts(List<URI> targets) throws IOException {
+        final AtomicReference<Provider> winner = new AtomicReference<Provider>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final AtomicInteger remaining = new AtomicInteger(targets.size());
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        if (racingConnector == null) {
+            racingConnector = Executors.newCachedThreadPool(new QpidJMSThreadFactory("FailoverProvider: racing connect thread", true));
+        }
+
+        for (final URI target : targets) {
+            racingConnector.execute(() -> {
+                Provider candidate = null;
+                try {
+                    long connectStart = System.nanoTime();
+                    candidate = ProviderFactory.create(target, futureFactory);
+                    candidate.connect(connectionInfo);
+                    uris.recordConnectSuccess(target, System.nanoTime() - connectStart);
+                    if (winner.compareAndSet(null, candidate)) {
+                        if (abandoned.get()) {
+                            closeQuietly(candidate);
+                        }
+                        done.countDown();
+                    } else {
+                        LOG.trace("Connection to: {} lost the connect race and will be closed", target);
+                        closeQuietly(candidate);
+                    }
+                } catch (Throwable error) {
+                    LOG.debug("Racing connection attempt to: {} failed: {}",
+                        target.getScheme() + "://" + target.getHost() + ":" + target.getPort(), error.getMessage());
+                    uris.recordConnectFailure(target);
+                    // Keep any failure that should stop reconnection so that it is not hidden.
+                    failure.accumulateAndGet(error, (previous, next) ->
+                        previous != null && reconnectControl.isStoppageCause(previous) ? previous : next);
+                    closeQuietly(candidate);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            // Ensure any attempt that completes from here on is not left connected.
+            abandoned.set(true);
+            closeQuietly(winner.get());
+            throw new IOException("Interrupted while waiting on racing connection attempts", ie);
+        }
+
+        Provider connected = winner.get();
+        if (connected == null) {
+            Throwable cause = failure.get();
+            throw cause != null ? IOExceptionSupport.create(cause) :
+                new IOException("All racing connection attempts failed: " + targets);
+        }
+
+        return connected;
+    }
+
     /**
      * Called when the provider has tried to reconnect for the last time based on reconnection policy
      * configuration and we now consider this connection attempt to be failed.
@@ -798,6 +1092,7 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         serializer.execute(() -> {
             LOG.error("Failed to connect after: " + reconnectControl.reconnectAttempts + " attempt(s)");
             if (failed.compareAndSet(false, true)) {
+                discardStandbyProvider();
                 if (lastFailure == null) {
                     failureCause = new IOException(
                         "Failed to connect after: " + reconnectControl.reconnectAttempts + " attempt(s)");
@@ -811,6 +1106,242 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         });
     }
 
+    //--------------- Hot standby connection management ----------------------//
+
+    /**
+     * Called from the serialization executor to start connecting a standby provider to a
+     * remote other than the one currently in use.  The standby completes its transport and
+     * SASL handshake but the AMQP Open is only performed once it has been promoted, so it
+     * holds no state on the remote until it is needed.  Opening it earlier would present the
+     * connection's client ID to a second remote and leave recovery with an already opened
+     * connection to recreate.
+     *
+     * Without the Open no idle timeout is negotiated, so the standby is only replaced when
+     * its transport reports a failure.  A standby that has silently stopped responding fails
+     * recovery when promoted, which falls back to a normal reconnect attempt.
+     *
+     * @param delay
+     *        the time in milliseconds to wait before the standby connect is attempted.
+     */
+    private void triggerStandbyConnectAttempt(long delay) {
+        if (!hotStandby || standbyProvider != null || standbyConnectPending) {
+            return;
+        }
+
+        if (closingConnection.get() || closed.get() || failed.get()) {
+            return;
+        }
+
+        final URI target = nextStandbyURI();
+        if (target == null) {
+            LOG.trace("No alternate remote URI available for a hot standby connection");
+            return;
+        }
+
+        standbyConnectPending = true;
+
+        if (standbyConnector == null) {
+            standbyConnector = new ScheduledThreadPoolExecutor(1, new QpidJMSThreadFactory("FailoverProvider: standby connect thread", true));
+            standbyConnector.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            standbyConnector.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+        }
+
+        standbyConnector.schedule(() -> {
+            Provider standby = null;
+            try {
+                LOG.debug("Hot standby connection attempt to: {} in-progress",
+                    target.getScheme() + "://" + target.getHost() + ":" + target.getPort());
+                long connectStart = System.nanoTime();
+                standby = ProviderFactory.create(target, futureFactory);
+                standby.setProviderListener(new StandbyProviderListener(standby));
+                standby.connect(connectionInfo);
+                uris.recordConnectSuccess(target, System.nanoTime() - connectStart);
+            } catch (Throwable error) {
+                LOG.debug("Hot standby connection attempt to: {} failed: {}",
+                    target.getScheme() + "://" + target.getHost() + ":" + target.getPort(), error.getMessage());
+                uris.recordConnectFailure(target);
+                closeQuietly(standby);
+                standby = null;
+            }
+
+            final Provider connected = standby;
+            try {
+                serializer.execute(() -> onStandbyConnectCompleted(connected));
+            } catch (RejectedExecutionException ree) {
+                closeQuietly(connected);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void onStandbyConnectCompleted(Provider standby) {
+        standbyConnectPending = false;
+
+        if (closingConnection.get() || closed.get() || failed.get()) {
+            closeQuietly(standby);
+        } else if (standby == null) {
+            triggerStandbyConnectAttempt(getStandbyRetryDelay());
+        } else if (standby.getRemoteURI().equals(connectedURI)) {
+            // We failed over onto the standby's remote while it was connecting.
+            closeQuietly(standby);
+            triggerStandbyConnectAttempt(0);
+        } else {
+            LOG.debug("Hot standby connection to: {} established", standby.getRemoteURI());
+            standbyProvider = standby;
+        }
+    }
+
+    private Provider takeStandbyProvider() {
+        Provider standby = standbyProvider;
+        standbyProvider = null;
+        return standby;
+    }
+
+    private void discardStandbyProvider() {
+        closeQuietly(takeStandbyProvider());
+    }
+
+    private URI nextStandbyURI() {
+        // Rotate through the pool so that a replacement standby tries the next remote in
+        // the order the pool would reconnect in, rather than the one that was just lost.
+        for (int i = uris.size(); i > 0; --i) {
+            URI candidate = uris.getNext();
+            if (candidate != null && !candidate.equals(connectedURI)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    private long getStandbyRetryDelay() {
+        return Math.max(reconnectDelay, MINIMUM_TIMEOUT);
+    }
+
+    private static void closeQuietly(Provider provider) {
+        if (provider != null) {
+            try {
+                provider.close();
+            } catch (Throwable error) {
+                LOG.trace("Caught exception while closing unused provider: {}", error.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Listens for the loss of an idle standby connection and replaces it.
+     */
+    private final class StandbyProviderListener extends DefaultProviderListener {
+
+        private final Provider standby;
+
+        public StandbyProviderListener(Provider standby) {
+            this.standby = standby;
+        }
+
+        @Override
+        public void onConnectionFailure(IOException ex) {
+            LOG.debug("Hot standby connection to: {} failed: {}", standby.getRemoteURI(), ex.getMessage());
+            try {
+                serializer.execute(() -> {
+                    if (standbyProvider == standby) {
+                        discardStandbyProvider();
+                        triggerStandbyConnectAttempt(getStandbyRetryDelay());
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                closeQuietly(standby);
+            }
+        }
+    }
+
+    //--------------- Send journal support ----------------------------------//
+
+    /**
+     * Only fire and forget sends outside of a transaction are journaled, any other send is
+     * either reported back to the application or settled along with its transaction.
+     */
+    private boolean isJournaled(JmsOutboundMessageDispatch envelope) {
+        JmsDestination destination = envelope.getDestination();
+
+        return sendJournal != null &&
+               envelope.isSendAsync() &&
+               !envelope.isCompletionRequired() &&
+               !envelope.isPresettle() &&
+               envelope.getPayload() instanceof ByteBuf &&
+               envelope.getMessageId() != null &&
+               destination != null && !destination.isTemporary() &&
+               !transactedSessions.contains(envelope.getProducerId().getParentId());
+    }
+
+    private static String getJournalId(JmsOutboundMessageDispatch envelope) {
+        return envelope.getMessageId().toString();
+    }
+
+    /**
+     * Resends the journaled sends that the remote has not settled using an internal session
+     * and anonymous producer on the given provider.  Sends remain in the journal until the
+     * remote settles them so any that fail to replay are tried again on the next connect.
+     *
+     * Must be called from the serializer while holding the write lock so that the replay
+     * completes before pending requests are resent and before any later reconnect reads the
+     * unsettled sends again.
+     */
+    private void replaySendJournal(final Provider provider) throws IOException {
+        final FailoverSendJournal journal = sendJournal;
+        if (journal == null || closed.get()) {
+            return;
+        }
+
+        final List<JournaledSend> replays = journal.getUnsettled();
+        if (replays.isEmpty()) {
+            return;
+        }
+
+        LOG.debug("Replaying {} unsettled sends from: {}", replays.size(), journal);
+
+        final JmsSessionInfo sessionInfo = new JmsSessionInfo(connectionInfo, JOURNAL_REPLAY_SESSION_ID);
+        final JmsProducerInfo producerInfo = new JmsProducerInfo(new JmsProducerId(sessionInfo.getId(), 1));
+
+        try {
+            ProviderFuture request = provider.newProviderFuture();
+            provider.create(sessionInfo, request);
+            request.sync();
+
+            request = provider.newProviderFuture();
+            provider.create(producerInfo, request);
+            request.sync();
+
+            for (JournaledSend replay : replays) {
+                JmsOutboundMessageDispatch envelope = new JmsOutboundMessageDispatch();
+                envelope.setProducerId(producerInfo.getId());
+                envelope.setDestination(replay.getDestination());
+                envelope.setMessageId(replay.getMessageId());
+                envelope.setPayload(Unpooled.wrappedBuffer(replay.getPayload()));
+                envelope.setSendAsync(true);
+                envelope.setSettlementTracked(true);
+
+                request = provider.newProviderFuture();
+                try {
+                    provider.send(envelope, request);
+                    request.sync();
+                } finally {
+                    ((ByteBuf) envelope.getPayload()).release();
+                }
+            }
+
+            // Closing the producer waits on the remote settling the replayed sends.
+            request = provider.newProviderFuture();
+            provider.destroy(producerInfo, request);
+            request.sync();
+
+            request = provider.newProviderFuture();
+            provider.destroy(sessionInfo, request);
+            request.sync();
+        } catch (JMSException error) {
+            throw IOExceptionSupport.create(error);
+        }
+    }
+
     protected void checkClosed() throws IOException {
         if (closed.get()) {
             throw new IOException("The Provider is already closed");
@@ -846,6 +1377,14 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         listener.onFailedMessageSend(envelope, cause);
     }
 
+    @Override
+    public void onMessageSendSettled(final JmsOutboundMessageDispatch envelope) {
+        FailoverSendJournal journal = sendJournal;
+        if (journal != null) {
+            journal.settle(getJournalId(envelope));
+        }
+    }
+
     @Override
     public void onConnectionFailure(final IOException ex) {
         if (closingConnection.get() || closed.get() || failed.get()) {
@@ -945,6 +1484,15 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         return null;
     };
 
+    @Override
+    public double getRemoteLoadHint() {
+        Provider provider = this.provider;
+        if (provider != null) {
+            return provider.getRemoteLoadHint();
+        }
+        return -1;
+    }
+
     @Override
     public void setProviderListener(ProviderListener listener) {
         this.listener = listener;
@@ -1028,6 +1576,37 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         this.warnAfterReconnectAttempts = warnAfterReconnectAttempts;
     }
 
+    public boolean isHotStandby() {
+        return hotStandby;
+    }
+
+    /**
+     * Sets whether the provider keeps an idle connection open to a second remote so that
+     * a failure can be recovered without waiting on a new connect and SASL exchange.
+     *
+     * @param hotStandby
+     *        true if a standby connection should be maintained.
+     */
+    public void setHotStandby(boolean hotStandby) {
+        this.hotStandby = hotStandby;
+    }
+
+    public int getRacingConnectAttempts() {
+        return racingConnectAttempts;
+    }
+
+    /**
+     * Sets how many failover URIs are connected to at the same time on each connection
+     * attempt.  The first to connect is used and the others are closed, a value of
+     * {@literal <= 1} disables racing and the URIs are tried one at a time.
+     *
+     * @param racingConnectAttempts
+     *        The number of URIs to race connection attempts against.
+     */
+    public void setRacingConnectAttempts(int racingConnectAttempts) {
+        this.racingConnectAttempts = racingConnectAttempts;
+    }
+
     public double getReconnectBackOffMultiplier() {
         return reconnectBackOffMultiplier;
     }
@@ -1064,6 +1643,39 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         this.amqpOpenServerListAction = FailoverServerListAction.valueOf(amqpOpenServerListAction.toUpperCase(Locale.ENGLISH));
     }
 
+    public String getSelectionStrategy() {
+        return uris.getSelectionStrategy().toString();
+    }
+
+    public void setSelectionStrategy(String selectionStrategy) {
+        this.uris.setSelectionStrategy(FailoverUriPool.SelectionStrategy.valueOf(selectionStrategy.toUpperCase(Locale.ENGLISH)));
+    }
+
+    public String getSendJournal() {
+        return sendJournalFile;
+    }
+
+    /**
+     * Sets the file used to journal asynchronous sends that the remote has not yet settled,
+     * such sends are replayed after a reconnect or when a new connection opens the same
+     * journal.  Replayed sends may be delivered more than once.  By default no journal
+     * is kept.
+     *
+     * @param sendJournal
+     *        The path of the journal file, or null to disable the journal.
+     */
+    public void setSendJournal(String sendJournal) {
+        this.sendJournalFile = sendJournal;
+    }
+
+    public int getSendJournalSize() {
+        return sendJournalSize;
+    }
+
+    public void setSendJournalSize(int sendJournalSize) {
+        this.sendJournalSize = sendJournalSize;
+    }
+
     public Map<String, String> getNestedOptions() {
         return uris.getNestedOptions();
     }
@@ -1283,9 +1895,34 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                 LOG.trace("First connection requst has completed:");
                 FailoverProvider.this.messageFactory.set(provider.getMessageFactory());
                 processAlternates(provider.getAlternateURIs());
+                uris.recordLoadHint(provider.getRemoteURI(), provider.getRemoteLoadHint());
                 listener.onConnectionEstablished(provider.getRemoteURI());
                 reconnectControl.connectionEstablished();
                 CreateConnectionRequest.this.signalConnected();
+
+                // Resend sends left unsettled in the journal by an earlier run of the client.
+                // The replay waits on the remote and so can't run on this thread, sends made
+                // in the meantime may reach the remote before it.
+                if (sendJournal != null) {
+                    final Provider connected = provider;
+                    try {
+                        serializer.execute(() -> {
+                            lock.writeLock().lock();
+                            try {
+                                if (connected == FailoverProvider.this.provider) {
+                                    replaySendJournal(connected);
+                                }
+                            } catch (Throwable error) {
+                                LOG.debug("Failed to replay unsettled sends: {}", error.getMessage());
+                                handleProviderFailure(connected, IOExceptionSupport.create(error));
+                            } finally {
+                                lock.writeLock().unlock();
+                            }
+                        });
+                    } catch (RejectedExecutionException ree) {
+                        LOG.trace("Send journal replay skipped, provider is closed");
+                    }
+                }
             } finally {
                 lock.readLock().unlock();
             }
@@ -0,0 +1,576 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.failover;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.JmsQueue;
+import org.apache.qpid.jms.JmsTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Memory mapped append only journal of encoded message sends that have been written to
+ * the remote but not yet settled by it.  Each send is appended before it is handed to the
+ * connected provider and a settle record is appended once the remote settles it, the
+ * journal is truncated back to empty whenever no sends remain unsettled.  Sends still
+ * present when the journal is reopened are recovered so they can be replayed.
+ * <p>
+ * Records are published by writing their length after their contents so a process that
+ * dies mid append leaves the journal ending at the last complete record, and each record
+ * carries a checksum of its contents so that recovery stops at the first record that was
+ * not written in full.  Compaction writes the unsettled records to a new file that then
+ * atomically replaces the journal, so a process that dies mid compaction leaves the
+ * journal as it was.  The mapped pages are not forced to disk on each append so an
+ * operating system crash can lose recently journaled sends.
+ */
+public class FailoverSendJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FailoverSendJournal.class);
+
+    public static final int MINIMUM_SIZE = 4096;
+
+    private static final int MAGIC = 0x514A534A;
+    private static final int RECORDS_START = 4;
+    private static final int LENGTH_SIZE = 4;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int HEADER_SIZE = LENGTH_SIZE + CHECKSUM_SIZE;
+
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private static final byte SEND_RECORD = 1;
+    private static final byte SETTLE_RECORD = 2;
+
+    private static final byte QUEUE_TYPE = 1;
+    private static final byte TOPIC_TYPE = 2;
+
+    private final File file;
+    private final Map<String, Entry> unsettled = new LinkedHashMap<String, Entry>();
+
+    // Replaced each time compaction switches over to a new file.
+    private RandomAccessFile raf;
+    private FileLock fileLock;
+    private MappedByteBuffer buffer;
+    private int position = RECORDS_START;
+    private boolean closed;
+
+    /**
+     * Opens or creates the journal file, recovering any sends left unsettled in it.
+     *
+     * @param file
+     *        the file that backs the journal.
+     * @param size
+     *        the number of bytes to map, an existing larger file is mapped in full.
+     *
+     * @throws IOException if the file cannot be opened, is locked by another process or
+     *                     does not contain a send journal.
+     */
+    public FailoverSendJournal(File file, int size) throws IOException {
+        if (size < MINIMUM_SIZE) {
+            throw new IllegalArgumentException("Send journal size must be at least " + MINIMUM_SIZE + " bytes");
+        }
+
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+
+        try {
+            FileChannel channel = raf.getChannel();
+            this.fileLock = lock(channel, file);
+
+            // A compaction that did not complete left the journal itself untouched.
+            File compacted = getCompactionFile();
+            if (compacted.exists() && !compacted.delete()) {
+                LOG.debug("Failed to remove incomplete compaction of send journal {}", file);
+            }
+
+            long mapped = Math.max(size, Math.min(channel.size(), Integer.MAX_VALUE));
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped);
+
+            int magic = buffer.getInt(0);
+            if (magic == 0) {
+                buffer.putInt(RECORDS_START, 0);
+                buffer.putInt(0, MAGIC);
+            } else if (magic != MAGIC) {
+                throw new IOException("File is not a send journal: " + file);
+            } else {
+                recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends an encoded send to the journal, it will not be replayed until it has been
+     * marked as written to the remote.
+     *
+     * @param messageId
+     *        the ID used to settle the send.
+     * @param destination
+     *        the destination the message was sent to.
+     * @param payload
+     *        the encoded message, its reader index is left unchanged.
+     *
+     * @throws IOException if the journal is closed or has no room left for the send.
+     */
+    public synchronized void append(String messageId, JmsDestination destination, ByteBuf payload) throws IOException {
+        checkClosed();
+
+        byte[] id = messageId.getBytes(StandardCharsets.UTF_8);
+        byte[] address = destination.getAddress().getBytes(StandardCharsets.UTF_8);
+        int payloadLength = payload.readableBytes();
+        int length = 1 + LENGTH_SIZE + id.length + 1 + LENGTH_SIZE + address.length + LENGTH_SIZE + payloadLength;
+
+        int recordOffset = reserve(length);
+        if (recordOffset < 0) {
+            throw new IOException("Send journal is full, " + unsettled.size() + " sends remain unsettled");
+        }
+
+        ByteBuffer record = recordView(recordOffset, length);
+        record.put(SEND_RECORD);
+        putBytes(record, id);
+        record.put(destination.isQueue() ? QUEUE_TYPE : TOPIC_TYPE);
+        putBytes(record, address);
+        record.putInt(payloadLength);
+        int payloadOffset = recordOffset + HEADER_SIZE + record.position();
+        payload.getBytes(payload.readerIndex(), record);
+
+        publish(recordOffset, length);
+
+        // Entries are kept in journal order which compaction relies on, a re-append must
+        // move to the end rather than keep the place of the entry it replaces.
+        if (unsettled.remove(messageId) != null) {
+            LOG.debug("Send journal replaced unsettled entry for message: {}", messageId);
+        }
+
+        unsettled.put(messageId, new Entry(messageId, destination, recordOffset, length, payloadOffset, payloadLength));
+    }
+
+    /**
+     * Marks a journaled send as written to the remote, from here on it is replayed if the
+     * connection is lost before the remote settles it.
+     *
+     * @param messageId
+     *        the ID the send was journaled with.
+     */
+    public synchronized void markWritten(String messageId) {
+        Entry entry = unsettled.get(messageId);
+        if (entry != null) {
+            entry.written = true;
+        }
+    }
+
+    /**
+     * Records that the remote has settled a journaled send, or that the send failed before
+     * it could be written and so will never be settled.
+     *
+     * @param messageId
+     *        the ID the send was journaled with.
+     */
+    public synchronized void settle(String messageId) {
+        if (closed || unsettled.remove(messageId) == null) {
+            return;
+        }
+
+        if (unsettled.isEmpty()) {
+            truncate();
+            return;
+        }
+
+        byte[] id = messageId.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + LENGTH_SIZE + id.length;
+
+        int recordOffset = reserve(length);
+        if (recordOffset < 0) {
+            // Compaction already dropped the settled send, nothing will replay it.
+            return;
+        }
+
+        ByteBuffer record = recordView(recordOffset, length);
+        record.put(SETTLE_RECORD);
+        putBytes(record, id);
+
+        publish(recordOffset, length);
+    }
+
+    /**
+     * @return copies of the sends that were written to the remote and not yet settled.
+     */
+    public synchronized List<JournaledSend> getUnsettled() {
+        List<JournaledSend> result = new ArrayList<JournaledSend>(unsettled.size());
+        if (closed) {
+            return result;
+        }
+
+        for (Entry entry : unsettled.values()) {
+            if (entry.written) {
+                byte[] payload = new byte[entry.payloadLength];
+                ByteBuffer view = buffer.duplicate();
+                view.position(entry.payloadOffset);
+                view.get(payload);
+
+                result.add(new JournaledSend(entry.messageId, entry.destination, payload));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of sends in the journal that are not yet settled.
+     */
+    public synchronized int size() {
+        return unsettled.size();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Flushes the journal to disk and releases the file, calls after the first are ignored.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        unsettled.clear();
+
+        try {
+            buffer.force();
+        } catch (Throwable error) {
+            LOG.debug("Failed to flush send journal {}: {}", file, error.getMessage());
+        }
+
+        releaseFile();
+    }
+
+    @Override
+    public String toString() {
+        return "FailoverSendJournal: " + file;
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    private static FileLock lock(FileChannel channel, File file) throws IOException {
+        FileLock acquired = null;
+        try {
+            acquired = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+
+        if (acquired == null) {
+            throw new IOException("Send journal is already in use: " + file);
+        }
+
+        return acquired;
+    }
+
+    private File getCompactionFile() {
+        return new File(file.getPath() + COMPACT_SUFFIX);
+    }
+
+    private void releaseFile() {
+        try {
+            fileLock.release();
+        } catch (IOException error) {
+            LOG.trace("Failed to release lock on send journal {}: {}", file, error.getMessage());
+        }
+
+        try {
+            raf.close();
+        } catch (IOException error) {
+            LOG.trace("Failed to close send journal {}: {}", file, error.getMessage());
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Send journal is closed");
+        }
+    }
+
+    /**
+     * Finds room for a record with the given body length, compacting the journal if the
+     * end of the mapped region has been reached.
+     *
+     * @return the offset of the record or -1 if the journal is full.
+     */
+    private int reserve(int length) {
+        // The record is followed by an end marker so recovery stops after it.
+        long required = (long) HEADER_SIZE + length + LENGTH_SIZE;
+        if (position + required <= buffer.capacity()) {
+            return position;
+        }
+
+        if (compact() && position + required <= buffer.capacity()) {
+            return position;
+        }
+
+        return -1;
+    }
+
+    private ByteBuffer recordView(int recordOffset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(recordOffset + HEADER_SIZE);
+        view.limit(recordOffset + HEADER_SIZE + length);
+        return view.slice();
+    }
+
+    private int checksum(int recordOffset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(recordView(recordOffset, length));
+        return (int) crc.getValue();
+    }
+
+    private void publish(int recordOffset, int length) {
+        int next = recordOffset + HEADER_SIZE + length;
+
+        // Checksum the record and terminate the journal after it before the record itself
+        // becomes visible, then publish the record by writing its length.
+        buffer.putInt(recordOffset + LENGTH_SIZE, checksum(recordOffset, length));
+        buffer.putInt(next, 0);
+        buffer.putInt(recordOffset, length);
+
+        position = next;
+    }
+
+    private void truncate() {
+        buffer.putInt(RECORDS_START, 0);
+        position = RECORDS_START;
+    }
+
+    /**
+     * Writes the records of the unsettled sends to the front of a new file, dropping settled
+     * sends and settle records, and then atomically replaces the journal with it.  The
+     * journal is left as it was if the new file cannot be written.
+     *
+     * @return true if the journal was compacted.
+     */
+    private boolean compact() {
+        File compacted = getCompactionFile();
+        RandomAccessFile compactedRaf = null;
+
+        try {
+            compactedRaf = new RandomAccessFile(compacted, "rw");
+            FileChannel compactedChannel = compactedRaf.getChannel();
+            FileLock compactedLock = lock(compactedChannel, compacted);
+
+            compactedChannel.truncate(0);
+            MappedByteBuffer target = compactedChannel.map(FileChannel.MapMode.READ_WRITE, 0, buffer.capacity());
+
+            List<Integer> offsets = new ArrayList<Integer>(unsettled.size());
+            int offset = RECORDS_START;
+
+            for (Entry entry : unsettled.values()) {
+                int recordSize = HEADER_SIZE + entry.recordLength;
+
+                ByteBuffer record = buffer.duplicate();
+                record.position(entry.recordOffset);
+                record.limit(entry.recordOffset + recordSize);
+                target.position(offset);
+                target.put(record);
+
+                offsets.add(offset);
+                offset += recordSize;
+            }
+
+            if (offset + LENGTH_SIZE <= target.capacity()) {
+                target.putInt(offset, 0);
+            }
+            target.putInt(0, MAGIC);
+            target.force();
+
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            releaseFile();
+
+            raf = compactedRaf;
+            fileLock = compactedLock;
+            buffer = target;
+
+            int index = 0;
+            for (Entry entry : unsettled.values()) {
+                int newOffset = offsets.get(index++);
+                entry.payloadOffset += newOffset - entry.recordOffset;
+                entry.recordOffset = newOffset;
+            }
+
+            LOG.debug("Compacted send journal {} from {} to {} bytes", file, position, offset);
+            position = offset;
+
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to compact send journal {}: {}", file, e.getMessage());
+
+            if (compactedRaf != null) {
+                try {
+                    compactedRaf.close();
+                } catch (IOException error) {
+                    LOG.trace("Failed to close compacted send journal {}: {}", compacted, error.getMessage());
+                }
+            }
+
+            compacted.delete();
+
+            return false;
+        }
+    }
+
+    private void recover() {
+        int offset = RECORDS_START;
+
+        while (offset + LENGTH_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || (long) offset + HEADER_SIZE + length + LENGTH_SIZE > buffer.capacity()) {
+                break;
+            }
+
+            if (buffer.getInt(offset + LENGTH_SIZE) != checksum(offset, length)) {
+                LOG.warn("Send journal {} has a damaged record at offset {}, later records are ignored", file, offset);
+                break;
+            }
+
+            ByteBuffer record = recordView(offset, length);
+
+            try {
+                byte type = record.get();
+                if (type == SEND_RECORD) {
+                    String messageId = getString(record);
+                    byte destinationType = record.get();
+                    String address = getString(record);
+                    int payloadLength = record.getInt();
+                    if (payloadLength < 0 || payloadLength > record.remaining()) {
+                        break;
+                    }
+
+                    JmsDestination destination = destinationType == QUEUE_TYPE ? new JmsQueue(address) : new JmsTopic(address);
+                    int payloadOffset = offset + HEADER_SIZE + record.position();
+
+                    Entry entry = new Entry(messageId, destination, offset, length, payloadOffset, payloadLength);
+                    entry.written = true;
+                    unsettled.remove(messageId);
+                    unsettled.put(messageId, entry);
+                } else if (type == SETTLE_RECORD) {
+                    unsettled.remove(getString(record));
+                } else {
+                    break;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                break;
+            }
+
+            offset += HEADER_SIZE + length;
+        }
+
+        if (unsettled.isEmpty()) {
+            truncate();
+        } else {
+            position = offset;
+            buffer.putInt(position, 0);
+            LOG.debug("Recovered {} unsettled sends from send journal {}", unsettled.size(), file);
+        }
+    }
+
+    private static void putBytes(ByteBuffer record, byte[] bytes) {
+        record.putInt(bytes.length);
+        record.put(bytes);
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            throw new IllegalArgumentException("Invalid string length in send journal record");
+        }
+
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+
+        private final String messageId;
+        private final JmsDestination destination;
+        private final int recordLength;
+        private final int payloadLength;
+
+        private int recordOffset;
+        private int payloadOffset;
+        private boolean written;
+
+        public Entry(String messageId, JmsDestination destination, int recordOffset, int recordLength, int payloadOffset, int payloadLength) {
+            this.messageId = messageId;
+            this.destination = destination;
+            this.recordOffset = recordOffset;
+            this.recordLength = recordLength;
+            this.payloadOffset = payloadOffset;
+            this.payloadLength = payloadLength;
+        }
+    }
+
+    /**
+     * A copy of an unsettled send taken from the journal for replay.
+     */
+    public static final class JournaledSend {
+
+        private final String messageId;
+        private final JmsDestination destination;
+        private final byte[] payload;
+
+        public JournaledSend(String messageId, JmsDestination destination, byte[] payload) {
+            this.messageId = messageId;
+            this.destination = destination;
+            this.payload = payload;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public JmsDestination getDestination() {
+            return destination;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
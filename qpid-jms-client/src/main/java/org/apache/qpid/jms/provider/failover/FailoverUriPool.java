@@ -22,9 +22,15 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.qpid.jms.util.URISupport;
@@ -39,11 +45,35 @@ public class FailoverUriPool {
 
     private static final Logger LOG = LoggerFactory.getLogger(FailoverUriPool.class);
 
+    /**
+     * Strategies for ordering the URIs returned from the pool.
+     */
+    public enum SelectionStrategy {
+        /**
+         * URIs are returned in the order they are held in the pool.
+         */
+        ROUND_ROBIN,
+        /**
+         * URIs are ordered at the start of each pass over the pool by their smoothed
+         * connect latency scaled by the remote's load hint, with a penalty for each failed
+         * connect attempt since the last success.  URIs with no history are tried first.
+         */
+        WEIGHTED
+    }
+
     public static final boolean DEFAULT_RANDOMIZE_ENABLED = false;
+    public static final SelectionStrategy DEFAULT_SELECTION_STRATEGY = SelectionStrategy.ROUND_ROBIN;
+
+    // Weight given to each new connect latency sample and the penalty for each recent failure.
+    private static final double LATENCY_SMOOTHING_FACTOR = 0.3;
+    private static final long FAILURE_PENALTY = TimeUnit.SECONDS.toNanos(1);
 
     private final LinkedList<URI> uris;
     private final Map<String, String> nestedOptions;
     private final AtomicBoolean randomize = new AtomicBoolean(DEFAULT_RANDOMIZE_ENABLED);
+    private final Map<String, RemoteStatistics> statistics = new HashMap<>();
+    private volatile SelectionStrategy selectionStrategy = DEFAULT_SELECTION_STRATEGY;
+    private int cyclePosition;
 
     public FailoverUriPool() {
         this.uris = new LinkedList<URI>();
@@ -86,7 +116,8 @@ public class FailoverUriPool {
     /**
      * Returns the next URI in the pool of URIs.  The URI will be shifted to the
      * end of the list and not be attempted again until the full list has been
-     * returned once.
+     * returned once.  When the weighted selection strategy is in use the pool is
+     * reordered at the start of each pass over the full list.
      *
      * @return the next URI that should be used for a connection attempt.
      */
@@ -94,6 +125,13 @@ public class FailoverUriPool {
         URI next = null;
         synchronized (uris) {
             if (!uris.isEmpty()) {
+                if (selectionStrategy == SelectionStrategy.WEIGHTED) {
+                    if (cyclePosition == 0) {
+                        sortByWeight();
+                    }
+                    cyclePosition = (cyclePosition + 1) % uris.size();
+                }
+
                 next = uris.removeFirst();
                 uris.addLast(next);
             }
@@ -108,10 +146,91 @@ public class FailoverUriPool {
      * URIs being shuffled in preparation for the next connect cycle.
      */
     public void connected() {
-        if (isRandomize()) {
-            synchronized (uris) {
+        synchronized (uris) {
+            if (isRandomize()) {
                 Collections.shuffle(uris);
             }
+
+            cyclePosition = 0;
+        }
+    }
+
+    /**
+     * @return the strategy used to order the URIs returned from this pool.
+     */
+    public SelectionStrategy getSelectionStrategy() {
+        return selectionStrategy;
+    }
+
+    /**
+     * Sets the strategy used to order the URIs returned from this pool.  When the pool
+     * is also randomized the shuffle only decides the order of equally weighted URIs.
+     *
+     * @param selectionStrategy
+     *        the strategy to use when selecting the next URI.
+     */
+    public void setSelectionStrategy(SelectionStrategy selectionStrategy) {
+        synchronized (uris) {
+            this.selectionStrategy = selectionStrategy;
+            cyclePosition = 0;
+        }
+    }
+
+    /**
+     * Records a successful connect to the given remote and the time it took.
+     *
+     * @param uri
+     *        the URI of the remote that was connected to.
+     * @param connectTime
+     *        the time in nanoseconds that the connect took to complete.
+     */
+    public void recordConnectSuccess(URI uri, long connectTime) {
+        if (uri == null) {
+            return;
+        }
+
+        synchronized (uris) {
+            RemoteStatistics stats = getOrCreateStatistics(uri);
+            if (stats.connectLatency < 0) {
+                stats.connectLatency = connectTime;
+            } else {
+                stats.connectLatency += LATENCY_SMOOTHING_FACTOR * (connectTime - stats.connectLatency);
+            }
+            stats.recentFailures = 0;
+        }
+    }
+
+    /**
+     * Records a failed connect attempt to the given remote.
+     *
+     * @param uri
+     *        the URI of the remote that could not be connected to.
+     */
+    public void recordConnectFailure(URI uri) {
+        if (uri == null) {
+            return;
+        }
+
+        synchronized (uris) {
+            getOrCreateStatistics(uri).recentFailures++;
+        }
+    }
+
+    /**
+     * Records the load hint a remote advertised when the connection to it was opened.
+     *
+     * @param uri
+     *        the URI of the remote that sent the hint.
+     * @param loadHint
+     *        the load hint in the range [0, 1], negative values are ignored.
+     */
+    public void recordLoadHint(URI uri, double loadHint) {
+        if (uri == null || loadHint < 0) {
+            return;
+        }
+
+        synchronized (uris) {
+            getOrCreateStatistics(uri).loadHint = loadHint;
         }
     }
 
@@ -231,7 +350,9 @@ public class FailoverUriPool {
         synchronized (uris) {
             for (URI candidate : uris) {
                 if (compareURIs(uri, candidate)) {
-                    return uris.remove(candidate);
+                    boolean removed = uris.remove(candidate);
+                    pruneStatistics();
+                    return removed;
                 }
             }
         }
@@ -246,6 +367,7 @@ public class FailoverUriPool {
     public void removeAll() {
         synchronized (uris) {
             uris.clear();
+            statistics.clear();
         }
     }
 
@@ -260,6 +382,7 @@ public class FailoverUriPool {
         synchronized (uris) {
             uris.clear();
             addAll(replacements);
+            pruneStatistics();
         }
     }
 
@@ -293,6 +416,39 @@ public class FailoverUriPool {
 
     //----- Internal methods that require the locks be held ------------------//
 
+    private void sortByWeight() {
+        if (!statistics.isEmpty()) {
+            uris.sort(Comparator.comparingDouble(uri -> {
+                RemoteStatistics stats = statistics.get(statisticsKey(uri));
+                return stats != null ? stats.getWeight() : 0;
+            }));
+        }
+    }
+
+    private RemoteStatistics getOrCreateStatistics(URI uri) {
+        return statistics.computeIfAbsent(statisticsKey(uri), key -> new RemoteStatistics());
+    }
+
+    private void pruneStatistics() {
+        if (!statistics.isEmpty()) {
+            Set<String> retained = new HashSet<>();
+            for (URI uri : uris) {
+                retained.add(statisticsKey(uri));
+            }
+
+            statistics.keySet().retainAll(retained);
+        }
+    }
+
+    private static String statisticsKey(URI uri) {
+        // Keyed by host and port as provider URIs may not carry the same options as the pool.
+        if (uri.getHost() == null) {
+            return uri.toString();
+        }
+
+        return uri.getHost().toLowerCase(Locale.ENGLISH) + ":" + uri.getPort();
+    }
+
     private boolean contains(URI newURI) {
         boolean result = false;
         for (URI uri : uris) {
@@ -336,4 +492,22 @@ public class FailoverUriPool {
 
         return result;
     }
+
+    //----- Connection history of a remote used for weighted selection -------//
+
+    private static final class RemoteStatistics {
+
+        private double connectLatency = -1;
+        private int recentFailures;
+        private double loadHint = -1;
+
+        public double getWeight() {
+            double weight = connectLatency < 0 ? 0 : connectLatency;
+            if (loadHint > 0) {
+                weight *= 1 + loadHint;
+            }
+
+            return weight + (double) recentFailures * FAILURE_PENALTY;
+        }
+    }
 }
@@ -90,6 +90,32 @@ public interface Transport {
      */
     void write(ByteBuf output) throws IOException;
 
+    /**
+     * Writes a chunk of data over the Transport connection without performing an
+     * explicit flush on the transport and signals the given callback once the write
+     * has completed or failed.  The written buffer must not be modified until the
+     * callback has been signaled, allowing the caller to hand over a buffer that wraps
+     * memory it will reuse rather than copying the data into a new buffer first.
+     * <p>
+     * The default implementation copies the data into a buffer from
+     * {@link #allocateSendBuffer(int)}, writes the copy and then signals the callback
+     * at once, transports that can track the write should override it.
+     *
+     * @param output
+     *        The buffer of data that is to be transmitted.
+     * @param onComplete
+     *        The callback that is run from the Transport IO thread once the write is done.
+     *
+     * @throws IOException if an error occurs during the write operation.
+     */
+    default void write(ByteBuf output, Runnable onComplete) throws IOException {
+        ByteBuf copy = allocateSendBuffer(output.readableBytes());
+        copy.writeBytes(output, output.readerIndex(), output.readableBytes());
+
+        write(copy);
+        onComplete.run();
+    }
+
     /**
      * Writes a chunk of data over the Transport connection and requests a flush of
      * all pending queued write operations
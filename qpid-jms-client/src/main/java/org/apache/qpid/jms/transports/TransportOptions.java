@@ -49,6 +49,7 @@ public class TransportOptions implements Cloneable {
     public static final int DEFAULT_SSL_PORT = 5671;
     public static final boolean DEFAULT_USE_OPENSSL = false;
     public static final int DEFAULT_LOCAL_PORT = 0;
+    public static final int DEFAULT_SHARED_EVENT_LOOP_THREADS = -1;
 
     private static final String JAVAX_NET_SSL_KEY_STORE = "javax.net.ssl.keyStore";
     private static final String JAVAX_NET_SSL_KEY_STORE_TYPE = "javax.net.ssl.keyStoreType";
@@ -70,6 +71,7 @@ public class TransportOptions implements Cloneable {
     private int localPort = DEFAULT_LOCAL_PORT;
     private boolean useEpoll = DEFAULT_USE_EPOLL;
     private boolean useKQueue = DEFAULT_USE_KQUEUE;
+    private int sharedEventLoopThreads = DEFAULT_SHARED_EVENT_LOOP_THREADS;
     private boolean traceBytes = DEFAULT_TRACE_BYTES;
     private boolean useOpenSSL = DEFAULT_USE_OPENSSL;
 
@@ -277,6 +279,26 @@ public class TransportOptions implements Cloneable {
         this.useKQueue = useKQueue;
     }
 
+    /**
+     * @return the number of threads in the shared event loop group, or a value of zero or less if not shared.
+     */
+    public int getSharedEventLoopThreads() {
+        return sharedEventLoopThreads;
+    }
+
+    /**
+     * Sets the number of threads in the JVM wide event loop group that is shared by
+     * all transports configured with the same value.  Each connection is assigned to
+     * one of the shared threads, a value of zero or less disables sharing and a new
+     * single threaded event loop group is created for each connection.
+     *
+     * @param sharedEventLoopThreads
+     * 		the number of threads in the shared event loop group.
+     */
+    public void setSharedEventLoopThreads(int sharedEventLoopThreads) {
+        this.sharedEventLoopThreads = sharedEventLoopThreads;
+    }
+
     /**
      * @return true if the transport should enable byte tracing
      */
@@ -558,6 +580,7 @@ public class TransportOptions implements Cloneable {
         copy.setTrafficClass(getTrafficClass());
         copy.setDefaultTcpPort(getDefaultTcpPort());
         copy.setUseEpoll(isUseEpoll());
+        copy.setSharedEventLoopThreads(getSharedEventLoopThreads());
         copy.setTraceBytes(isTraceBytes());
         copy.setKeyStoreLocation(getKeyStoreLocation());
         copy.setKeyStorePassword(getKeyStorePassword());
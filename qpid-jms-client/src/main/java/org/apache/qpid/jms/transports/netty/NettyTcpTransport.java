@@ -74,6 +74,7 @@ public class NettyTcpTransport implements Transport {
 
     protected Bootstrap bootstrap;
     protected EventLoopGroup group;
+    protected SharedEventLoopGroup sharedGroup;
     protected Channel channel;
     protected TransportListener listener;
     protected ThreadFactory ioThreadfactory;
@@ -141,7 +142,22 @@ public class NettyTcpTransport implements Transport {
         boolean useKQueue = getTransportOptions().isUseKQueue() && KQueue.isAvailable();
         boolean useEpoll = getTransportOptions().isUseEpoll() && Epoll.isAvailable();
 
-        if (useKQueue) {
+        if (getTransportOptions().getSharedEventLoopThreads() > 0) {
+            final String sharedGroupType;
+            if (useKQueue) {
+                LOG.trace("Netty Transport using shared KQueue mode");
+                sharedGroupType = SharedEventLoopGroup.KQUEUE;
+            } else if (useEpoll) {
+                LOG.trace("Netty Transport using shared Epoll mode");
+                sharedGroupType = SharedEventLoopGroup.EPOLL;
+            } else {
+                LOG.trace("Netty Transport using shared NIO mode");
+                sharedGroupType = SharedEventLoopGroup.NIO;
+            }
+
+            sharedGroup = SharedEventLoopGroup.acquire(sharedGroupType, getTransportOptions().getSharedEventLoopThreads());
+            group = sharedGroup.getEventLoopGroup();
+        } else if (useKQueue) {
             LOG.trace("Netty Transport using KQueue mode");
             group = new KQueueEventLoopGroup(1, ioThreadfactory);
         } else if (useEpoll) {
@@ -216,7 +232,13 @@ public class NettyTcpTransport implements Transport {
             });
         }
 
-        return group;
+        // A shared group has many event loops, all work for this connection must be run on
+        // the single event loop the channel was registered with to preserve ordering.
+        if (sharedGroup != null) {
+            return channel.eventLoop();
+        } else {
+            return group;
+        }
     }
 
     @Override
@@ -238,7 +260,10 @@ public class NettyTcpTransport implements Transport {
                     channel.close().syncUninterruptibly();
                 }
             } finally {
-                if (group != null) {
+                if (sharedGroup != null) {
+                    sharedGroup.release(SHUTDOWN_TIMEOUT);
+                    sharedGroup = null;
+                } else if (group != null) {
                     Future<?> fut = group.shutdownGracefully(0, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
                     if (!fut.awaitUninterruptibly(2 * SHUTDOWN_TIMEOUT)) {
                         LOG.trace("Channel group shutdown failed to complete in allotted time");
@@ -261,6 +286,13 @@ public class NettyTcpTransport implements Transport {
         channel.write(output, channel.voidPromise());
     }
 
+    @Override
+    public void write(ByteBuf output, Runnable onComplete) throws IOException {
+        checkConnected(output);
+        LOG.trace("Attempted tracked write of: {} bytes", output.readableBytes());
+        channel.write(output).addListener(future -> onComplete.run());
+    }
+
     @Override
     public void writeAndFlush(ByteBuf output) throws IOException {
         checkConnected(output);
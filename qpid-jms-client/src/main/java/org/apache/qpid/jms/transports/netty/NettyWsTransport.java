@@ -97,6 +97,20 @@ public class NettyWsTransport extends NettyTcpTransport {
         channel.write(new BinaryWebSocketFrame(output), channel.voidPromise());
     }
 
+    @Override
+    public void write(ByteBuf output, Runnable onComplete) throws IOException {
+        checkConnected();
+        int length = output.readableBytes();
+        if (length == 0) {
+            onComplete.run();
+            return;
+        }
+
+        LOG.trace("Attempted tracked write of: {} bytes", length);
+
+        channel.write(new BinaryWebSocketFrame(output)).addListener(future -> onComplete.run());
+    }
+
     @Override
     public void writeAndFlush(ByteBuf output) throws IOException {
         checkConnected();
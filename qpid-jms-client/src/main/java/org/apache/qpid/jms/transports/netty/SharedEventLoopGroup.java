@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.transports.netty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.util.QpidJMSThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.Future;
+
+/**
+ * Reference counted EventLoopGroup that is shared by all Netty based transports in
+ * the JVM that request the same IO mode and number of threads.
+ *
+ * Each connection registered with the group is bound to a single EventLoop chosen
+ * in round robin fashion so the work for a given connection is always processed in
+ * order on the same thread.  The group is shut down once the last transport using
+ * it releases its reference.
+ */
+final class SharedEventLoopGroup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedEventLoopGroup.class);
+
+    static final String KQUEUE = "kqueue";
+    static final String EPOLL = "epoll";
+    static final String NIO = "nio";
+
+    private static final Map<String, SharedEventLoopGroup> SHARED_GROUPS = new HashMap<>();
+
+    private final String key;
+    private final EventLoopGroup group;
+    private int references;
+
+    private SharedEventLoopGroup(String key, EventLoopGroup group) {
+        this.key = key;
+        this.group = group;
+    }
+
+    /**
+     * Gets the shared group for the given IO mode and thread count, creating it if
+     * there is not one currently in use, and adds a reference to it.
+     *
+     * @param type
+     * 		the IO mode of the group, one of kqueue, epoll or nio.
+     * @param threads
+     * 		the number of event loop threads in the group.
+     *
+     * @return the shared group, which must be released once no longer needed.
+     */
+    static SharedEventLoopGroup acquire(String type, int threads) {
+        final String key = type + ":" + threads;
+
+        synchronized (SHARED_GROUPS) {
+            SharedEventLoopGroup shared = SHARED_GROUPS.get(key);
+            if (shared == null) {
+                ThreadFactory threadFactory = new QpidJMSThreadFactory("QpidJMS Shared EventLoop :(" + key + ")", true);
+
+                final EventLoopGroup group;
+                switch (type) {
+                    case KQUEUE:
+                        group = new KQueueEventLoopGroup(threads, threadFactory);
+                        break;
+                    case EPOLL:
+                        group = new EpollEventLoopGroup(threads, threadFactory);
+                        break;
+                    default:
+                        group = new NioEventLoopGroup(threads, threadFactory);
+                        break;
+                }
+
+                LOG.trace("Created new shared event loop group: {}", key);
+                shared = new SharedEventLoopGroup(key, group);
+                SHARED_GROUPS.put(key, shared);
+            }
+
+            shared.references++;
+            return shared;
+        }
+    }
+
+    /**
+     * Removes a reference to this shared group, shutting it down when no references remain.
+     *
+     * @param timeout
+     * 		the time in milliseconds to wait for the group to shut down if this was the last reference.
+     */
+    void release(long timeout) {
+        final boolean shutdown;
+
+        synchronized (SHARED_GROUPS) {
+            shutdown = --references == 0;
+            if (shutdown) {
+                SHARED_GROUPS.remove(key);
+            }
+        }
+
+        if (shutdown) {
+            LOG.trace("Shutting down shared event loop group: {}", key);
+            Future<?> fut = group.shutdownGracefully(0, timeout, TimeUnit.MILLISECONDS);
+            if (!fut.awaitUninterruptibly(2 * timeout)) {
+                LOG.trace("Shared event loop group shutdown failed to complete in allotted time");
+            }
+        }
+    }
+
+    EventLoopGroup getEventLoopGroup() {
+        return group;
+    }
+
+    int getReferenceCount() {
+        synchronized (SHARED_GROUPS) {
+            return references;
+        }
+    }
+}
@@ -16,7 +16,7 @@
  */
 package org.apache.qpid.jms.util;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.jms.JMSException;
@@ -27,6 +27,10 @@ import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
  * Simple Message Priority ordered Queue.  Message envelopes are stored in the
  * Queue based on their priority value, except where {@link #enqueueFirst} is
  * used.
+ *
+ * Each priority level is held in its own array backed ring buffer and a bit map
+ * tracks which levels are non-empty, so neither enqueue nor dequeue allocates or
+ * needs to scan the priority levels once the buffers have grown to fit.
  */
 public final class PriorityMessageQueue implements MessageQueue {
 
@@ -44,21 +48,24 @@ public final class PriorityMessageQueue implements MessageQueue {
     // There are 10 priorities, values 0-9
     private static final Integer MAX_PRIORITY = 9;
 
-    private final LinkedList<JmsInboundMessageDispatch>[] lists;
+    private final ArrayDeque<JmsInboundMessageDispatch>[] lists;
+    private int nonEmptyLevels;
     private int size = 0;
 
     @SuppressWarnings("unchecked")
     public PriorityMessageQueue() {
-        this.lists = new LinkedList[MAX_PRIORITY + 1];
+        this.lists = new ArrayDeque[MAX_PRIORITY + 1];
         for (int i = 0; i <= MAX_PRIORITY; i++) {
-            lists[i] = new LinkedList<JmsInboundMessageDispatch>();
+            lists[i] = new ArrayDeque<JmsInboundMessageDispatch>();
         }
     }
 
     @Override
     public void enqueue(JmsInboundMessageDispatch envelope) {
         synchronized (lock) {
-            getList(envelope).addLast(envelope);
+            final int priority = getPriority(envelope);
+            getList(priority).addLast(envelope);
+            this.nonEmptyLevels |= 1 << priority;
             this.size++;
             lock.notify();
         }
@@ -68,6 +75,7 @@ public final class PriorityMessageQueue implements MessageQueue {
     public void enqueueFirst(JmsInboundMessageDispatch envelope) {
         synchronized (lock) {
             getList(MAX_PRIORITY).addFirst(envelope);
+            this.nonEmptyLevels |= 1 << MAX_PRIORITY;
             this.size++;
             lock.notify();
         }
@@ -162,19 +170,24 @@ public final class PriorityMessageQueue implements MessageQueue {
             for (int i = 0; i <= MAX_PRIORITY; i++) {
                 lists[i].clear();
             }
+            this.nonEmptyLevels = 0;
             this.size = 0;
         }
     }
 
     private JmsInboundMessageDispatch removeFirst() {
         if (this.size > 0) {
-            for (int i = MAX_PRIORITY; i >= 0; i--) {
-                LinkedList<JmsInboundMessageDispatch> list = lists[i];
-                if (!list.isEmpty()) {
-                    this.size--;
-                    return list.removeFirst();
-                }
+            // The highest set bit is the highest priority level holding a message
+            final int priority = 31 - Integer.numberOfLeadingZeros(nonEmptyLevels);
+            final ArrayDeque<JmsInboundMessageDispatch> list = lists[priority];
+            final JmsInboundMessageDispatch envelope = list.pollFirst();
+
+            if (list.isEmpty()) {
+                this.nonEmptyLevels &= ~(1 << priority);
             }
+
+            this.size--;
+            return envelope;
         }
         return null;
     }
@@ -191,11 +204,7 @@ public final class PriorityMessageQueue implements MessageQueue {
         return priority;
     }
 
-    private LinkedList<JmsInboundMessageDispatch> getList(JmsInboundMessageDispatch envelope) {
-        return getList(getPriority(envelope));
-    }
-
-    private LinkedList<JmsInboundMessageDispatch> getList(int priority) {
+    private ArrayDeque<JmsInboundMessageDispatch> getList(int priority) {
         return lists[priority];
     }
 }
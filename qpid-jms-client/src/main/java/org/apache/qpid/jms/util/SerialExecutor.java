@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ExecutorService that runs its tasks one at a time in the order they were submitted
+ * using the threads of another Executor, so that many serial executors can share a
+ * small pool of threads in place of a thread each.
+ *
+ * Tasks are run in batches, after which the executor gives up its thread and queues
+ * itself again so that a busy executor does not keep others sharing the pool waiting.
+ * As with a single threaded executor using a discarding rejection policy, tasks given
+ * to the executor after it is shut down are dropped.
+ */
+public final class SerialExecutor extends AbstractExecutorService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerialExecutor.class);
+
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor executor;
+    private final String name;
+    private final AtomicReference<Thread> threadTracker;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private final Runnable runner = this::runTasks;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new serial executor that runs its tasks on the given Executor.
+     *
+     * @param executor
+     * 		the Executor whose threads are used to run the tasks.
+     * @param name
+     * 		the name used to identify this executor when logging.
+     * @param threadTracker
+     * 		AtomicReference that is set to the thread running tasks of this executor while
+     * 		it does so, or null if the running thread need not be known.
+     */
+    public SerialExecutor(Executor executor, String name, AtomicReference<Thread> threadTracker) {
+        this.executor = executor;
+        this.name = name;
+        this.threadTracker = threadTracker;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("Task cannot be null");
+        }
+
+        if (shutdown) {
+            LOG.trace("Task {} dropped by shut down executor: {}", task, name);
+            return;
+        }
+
+        tasks.add(task);
+        schedule();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        checkTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+
+        List<Runnable> pending = new ArrayList<>();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            pending.add(task);
+        }
+
+        checkTerminated();
+
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "SerialExecutor { " + name + " }";
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(runner);
+            } catch (RejectedExecutionException rje) {
+                // The shared threads are gone so nothing that remains can ever run.
+                LOG.trace("Executor {} could not be scheduled, dropping {} tasks", name, tasks.size());
+                tasks.clear();
+                scheduled.set(false);
+                checkTerminated();
+            }
+        }
+    }
+
+    private void runTasks() {
+        final Thread current = Thread.currentThread();
+        if (threadTracker != null) {
+            threadTracker.set(current);
+        }
+
+        try {
+            for (int i = 0; i < MAX_TASKS_PER_RUN; ++i) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                try {
+                    task.run();
+                } catch (Throwable error) {
+                    LOG.warn("Task run by executor {} failed: {}", name, error.getMessage());
+                    LOG.trace("Task failure detail:", error);
+                }
+            }
+        } finally {
+            if (threadTracker != null) {
+                threadTracker.compareAndSet(current, null);
+            }
+
+            scheduled.set(false);
+
+            if (!tasks.isEmpty()) {
+                schedule();
+            } else {
+                checkTerminated();
+            }
+        }
+    }
+
+    private void checkTerminated() {
+        if (shutdown && !scheduled.get() && tasks.isEmpty()) {
+            terminated.countDown();
+        }
+    }
+}
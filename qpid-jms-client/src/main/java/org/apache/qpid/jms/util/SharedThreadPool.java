@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reference counted pool of daemon threads that is shared by all connections in the
+ * JVM that request the same number of threads.
+ *
+ * Connections and their sessions run their executors as SerialExecutor instances on
+ * the pool, so the tasks of each executor still run in order, one at a time, while the
+ * number of threads stays fixed however many sessions are created.  Idle threads exit
+ * after a time and the pool is shut down once the last connection using it releases
+ * its reference.
+ */
+public final class SharedThreadPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedThreadPool.class);
+
+    private static final long IDLE_THREAD_TIMEOUT = 60;
+
+    private static final Map<Integer, SharedThreadPool> SHARED_POOLS = new HashMap<>();
+
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+    private int references;
+
+    private SharedThreadPool(int threads, ThreadPoolExecutor executor) {
+        this.threads = threads;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the shared pool with the given number of threads, creating it if there is not
+     * one currently in use, and adds a reference to it.
+     *
+     * @param threads
+     * 		the number of threads in the pool.
+     *
+     * @return the shared pool, which must be released once no longer needed.
+     */
+    public static SharedThreadPool acquire(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of shared threads must be greater than zero");
+        }
+
+        synchronized (SHARED_POOLS) {
+            SharedThreadPool shared = SHARED_POOLS.get(threads);
+            if (shared == null) {
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new QpidJMSThreadFactory("QpidJMS Shared Executor :(" + threads + ")", true));
+                executor.allowCoreThreadTimeOut(true);
+
+                LOG.trace("Created new shared thread pool with {} threads", threads);
+                shared = new SharedThreadPool(threads, executor);
+                SHARED_POOLS.put(threads, shared);
+            }
+
+            shared.references++;
+            return shared;
+        }
+    }
+
+    /**
+     * Removes a reference to this shared pool, shutting it down when no references remain.
+     * Tasks already queued to the pool still run.
+     */
+    public void release() {
+        final boolean shutdown;
+
+        synchronized (SHARED_POOLS) {
+            shutdown = --references == 0;
+            if (shutdown) {
+                SHARED_POOLS.remove(threads);
+            }
+        }
+
+        if (shutdown) {
+            LOG.trace("Shutting down shared thread pool with {} threads", threads);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates an executor that runs its tasks in order on the threads of this pool.
+     *
+     * @param name
+     * 		the name used to identify the executor when logging.
+     * @param threadTracker
+     * 		AtomicReference that is set to the thread running tasks of the executor while
+     * 		it does so, or null if the running thread need not be known.
+     *
+     * @return a new serial executor backed by this pool.
+     */
+    public SerialExecutor newSerialExecutor(String name, AtomicReference<Thread> threadTracker) {
+        return new SerialExecutor(executor, name, threadTracker);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    int getReferenceCount() {
+        synchronized (SHARED_POOLS) {
+            return references;
+        }
+    }
+}
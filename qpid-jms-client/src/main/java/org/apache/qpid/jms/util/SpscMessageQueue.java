@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+
+/**
+ * First in / first out Message Queue that does not lock on enqueue or dequeue.
+ *
+ * The queue is built for a single producer, the connection thread that dispatches inbound
+ * messages via enqueue and enqueueFirst, and a consumer side that is normally a single thread
+ * at a time.  Consumer side operations remain safe if they race, as can happen when the queue
+ * is cleared on connection interruption while a receive is in progress.  A consumer waiting
+ * for a message first spins, then yields, and finally parks until the producer signals it.
+ */
+public final class SpscMessageQueue implements MessageQueue {
+
+    private static final AtomicIntegerFieldUpdater<SpscMessageQueue> STATE_FIELD_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(SpscMessageQueue.class, "state");
+    private static final AtomicReferenceFieldUpdater<SpscMessageQueue, Node> HEAD_FIELD_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SpscMessageQueue.class, Node.class, "head");
+    private static final AtomicReferenceFieldUpdater<SpscMessageQueue, Node> FIRST_FIELD_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SpscMessageQueue.class, Node.class, "first");
+    private static final AtomicReferenceFieldUpdater<SpscMessageQueue, Thread> WAITER_FIELD_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SpscMessageQueue.class, Thread.class, "waiter");
+    private static final AtomicLongFieldUpdater<SpscMessageQueue> ENQUEUED_FIELD_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SpscMessageQueue.class, "enqueued");
+    private static final AtomicLongFieldUpdater<SpscMessageQueue> DEQUEUED_FIELD_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(SpscMessageQueue.class, "dequeued");
+
+    private static final int CLOSED = 0;
+    private static final int STOPPED = 1;
+    private static final int RUNNING = 2;
+
+    private static final int SPIN_LIMIT = 128;
+    private static final int YIELD_LIMIT = SPIN_LIMIT + 16;
+    private static final long CONTENDED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private volatile int state = STOPPED;
+
+    // Consumer side, head is a sentinel whose successor is the next message in the queue.
+    private volatile Node head;
+
+    // Producer side, only touched by the thread enqueuing messages.
+    private Node tail;
+
+    // Messages returned to the front of the queue, the most recently added is dequeued first.
+    private volatile Node first;
+
+    private volatile Thread waiter;
+
+    private volatile long enqueued;
+    private volatile long dequeued;
+
+    public SpscMessageQueue() {
+        this.head = this.tail = new Node(null);
+    }
+
+    @Override
+    public void enqueueFirst(JmsInboundMessageDispatch envelope) {
+        Node node = new Node(envelope);
+        do {
+            node.next = first;
+        } while (!FIRST_FIELD_UPDATER.compareAndSet(this, node.next, node));
+
+        ENQUEUED_FIELD_UPDATER.lazySet(this, enqueued + 1);
+        signalWaiter();
+    }
+
+    @Override
+    public void enqueue(JmsInboundMessageDispatch envelope) {
+        Node node = new Node(envelope);
+        tail.next = node;
+        tail = node;
+
+        ENQUEUED_FIELD_UPDATER.lazySet(this, enqueued + 1);
+        signalWaiter();
+    }
+
+    @Override
+    public JmsInboundMessageDispatch dequeue(long timeout) throws InterruptedException {
+        final long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+
+        int idleCount = 0;
+        while (isRunning()) {
+            JmsInboundMessageDispatch envelope = poll();
+            if (envelope != null || timeout == 0) {
+                return envelope;
+            }
+
+            long remaining = 0;
+            if (timeout > 0) {
+                remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+            }
+
+            if (idleCount < SPIN_LIMIT) {
+                idleCount++;
+            } else if (idleCount < YIELD_LIMIT) {
+                idleCount++;
+                Thread.yield();
+            } else {
+                park(timeout > 0 ? remaining : 0);
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public JmsInboundMessageDispatch dequeueNoWait() {
+        if (!isRunning()) {
+            return null;
+        }
+
+        return poll();
+    }
+
+    @Override
+    public void start() {
+        if (STATE_FIELD_UPDATER.compareAndSet(this, STOPPED, RUNNING)) {
+            signalWaiter();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (STATE_FIELD_UPDATER.compareAndSet(this, RUNNING, STOPPED)) {
+            signalWaiter();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (STATE_FIELD_UPDATER.getAndSet(this, CLOSED) > CLOSED) {
+            signalWaiter();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return state == RUNNING;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return state == CLOSED;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return first == null && head.next == null;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, enqueued - dequeued);
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<JmsInboundMessageDispatch> contents = new ArrayList<>();
+        for (Node node = first; node != null; node = node.next) {
+            contents.add(node.envelope);
+        }
+        for (Node node = head.next; node != null; node = node.next) {
+            contents.add(node.envelope);
+        }
+
+        return contents.toString();
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    private JmsInboundMessageDispatch poll() {
+        Node node;
+        while ((node = first) != null) {
+            if (FIRST_FIELD_UPDATER.compareAndSet(this, node, node.next)) {
+                return onDequeued(node.envelope);
+            }
+        }
+
+        Node sentinel;
+        while ((node = (sentinel = head).next) != null) {
+            if (HEAD_FIELD_UPDATER.compareAndSet(this, sentinel, node)) {
+                // The dequeued node becomes the new sentinel, drop its reference to the message.
+                JmsInboundMessageDispatch envelope = node.envelope;
+                node.envelope = null;
+                return onDequeued(envelope);
+            }
+        }
+
+        return null;
+    }
+
+    private JmsInboundMessageDispatch onDequeued(JmsInboundMessageDispatch envelope) {
+        DEQUEUED_FIELD_UPDATER.incrementAndGet(this);
+        return envelope;
+    }
+
+    private void park(long nanos) {
+        final Thread current = Thread.currentThread();
+
+        if (WAITER_FIELD_UPDATER.compareAndSet(this, null, current)) {
+            try {
+                // Check again now that the producer can see this thread is waiting.
+                if (isRunning() && isEmpty()) {
+                    if (nanos > 0) {
+                        LockSupport.parkNanos(this, nanos);
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+            } finally {
+                waiter = null;
+            }
+        } else {
+            // Another thread is already registered for wake up, poll until it is our turn.
+            LockSupport.parkNanos(this, nanos > 0 ? Math.min(nanos, CONTENDED_PARK_NANOS) : CONTENDED_PARK_NANOS);
+        }
+    }
+
+    private void signalWaiter() {
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    private static final class Node {
+
+        private JmsInboundMessageDispatch envelope;
+        private volatile Node next;
+
+        Node(JmsInboundMessageDispatch envelope) {
+            this.envelope = envelope;
+        }
+    }
+}
@@ -88,10 +88,12 @@ public class JmsConnectionFactoryTest extends QpidJmsTestCase {
         factory.setForceSyncSend(!factory.isForceSyncSend());
         factory.setForceAsyncSend(!factory.isForceAsyncSend());
         factory.setLocalMessagePriority(!factory.isLocalMessagePriority());
+        factory.setLockFreeMessageQueue(!factory.isLockFreeMessageQueue());
         factory.setForceAsyncAcks(!factory.isForceAsyncAcks());
         factory.setConnectTimeout(TimeUnit.SECONDS.toMillis(30));
         factory.setCloseTimeout(TimeUnit.SECONDS.toMillis(45));
         factory.setUseDaemonThread(true);
+        factory.setSharedExecutorThreads(2);
 
         JmsConnection connection = (JmsConnection) factory.createConnection();
         assertNotNull(connection);
@@ -105,8 +107,10 @@ public class JmsConnectionFactoryTest extends QpidJmsTestCase {
         assertEquals(factory.isForceSyncSend(), connection.isForceSyncSend());
         assertEquals(factory.isForceAsyncSend(), connection.isForceAsyncSend());
         assertEquals(factory.isLocalMessagePriority(), connection.isLocalMessagePriority());
+        assertEquals(factory.isLockFreeMessageQueue(), connection.isLockFreeMessageQueue());
         assertEquals(factory.isForceAsyncAcks(), connection.isForceAsyncAcks());
         assertEquals(factory.isUseDaemonThread(), connection.isUseDaemonThread());
+        assertEquals(2, connection.getSharedExecutorThreads());
 
         assertEquals(TimeUnit.SECONDS.toMillis(30), connection.getConnectTimeout());
         assertEquals(TimeUnit.SECONDS.toMillis(45), connection.getCloseTimeout());
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.qpid.jms.JmsConnectionTestSupport;
+import org.apache.qpid.jms.JmsSession;
+import org.apache.qpid.jms.meta.JmsConsumerInfo;
+import org.apache.qpid.jms.provider.mock.MockRemotePeer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test basic functionality around JmsMessageConsumer
+ */
+public class JmsMessageConsumerTest extends JmsConnectionTestSupport {
+
+    private JmsSession session;
+    private final MockRemotePeer remotePeer = new MockRemotePeer();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        remotePeer.start();
+        connection = createConnectionToMockProvider();
+        session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        try {
+            remotePeer.terminate();
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCreateConsumerAsyncClosesConsumerWhenStartFails() throws Exception {
+        remotePeer.setResourceStartFilter(resource -> {
+            if (resource instanceof JmsConsumerInfo) {
+                throw new JMSException("Consumer start refused");
+            }
+        });
+
+        Queue queue = session.createQueue(_testName.getMethodName());
+        CompletableFuture<MessageConsumer> result = session.createConsumerAsync(queue);
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Should have failed to start the consumer");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof JMSException);
+        }
+
+        // The consumer was created on the remote, so it must be removed from there too.
+        assertEquals(1, remotePeer.getContextStats().getCreateResourceCalls(JmsConsumerInfo.class));
+        assertEquals(1, remotePeer.getContextStats().getDestroyResourceCalls(JmsConsumerInfo.class));
+    }
+}
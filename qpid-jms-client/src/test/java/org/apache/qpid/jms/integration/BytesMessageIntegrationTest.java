@@ -102,6 +102,89 @@ public class BytesMessageIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testSendLargeBytesMessageWithZeroCopyOutputAndImmediateFlush() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            // The message spans many frames, proton output produced while a write is in flight
+            // must still go out when that write completes during the immediate flush.
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.zeroCopyOutput=true&amqp.flushMode=immediate");
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+
+            byte[] content = new byte[1024 * 1024];
+            Arrays.fill(content, (byte) 7);
+
+            TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+            messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+            messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+            messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+            messageMatcher.setMessageContentMatcher(new EncodedDataMatcher(new Binary(content)));
+
+            testPeer.expectTransfer(messageMatcher);
+
+            BytesMessage message = session.createBytesMessage();
+            message.writeBytes(content);
+
+            // A synchronous send only returns once the whole message has reached the peer.
+            producer.send(message);
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSendLargeBytesMessagesWithZeroCopyOutput() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.forceAsyncSend=true&amqp.zeroCopyOutput=true");
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+
+            final int messageCount = 8;
+            final int payloadSize = 64 * 1024;
+
+            byte[][] contents = new byte[messageCount][];
+            for (int i = 0; i < messageCount; ++i) {
+                byte[] content = new byte[payloadSize];
+                Arrays.fill(content, (byte) i);
+                contents[i] = content;
+
+                TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+                messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+                messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+                messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+                messageMatcher.setMessageContentMatcher(new EncodedDataMatcher(new Binary(content)));
+
+                testPeer.expectTransfer(messageMatcher);
+            }
+
+            for (int i = 0; i < messageCount; ++i) {
+                BytesMessage message = session.createBytesMessage();
+                message.writeBytes(contents[i]);
+                producer.send(message);
+            }
+
+            testPeer.waitForAllHandlersToComplete(10000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testReceiveBytesMessageUsingDataSectionWithContentTypeOctectStream() throws Exception {
         doReceiveBasicBytesMessageUsingDataSectionTestImpl(AmqpMessageSupport.OCTET_STREAM_CONTENT_TYPE, true);
@@ -28,8 +28,14 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -37,6 +43,7 @@ import javax.jms.Connection;
 import javax.jms.ExceptionListener;
 import javax.jms.IllegalStateException;
 import javax.jms.JMSException;
+import javax.jms.JMSSecurityException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
@@ -49,9 +56,14 @@ import javax.jms.TopicSubscriber;
 
 import org.apache.qpid.jms.JmsConnection;
 import org.apache.qpid.jms.JmsDefaultConnectionListener;
+import org.apache.qpid.jms.JmsFlow;
+import org.apache.qpid.jms.JmsMessageConsumer;
+import org.apache.qpid.jms.JmsMessagePublisher;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
+import org.apache.qpid.jms.JmsSession;
 import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
 import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
+import org.apache.qpid.jms.provider.amqp.AmqpCreditWindow;
 import org.apache.qpid.jms.test.QpidJmsTestCase;
 import org.apache.qpid.jms.test.Wait;
 import org.apache.qpid.jms.test.testpeer.AmqpPeerRunnable;
@@ -106,6 +118,298 @@ public class ConsumerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testCreateConsumerAsync() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"));
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            CompletableFuture<MessageConsumer> result = session.createConsumerAsync(queue);
+            MessageConsumer consumer = result.get(5, TimeUnit.SECONDS);
+
+            Message message = consumer.receive(3000);
+            assertNotNull(message);
+            assertEquals("content", ((TextMessage) message).getText());
+
+            testPeer.expectDetach(true, true, true);
+            consumer.close();
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testCreateConsumerAsyncFailsWhenLinkRefused() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectReceiverAttach(notNullValue(), notNullValue(), false, true, false, false, AmqpError.UNAUTHORIZED_ACCESS, "Destination is not readable");
+            testPeer.expectDetach(true, true, true);
+
+            CompletableFuture<MessageConsumer> result = session.createConsumerAsync(queue);
+
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("Consumer creation should have failed");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof JMSSecurityException);
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMessagePublisherGrantsCreditAsRequested() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            // No credit is granted until the subscriber requests messages.
+            testPeer.expectReceiverAttach();
+
+            JmsMessagePublisher publisher = session.createMessagePublisher(queue);
+            RecordingSubscriber subscriber = new RecordingSubscriber(2);
+            publisher.subscribe(subscriber);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"),
+                2, false, false, equalTo(UnsignedInteger.valueOf(2)), 1, false, false);
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            subscriber.getSubscription().request(2);
+
+            assertTrue("Messages not delivered", subscriber.awaitMessages(5, TimeUnit.SECONDS));
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            subscriber.expectMessages(1);
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"),
+                1, false, false, equalTo(UnsignedInteger.valueOf(1)), 3, false, false);
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            subscriber.getSubscription().request(1);
+
+            assertTrue("Message not delivered", subscriber.awaitMessages(5, TimeUnit.SECONDS));
+            testPeer.waitForAllHandlersToComplete(1000);
+            assertEquals(3, subscriber.getMessages().size());
+            assertEquals("content", ((TextMessage) subscriber.getMessages().get(0)).getText());
+
+            testPeer.expectDetach(true, true, true);
+            publisher.close();
+
+            assertTrue("Subscriber not completed", subscriber.awaitTermination(5, TimeUnit.SECONDS));
+            assertNull(subscriber.getError());
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMessagePublisherSignalsErrorWhenLinkRemotelyClosed() throws Exception {
+        final String BREAD_CRUMB = "ErrorMessage";
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectReceiverAttach();
+
+            JmsMessagePublisher publisher = session.createMessagePublisher(queue);
+            RecordingSubscriber subscriber = new RecordingSubscriber(1);
+            publisher.subscribe(subscriber);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectLinkFlow(false, equalTo(UnsignedInteger.valueOf(5)));
+            testPeer.remotelyDetachLastOpenedLinkOnLastOpenedSession(true, true, AmqpError.RESOURCE_DELETED, BREAD_CRUMB);
+
+            subscriber.getSubscription().request(5);
+
+            assertTrue("Subscriber not terminated", subscriber.awaitTermination(5, TimeUnit.SECONDS));
+            assertNotNull(subscriber.getError());
+            assertTrue(subscriber.getError().getMessage().contains(BREAD_CRUMB));
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMessagePublisherRejectsSecondSubscriberAndNonPositiveRequest() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectReceiverAttach();
+
+            JmsMessagePublisher publisher = session.createMessagePublisher(queue);
+            RecordingSubscriber subscriber = new RecordingSubscriber(1);
+            publisher.subscribe(subscriber);
+
+            RecordingSubscriber second = new RecordingSubscriber(1);
+            publisher.subscribe(second);
+
+            assertTrue("Second subscriber not terminated", second.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(second.getError() instanceof IllegalStateException);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectDetach(true, true, true);
+
+            subscriber.getSubscription().request(0);
+
+            assertTrue("Subscriber not terminated", subscriber.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(subscriber.getError() instanceof IllegalArgumentException);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMessagePublisherCancelDoesNotWaitForDetach() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            JmsConnection connection = (JmsConnection) testFixture.establishConnecton(testPeer);
+            connection.setCloseTimeout(10000);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            JmsSession session = (JmsSession) connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectReceiverAttach();
+
+            JmsMessagePublisher publisher = session.createMessagePublisher(queue);
+            RecordingSubscriber subscriber = new RecordingSubscriber(1);
+            publisher.subscribe(subscriber);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // The peer never answers the detach, cancel must not wait on it.
+            testPeer.expectDetach(true, false, false);
+
+            long start = System.nanoTime();
+            subscriber.getSubscription().cancel();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue("Cancel blocked for " + elapsed + "ms", elapsed < connection.getCloseTimeout());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    private static final class RecordingSubscriber implements JmsFlow.Subscriber<Message> {
+
+        private final List<Message> messages = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile CountDownLatch expected;
+        private volatile JmsFlow.Subscription subscription;
+        private volatile Throwable error;
+
+        public RecordingSubscriber(int expectedMessages) {
+            expectMessages(expectedMessages);
+        }
+
+        public void expectMessages(int count) {
+            expected = new CountDownLatch(count);
+        }
+
+        public boolean awaitMessages(long timeout, TimeUnit unit) throws InterruptedException {
+            return expected.await(timeout, unit);
+        }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return terminated.await(timeout, unit);
+        }
+
+        public JmsFlow.Subscription getSubscription() {
+            return subscription;
+        }
+
+        public List<Message> getMessages() {
+            return messages;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public void onSubscribe(JmsFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Message message) {
+            messages.add(message);
+            expected.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            terminated.countDown();
+        }
+    }
+
     @Test(timeout = 20000)
     public void testCloseConsumerTimesOut() throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
@@ -553,6 +857,251 @@ public class ConsumerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout=20000)
+    public void testReceiveWithLockFreeMessageQueue() throws Exception {
+        final int messageCount = 10;
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.lockFreeMessageQueue=true");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue destination = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount,
+                false, false, Matchers.greaterThanOrEqualTo(UnsignedInteger.valueOf(messageCount)), 1, true);
+            for (int i = 1; i <= messageCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher());
+            }
+
+            MessageConsumer consumer = session.createConsumer(destination);
+
+            for (int i = 1; i <= messageCount; i++) {
+                Message message = consumer.receive(3000);
+                assertNotNull(message);
+                assertEquals(i - 1, message.getIntProperty(TestAmqpPeer.MESSAGE_NUMBER));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testAdaptivePrefetchStartsWithInitialCreditWindow() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.prefetchPolicy.all=1000&jms.prefetchPolicy.adaptive=true");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue destination = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlow(false, equalTo(UnsignedInteger.valueOf(AmqpCreditWindow.DEFAULT_INITIAL_WINDOW)));
+
+            session.createConsumer(destination);
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testConsumerPrefetchBytesLimitWithholdsCredit() throws Exception {
+        doTestPrefetchBytesLimitWithholdsCredit("jms.prefetchPolicy.consumerPrefetchBytes=2000");
+    }
+
+    @Test(timeout=20000)
+    public void testConnectionPrefetchBytesLimitWithholdsCredit() throws Exception {
+        doTestPrefetchBytesLimitWithholdsCredit("jms.prefetchPolicy.connectionPrefetchBytes=2000");
+    }
+
+    private void doTestPrefetchBytesLimitWithholdsCredit(String limitOption) throws Exception {
+        // Each message is a little over half of the limit, so only one fits in the prefetch
+        final AmqpValueDescribedType content = new AmqpValueDescribedType(new String(new char[1000]).replace('\0', 'a'));
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.prefetchPolicy.all=100&" + limitOption);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue destination = session.createQueue(getTestName());
+
+            // Nothing is known about message sizes yet, so a single credit is granted first
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, content, 1,
+                false, false, equalTo(UnsignedInteger.ONE), 1, true);
+
+            MessageConsumer consumer = session.createConsumer(destination);
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            // Consuming the prefetched message makes room for the next one
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, content, 1,
+                false, false, equalTo(UnsignedInteger.ONE), 2, true);
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            Message message = consumer.receive(3000);
+            assertNotNull(message);
+            assertEquals(0, message.getIntProperty(TestAmqpPeer.MESSAGE_NUMBER));
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectLinkFlow(false, equalTo(UnsignedInteger.ONE));
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            message = consumer.receive(3000);
+            assertNotNull(message);
+            assertEquals(0, message.getIntProperty(TestAmqpPeer.MESSAGE_NUMBER));
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testMessagesDispatchedInOrderForEachSessionWithDispatchThreads() throws Exception {
+        final int messageCount = 5;
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.dispatchThreads=2");
+            connection.start();
+
+            List<MessageConsumer> consumers = new ArrayList<>();
+            for (int i = 0; i < 2; ++i) {
+                testPeer.expectBegin();
+
+                Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+                Queue destination = session.createQueue(getTestName() + i);
+
+                testPeer.expectReceiverAttach();
+                testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"),
+                    messageCount, false, false, equalTo(UnsignedInteger.valueOf(JmsDefaultPrefetchPolicy.DEFAULT_QUEUE_PREFETCH)), 1, true);
+
+                consumers.add(session.createConsumer(destination));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            for (MessageConsumer consumer : consumers) {
+                for (int i = 0; i < messageCount; ++i) {
+                    Message message = consumer.receive(3000);
+                    assertNotNull(message);
+                    assertEquals(i, message.getIntProperty(TestAmqpPeer.MESSAGE_NUMBER));
+                }
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testAutoAckBatchWrittenWhenBatchSizeReached() throws Exception {
+        doTestAckBatchWrittenWhenBatchSizeReached(Session.AUTO_ACKNOWLEDGE);
+    }
+
+    @Test(timeout=20000)
+    public void testDupsOkAckBatchWrittenWhenBatchSizeReached() throws Exception {
+        doTestAckBatchWrittenWhenBatchSizeReached(Session.DUPS_OK_ACKNOWLEDGE);
+    }
+
+    private void doTestAckBatchWrittenWhenBatchSizeReached(int ackMode) throws Exception {
+        final int messageCount = 4;
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.ackBatchSize=" + messageCount + "&amqp.ackBatchDelay=60000");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, ackMode);
+            Queue destination = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount);
+
+            MessageConsumer consumer = session.createConsumer(destination);
+
+            // Have every message arrive first, reading a later one would write out the acks batched so far
+            final Method queueSize = JmsMessageConsumer.class.getDeclaredMethod("getMessageQueueSize");
+            queueSize.setAccessible(true);
+            assertTrue("Messages did not all arrive", Wait.waitFor(() -> queueSize.invoke(consumer).equals(messageCount), 3000, 5));
+
+            for (int i = 1; i <= messageCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher());
+            }
+
+            // The batch delay is long enough that the acks must be written without it
+            for (int i = 1; i <= messageCount; i++) {
+                assertNotNull(consumer.receive(3000));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testPartialAckBatchWrittenAfterDelay() throws Exception {
+        final int messageCount = 2;
+
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.ackBatchSize=100&amqp.ackBatchDelay=20");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue destination = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount);
+
+            MessageConsumer consumer = session.createConsumer(destination);
+
+            for (int i = 1; i <= messageCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher());
+            }
+
+            for (int i = 1; i <= messageCount; i++) {
+                assertNotNull(consumer.receive(3000));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
     @Test(timeout=20000)
     public void testSetMessageListenerAfterStartAndSend() throws Exception {
 
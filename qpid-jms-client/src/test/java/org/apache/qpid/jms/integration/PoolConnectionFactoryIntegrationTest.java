@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.jms.integration;
+
+import static org.apache.qpid.jms.provider.amqp.AmqpSupport.ANONYMOUS_RELAY;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import javax.jms.Connection;
+import javax.jms.IllegalStateException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.pool.JmsPoolConnection;
+import org.apache.qpid.jms.pool.JmsPoolConnectionFactory;
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.apache.qpid.jms.test.testpeer.TestAmqpPeer;
+import org.apache.qpid.jms.test.testpeer.matchers.TargetMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageAnnotationsSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageHeaderSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessagePropertiesSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.TransferPayloadCompositeMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.types.EncodedAmqpValueMatcher;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.junit.Test;
+
+public class PoolConnectionFactoryIntegrationTest extends QpidJmsTestCase {
+
+    @Test(timeout = 20000)
+    public void testConnectionSessionAndProducerReusedAfterClose() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach(anonymousTarget(), false, false);
+            testPeer.expectTransfer(textMessage("first"));
+
+            Connection connection = pool.createConnection();
+            JmsConnection pooled = ((JmsPoolConnection) connection).getConnection();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("first"));
+
+            producer.close();
+            session.close();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // The same connection, session and link are used so no frames other than the transfer.
+            testPeer.expectTransfer(textMessage("second"));
+
+            Connection reused = pool.createConnection();
+            assertSame(pooled, ((JmsPoolConnection) reused).getConnection());
+
+            session = reused.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("second"));
+
+            testPeer.waitForAllHandlersToComplete(1000);
+            assertEquals(1, pool.getConnectionCount());
+
+            testPeer.expectClose();
+            pool.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testClientAcknowledgeSessionIsNotReused() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectEnd();
+
+            Connection connection = pool.createConnection();
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            session.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectBegin();
+            connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            pool.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testMaxSessionsPerConnectionEnforced() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            pool.setMaxSessionsPerConnection(1);
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+
+            Connection connection = pool.createConnection();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            try {
+                connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                fail("Should not be able to create more sessions than the configured maximum");
+            } catch (IllegalStateException ise) {
+                // Expected
+            }
+
+            session.close();
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            pool.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testIdleConnectionClosedAfterTimeout() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            pool.setConnectionIdleTimeout(100);
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+
+            Connection connection = pool.createConnection();
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(2000);
+            assertEquals(0, pool.getConnectionCount());
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testTemporaryQueueDeletedWhenHandleClosed() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+
+            String dynamicAddress = "myTempQueueAddress";
+            testPeer.expectTempQueueCreationAttach(dynamicAddress);
+
+            Connection connection = pool.createConnection();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            TemporaryQueue tempQueue = session.createTemporaryQueue();
+            assertEquals(dynamicAddress, tempQueue.getQueueName());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // The pooled connection stays open, the temporary queue must not outlive the handle.
+            testPeer.expectDetach(true, true, true);
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            pool.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSetClientIDFails() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();
+             JmsPoolConnectionFactory pool = createPool(testPeer)) {
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+
+            Connection connection = pool.createConnection();
+
+            try {
+                connection.setClientID("clientName");
+                fail("Should not be able to set the client ID of a pooled connection");
+            } catch (IllegalStateException ise) {
+                // Expected
+            }
+
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            pool.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    private JmsPoolConnectionFactory createPool(TestAmqpPeer testPeer) {
+        JmsConnectionFactory factory = new JmsConnectionFactory("amqp://localhost:" + testPeer.getServerPort());
+        factory.setUsername("guest");
+        factory.setPassword("guest");
+
+        return new JmsPoolConnectionFactory(factory);
+    }
+
+    private void expectConnection(TestAmqpPeer testPeer) {
+        testPeer.expectSaslPlain("guest", "guest");
+        testPeer.expectOpen(null, new Symbol[] { ANONYMOUS_RELAY });
+
+        // Each connection creates a session for managing temporary destinations etc
+        testPeer.expectBegin();
+    }
+
+    private TargetMatcher anonymousTarget() {
+        TargetMatcher targetMatcher = new TargetMatcher();
+        targetMatcher.withAddress(nullValue());
+
+        return targetMatcher;
+    }
+
+    private TransferPayloadCompositeMatcher textMessage(String text) {
+        TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+        messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+        messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+        messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+        messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher(text));
+
+        return messageMatcher;
+    }
+}
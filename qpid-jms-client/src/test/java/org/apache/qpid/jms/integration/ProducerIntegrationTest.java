@@ -33,18 +33,23 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -66,8 +71,10 @@ import javax.jms.Topic;
 import org.apache.qpid.jms.JmsConnection;
 import org.apache.qpid.jms.JmsConnectionFactory;
 import org.apache.qpid.jms.JmsDefaultConnectionListener;
+import org.apache.qpid.jms.JmsMessageProducer;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
 import org.apache.qpid.jms.JmsSendTimedOutException;
+import org.apache.qpid.jms.message.JmsMessage;
 import org.apache.qpid.jms.message.foreign.ForeignJmsMessage;
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageIdHelper;
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageSupport;
@@ -196,6 +203,55 @@ public class ProducerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testAsyncSendsWithBatchFlushMode() throws Exception {
+        doAsyncSendsWithFlushModeTestImpl("?jms.forceAsyncSend=true&amqp.flushMode=batch");
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncSendsWithTimedFlushMode() throws Exception {
+        doAsyncSendsWithFlushModeTestImpl("?jms.forceAsyncSend=true&amqp.flushMode=timed&amqp.flushDelay=500");
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncSendsWithTimedFlushModeAndSmallWriteThreshold() throws Exception {
+        doAsyncSendsWithFlushModeTestImpl("?jms.forceAsyncSend=true&amqp.flushMode=timed&amqp.flushDelay=1000&amqp.maxWriteBytesBeforeFlush=64");
+    }
+
+    private void doAsyncSendsWithFlushModeTestImpl(String options) throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, options);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+
+            final int messageCount = 10;
+
+            for (int i = 0; i < messageCount; ++i) {
+                TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+                messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+                messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+                messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+                messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher("message-" + i));
+                testPeer.expectTransfer(messageMatcher);
+            }
+
+            for (int i = 0; i < messageCount; ++i) {
+                producer.send(session.createTextMessage("message-" + i));
+            }
+
+            testPeer.waitForAllHandlersToComplete(2000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testDefaultDeliveryModeProducesDurableMessages() throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
@@ -1435,6 +1491,55 @@ public class ProducerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testAsyncSendTimeoutReportsUnsentMessage() throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            JmsConnection connection = (JmsConnection) testFixture.establishConnecton(testPeer);
+            connection.setSendTimeout(500);
+            connection.setForceAsyncSend(true);
+
+            final CountDownLatch failed = new CountDownLatch(1);
+            final AtomicReference<JMSException> asyncError = new AtomicReference<>();
+            connection.setExceptionListener(exception -> {
+                asyncError.set(exception);
+                failed.countDown();
+            });
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            Message message = session.createTextMessage("text");
+
+            // The send completes once written, the disposition never arrives so the
+            // send later times out after the message has been detached from the send.
+            testPeer.expectSenderAttach();
+            testPeer.expectTransferButDoNotRespond(new TransferPayloadCompositeMatcher());
+            testPeer.expectClose();
+
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(message);
+
+            assertTrue("Did not get async error", failed.await(5, TimeUnit.SECONDS));
+
+            Throwable cause = asyncError.get();
+            while (cause != null && !(cause instanceof JmsSendTimedOutException)) {
+                cause = cause.getCause();
+            }
+
+            assertNotNull("Error should be caused by the send timing out", cause);
+            // The message was released to the application when the send returned, only its ID is kept.
+            assertNull(((JmsSendTimedOutException) cause).getUnsentMessage());
+            assertEquals(((JmsMessage) message).getFacade().getProviderMessageIdObject(),
+                         ((JmsSendTimedOutException) cause).getUnsentMessageId());
+
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testAsyncCompletionGetsTimedOutErrorWhenNoDispostionArrives() throws Exception {
         try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
@@ -1478,6 +1583,65 @@ public class ProducerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testSendAsyncCompletesWhenMessageAccepted() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            Message message = session.createTextMessage("content");
+
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+
+            CompletableFuture<Message> result = producer.sendAsync(message);
+
+            assertSame(message, result.get(5, TimeUnit.SECONDS));
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSendAsyncFailsWhenMessageRejected() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            Message message = session.createTextMessage("content");
+
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher(), nullValue(), new Rejected(), true);
+
+            CompletableFuture<Message> result = producer.sendAsync(message);
+
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("Send should have failed when the message was rejected");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof JMSException);
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testSyncSendMessageRejected() throws Exception {
         doSyncSendMessageNotAcceptedTestImpl(new Rejected());
@@ -1543,6 +1707,120 @@ public class ProducerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testSendBatchOfMessages() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            final int MESSAGE_COUNT = 5;
+
+            List<Message> messages = new ArrayList<>();
+            for (int i = 0; i < MESSAGE_COUNT; ++i) {
+                messages.add(session.createTextMessage("content-" + i));
+
+                TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+                messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+                messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+                messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+                messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher("content-" + i));
+
+                testPeer.expectTransfer(messageMatcher);
+            }
+
+            producer.send(messages);
+
+            for (Message message : messages) {
+                assertNotNull("Should have a JMSMessageID", message.getJMSMessageID());
+                assertEquals(queue, message.getJMSDestination());
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(2000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSendBatchOfMessagesFailsWhenOneIsRejected() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            List<Message> messages = new ArrayList<>();
+            messages.add(session.createTextMessage("content-1"));
+            messages.add(session.createTextMessage("content-2"));
+            messages.add(session.createTextMessage("content-3"));
+
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher(), nullValue(), new Rejected(), true);
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+            testPeer.expectClose();
+
+            try {
+                producer.send(messages);
+                fail("Expected an exception to be thrown");
+            } catch (JMSException e) {
+                // Expected
+            }
+
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(2000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSendBatchOfMessagesFailureLeavesMessagesWritable() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            List<TextMessage> messages = new ArrayList<>();
+            messages.add(session.createTextMessage("content-1"));
+            messages.add(session.createTextMessage("content-2"));
+            messages.add(session.createTextMessage("content-3"));
+
+            // Nothing is settled before the connection drops
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher(), nullValue(), false, false, null, false);
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher(), nullValue(), false, false, null, false);
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher(), nullValue(), false, false, null, false);
+            testPeer.dropAfterLastHandler();
+
+            try {
+                producer.send(messages);
+                fail("Expected an exception to be thrown");
+            } catch (JMSException e) {
+                // Expected
+            }
+
+            for (TextMessage message : messages) {
+                // Throws if the failed send left the message read-only
+                message.setText("updated");
+            }
+
+            testPeer.waitForAllHandlersToComplete(2000);
+
+            connection.close();
+        }
+    }
+
     @Test(timeout = 20000)
     public void testAsyncSendMessageRejected() throws Exception {
         doAsyncSendMessageNotAcceptedTestImpl(new Rejected());
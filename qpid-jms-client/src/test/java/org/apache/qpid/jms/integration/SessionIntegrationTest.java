@@ -2269,4 +2269,66 @@ public class SessionIntegrationTest extends QpidJmsTestCase {
             connection.close();
         }
     }
+
+    @Test(timeout = 20000)
+    public void testSendWithCompletionListenerFromOnMessageUsingSingleSharedThread() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.sharedExecutorThreads=1");
+
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), 1);
+
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            final MessageProducer producer = session.createProducer(queue);
+            MessageConsumer consumer = session.createConsumer(queue);
+
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+            testPeer.expectDisposition(true, new AcceptedMatcher());
+
+            final CountDownLatch completed = new CountDownLatch(1);
+            final CountDownLatch listenerDone = new CountDownLatch(1);
+
+            // The MessageListener runs on the only shared thread, the send must not wait on
+            // work that needs another shared thread to run.
+            consumer.setMessageListener(new MessageListener() {
+
+                @Override
+                public void onMessage(Message message) {
+                    try {
+                        producer.send(session.createTextMessage("reply"), new CompletionListener() {
+
+                            @Override
+                            public void onCompletion(Message message) {
+                                completed.countDown();
+                            }
+
+                            @Override
+                            public void onException(Message message, Exception exception) {
+                                LOG.warn("Send failed: {}", exception.getMessage());
+                            }
+                        });
+                    } catch (JMSException e) {
+                        LOG.warn("Send from onMessage failed: {}", e.getMessage());
+                    } finally {
+                        listenerDone.countDown();
+                    }
+                }
+            });
+
+            connection.start();
+
+            assertTrue("MessageListener should have returned", listenerDone.await(5, TimeUnit.SECONDS));
+            assertTrue("Send should have completed", completed.await(5, TimeUnit.SECONDS));
+
+            testPeer.waitForAllHandlersToComplete(2000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
 }
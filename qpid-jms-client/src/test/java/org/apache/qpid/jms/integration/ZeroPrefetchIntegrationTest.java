@@ -102,9 +102,18 @@ public class ZeroPrefetchIntegrationTest extends QpidJmsTestCase {
 
     @Test(timeout=20000)
     public void testZeroPrefetchConsumerReceiveNoWaitDrainsWithOneCredit() throws Exception {
+        doTestZeroPrefetchConsumerReceiveNoWaitDrainsWithOneCredit("");
+    }
+
+    @Test(timeout=20000)
+    public void testZeroPrefetchConsumerReceiveNoWaitDrainsWithOneCreditWithDispatchThreads() throws Exception {
+        doTestZeroPrefetchConsumerReceiveNoWaitDrainsWithOneCredit("&amqp.dispatchThreads=2");
+    }
+
+    private void doTestZeroPrefetchConsumerReceiveNoWaitDrainsWithOneCredit(String options) throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
             // Create a connection with zero prefetch
-            Connection connection = testFixture.establishConnecton(testPeer, "?jms.prefetchPolicy.all=0");
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.prefetchPolicy.all=0" + options);
             connection.start();
 
             testPeer.expectBegin();
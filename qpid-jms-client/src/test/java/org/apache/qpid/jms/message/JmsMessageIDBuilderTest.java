@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.qpid.jms.meta.JmsProducerId;
+import org.junit.Test;
+
+public class JmsMessageIDBuilderTest {
+
+    @Test
+    public void testDefaultBuilderProducerIdMatchesStringForm() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.DEFAULT.createBuilder();
+
+        JmsProducerId prefixed = new JmsProducerId("ID:connection", 1, 2);
+        JmsProducerId unprefixed = new JmsProducerId("connection", 1, 2);
+
+        long[] sequences = { 0, 1, 9, 10, 99, 12345, Long.MAX_VALUE };
+        for (long sequence : sequences) {
+            assertEquals(builder.createMessageID(prefixed.toString(), sequence), builder.createMessageID(prefixed, sequence));
+            assertEquals(builder.createMessageID(unprefixed.toString(), sequence), builder.createMessageID(unprefixed, sequence));
+        }
+
+        assertEquals("ID:connection:1:2-42", builder.createMessageID(unprefixed, 42));
+    }
+
+    @Test
+    public void testOtherBuildersAcceptProducerId() {
+        JmsProducerId producerId = new JmsProducerId("ID:connection", 1, 2);
+
+        Object messageId = JmsMessageIDBuilder.BUILTIN.PREFIXED_UUID_STRING.createBuilder().createMessageID(producerId, 1);
+        assertTrue(messageId.toString().startsWith("ID:"));
+    }
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.qpid.jms.JmsTopic;
+import org.apache.qpid.jms.message.facade.JmsMessageFacade;
 import org.apache.qpid.jms.meta.JmsProducerId;
 import org.junit.Before;
 import org.junit.Test;
@@ -58,6 +59,24 @@ public class JmsOutboundMessageDispatchTest {
         assertNotNull(envelope.getDispatchId());
     }
 
+    @Test
+    public void testDetachMessageRetainsMessageId() throws Exception {
+        JmsMessageFacade facade = Mockito.mock(JmsMessageFacade.class);
+        Mockito.when(facade.getProviderMessageIdObject()).thenReturn("ID:test:1:0:1-1");
+        JmsMessage message = Mockito.mock(JmsMessage.class);
+        Mockito.when(message.getFacade()).thenReturn(facade);
+        Mockito.when(message.getJMSMessageID()).thenReturn("ID:test:1:0:1-1");
+
+        envelope.setMessage(message);
+        envelope.detachMessage();
+
+        Mockito.when(facade.getProviderMessageIdObject()).thenReturn("ID:test:1:0:1-2");
+
+        assertNull(envelope.getMessage());
+        assertEquals("ID:test:1:0:1-1", envelope.getMessageId());
+        assertTrue(envelope.toString().contains("ID:test:1:0:1-1"));
+    }
+
     @Test
     public void testToString() {
         envelope.setDispatchId(42);
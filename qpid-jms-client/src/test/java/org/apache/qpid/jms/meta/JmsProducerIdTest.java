@@ -170,4 +170,14 @@ public class JmsProducerIdTest {
         assertEquals(id2.hashCode(), id2.hashCode());
         assertFalse(id1.hashCode() == id2.hashCode());
     }
+
+    @Test
+    public void testGetMessageIDPrefix() {
+        JmsProducerId id = new JmsProducerId("ID:connection", 1, 2);
+        assertEquals("ID:connection:1:2-", id.getMessageIDPrefix());
+        assertSame(id.getMessageIDPrefix(), id.getMessageIDPrefix());
+
+        JmsProducerId unprefixed = new JmsProducerId("connection", 1, 2);
+        assertEquals("ID:connection:1:2-", unprefixed.getMessageIDPrefix());
+    }
 }
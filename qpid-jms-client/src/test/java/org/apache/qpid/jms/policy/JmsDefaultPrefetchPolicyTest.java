@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.qpid.jms.JmsTopic;
 import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 import org.junit.Test;
@@ -58,6 +59,9 @@ public class JmsDefaultPrefetchPolicyTest {
         policy1.setQueueBrowserPrefetch(30);
         policy1.setQueuePrefetch(40);
         policy1.setMaxPrefetchSize(100);
+        policy1.setAdaptive(true);
+        policy1.setConsumerPrefetchBytes(1024);
+        policy1.setConnectionPrefetchBytes(4096);
 
         JmsDefaultPrefetchPolicy policy2 = new JmsDefaultPrefetchPolicy(policy1);
 
@@ -66,6 +70,40 @@ public class JmsDefaultPrefetchPolicyTest {
         assertEquals(policy1.getQueuePrefetch(), policy2.getQueuePrefetch());
         assertEquals(policy1.getQueueBrowserPrefetch(), policy2.getQueueBrowserPrefetch());
         assertEquals(policy1.getMaxPrefetchSize(), policy2.getMaxPrefetchSize());
+        assertEquals(policy1.isAdaptive(), policy2.isAdaptive());
+        assertEquals(policy1.getConsumerPrefetchBytes(), policy2.getConsumerPrefetchBytes());
+        assertEquals(policy1.getConnectionPrefetchBytes(), policy2.getConnectionPrefetchBytes());
+    }
+
+    @Test
+    public void testPrefetchBytes() {
+        JmsDefaultPrefetchPolicy policy = new JmsDefaultPrefetchPolicy();
+        JmsTopic topic = new JmsTopic("test");
+
+        assertEquals(0, policy.getConsumerPrefetchBytes());
+        assertEquals(0, policy.getConnectionPrefetchBytes());
+        assertEquals(0, policy.getConfiguredPrefetchBytes(null, topic, false, false));
+
+        policy.setConsumerPrefetchBytes(1024);
+        policy.setConnectionPrefetchBytes(4096);
+
+        assertEquals(1024, policy.getConfiguredPrefetchBytes(null, topic, false, false));
+        assertEquals(4096, policy.getConnectionPrefetchBytes());
+    }
+
+    @Test
+    public void testAdaptivePrefetch() {
+        JmsDefaultPrefetchPolicy policy = new JmsDefaultPrefetchPolicy();
+        JmsTopic topic = new JmsTopic("test");
+
+        assertFalse(policy.isAdaptive());
+        assertFalse(policy.isAdaptivePrefetch(null, topic, false, false));
+
+        policy.setAdaptive(true);
+
+        assertTrue(policy.isAdaptive());
+        assertTrue(policy.isAdaptivePrefetch(null, topic, false, false));
+        assertEquals(JmsDefaultPrefetchPolicy.DEFAULT_TOPIC_PREFETCH, policy.getConfiguredPrefetch(null, topic, false, false));
     }
 
     @Test
@@ -127,11 +165,20 @@ public class JmsDefaultPrefetchPolicyTest {
         policy5.setDurableTopicPrefetch(10);
         JmsDefaultPrefetchPolicy policy6 = new JmsDefaultPrefetchPolicy();
         policy6.setQueueBrowserPrefetch(10);
+        JmsDefaultPrefetchPolicy policy7 = new JmsDefaultPrefetchPolicy();
+        policy7.setAdaptive(true);
+        JmsDefaultPrefetchPolicy policy8 = new JmsDefaultPrefetchPolicy();
+        policy8.setConsumerPrefetchBytes(1024);
+        JmsDefaultPrefetchPolicy policy9 = new JmsDefaultPrefetchPolicy();
+        policy9.setConnectionPrefetchBytes(1024);
 
         assertFalse(policy1.equals(policy3));
         assertFalse(policy1.equals(policy4));
         assertFalse(policy1.equals(policy5));
         assertFalse(policy1.equals(policy6));
+        assertFalse(policy1.equals(policy7));
+        assertFalse(policy1.equals(policy8));
+        assertFalse(policy1.equals(policy9));
 
         assertFalse(policy1.equals(null));
         assertFalse(policy1.equals(""));
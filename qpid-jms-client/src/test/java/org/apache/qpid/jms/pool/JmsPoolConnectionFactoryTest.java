@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.Test;
+
+/**
+ * Tests for the pool management of the JmsPoolConnectionFactory
+ */
+public class JmsPoolConnectionFactoryTest extends QpidJmsTestCase {
+
+    @Test(timeout = 20000)
+    public void testConcurrentBorrowersDoNotExceedMaxConnections() throws Exception {
+        final int MAX_CONNECTIONS = 2;
+        final int BORROWERS = 10;
+
+        final AtomicInteger created = new AtomicInteger();
+
+        JmsConnectionFactory factory = mock(JmsConnectionFactory.class);
+        when(factory.createConnection(any(), any())).thenAnswer(invocation -> {
+            created.incrementAndGet();
+
+            // Opening a connection takes a while, giving the other borrowers time to arrive.
+            Thread.sleep(100);
+            return mock(JmsConnection.class);
+        });
+
+        try (JmsPoolConnectionFactory pool = new JmsPoolConnectionFactory(factory)) {
+            pool.setMaxConnections(MAX_CONNECTIONS);
+            pool.setConnectionIdleTimeout(0);
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(BORROWERS);
+            final AtomicInteger largestPool = new AtomicInteger();
+            final AtomicReference<Throwable> problem = new AtomicReference<>();
+
+            for (int i = 0; i < BORROWERS; ++i) {
+                Thread borrower = new Thread(() -> {
+                    try {
+                        start.await();
+                        Connection connection = pool.createConnection("user", "pass");
+                        largestPool.accumulateAndGet(pool.getConnectionCount(), Math::max);
+                        connection.close();
+                    } catch (InterruptedException | JMSException e) {
+                        problem.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+
+                borrower.start();
+            }
+
+            start.countDown();
+            assertTrue("Borrowers should have completed", done.await(10, TimeUnit.SECONDS));
+
+            assertNull("Borrowers should not have failed: " + problem.get(), problem.get());
+            assertEquals(MAX_CONNECTIONS, created.get());
+            assertEquals(MAX_CONNECTIONS, pool.getConnectionCount());
+            assertTrue("Pool grew to " + largestPool.get(), largestPool.get() <= MAX_CONNECTIONS);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testFailedConnectionReleasesReservedSlot() throws Exception {
+        JmsConnectionFactory factory = mock(JmsConnectionFactory.class);
+        when(factory.createConnection(any(), any()))
+            .thenThrow(new JMSException("Connection refused"))
+            .thenReturn(mock(JmsConnection.class));
+
+        try (JmsPoolConnectionFactory pool = new JmsPoolConnectionFactory(factory)) {
+            pool.setConnectionIdleTimeout(0);
+
+            try {
+                pool.createConnection("user", "pass");
+            } catch (JMSException e) {
+                // Expected
+            }
+
+            // The slot reserved for the failed attempt must be free for the next one.
+            pool.createConnection("user", "pass");
+            assertEquals(1, pool.getConnectionCount());
+        }
+    }
+}
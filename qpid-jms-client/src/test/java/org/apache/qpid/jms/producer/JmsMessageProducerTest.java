@@ -18,6 +18,7 @@ package org.apache.qpid.jms.producer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -444,6 +445,51 @@ public class JmsMessageProducerTest extends JmsConnectionTestSupport {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testBatchSendThrowsMFEWhenNullMessageProvided() throws Exception {
+        JmsDestination dest = new JmsQueue("explicitDestination");
+        JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(dest);
+
+        try {
+            producer.send((List<Message>) null);
+            fail("Expected exception not thrown");
+        } catch (MessageFormatException mfe) {
+            // expected
+        }
+
+        List<Message> messages = new ArrayList<>();
+        messages.add(session.createMessage());
+        messages.add(null);
+
+        try {
+            producer.send(messages);
+            fail("Expected exception not thrown");
+        } catch (MessageFormatException mfe) {
+            // expected
+        }
+
+        assertNull(remotePeer.getLastReceivedMessage());
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchSendDeliversMessagesInOrder() throws Exception {
+        JmsDestination dest = new JmsQueue("explicitDestination");
+        JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(dest);
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            Message message = session.createMessage();
+            message.setIntProperty("sequence", i);
+            messages.add(message);
+        }
+
+        producer.send(messages);
+
+        JmsOutboundMessageDispatch last = remotePeer.getLastReceivedMessage();
+        assertNotNull(last);
+        assertEquals(2, last.getMessage().getIntProperty("sequence"));
+    }
+
     @Test(timeout = 10000)
     public void testInOrderSendAcksCompletionsReturnInOrder() throws Exception {
         final int MESSAGE_COUNT = 3;
@@ -102,4 +102,19 @@ public class ProviderFutureFactoryTest {
 
         assertTrue(future instanceof ProgressiveProviderFuture);
     }
+
+    @Test
+    public void testCreateParkingFactoryFromConfiguration() {
+        Map<String, String> options = new HashMap<>();
+
+        options.put(ProviderFutureFactory.PROVIDER_FUTURE_TYPE_KEY, "parking");
+
+        ProviderFutureFactory factory = ProviderFutureFactory.create(options);
+
+        ProviderFuture future = factory.createFuture();
+        assertNotNull(future);
+        assertFalse(future.isComplete());
+
+        assertTrue(future instanceof ParkingProviderFuture);
+    }
 }
@@ -43,7 +43,7 @@ public class ProviderFutureTest {
     @Parameters(name = "{index}: futureType={0}")
     public static Collection<Object> data() {
         return Arrays.asList(new Object[] {
-                 "conservative", "balanced", "progressive" }
+                 "conservative", "balanced", "progressive", "parking" }
            );
     }
 
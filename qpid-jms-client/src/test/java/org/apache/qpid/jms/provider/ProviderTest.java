@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
+import org.apache.qpid.jms.meta.JmsConsumerId;
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests for the default methods of the Provider interface.
+ */
+public class ProviderTest extends QpidJmsTestCase {
+
+    @Test(timeout = 30000)
+    public void testDefaultBatchSendSendsEachEnvelope() throws Exception {
+        Provider provider = mock(Provider.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> {
+            invocation.<AsyncResult>getArgument(1).onSuccess();
+            return null;
+        }).when(provider).send(any(JmsOutboundMessageDispatch.class), any(AsyncResult.class));
+
+        JmsOutboundMessageDispatch first = new JmsOutboundMessageDispatch();
+        JmsOutboundMessageDispatch second = new JmsOutboundMessageDispatch();
+        AsyncResult request = mock(AsyncResult.class);
+
+        provider.send(Arrays.asList(first, second), request);
+
+        verify(provider).send(Mockito.same(first), any(AsyncResult.class));
+        verify(provider).send(Mockito.same(second), any(AsyncResult.class));
+        verify(request, times(1)).onSuccess();
+        verify(request, never()).onFailure(any(Throwable.class));
+
+        assertTrue(first.isSendComplete());
+        assertTrue(second.isSendComplete());
+    }
+
+    @Test(timeout = 30000)
+    public void testDefaultBatchSendFailsOnFirstFailedSend() throws Exception {
+        Provider provider = mock(Provider.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> {
+            invocation.<AsyncResult>getArgument(1).onFailure(new IOException("Send failed"));
+            return null;
+        }).when(provider).send(any(JmsOutboundMessageDispatch.class), any(AsyncResult.class));
+
+        JmsOutboundMessageDispatch first = new JmsOutboundMessageDispatch();
+        JmsOutboundMessageDispatch second = new JmsOutboundMessageDispatch();
+        AsyncResult request = mock(AsyncResult.class);
+
+        provider.send(Arrays.asList(first, second), request);
+
+        // The batch ends at the failed send, the remaining envelope is never sent.
+        verify(provider).send(Mockito.same(first), any(AsyncResult.class));
+        verify(provider, never()).send(Mockito.same(second), any(AsyncResult.class));
+        verify(request, times(1)).onFailure(any(IOException.class));
+        verify(request, never()).onSuccess();
+
+        assertFalse(first.isSendComplete());
+    }
+
+    @Test(timeout = 30000)
+    public void testDefaultGrantCreditPullsEachMessage() throws Exception {
+        Provider provider = mock(Provider.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> {
+            invocation.<AsyncResult>getArgument(2).onSuccess();
+            return null;
+        }).when(provider).pull(any(JmsConsumerId.class), anyLong(), any(AsyncResult.class));
+
+        JmsConsumerId consumerId = new JmsConsumerId("ID:TEST", 1, 1);
+        AsyncResult request = mock(AsyncResult.class);
+
+        provider.grantCredit(consumerId, 3, request);
+
+        verify(provider, times(3)).pull(eq(consumerId), eq(-1L), any(AsyncResult.class));
+        verify(request, times(1)).onSuccess();
+        verify(request, never()).onFailure(any(Throwable.class));
+    }
+
+    @Test(timeout = 30000)
+    public void testDefaultGrantCreditFailsWithFailedPull() throws Exception {
+        Provider provider = mock(Provider.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> {
+            invocation.<AsyncResult>getArgument(2).onFailure(new IOException("Pull failed"));
+            return null;
+        }).when(provider).pull(any(JmsConsumerId.class), anyLong(), any(AsyncResult.class));
+
+        JmsConsumerId consumerId = new JmsConsumerId("ID:TEST", 1, 1);
+        AsyncResult request = mock(AsyncResult.class);
+
+        provider.grantCredit(consumerId, 3, request);
+
+        verify(provider, times(1)).pull(eq(consumerId), eq(-1L), any(AsyncResult.class));
+        verify(request, times(1)).onFailure(any(IOException.class));
+        verify(request, never()).onSuccess();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.amqp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for the AMQP adaptive credit window
+ */
+public class AmqpCreditWindowTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testCreate() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+        assertEquals(AmqpCreditWindow.DEFAULT_INITIAL_WINDOW, window.getWindow());
+        assertEquals(1000, window.getMaximum());
+        assertEquals(-1, window.getRoundTrip());
+    }
+
+    @Test
+    public void testInitialWindowLimitedByMaximum() {
+        AmqpCreditWindow window = new AmqpCreditWindow(5);
+        assertEquals(5, window.getWindow());
+    }
+
+    @Test
+    public void testCreateWithInvalidMaximum() {
+        try {
+            new AmqpCreditWindow(0);
+            fail("Should not be able to create a window with no credit");
+        } catch (IllegalArgumentException iae) {
+        }
+    }
+
+    @Test
+    public void testRoundTripOnlySampledOnceRemoteUsedUpItsCredit() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+
+        // Nothing is known of what the remote has to send when the first credit is granted
+        window.onCreditGranted(0, 0);
+        window.onMessageArrived(1 * MILLIS);
+        assertEquals(-1, window.getRoundTrip());
+
+        // The remote still holds credit, so it had nothing more to send
+        window.onCreditGranted(2, 2 * MILLIS);
+        window.onMessageArrived(50 * MILLIS);
+        assertEquals(-1, window.getRoundTrip());
+
+        window.onCreditGranted(0, 60 * MILLIS);
+        window.onMessageArrived(65 * MILLIS);
+        assertEquals(5 * MILLIS, window.getRoundTrip());
+    }
+
+    @Test
+    public void testRoundTripSampleCapped() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+
+        sampleRoundTrip(window, 4 * MILLIS);
+        assertEquals(4 * MILLIS, window.getRoundTrip());
+
+        // The link went idle as its credit ran out, the sample counts for no more than four round trips
+        window.onCreditGranted(0, 10 * MILLIS);
+        window.onMessageArrived(10010 * MILLIS);
+        assertEquals(5500000, window.getRoundTrip());
+    }
+
+    @Test
+    public void testRoundTripSmoothedAcrossSamples() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+
+        sampleRoundTrip(window, 4 * MILLIS);
+        assertEquals(4 * MILLIS, window.getRoundTrip());
+
+        // Each sample moves the estimate an eighth of the way towards it
+        window.onCreditGranted(0, 10 * MILLIS);
+        window.onMessageArrived(12 * MILLIS);
+        assertEquals(3750000, window.getRoundTrip());
+
+        window.onCreditGranted(0, 20 * MILLIS);
+        window.onMessageArrived(30 * MILLIS);
+        assertEquals(4531250, window.getRoundTrip());
+    }
+
+    @Test
+    public void testWindowGrowsWhenRoundTripIncreases() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000, 1000);
+
+        sampleRoundTrip(window, MILLIS);
+
+        // Twenty messages per round trip of one millisecond
+        long now = MILLIS;
+        for (int i = 0; i < 5000; ++i) {
+            now += MILLIS / 20;
+            window.onMessageConsumed(now);
+        }
+
+        assertEquals(40, window.getWindow());
+
+        // The remote peer slows down to ten milliseconds a round trip
+        for (int i = 0; i < 50; ++i) {
+            window.onCreditGranted(0, now);
+            now += 10 * MILLIS;
+            window.onMessageArrived(now);
+        }
+
+        assertTrue(window.getRoundTrip() > 9 * MILLIS);
+
+        // The same consume rate now needs ten times the credit to cover two round trips
+        for (int i = 0; i < 5000; ++i) {
+            now += MILLIS / 20;
+            window.onMessageConsumed(now);
+        }
+
+        assertEquals(400, window.getWindow());
+    }
+
+    @Test
+    public void testWindowUnchangedUntilRoundTripMeasured() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+
+        long now = 0;
+        for (int i = 0; i < 100; ++i) {
+            window.onMessageConsumed(now++);
+        }
+
+        assertEquals(AmqpCreditWindow.DEFAULT_INITIAL_WINDOW, window.getWindow());
+    }
+
+    @Test
+    public void testWindowGrowsForFastConsumer() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000);
+
+        sampleRoundTrip(window, MILLIS);
+
+        // Consumes a full window every round trip, so the window doubles each time it is evaluated.
+        long now = MILLIS;
+        while (window.getWindow() < 1000) {
+            int current = window.getWindow();
+            now += MILLIS / current;
+            window.onMessageConsumed(now);
+
+            if (window.getWindow() != current) {
+                assertEquals(Math.min(1000, current * 2), window.getWindow());
+            }
+        }
+
+        assertEquals(1000, window.getWindow());
+    }
+
+    @Test
+    public void testWindowShrinksForSlowConsumer() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000, 1000);
+
+        sampleRoundTrip(window, MILLIS);
+
+        // One message every ten round trips needs no more than a single credit.
+        long now = MILLIS;
+        for (int i = 0; i < 2000; ++i) {
+            now += 10 * MILLIS;
+            window.onMessageConsumed(now);
+        }
+
+        assertEquals(1, window.getWindow());
+    }
+
+    @Test
+    public void testWindowSettlesOnConsumeRate() {
+        AmqpCreditWindow window = new AmqpCreditWindow(1000, 1000);
+
+        sampleRoundTrip(window, MILLIS);
+
+        // Twenty messages per round trip, the window should hold two round trips worth.
+        long now = MILLIS;
+        for (int i = 0; i < 5000; ++i) {
+            now += MILLIS / 20;
+            window.onMessageConsumed(now);
+        }
+
+        assertEquals(40, window.getWindow());
+    }
+
+    private static void sampleRoundTrip(AmqpCreditWindow window, long roundTrip) {
+        // The initial grant is never sampled, the round trip is measured against the next one.
+        window.onCreditGranted(0, 0);
+        window.onCreditGranted(0, 0);
+        window.onMessageArrived(roundTrip);
+    }
+}
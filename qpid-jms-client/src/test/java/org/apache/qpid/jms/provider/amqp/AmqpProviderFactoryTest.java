@@ -17,6 +17,7 @@
 package org.apache.qpid.jms.provider.amqp;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -129,6 +130,65 @@ public class AmqpProviderFactoryTest extends QpidJmsTestCase {
         assertEquals(32, amqpProvider.getChannelMax());
     }
 
+    @Test(timeout = 20000)
+    public void testCreateProviderAppliesFlushOptions() throws IOException, Exception {
+        URI configuredURI = new URI(peerURI.toString() +
+            "?amqp.flushMode=timed" +
+            "&amqp.flushDelay=250" +
+            "&amqp.maxWriteBytesBeforeFlush=4096");
+        Provider provider = AmqpProviderFactory.create(configuredURI);
+        assertNotNull(provider);
+        assertTrue(provider instanceof AmqpProvider);
+
+        AmqpProvider amqpProvider = (AmqpProvider) provider;
+
+        assertEquals("TIMED", amqpProvider.getFlushMode());
+        assertEquals(250, amqpProvider.getFlushDelay());
+        assertEquals(4096, amqpProvider.getMaxWriteBytesBeforeFlush());
+    }
+
+    @Test(timeout = 20000)
+    public void testCreateProviderAppliesZeroCopyOutputOption() throws IOException, Exception {
+        Provider provider = AmqpProviderFactory.create(new URI(peerURI.toString()));
+        assertFalse(((AmqpProvider) provider).isZeroCopyOutput());
+
+        provider = AmqpProviderFactory.create(new URI(peerURI.toString() + "?amqp.zeroCopyOutput=true"));
+        assertTrue(((AmqpProvider) provider).isZeroCopyOutput());
+    }
+
+    @Test(timeout = 20000)
+    public void testCreateProviderAppliesAckBatchOptions() throws IOException, Exception {
+        Provider provider = AmqpProviderFactory.create(new URI(peerURI.toString()));
+        assertEquals(0, ((AmqpProvider) provider).getAckBatchSize());
+
+        URI configuredURI = new URI(peerURI.toString() +
+            "?amqp.ackBatchSize=64" +
+            "&amqp.ackBatchDelay=20");
+        provider = AmqpProviderFactory.create(configuredURI);
+
+        AmqpProvider amqpProvider = (AmqpProvider) provider;
+
+        assertEquals(64, amqpProvider.getAckBatchSize());
+        assertEquals(20, amqpProvider.getAckBatchDelay());
+    }
+
+    @Test(timeout = 20000)
+    public void testCreateProviderAppliesDispatchThreadsOption() throws IOException, Exception {
+        Provider provider = AmqpProviderFactory.create(new URI(peerURI.toString()));
+        assertEquals(0, ((AmqpProvider) provider).getDispatchThreads());
+
+        URI configuredURI = new URI(peerURI.toString() + "?amqp.dispatchThreads=4");
+        provider = AmqpProviderFactory.create(configuredURI);
+
+        assertEquals(4, ((AmqpProvider) provider).getDispatchThreads());
+    }
+
+    @Test(timeout = 20000, expected=IllegalArgumentException.class)
+    public void testCreateProviderFailsWithBadFlushMode() throws IOException, Exception {
+        URI badOptionsURI = new URI(peerURI.toString() + "?amqp.flushMode=sometimes");
+        AmqpProviderFactory.create(badOptionsURI);
+    }
+
     @Test(timeout = 20000)
     public void testCreateProviderEncodedVhost() throws IOException, Exception {
         URI configuredURI = new URI(peerURI.toString() +
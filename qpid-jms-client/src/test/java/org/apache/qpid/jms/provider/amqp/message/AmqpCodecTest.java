@@ -25,6 +25,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -60,7 +61,10 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.messaging.AmqpSequence;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.DeliveryAnnotations;
+import org.apache.qpid.proton.amqp.messaging.Footer;
 import org.apache.qpid.proton.amqp.messaging.Header;
 import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.message.Message;
@@ -70,6 +74,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 
 public class AmqpCodecTest extends QpidJmsTestCase {
 
@@ -975,6 +981,158 @@ public class AmqpCodecTest extends QpidJmsTestCase {
         }
     }
 
+    //----- Deferred section decoding ---------------------------------------//
+
+    @Test
+    public void testDecodeMessageDefersDecodingOfSkippableSections() throws Exception {
+        Map<Symbol, Object> deliveryAnnotations = new HashMap<>();
+        deliveryAnnotations.put(Symbol.valueOf("da"), "delivery-annotation");
+        Map<Symbol, Object> messageAnnotations = new HashMap<>();
+        messageAnnotations.put(AmqpMessageSupport.JMS_MSG_TYPE, AmqpMessageSupport.JMS_TEXT_MESSAGE);
+        Map<String, Object> applicationProperties = new HashMap<>();
+        applicationProperties.put("property", "value");
+        Map<Symbol, Object> footer = new HashMap<>();
+        footer.put(Symbol.valueOf("f"), "footer");
+
+        MessageImpl message = (MessageImpl) Message.Factory.create();
+        message.setDeliveryAnnotations(new DeliveryAnnotations(deliveryAnnotations));
+        message.setMessageAnnotations(new MessageAnnotations(messageAnnotations));
+        message.setApplicationProperties(new ApplicationProperties(applicationProperties));
+        message.setBody(new AmqpValue("content"));
+        message.setFooter(new Footer(footer));
+
+        AmqpJmsMessageFacade facade = AmqpCodec.decodeMessage(mockConsumer, encodeMessage(message));
+        assertEquals("Unexpected facade class type", AmqpJmsTextMessageFacade.class, facade.getClass());
+
+        assertTrue(facade.hasBody());
+        assertEquals("value", facade.getApplicationProperty("property"));
+        assertEquals("content", ((AmqpJmsTextMessageFacade) facade).getText());
+        assertEquals("delivery-annotation", facade.getDeliveryAnnotations().getValue().get(Symbol.valueOf("da")));
+        assertEquals("footer", facade.getFooter().getValue().get(Symbol.valueOf("f")));
+    }
+
+    @Test
+    public void testCopyOfDecodedMessageContainsDeferredSections() throws Exception {
+        Map<String, Object> applicationProperties = new HashMap<>();
+        applicationProperties.put("property", "value");
+        Map<String, Object> mapBody = new HashMap<>();
+        mapBody.put("key", "entry");
+        Map<Symbol, Object> messageAnnotations = new HashMap<>();
+        messageAnnotations.put(AmqpMessageSupport.JMS_MSG_TYPE, AmqpMessageSupport.JMS_MAP_MESSAGE);
+
+        MessageImpl message = (MessageImpl) Message.Factory.create();
+        message.setMessageAnnotations(new MessageAnnotations(messageAnnotations));
+        message.setApplicationProperties(new ApplicationProperties(applicationProperties));
+        message.setBody(new AmqpValue(mapBody));
+
+        AmqpJmsMapMessageFacade facade = (AmqpJmsMapMessageFacade) AmqpCodec.decodeMessage(mockConsumer, encodeMessage(message));
+        AmqpJmsMapMessageFacade copy = facade.copy();
+
+        assertEquals("value", copy.getApplicationProperty("property"));
+        assertEquals("entry", copy.get("key"));
+        assertEquals("entry", facade.get("key"));
+    }
+
+    //----- Encode buffer sizing -------------------------------------------//
+
+    @Test
+    public void testEncodeMessageSizesBufferFromPreviousEncoding() throws Exception {
+        AmqpJmsBytesMessageFacade message = (AmqpJmsBytesMessageFacade) createMessageFacadeFromTypeId(AmqpMessageSupport.JMS_BYTES_MESSAGE);
+        message.setDestination(new JmsQueue("test"));
+        message.setBody(new Data(new Binary(new byte[8192])));
+
+        ByteBuf first = AmqpCodec.encodeMessage(message);
+        assertEquals(1, first.refCnt());
+        int encodedSize = first.readableBytes();
+        assertTrue(encodedSize > 8192);
+        first.release();
+
+        ByteBuf second = AmqpCodec.encodeMessage(message);
+        assertEquals(encodedSize, second.readableBytes());
+        assertEquals("Buffer should have been sized from the previous encoding", encodedSize, second.capacity());
+        second.release();
+    }
+
+    //----- Encoded section reuse -------------------------------------------//
+
+    @Test
+    public void testEncodeMessageReusesSectionsOfUnmodifiedMessage() throws Exception {
+        AmqpJmsTextMessageFacade message = (AmqpJmsTextMessageFacade) createMessageFacadeFromTypeId(AmqpMessageSupport.JMS_TEXT_MESSAGE);
+        message.setDestination(new JmsQueue("first"));
+        message.setApplicationProperty("property", "value");
+        message.setText("body");
+
+        ByteBuf first = AmqpCodec.encodeMessage(message);
+        assertFalse(first instanceof CompositeByteBuf);
+        assertNull(message.getSectionsEncodingCache());
+        first.release();
+
+        message.setDestination(new JmsQueue("second"));
+
+        ByteBuf second = AmqpCodec.encodeMessage(message);
+        assertTrue(second instanceof CompositeByteBuf);
+        ByteBuf sections = message.getSectionsEncodingCache();
+        assertNotNull(sections);
+
+        MessageImpl amqpMessage = (MessageImpl) AmqpMessageSupport.decodeMessage(Unpooled.copiedBuffer(second));
+        second.release();
+
+        assertEquals("second", amqpMessage.getAddress());
+        assertEquals("value", amqpMessage.getApplicationProperties().getValue().get("property"));
+        assertEquals("body", ((AmqpValue) amqpMessage.getBody()).getValue());
+
+        ByteBuf third = AmqpCodec.encodeMessage(message);
+        assertSame(sections, message.getSectionsEncodingCache());
+        third.release();
+
+        assertEquals(1, sections.refCnt());
+    }
+
+    @Test
+    public void testEncodeMessageDoesNotReuseSectionsAfterModification() throws Exception {
+        AmqpJmsTextMessageFacade message = (AmqpJmsTextMessageFacade) createMessageFacadeFromTypeId(AmqpMessageSupport.JMS_TEXT_MESSAGE);
+        message.setDestination(new JmsQueue("test"));
+        message.setText("body");
+
+        AmqpCodec.encodeMessage(message).release();
+        AmqpCodec.encodeMessage(message).release();
+        assertNotNull(message.getSectionsEncodingCache());
+
+        message.setText("changed");
+        assertNull(message.getSectionsEncodingCache());
+
+        ByteBuf encoded = AmqpCodec.encodeMessage(message);
+        assertFalse(encoded instanceof CompositeByteBuf);
+        MessageImpl amqpMessage = (MessageImpl) AmqpMessageSupport.decodeMessage(encoded);
+        encoded.release();
+        assertEquals("changed", ((AmqpValue) amqpMessage.getBody()).getValue());
+
+        AmqpCodec.encodeMessage(message).release();
+        assertNotNull(message.getSectionsEncodingCache());
+
+        message.setApplicationProperty("property", "value");
+        assertNull(message.getSectionsEncodingCache());
+
+        encoded = AmqpCodec.encodeMessage(message);
+        amqpMessage = (MessageImpl) AmqpMessageSupport.decodeMessage(encoded);
+        encoded.release();
+        assertEquals("value", amqpMessage.getApplicationProperties().getValue().get("property"));
+    }
+
+    @Test
+    public void testMapMessageBodyUpdateDiscardsReusedSections() throws Exception {
+        AmqpJmsMapMessageFacade message = (AmqpJmsMapMessageFacade) createMessageFacadeFromTypeId(AmqpMessageSupport.JMS_MAP_MESSAGE);
+        message.setDestination(new JmsQueue("test"));
+        message.put("key", "value");
+
+        AmqpCodec.encodeMessage(message).release();
+        AmqpCodec.encodeMessage(message).release();
+        assertNotNull(message.getSectionsEncodingCache());
+
+        message.put("other", "value");
+        assertNull(message.getSectionsEncodingCache());
+    }
+
     private JmsDestination createDestinationFromTypeId(byte destinationType) {
         final JmsDestination destination;
         switch (destinationType) {
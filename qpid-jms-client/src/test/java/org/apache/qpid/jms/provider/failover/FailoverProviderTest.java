@@ -48,6 +48,7 @@ import org.apache.qpid.jms.meta.JmsSessionInfo;
 import org.apache.qpid.jms.provider.DefaultProviderListener;
 import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.provider.ProviderFutureFactory;
+import org.apache.qpid.jms.provider.mock.MockProvider;
 import org.apache.qpid.jms.test.Wait;
 import org.junit.After;
 import org.junit.Before;
@@ -193,6 +194,120 @@ public class FailoverProviderTest extends FailoverProviderTestSupport {
         assertEquals(1, mockPeer.getContextStats().getConnectionAttempts());
     }
 
+    @Test(timeout = 30000)
+    public void testHotStandbyPromotedOnConnectionFailure() throws Exception {
+        provider = new FailoverProvider(uris, Collections.<String, String>emptyMap(), futuresFactory);
+        provider.setHotStandby(true);
+        provider.setProviderListener(new DefaultProviderListener());
+        provider.connect(connection);
+
+        ProviderFuture request = provider.newProviderFuture();
+        provider.create(createConnectionInfo(), request);
+        request.sync(10, TimeUnit.SECONDS);
+
+        assertTrue("Standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 2, 10000, 10));
+
+        final URI activeURI = provider.getRemoteURI();
+        final MockProvider standby = mockPeer.getLastRegistered();
+        assertFalse(activeURI.equals(standby.getRemoteURI()));
+
+        mockPeer.getConnectedProvider(activeURI).signalConnectionFailed();
+
+        assertTrue("Standby should have been promoted", Wait.waitFor(
+            () -> standby.getRemoteURI().equals(provider.getRemoteURI()), 10000, 10));
+        assertTrue("A new standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 3, 10000, 10));
+
+        assertEquals(3, mockPeer.getContextStats().getProvidersCreated());
+    }
+
+    @Test(timeout = 30000)
+    public void testHotStandbyReplacedWhenLost() throws Exception {
+        provider = new FailoverProvider(uris, Collections.<String, String>emptyMap(), futuresFactory);
+        provider.setHotStandby(true);
+        provider.setProviderListener(new DefaultProviderListener());
+        provider.connect(connection);
+
+        ProviderFuture request = provider.newProviderFuture();
+        provider.create(createConnectionInfo(), request);
+        request.sync(10, TimeUnit.SECONDS);
+
+        assertTrue("Standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 2, 10000, 10));
+
+        final URI activeURI = provider.getRemoteURI();
+        mockPeer.getLastRegistered().signalConnectionFailed();
+
+        assertTrue("A new standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 3, 10000, 10));
+
+        assertEquals(activeURI, provider.getRemoteURI());
+    }
+
+    @Test(timeout = 30000)
+    public void testHotStandbyReplacementConnectsToNextRemote() throws Exception {
+        provider = new FailoverProvider(uris, Collections.<String, String>emptyMap(), futuresFactory);
+        provider.setHotStandby(true);
+        provider.setProviderListener(new DefaultProviderListener());
+        provider.connect(connection);
+
+        ProviderFuture request = provider.newProviderFuture();
+        provider.create(createConnectionInfo(), request);
+        request.sync(10, TimeUnit.SECONDS);
+
+        assertTrue("Standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 2, 10000, 10));
+
+        final MockProvider lost = mockPeer.getLastRegistered();
+        lost.signalConnectionFailed();
+
+        assertTrue("A new standby should have connected", Wait.waitFor(
+            () -> mockPeer.getContextStats().getConnectionAttempts() == 3, 10000, 10));
+
+        URI replacementURI = mockPeer.getLastRegistered().getRemoteURI();
+        assertFalse(replacementURI.equals(lost.getRemoteURI()));
+        assertFalse(replacementURI.equals(provider.getRemoteURI()));
+    }
+
+    @Test(timeout = 30000)
+    public void testRacingConnectAttemptsClosesLosers() throws Exception {
+        provider = new FailoverProvider(uris, Collections.<String, String>emptyMap(), futuresFactory);
+        provider.setRacingConnectAttempts(uris.size());
+        provider.setProviderListener(new DefaultProviderListener());
+        provider.connect(connection);
+
+        ProviderFuture request = provider.newProviderFuture();
+        provider.create(createConnectionInfo(), request);
+        request.sync(10, TimeUnit.SECONDS);
+
+        assertNotNull(provider.getRemoteURI());
+        assertTrue("Losing attempts should have been closed", Wait.waitFor(
+            () -> mockPeer.getContextStats().getCloseAttempts() == uris.size() - 1, 10000, 10));
+
+        assertEquals(uris.size(), mockPeer.getContextStats().getProvidersCreated());
+        assertEquals(uris.size(), mockPeer.getContextStats().getConnectionAttempts());
+    }
+
+    @Test(timeout = 30000)
+    public void testRacingConnectAttemptsSkipsFailedRemotes() throws Exception {
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://192.168.2.1?mock.failOnConnect=true," +
+                      "mock://192.168.2.2?mock.failOnConnect=true," +
+                      "mock://192.168.2.3)" +
+                      "?failover.racingConnectAttempts=3");
+
+        Connection connection = factory.createConnection();
+        connection.start();
+        connection.close();
+
+        assertTrue("All attempts should have been closed", Wait.waitFor(
+            () -> mockPeer.getContextStats().getCloseAttempts() == 3, 10000, 10));
+
+        assertEquals(3, mockPeer.getContextStats().getProvidersCreated());
+        assertEquals(3, mockPeer.getContextStats().getConnectionAttempts());
+    }
+
     @Test(timeout = 30000)
     public void testCannotStartWithoutListener() throws Exception {
         provider = new FailoverProvider(uris, Collections.<String, String>emptyMap(), futuresFactory);
@@ -467,6 +582,28 @@ public class FailoverProviderTest extends FailoverProviderTestSupport {
         assertEquals(action, provider.getAmqpOpenServerListAction());
     }
 
+    @Test(timeout = 30000)
+    public void testSetGetSelectionStrategy() {
+        provider = new FailoverProvider(uris, Collections.emptyMap(), futuresFactory);
+        assertEquals("ROUND_ROBIN", provider.getSelectionStrategy());
+
+        provider.setSelectionStrategy("weighted");
+        assertEquals("WEIGHTED", provider.getSelectionStrategy());
+    }
+
+    @Test(timeout = 30000)
+    public void testSetGetSendJournal() {
+        provider = new FailoverProvider(uris, Collections.emptyMap(), futuresFactory);
+        assertNull(provider.getSendJournal());
+        assertEquals(FailoverProvider.DEFAULT_SEND_JOURNAL_SIZE, provider.getSendJournalSize());
+
+        provider.setSendJournal("/tmp/send.journal");
+        provider.setSendJournalSize(FailoverSendJournal.MINIMUM_SIZE);
+
+        assertEquals("/tmp/send.journal", provider.getSendJournal());
+        assertEquals(FailoverSendJournal.MINIMUM_SIZE, provider.getSendJournalSize());
+    }
+
     @Test(timeout = 30000)
     public void testSetInvalidAmqpOpenServerListActionThrowsIAE() {
         provider = new FailoverProvider(uris, Collections.emptyMap(), futuresFactory);
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.failover;
+
+import static org.apache.qpid.jms.provider.amqp.AmqpSupport.ANONYMOUS_RELAY;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.qpid.jms.JmsConnection;
+import org.apache.qpid.jms.JmsConnectionFactory;
+import org.apache.qpid.jms.JmsDefaultConnectionListener;
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.apache.qpid.jms.test.testpeer.TestAmqpPeer;
+import org.apache.qpid.jms.test.testpeer.matchers.TargetMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageAnnotationsSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageHeaderSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessagePropertiesSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.TransferPayloadCompositeMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.types.EncodedAmqpValueMatcher;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for journaled sends made through the FailoverProvider and AMQP producer
+ */
+public class FailoverSendJournalIntegrationTest extends QpidJmsTestCase {
+
+    private File journalFile;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        journalFile = File.createTempFile(getTestName(), ".journal");
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        journalFile.delete();
+        super.tearDown();
+    }
+
+    @Test(timeout = 20000)
+    public void testSettledSendIsNotReplayedAfterReconnect() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer finalPeer = new TestAmqpPeer();) {
+
+            expectConnection(originalPeer);
+            originalPeer.expectBegin();
+            originalPeer.expectSenderAttach();
+            originalPeer.expectTransfer(textMessage("first"));
+            originalPeer.dropAfterLastHandler();
+
+            // Only the producer is recovered, the accepted send was settled in the journal.
+            expectConnection(finalPeer);
+            finalPeer.expectBegin();
+            finalPeer.expectSenderAttach();
+
+            final CountDownLatch restored = new CountDownLatch(1);
+            JmsConnection connection = establishConnecton(originalPeer, finalPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    restored.countDown();
+                }
+            });
+            connection.start();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("first"));
+
+            originalPeer.waitForAllHandlersToComplete(2000);
+
+            assertTrue("Should restore connection to final peer", restored.await(5, TimeUnit.SECONDS));
+
+            finalPeer.expectTransfer(textMessage("second"));
+            producer.send(session.createTextMessage("second"));
+
+            finalPeer.waitForAllHandlersToComplete(2000);
+
+            finalPeer.expectClose();
+            connection.close();
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+
+            assertEquals(0, countUnsettledSends());
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testUnsettledSendReplayedAfterReconnect() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer finalPeer = new TestAmqpPeer();) {
+
+            expectConnection(originalPeer);
+            originalPeer.expectBegin();
+            originalPeer.expectSenderAttach();
+            originalPeer.expectTransferButDoNotRespond(textMessage("first"));
+            originalPeer.dropAfterLastHandler();
+
+            expectConnection(finalPeer);
+            finalPeer.expectBegin();
+            finalPeer.expectSenderAttach();
+            expectReplay(finalPeer, "first");
+
+            JmsConnection connection = establishConnecton(originalPeer, finalPeer);
+            connection.start();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("first"));
+
+            originalPeer.waitForAllHandlersToComplete(2000);
+            finalPeer.waitForAllHandlersToComplete(5000);
+
+            // The replayed send must be sent before those the producer makes after recovery.
+            finalPeer.expectTransfer(textMessage("second"));
+            producer.send(session.createTextMessage("second"));
+
+            finalPeer.waitForAllHandlersToComplete(2000);
+
+            finalPeer.expectClose();
+            connection.close();
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+
+            assertEquals(0, countUnsettledSends());
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testUnsettledSendReplayedByNewConnection() throws Exception {
+        try (TestAmqpPeer firstPeer = new TestAmqpPeer();
+             TestAmqpPeer secondPeer = new TestAmqpPeer();) {
+
+            expectConnection(firstPeer);
+            firstPeer.expectBegin();
+            firstPeer.expectSenderAttach();
+            firstPeer.expectTransferButDoNotRespond(textMessage("first"));
+
+            JmsConnection connection = establishConnecton(firstPeer);
+            connection.start();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("first"));
+
+            firstPeer.waitForAllHandlersToComplete(2000);
+
+            firstPeer.expectClose();
+            connection.close();
+
+            firstPeer.waitForAllHandlersToComplete(1000);
+
+            assertEquals(1, countUnsettledSends());
+
+            // A later connection using the same journal resends what the first left unsettled.
+            expectConnection(secondPeer);
+            expectReplay(secondPeer, "first");
+
+            connection = establishConnecton(secondPeer);
+            connection.start();
+
+            secondPeer.waitForAllHandlersToComplete(5000);
+
+            secondPeer.expectClose();
+            connection.close();
+
+            secondPeer.waitForAllHandlersToComplete(1000);
+
+            assertEquals(0, countUnsettledSends());
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testSendThatTimesOutIsNotReplayed() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+
+            expectConnection(testPeer);
+            testPeer.expectBegin();
+            testPeer.expectSenderAttach();
+            testPeer.expectTransferButDoNotRespond(textMessage("first"));
+
+            JmsConnection connection = establishConnecton("jms.sendTimeout=500", testPeer);
+
+            final CountDownLatch failed = new CountDownLatch(1);
+            connection.setExceptionListener(exception -> failed.countDown());
+            connection.start();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+            producer.send(session.createTextMessage("first"));
+
+            assertTrue("Send should have timed out", failed.await(5, TimeUnit.SECONDS));
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // The timed out send has been reported to the application, it is not replayed.
+            assertEquals(0, countUnsettledSends());
+        }
+    }
+
+    private void expectConnection(TestAmqpPeer peer) {
+        peer.expectSaslAnonymous();
+        peer.expectOpen(null, new Symbol[] { ANONYMOUS_RELAY });
+        peer.expectBegin();
+    }
+
+    private void expectReplay(TestAmqpPeer peer, String text) {
+        TargetMatcher anonymousTarget = new TargetMatcher();
+        anonymousTarget.withAddress(nullValue());
+
+        peer.expectBegin();
+        peer.expectSenderAttach(anonymousTarget, false, false);
+        peer.expectTransfer(textMessage(text));
+        peer.expectDetach(true, true, true);
+        peer.expectEnd();
+    }
+
+    private int countUnsettledSends() throws Exception {
+        FailoverSendJournal journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+        try {
+            return journal.size();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private JmsConnection establishConnecton(TestAmqpPeer... peers) throws JMSException {
+        return establishConnecton(null, peers);
+    }
+
+    private JmsConnection establishConnecton(String params, TestAmqpPeer... peers) throws JMSException {
+        String remoteURI = "failover:(";
+        boolean first = true;
+        for (TestAmqpPeer peer : peers) {
+            if (!first) {
+                remoteURI += ",";
+            }
+            remoteURI += "amqp://localhost:" + peer.getServerPort();
+            first = false;
+        }
+
+        remoteURI += ")?failover.maxReconnectAttempts=10&jms.forceAsyncSend=true" +
+                     "&failover.sendJournal=" + journalFile.getAbsolutePath() +
+                     "&failover.sendJournalSize=" + FailoverSendJournal.MINIMUM_SIZE;
+        if (params != null) {
+            remoteURI += "&" + params;
+        }
+
+        Connection connection = new JmsConnectionFactory(remoteURI).createConnection();
+
+        return (JmsConnection) connection;
+    }
+
+    private TransferPayloadCompositeMatcher textMessage(String text) {
+        TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+        messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+        messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+        messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+        messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher(text));
+
+        return messageMatcher;
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.failover;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.qpid.jms.JmsQueue;
+import org.apache.qpid.jms.JmsTopic;
+import org.apache.qpid.jms.provider.failover.FailoverSendJournal.JournaledSend;
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Test for the behavior of the FailoverSendJournal
+ */
+public class FailoverSendJournalTest extends QpidJmsTestCase {
+
+    private File journalFile;
+    private FailoverSendJournal journal;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        journalFile = File.createTempFile(getTestName(), ".journal");
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+
+        journalFile.delete();
+        super.tearDown();
+    }
+
+    @Test
+    public void testSendNotReplayedUntilWritten() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+
+        assertEquals(1, journal.size());
+        assertTrue(journal.getUnsettled().isEmpty());
+
+        journal.markWritten("ID:1");
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(1, unsettled.size());
+        assertEquals("ID:1", unsettled.get(0).getMessageId());
+        assertEquals(new JmsQueue("queue"), unsettled.get(0).getDestination());
+        assertArrayEquals(bytes("one"), unsettled.get(0).getPayload());
+    }
+
+    @Test
+    public void testPayloadReaderIndexUnchanged() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        ByteBuf payload = payload("one");
+        journal.append("ID:1", new JmsQueue("queue"), payload);
+
+        assertEquals(0, payload.readerIndex());
+        assertEquals(3, payload.readableBytes());
+    }
+
+    @Test
+    public void testSettledSendsAreNotRecovered() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+        journal.markWritten("ID:1");
+        journal.settle("ID:1");
+
+        assertEquals(0, journal.size());
+        journal.close();
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+        assertEquals(0, journal.size());
+        assertTrue(journal.getUnsettled().isEmpty());
+    }
+
+    @Test
+    public void testUnsettledSendsRecoveredOnReopen() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+        journal.append("ID:2", new JmsTopic("topic"), payload("two"));
+        journal.append("ID:3", new JmsQueue("queue"), payload("three"));
+        journal.markWritten("ID:1");
+        journal.markWritten("ID:2");
+        journal.markWritten("ID:3");
+        journal.settle("ID:2");
+        journal.close();
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(2, unsettled.size());
+
+        assertEquals("ID:1", unsettled.get(0).getMessageId());
+        assertEquals(new JmsQueue("queue"), unsettled.get(0).getDestination());
+        assertArrayEquals(bytes("one"), unsettled.get(0).getPayload());
+
+        assertEquals("ID:3", unsettled.get(1).getMessageId());
+        assertEquals(new JmsQueue("queue"), unsettled.get(1).getDestination());
+        assertArrayEquals(bytes("three"), unsettled.get(1).getPayload());
+    }
+
+    @Test
+    public void testTopicDestinationRecovered() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsTopic("topic"), payload("one"));
+        journal.close();
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(1, unsettled.size());
+        assertEquals(new JmsTopic("topic"), unsettled.get(0).getDestination());
+    }
+
+    @Test
+    public void testCompactionMakesRoomForNewSends() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        byte[] large = new byte[1024];
+        journal.append("ID:kept", new JmsQueue("queue"), Unpooled.wrappedBuffer(large));
+        journal.markWritten("ID:kept");
+
+        // Far more data than the journal holds passes through while one send stays unsettled.
+        for (int i = 0; i < 32; ++i) {
+            String messageId = "ID:" + i;
+            journal.append(messageId, new JmsQueue("queue"), Unpooled.wrappedBuffer(large));
+            journal.markWritten(messageId);
+            journal.settle(messageId);
+        }
+
+        journal.append("ID:last", new JmsQueue("queue"), payload("last"));
+        journal.markWritten("ID:last");
+        journal.close();
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(2, unsettled.size());
+        assertEquals("ID:kept", unsettled.get(0).getMessageId());
+        assertArrayEquals(large, unsettled.get(0).getPayload());
+        assertEquals("ID:last", unsettled.get(1).getMessageId());
+        assertArrayEquals(bytes("last"), unsettled.get(1).getPayload());
+    }
+
+    @Test
+    public void testRecoveryStopsAtCorruptRecord() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+        journal.append("ID:2", new JmsQueue("queue"), payload("two"));
+        journal.append("ID:3", new JmsQueue("queue"), payload("three"));
+        journal.close();
+
+        // Damage the payload of the second send.
+        byte[] contents = Files.readAllBytes(journalFile.toPath());
+        int damaged = indexOf(contents, bytes("two"));
+        contents[damaged] = 'T';
+        Files.write(journalFile.toPath(), contents);
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(1, unsettled.size());
+        assertEquals("ID:1", unsettled.get(0).getMessageId());
+        assertArrayEquals(bytes("one"), unsettled.get(0).getPayload());
+
+        // The journal continues after the last good record.
+        journal.append("ID:4", new JmsQueue("queue"), payload("four"));
+        journal.close();
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        unsettled = journal.getUnsettled();
+        assertEquals(2, unsettled.size());
+        assertEquals("ID:1", unsettled.get(0).getMessageId());
+        assertEquals("ID:4", unsettled.get(1).getMessageId());
+    }
+
+    @Test
+    public void testRecoveryStopsAtTruncatedRecord() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+        journal.append("ID:2", new JmsQueue("queue"), payload("two"));
+        journal.close();
+
+        // Cut the file off part way through the payload of the second send.
+        byte[] contents = Files.readAllBytes(journalFile.toPath());
+        int truncated = indexOf(contents, bytes("two")) + 1;
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(truncated);
+        }
+
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        List<JournaledSend> unsettled = journal.getUnsettled();
+        assertEquals(1, unsettled.size());
+        assertEquals("ID:1", unsettled.get(0).getMessageId());
+        assertArrayEquals(bytes("one"), unsettled.get(0).getPayload());
+    }
+
+    @Test
+    public void testIncompleteCompactionLeavesJournalIntact() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+        journal.append("ID:2", new JmsQueue("queue"), payload("two"));
+        journal.settle("ID:1");
+        journal.close();
+
+        // A process that died mid compaction leaves a partly written file beside the journal.
+        File compacted = new File(journalFile.getPath() + ".compact");
+        try (FileOutputStream out = new FileOutputStream(compacted)) {
+            out.write(new byte[] { 0x51, 0x4A, 0x53, 0x4A, 0, 0, 0, 42 });
+        }
+
+        try {
+            journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+            List<JournaledSend> unsettled = journal.getUnsettled();
+            assertEquals(1, unsettled.size());
+            assertEquals("ID:2", unsettled.get(0).getMessageId());
+            assertFalse("Incomplete compaction should have been removed", compacted.exists());
+        } finally {
+            compacted.delete();
+        }
+    }
+
+    @Test
+    public void testAppendFailsWhenFull() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        byte[] large = new byte[1024];
+        try {
+            for (int i = 0; i < 8; ++i) {
+                journal.append("ID:" + i, new JmsQueue("queue"), Unpooled.wrappedBuffer(large));
+            }
+            fail("Should not be able to journal more sends than fit");
+        } catch (IOException e) {
+        }
+
+        assertEquals(3, journal.size());
+    }
+
+    @Test
+    public void testJournalCannotBeOpenedTwice() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+
+        try {
+            new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+            fail("Should not be able to open a journal that is in use");
+        } catch (IOException e) {
+        }
+    }
+
+    @Test
+    public void testRejectsFileThatIsNotAJournal() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(journalFile)) {
+            out.write(bytes("not a journal"));
+        }
+
+        try {
+            journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+            fail("Should not be able to open a file that is not a journal");
+        } catch (IOException e) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsSizeBelowMinimum() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE - 1);
+    }
+
+    @Test
+    public void testAppendAfterCloseFails() throws Exception {
+        journal = new FailoverSendJournal(journalFile, FailoverSendJournal.MINIMUM_SIZE);
+        journal.close();
+
+        try {
+            journal.append("ID:1", new JmsQueue("queue"), payload("one"));
+            fail("Should not be able to append to a closed journal");
+        } catch (IOException e) {
+        }
+    }
+
+    private static int indexOf(byte[] contents, byte[] value) {
+        for (int i = 0; i <= contents.length - value.length; ++i) {
+            boolean found = true;
+            for (int j = 0; j < value.length && found; ++j) {
+                found = contents[i + j] == value[j];
+            }
+
+            if (found) {
+                return i;
+            }
+        }
+
+        throw new AssertionError("Value not found in journal");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuf payload(String value) {
+        return Unpooled.wrappedBuffer(bytes(value));
+    }
+}
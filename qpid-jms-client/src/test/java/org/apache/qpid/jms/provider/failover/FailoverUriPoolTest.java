@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.qpid.jms.test.QpidJmsTestCase;
 import org.apache.qpid.jms.util.URISupport;
@@ -570,4 +571,80 @@ public class FailoverUriPoolTest extends QpidJmsTestCase {
 
         pool.removeAll();
     }
+
+    @Test
+    public void testDefaultSelectionStrategyIgnoresStatistics() {
+        FailoverUriPool pool = new FailoverUriPool(uris, null);
+        assertEquals(FailoverUriPool.DEFAULT_SELECTION_STRATEGY, pool.getSelectionStrategy());
+
+        pool.recordConnectFailure(uris.get(0));
+        pool.recordConnectSuccess(uris.get(1), TimeUnit.MILLISECONDS.toNanos(500));
+
+        for (URI uri : uris) {
+            assertEquals(uri, pool.getNext());
+        }
+    }
+
+    @Test
+    public void testWeightedSelectionPrefersLowestLatency() {
+        FailoverUriPool pool = new FailoverUriPool(uris, null);
+        pool.setSelectionStrategy(FailoverUriPool.SelectionStrategy.WEIGHTED);
+
+        pool.recordConnectSuccess(uris.get(0), TimeUnit.MILLISECONDS.toNanos(400));
+        pool.recordConnectSuccess(uris.get(1), TimeUnit.MILLISECONDS.toNanos(100));
+        pool.recordConnectSuccess(uris.get(2), TimeUnit.MILLISECONDS.toNanos(300));
+        pool.recordConnectSuccess(uris.get(3), TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertEquals(uris.get(1), pool.getNext());
+        assertEquals(uris.get(3), pool.getNext());
+        assertEquals(uris.get(2), pool.getNext());
+        assertEquals(uris.get(0), pool.getNext());
+    }
+
+    @Test
+    public void testWeightedSelectionPenalisesRecentFailures() {
+        FailoverUriPool pool = new FailoverUriPool(uris, null);
+        pool.setSelectionStrategy(FailoverUriPool.SelectionStrategy.WEIGHTED);
+
+        for (URI uri : uris) {
+            pool.recordConnectSuccess(uri, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        pool.recordConnectFailure(uris.get(0));
+
+        assertEquals(uris.get(1), pool.getNext());
+        assertEquals(uris.get(2), pool.getNext());
+        assertEquals(uris.get(3), pool.getNext());
+        assertEquals(uris.get(0), pool.getNext());
+
+        // A successful connect clears the failure penalty
+        pool.recordConnectSuccess(uris.get(0), TimeUnit.MILLISECONDS.toNanos(10));
+        pool.connected();
+
+        assertEquals(uris.get(0), pool.getNext());
+    }
+
+    @Test
+    public void testWeightedSelectionAppliesLoadHint() {
+        FailoverUriPool pool = new FailoverUriPool(uris.subList(0, 2), null);
+        pool.setSelectionStrategy(FailoverUriPool.SelectionStrategy.WEIGHTED);
+
+        pool.recordConnectSuccess(uris.get(0), TimeUnit.MILLISECONDS.toNanos(100));
+        pool.recordConnectSuccess(uris.get(1), TimeUnit.MILLISECONDS.toNanos(150));
+        pool.recordLoadHint(uris.get(0), 1.0);
+
+        assertEquals(uris.get(1), pool.getNext());
+        assertEquals(uris.get(0), pool.getNext());
+    }
+
+    @Test
+    public void testWeightedSelectionTriesUnknownRemotesFirst() {
+        FailoverUriPool pool = new FailoverUriPool(uris.subList(0, 2), null);
+        pool.setSelectionStrategy(FailoverUriPool.SelectionStrategy.WEIGHTED);
+
+        pool.recordConnectSuccess(uris.get(0), TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertEquals(uris.get(1), pool.getNext());
+        assertEquals(uris.get(0), pool.getNext());
+    }
 }
@@ -313,6 +313,36 @@ public class MockProvider implements Provider {
         });
     }
 
+    @Override
+    public void send(final List<JmsOutboundMessageDispatch> envelopes, final AsyncResult request) throws IOException, JMSException {
+        checkClosed();
+        serializer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    checkClosed();
+
+                    for (JmsOutboundMessageDispatch envelope : envelopes) {
+                        stats.recordSendCall();
+
+                        if (context != null) {
+                            context.recordSend(MockProvider.this, envelope);
+                        }
+
+                        // Put the message back to usable state following send complete
+                        envelope.getMessage().onSendComplete();
+                        envelope.setSendComplete(true);
+                    }
+
+                    request.onSuccess();
+                } catch (Exception error) {
+                    request.onFailure(error);
+                }
+            }
+        });
+    }
+
     @Override
     public void acknowledge(final JmsSessionId sessionId, final ACK_TYPE ackType, final AsyncResult request) throws IOException, JMSException {
         checkClosed();
@@ -439,6 +469,23 @@ public class MockProvider implements Provider {
         });
     }
 
+    @Override
+    public void grantCredit(final JmsConsumerId consumerId, final int credit, final AsyncResult request) throws IOException {
+        checkClosed();
+        serializer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    checkClosed();
+                    request.onSuccess();
+                } catch (Exception error) {
+                    request.onFailure(error);
+                }
+            }
+        });
+    }
+
     //----- API for generating provider events to a connection ---------------//
 
     public void signalConnectionFailed() {
@@ -46,6 +46,7 @@ public class TransportOptionsTest extends QpidJmsTestCase {
     public static final int LOCAL_PORT = 30000;
     public static final boolean TEST_USE_EPOLL_VALUE = !TransportOptions.DEFAULT_USE_EPOLL;
     public static final boolean TEST_TRACE_BYTES_VALUE = !TransportOptions.DEFAULT_TRACE_BYTES;
+    public static final int TEST_SHARED_EVENT_LOOP_THREADS = 4;
 
     private static final String PASSWORD = "password";
     private static final String CLIENT_KEYSTORE = "src/test/resources/client-jks.keystore";
@@ -93,6 +94,7 @@ public class TransportOptionsTest extends QpidJmsTestCase {
         assertNull(options.getTrustStorePassword());
         assertNull(options.getKeyAlias());
         assertNull(options.getSslContextOverride());
+        assertEquals(TransportOptions.DEFAULT_SHARED_EVENT_LOOP_THREADS, options.getSharedEventLoopThreads());
     }
 
     @Test
@@ -110,6 +112,7 @@ public class TransportOptionsTest extends QpidJmsTestCase {
         assertEquals(TEST_DEFAULT_TCP_PORT, options.getDefaultTcpPort());
         assertEquals(TEST_USE_EPOLL_VALUE, options.isUseEpoll());
         assertEquals(TEST_TRACE_BYTES_VALUE, options.isTraceBytes());
+        assertEquals(TEST_SHARED_EVENT_LOOP_THREADS, options.getSharedEventLoopThreads());
     }
 
     @Test
@@ -128,6 +131,7 @@ public class TransportOptionsTest extends QpidJmsTestCase {
         assertEquals(TEST_DEFAULT_SSL_PORT, options.getDefaultSslPort());
         assertEquals(TEST_USE_EPOLL_VALUE, options.isUseEpoll());
         assertEquals(TEST_TRACE_BYTES_VALUE, options.isTraceBytes());
+        assertEquals(TEST_SHARED_EVENT_LOOP_THREADS, options.getSharedEventLoopThreads());
         assertEquals(CLIENT_KEYSTORE, options.getKeyStoreLocation());
         assertEquals(PASSWORD, options.getKeyStorePassword());
         assertEquals(CLIENT_TRUSTSTORE, options.getTrustStoreLocation());
@@ -315,6 +319,7 @@ public class TransportOptionsTest extends QpidJmsTestCase {
         options.setDefaultSslPort(TEST_DEFAULT_SSL_PORT);
         options.setUseEpoll(TEST_USE_EPOLL_VALUE);
         options.setTraceBytes(TEST_TRACE_BYTES_VALUE);
+        options.setSharedEventLoopThreads(TEST_SHARED_EVENT_LOOP_THREADS);
         options.setKeyStoreLocation(CLIENT_KEYSTORE);
         options.setKeyStorePassword(PASSWORD);
         options.setTrustStoreLocation(CLIENT_TRUSTSTORE);
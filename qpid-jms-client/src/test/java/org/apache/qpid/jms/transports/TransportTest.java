@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.transports;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Tests for the default methods of the Transport interface.
+ */
+public class TransportTest extends QpidJmsTestCase {
+
+    @Test(timeout = 30000)
+    public void testDefaultTrackedWriteCopiesAndSignalsCompletion() throws Exception {
+        Transport transport = mock(Transport.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> Unpooled.buffer(invocation.<Integer>getArgument(0))).when(transport).allocateSendBuffer(anyInt());
+
+        final AtomicReference<ByteBuf> written = new AtomicReference<>();
+        doAnswer(invocation -> {
+            written.set(invocation.getArgument(0));
+            return null;
+        }).when(transport).write(any(ByteBuf.class));
+
+        byte[] data = "output".getBytes(StandardCharsets.UTF_8);
+        ByteBuf output = Unpooled.wrappedBuffer(data);
+        AtomicInteger completions = new AtomicInteger();
+
+        transport.write(output, () -> completions.incrementAndGet());
+
+        assertEquals(1, completions.get());
+        assertNotSame(output, written.get());
+        assertEquals(0, output.readerIndex());
+
+        byte[] copied = new byte[written.get().readableBytes()];
+        written.get().readBytes(copied);
+        assertArrayEquals(data, copied);
+
+        // The caller is free to reuse its buffer once the callback has run.
+        output.setByte(0, 'X');
+        assertEquals('o', copied[0]);
+    }
+
+    @Test(timeout = 30000)
+    public void testDefaultTrackedWriteFailureDoesNotSignalCompletion() throws Exception {
+        Transport transport = mock(Transport.class, withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+        doAnswer(invocation -> Unpooled.buffer(invocation.<Integer>getArgument(0))).when(transport).allocateSendBuffer(anyInt());
+        doThrow(new IOException("Not connected")).when(transport).write(any(ByteBuf.class));
+
+        AtomicInteger completions = new AtomicInteger();
+
+        try {
+            transport.write(Unpooled.wrappedBuffer(new byte[] { 1 }), () -> completions.incrementAndGet());
+        } catch (IOException e) {
+        }
+
+        assertEquals(0, completions.get());
+    }
+}
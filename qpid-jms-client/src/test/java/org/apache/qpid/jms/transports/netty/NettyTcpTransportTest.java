@@ -19,6 +19,7 @@ package org.apache.qpid.jms.transports.netty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -30,6 +31,7 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -49,6 +51,8 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.kqueue.KQueue;
@@ -134,6 +138,49 @@ public class NettyTcpTransportTest extends QpidJmsTestCase {
         assertTrue(data.isEmpty());
     }
 
+    @Test(timeout = 60 * 1000)
+    public void testConnectionsShareConfiguredEventLoopGroup() throws Exception {
+        try (NettyEchoServer server = createEchoServer(createServerOptions())) {
+            server.start();
+
+            int port = server.getServerPort();
+            URI serverLocation = new URI("tcp://localhost:" + port);
+
+            TransportOptions options = createClientOptions();
+            options.setSharedEventLoopThreads(2);
+
+            NettyTcpTransport transport1 = (NettyTcpTransport) createTransport(serverLocation, testListener, options);
+            NettyTcpTransport transport2 = (NettyTcpTransport) createTransport(serverLocation, testListener, options);
+
+            ScheduledExecutorService serializer1 = transport1.connect(null, null);
+            ScheduledExecutorService serializer2 = transport2.connect(null, null);
+
+            assertTrue(transport1.isConnected());
+            assertTrue(transport2.isConnected());
+
+            EventLoopGroup group = transport1.group;
+            assertSame("Transports should share an event loop group", group, transport2.group);
+            assertEquals(2, transport1.sharedGroup.getReferenceCount());
+
+            // Each connection is bound to its own loop from the group in round robin order
+            assertTrue(serializer1 instanceof EventLoop);
+            assertTrue(serializer2 instanceof EventLoop);
+            assertSame(group, ((EventLoop) serializer1).parent());
+            assertSame(group, ((EventLoop) serializer2).parent());
+            assertNotSame(serializer1, serializer2);
+
+            transport1.close();
+            assertFalse("Group should remain active while still referenced", group.isShuttingDown());
+
+            transport2.close();
+            assertTrue("Group should be shut down once no longer referenced", group.isShuttingDown());
+        }
+
+        assertTrue(!transportClosed);  // Normal shutdown does not trigger the event.
+        assertTrue(exceptions.isEmpty());
+        assertTrue(data.isEmpty());
+    }
+
     @Test(timeout = 60 * 1000)
     public void testConnectWithoutRunningServer() throws Exception {
         try (NettyEchoServer server = createEchoServer(createServerOptions())) {
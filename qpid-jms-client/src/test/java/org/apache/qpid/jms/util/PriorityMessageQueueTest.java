@@ -219,6 +219,34 @@ public class PriorityMessageQueueTest {
         assertTrue(queue.isEmpty());
     }
 
+    @Test
+    public void testRemoveFirstAfterLevelsEmptyAndRefill() throws JMSException {
+        JmsInboundMessageDispatch first = createEnvelope(5);
+        JmsInboundMessageDispatch second = createEnvelope(5);
+
+        queue.enqueue(createEnvelope(7));
+        queue.enqueue(first);
+        assertEquals(7, queue.dequeueNoWait().getMessage().getJMSPriority());
+
+        queue.enqueue(createEnvelope(2));
+        queue.enqueue(second);
+        queue.enqueue(createEnvelope(7));
+
+        assertEquals(7, queue.dequeueNoWait().getMessage().getJMSPriority());
+        assertSame(first, queue.dequeueNoWait());
+        assertSame(second, queue.dequeueNoWait());
+        assertEquals(2, queue.dequeueNoWait().getMessage().getJMSPriority());
+        assertNull(queue.dequeueNoWait());
+
+        queue.enqueue(createEnvelope(0));
+        queue.clear();
+        queue.enqueue(createEnvelope(3));
+
+        assertEquals(1, queue.size());
+        assertEquals(3, queue.dequeueNoWait().getMessage().getJMSPriority());
+        assertTrue(queue.isEmpty());
+    }
+
     @Test(timeout = 10000)
     public void testDequeueWaitsUntilMessageArrives() throws InterruptedException {
         doDequeueWaitsUntilMessageArrivesTestImpl(-1);
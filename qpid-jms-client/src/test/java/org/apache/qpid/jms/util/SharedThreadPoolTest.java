@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.Test;
+
+/**
+ * Test for the SharedThreadPool and the SerialExecutor instances it creates.
+ */
+public class SharedThreadPoolTest extends QpidJmsTestCase {
+
+    @Test(timeout = 10000)
+    public void testPoolSharedByThreadCountAndReferenceCounted() {
+        SharedThreadPool first = SharedThreadPool.acquire(3);
+        SharedThreadPool second = SharedThreadPool.acquire(3);
+        SharedThreadPool other = SharedThreadPool.acquire(4);
+
+        try {
+            assertSame(first, second);
+            assertNotSame(first, other);
+            assertEquals(2, first.getReferenceCount());
+            assertEquals(3, first.getThreads());
+
+            second.release();
+            assertEquals(1, first.getReferenceCount());
+        } finally {
+            first.release();
+            other.release();
+        }
+
+        SharedThreadPool next = SharedThreadPool.acquire(3);
+        try {
+            assertNotSame("Pool should have been replaced after last release", first, next);
+        } finally {
+            next.release();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSerialExecutorsRunTasksInOrderOnSharedThreads() throws Exception {
+        final int EXECUTORS = 20;
+        final int TASKS = 500;
+
+        SharedThreadPool pool = SharedThreadPool.acquire(2);
+        try {
+            List<List<Integer>> results = new ArrayList<>();
+            List<SerialExecutor> executors = new ArrayList<>();
+            List<AtomicBoolean> runningFlags = new ArrayList<>();
+            final AtomicBoolean overlapped = new AtomicBoolean();
+            final CountDownLatch done = new CountDownLatch(EXECUTORS * TASKS);
+
+            for (int i = 0; i < EXECUTORS; ++i) {
+                results.add(Collections.synchronizedList(new ArrayList<>()));
+                executors.add(pool.newSerialExecutor("test-" + i, null));
+                runningFlags.add(new AtomicBoolean());
+            }
+
+            for (int task = 0; task < TASKS; ++task) {
+                for (int i = 0; i < EXECUTORS; ++i) {
+                    final List<Integer> result = results.get(i);
+                    final AtomicBoolean running = runningFlags.get(i);
+                    final int value = task;
+
+                    executors.get(i).execute(() -> {
+                        if (!running.compareAndSet(false, true)) {
+                            overlapped.set(true);
+                        }
+                        result.add(value);
+                        running.set(false);
+                        done.countDown();
+                    });
+                }
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertFalse(overlapped.get());
+
+            for (List<Integer> result : results) {
+                assertEquals(TASKS, result.size());
+                for (int i = 0; i < TASKS; ++i) {
+                    assertEquals(Integer.valueOf(i), result.get(i));
+                }
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSerialExecutorTracksRunningThread() throws Exception {
+        SharedThreadPool pool = SharedThreadPool.acquire(1);
+        try {
+            final AtomicReference<Thread> tracker = new AtomicReference<>();
+            final AtomicReference<Thread> tracked = new AtomicReference<>();
+            SerialExecutor executor = pool.newSerialExecutor("tracked", tracker);
+
+            executor.submit(() -> tracked.set(tracker.get())).get(5, TimeUnit.SECONDS);
+
+            assertTrue(tracked.get().getName().startsWith("QpidJMS Shared Executor"));
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertNull("Tracker should be cleared once the executor gives up the thread", tracker.get());
+        } finally {
+            pool.release();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSerialExecutorShutdownRunsQueuedTasksAndDropsNewOnes() throws Exception {
+        SharedThreadPool pool = SharedThreadPool.acquire(1);
+        try {
+            final CountDownLatch blocked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicBoolean queuedRan = new AtomicBoolean();
+            final AtomicBoolean lateRan = new AtomicBoolean();
+
+            SerialExecutor executor = pool.newSerialExecutor("shutdown", null);
+            executor.execute(() -> {
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            });
+            executor.execute(() -> queuedRan.set(true));
+
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            executor.shutdown();
+            executor.execute(() -> lateRan.set(true));
+
+            assertTrue(executor.isShutdown());
+            assertFalse(executor.isTerminated());
+
+            release.countDown();
+
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(queuedRan.get());
+            assertFalse(lateRan.get());
+        } finally {
+            pool.release();
+        }
+    }
+}
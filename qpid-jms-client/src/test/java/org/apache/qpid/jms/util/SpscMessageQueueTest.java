@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+import org.apache.qpid.jms.message.JmsMessage;
+import org.apache.qpid.jms.message.facade.test.JmsTestMessageFacade;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the lock free single producer / single consumer message queue.
+ */
+public class SpscMessageQueueTest {
+
+    private SpscMessageQueue queue;
+    private final IdGenerator messageId = new IdGenerator();
+    private long sequence;
+
+    @Before
+    public void setUp() {
+        queue = new SpscMessageQueue();
+        queue.start();
+    }
+
+    @Test
+    public void testToString() {
+        assertNotNull(queue.toString());
+    }
+
+    @Test
+    public void testCreate() {
+        SpscMessageQueue queue = new SpscMessageQueue();
+
+        assertFalse(queue.isClosed());
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.isRunning());
+
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testClose() {
+        assertFalse(queue.isClosed());
+        assertTrue(queue.isRunning());
+        queue.close();
+        assertTrue(queue.isClosed());
+        assertFalse(queue.isRunning());
+        queue.close();
+    }
+
+    @Test
+    public void testDequeueWhenQueueIsClosed() throws InterruptedException {
+        queue.enqueue(createEnvelope());
+
+        assertFalse(queue.isEmpty());
+        queue.close();
+        assertNull(queue.dequeueNoWait());
+        assertNull(queue.dequeue(1L));
+    }
+
+    @Test
+    public void testDequeueWhenQueueIsStopped() throws InterruptedException {
+        JmsInboundMessageDispatch message = createEnvelope();
+        queue.enqueue(message);
+
+        queue.stop();
+        assertFalse(queue.isRunning());
+        assertNull(queue.dequeue(1L));
+        assertNull(queue.dequeueNoWait());
+        queue.start();
+        assertTrue(queue.isRunning());
+        assertSame(message, queue.dequeue(1L));
+    }
+
+    @Test
+    public void testEnqueueFirst() {
+        JmsInboundMessageDispatch message1 = createEnvelope();
+        JmsInboundMessageDispatch message2 = createEnvelope();
+        JmsInboundMessageDispatch message3 = createEnvelope();
+
+        queue.enqueueFirst(message1);
+        queue.enqueueFirst(message2);
+        queue.enqueueFirst(message3);
+
+        assertSame(message3, queue.dequeueNoWait());
+        assertSame(message2, queue.dequeueNoWait());
+        assertSame(message1, queue.dequeueNoWait());
+    }
+
+    @Test
+    public void testEnqueueFirstIsDequeuedAheadOfEnqueuedMessages() {
+        JmsInboundMessageDispatch message1 = createEnvelope();
+        JmsInboundMessageDispatch message2 = createEnvelope();
+        JmsInboundMessageDispatch message3 = createEnvelope();
+
+        queue.enqueue(message2);
+        queue.enqueue(message3);
+        queue.enqueueFirst(message1);
+
+        assertEquals(3, queue.size());
+
+        assertSame(message1, queue.dequeueNoWait());
+        assertSame(message2, queue.dequeueNoWait());
+        assertSame(message3, queue.dequeueNoWait());
+
+        assertEquals(0, queue.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i < 10; ++i) {
+            queue.enqueue(createEnvelope());
+        }
+        queue.enqueueFirst(createEnvelope());
+
+        assertFalse(queue.isEmpty());
+        assertEquals(11, queue.size());
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testDequeueInOrder() {
+        List<JmsInboundMessageDispatch> messages = new ArrayList<JmsInboundMessageDispatch>();
+        for (int i = 0; i < 10; ++i) {
+            JmsInboundMessageDispatch envelope = createEnvelope();
+            messages.add(envelope);
+            queue.enqueue(envelope);
+        }
+
+        for (JmsInboundMessageDispatch envelope : messages) {
+            assertSame(envelope, queue.dequeueNoWait());
+        }
+
+        assertNull(queue.dequeueNoWait());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testDequeueWaitsUntilMessageArrives() throws InterruptedException {
+        final JmsInboundMessageDispatch message = createEnvelope();
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(500);
+                } catch (InterruptedException e) {
+                }
+                queue.enqueue(message);
+            }
+        });
+        runner.start();
+
+        assertSame(message, queue.dequeue(-1));
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedDequeueWaitsUntilMessageArrives() throws InterruptedException {
+        final JmsInboundMessageDispatch message = createEnvelope();
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException e) {
+                }
+                queue.enqueue(message);
+            }
+        });
+        runner.start();
+
+        assertSame(message, queue.dequeue(100000));
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedDequeueReturnsNullAfterTimeout() throws InterruptedException {
+        long start = System.nanoTime();
+        assertNull(queue.dequeue(50));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(timeout = 10000)
+    public void testDequeueReturnsWhenQueueIsStopped() throws InterruptedException {
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException e) {
+                }
+                queue.stop();
+            }
+        });
+        runner.start();
+
+        assertNull(queue.dequeue(-1));
+    }
+
+    @Test(timeout = 10000)
+    public void testDequeueThrowsWhenInterrupted() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    queue.dequeue(-1);
+                } catch (Throwable error) {
+                    failure.set(error);
+                }
+            }
+        });
+        consumer.start();
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        consumer.interrupt();
+        consumer.join();
+
+        assertTrue(failure.get() instanceof InterruptedException);
+    }
+
+    @Test(timeout = 30000)
+    public void testMessagesFromProducerThreadArriveInOrder() throws Exception {
+        final int MESSAGE_COUNT = 100000;
+        final List<JmsInboundMessageDispatch> messages = new ArrayList<JmsInboundMessageDispatch>();
+        for (int i = 0; i < MESSAGE_COUNT; ++i) {
+            messages.add(createEnvelope());
+        }
+
+        Thread producer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                for (JmsInboundMessageDispatch envelope : messages) {
+                    queue.enqueue(envelope);
+                }
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < MESSAGE_COUNT; ++i) {
+            assertSame(messages.get(i), queue.dequeue(5000));
+        }
+
+        producer.join();
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testRestartingClosedQueueHasNoEffect() throws InterruptedException {
+        queue.enqueue(createEnvelope());
+
+        queue.stop();
+        queue.close();
+
+        assertTrue(queue.isClosed());
+        assertFalse(queue.isRunning());
+
+        queue.start();
+
+        assertTrue(queue.isClosed());
+        assertFalse(queue.isRunning());
+        assertNull(queue.dequeue(1L));
+    }
+
+    private JmsInboundMessageDispatch createEnvelope() {
+        JmsInboundMessageDispatch envelope = new JmsInboundMessageDispatch(sequence++);
+        envelope.setMessage(createMessage());
+        return envelope;
+    }
+
+    private JmsMessage createMessage() {
+        JmsTestMessageFacade facade = new JmsTestMessageFacade();
+        facade.setMessageId(messageId.generateId());
+        JmsMessage message = new JmsMessage(facade);
+
+        return message;
+    }
+}